@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.dontesta.quarkus.sse.eventbus.codec.PdfGenerationCompletedCodec;
+import it.dontesta.quarkus.sse.eventbus.codec.PdfGenerationErrorCodec;
+import it.dontesta.quarkus.sse.eventbus.codec.PdfGenerationRequestCodec;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationError;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationRequest;
+
+/**
+ * Measures the {@code transform} step of the local event bus codecs, invoked by
+ * Vert.x for every message delivered on the local event bus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    private PdfGenerationRequestCodec requestCodec;
+    private PdfGenerationCompletedCodec completedCodec;
+    private PdfGenerationErrorCodec errorCodec;
+    private PdfGenerationRequest request;
+    private PdfGenerationCompleted completed;
+    private PdfGenerationError error;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        requestCodec = new PdfGenerationRequestCodec();
+        completedCodec = new PdfGenerationCompletedCodec();
+        errorCodec = new PdfGenerationErrorCodec();
+        String processId = UUID.randomUUID().toString();
+        request = new PdfGenerationRequest(processId);
+        completed = new PdfGenerationCompleted(processId, "/api/pdf/download/" + processId);
+        error = new PdfGenerationError(processId, "Failed to process PDF generation: benchmark");
+    }
+
+    @Benchmark
+    public PdfGenerationRequest requestTransform() {
+        return requestCodec.transform(request);
+    }
+
+    @Benchmark
+    public PdfGenerationCompleted completedTransform() {
+        return completedCodec.transform(completed);
+    }
+
+    @Benchmark
+    public PdfGenerationError errorTransform() {
+        return errorCodec.transform(error);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fugerit.java.doc.base.config.DocConfig;
+import org.fugerit.java.doc.base.process.DocProcessContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.dontesta.quarkus.sse.fjdoc.DocHelper;
+
+/**
+ * Measures {@code DocHelper.getDocProcessConfig().fullProcess} — FreeMarker
+ * templating plus FOP layout — for each document chain and data size, the same
+ * call {@code PdfEventProcessor} makes on its worker threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DocRenderBenchmark {
+
+    @Param({"simple-document", "complex-document"})
+    String chainId;
+
+    /** Number of rows in {@code listPeople} (only rendered by the complex document). */
+    @Param({"3", "500", "5000"})
+    int rows;
+
+    private DocHelper docHelper;
+    private List<Map<String, String>> people;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        docHelper = new DocHelper();
+        people = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            people.add(Map.of("name", "Name" + i, "surname", "Surname" + i, "title", "Title" + (i % 10)));
+        }
+    }
+
+    @Benchmark
+    public byte[] renderPdf() throws Exception {
+        DocProcessContext context = DocProcessContext.newContext("processId", "benchmark");
+        context.setAttribute("listPeople", people);
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            docHelper.getDocProcessConfig().fullProcess(chainId, context, DocConfig.TYPE_PDF, baos);
+            return baos.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationError;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationRequest;
+
+/**
+ * Measures the Jackson round trip (serialize + deserialize) of the model
+ * records, as performed for every Redis Pub/Sub message and pending-buffer entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PdfGenerationRequest request;
+    private PdfGenerationCompleted completed;
+    private PdfGenerationError error;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        String processId = UUID.randomUUID().toString();
+        request = new PdfGenerationRequest(processId);
+        completed = new PdfGenerationCompleted(processId, "/api/pdf/download/" + processId);
+        error = new PdfGenerationError(processId, "Failed to process PDF generation: benchmark");
+    }
+
+    @Benchmark
+    public PdfGenerationRequest requestRoundTrip() throws JsonProcessingException {
+        return objectMapper.readValue(objectMapper.writeValueAsString(request), PdfGenerationRequest.class);
+    }
+
+    @Benchmark
+    public PdfGenerationCompleted completedRoundTrip() throws JsonProcessingException {
+        return objectMapper.readValue(objectMapper.writeValueAsString(completed), PdfGenerationCompleted.class);
+    }
+
+    @Benchmark
+    public PdfGenerationError errorRoundTrip() throws JsonProcessingException {
+        return objectMapper.readValue(objectMapper.writeValueAsString(error), PdfGenerationError.class);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.sse;
+
+import java.lang.reflect.Type;
+
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+
+/**
+ * Minimal {@link Sse} implementation used outside the Quarkus runtime: it only
+ * builds immutable {@link OutboundSseEvent} instances, which is all
+ * {@link SseBroadcaster} needs on its dispatch path.
+ */
+class BenchmarkSse implements Sse {
+
+    @Override
+    public OutboundSseEvent.Builder newEventBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public jakarta.ws.rs.sse.SseBroadcaster newBroadcaster() {
+        throw new UnsupportedOperationException("Not needed by the benchmarks");
+    }
+
+    private record Event(String id, String name, String comment, long reconnectDelay, MediaType mediaType,
+            Class<?> type, Type genericType, Object data) implements OutboundSseEvent {
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getComment() {
+            return comment;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return reconnectDelay != RECONNECT_NOT_SET;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public Type getGenericType() {
+            return genericType;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        @Override
+        public Object getData() {
+            return data;
+        }
+    }
+
+    private static final class Builder implements OutboundSseEvent.Builder {
+
+        private String id;
+        private String name;
+        private String comment;
+        private long reconnectDelay = OutboundSseEvent.RECONNECT_NOT_SET;
+        private MediaType mediaType = MediaType.TEXT_PLAIN_TYPE;
+        private Class<?> type;
+        private Type genericType;
+        private Object data;
+
+        @Override
+        public OutboundSseEvent.Builder id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder reconnectDelay(long milliseconds) {
+            this.reconnectDelay = milliseconds;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder mediaType(MediaType mediaType) {
+            this.mediaType = mediaType;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder comment(String comment) {
+            this.comment = comment;
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public OutboundSseEvent.Builder data(Class type, Object data) {
+            this.type = type;
+            this.genericType = type;
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public OutboundSseEvent.Builder data(GenericType type, Object data) {
+            this.type = type.getRawType();
+            this.genericType = type.getType();
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(Object data) {
+            return data(data.getClass(), data);
+        }
+
+        @Override
+        public OutboundSseEvent build() {
+            return new Event(id, name, comment, reconnectDelay, mediaType, type, genericType, data);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.sse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import it.dontesta.quarkus.sse.eventbus.metrics.PipelineStageMetrics;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
+import it.dontesta.quarkus.sse.tracing.TracePropagation;
+
+/**
+ * Measures the delivery of a completion event received from Redis Pub/Sub
+ * ({@code onCompletedMessage}: JSON decoding, processor lookup, SSE event
+ * build and emission) while {@code registeredProcessors} other SSE streams are
+ * registered on the same instance.
+ *
+ * <p>Each invocation registers the processor of the target process first,
+ * because a delivered event completes and removes its processor. The Redis
+ * pending-buffer path is never taken.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseDispatchBenchmark {
+
+    private static final int TARGETS = 1024;
+
+    @Param({"0", "1000", "10000"})
+    int registeredProcessors;
+
+    private SseBroadcaster broadcaster;
+    private String[] targetIds;
+    private String[] targetJson;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        broadcaster = new SseBroadcaster();
+        broadcaster.sse = new BenchmarkSse();
+        broadcaster.objectMapper = objectMapper;
+        broadcaster.meterRegistry = new SimpleMeterRegistry();
+        broadcaster.stageMetrics = new PipelineStageMetrics(broadcaster.meterRegistry,
+                new ReplicaIdentity("benchmark"), List.of(Duration.ofMillis(1), Duration.ofMillis(10)));
+        broadcaster.tracer = OpenTelemetry.noop().getTracer("benchmark");
+        broadcaster.tracePropagation = new TracePropagation(OpenTelemetry.noop());
+        broadcaster.initializeMetrics();
+
+        for (int i = 0; i < registeredProcessors; i++) {
+            broadcaster.registerProcessor(UUID.randomUUID().toString()).subscribe().with(event -> { });
+        }
+
+        targetIds = new String[TARGETS];
+        targetJson = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            String processId = UUID.randomUUID().toString();
+            targetIds[i] = processId;
+            targetJson[i] = objectMapper.writeValueAsString(
+                    new PdfGenerationCompleted(processId, "/api/pdf/download/" + processId));
+        }
+    }
+
+    @Benchmark
+    public void dispatchCompleted(Blackhole blackhole) {
+        int index = cursor++ & (TARGETS - 1);
+        broadcaster.registerProcessor(targetIds[index]).subscribe().with(blackhole::consume);
+        broadcaster.onCompletedMessage(targetJson[index]);
+    }
+}
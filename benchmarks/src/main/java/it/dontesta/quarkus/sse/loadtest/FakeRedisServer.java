@@ -0,0 +1,805 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import it.dontesta.quarkus.sse.ratelimit.TokenBucketRateLimiter;
+
+/**
+ * In-JVM Redis stand-in speaking RESP2 over a loopback socket.
+ *
+ * <p>It implements the subset of commands used by the application — strings
+ * with TTLs, hashes, sorted sets, classic and sharded Pub/Sub — with the same single-threaded semantics as Redis:
+ * every data command runs under one lock, so atomic commands ({@code SET NX},
+ * {@code GETDEL}, ...) behave as they do on a real server. Keys expire lazily
+ * on access and through a periodic sweep. {@code HELLO} is rejected so that
+ * clients fall back to RESP2.
+ *
+ * <p>There is no Lua interpreter: {@code EVAL}, {@code EVALSHA} and
+ * {@code SCRIPT LOAD} run the Java ports of the scripts of the application,
+ * registered by their source ({@link #registerScript}); the token bucket of the
+ * rate limiter is registered by {@link #start()}. A script runs under the data
+ * lock, atomically as in Redis.
+ *
+ * <p>Each connection is served by its own virtual thread.
+ */
+public final class FakeRedisServer implements AutoCloseable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    /** The keyspace operations available to a script. */
+    public interface Keyspace {
+
+        /**
+         * @return the hash stored at {@code key}, created empty if missing
+         */
+        Map<String, String> hash(String key);
+
+        /** Sets the time to live of {@code key}, in milliseconds. */
+        void pexpire(String key, long millis);
+    }
+
+    /** The Java port of a Lua script. */
+    @FunctionalInterface
+    public interface Script {
+
+        /**
+         * @return the reply: a {@link Long}, a {@link String}, {@code null} or a {@link List} of them
+         */
+        Object run(Keyspace keyspace, List<String> keys, List<String> args);
+    }
+
+    /** A sorted-set member, ordered by score then member as in Redis. */
+    private record ScoredMember(double score, String member) implements Comparable<ScoredMember> {
+        @Override
+        public int compareTo(ScoredMember other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : member.compareTo(other.member);
+        }
+    }
+
+    private static final class SortedSet {
+        final Map<String, Double> scores = new HashMap<>();
+        final TreeSet<ScoredMember> ordered = new TreeSet<>();
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+
+    // Keyspace: values are String, Map<String, String> or SortedSet.
+    private final Map<String, Object> data = new HashMap<>();
+    private final Map<String, Long> expiresAt = new HashMap<>();
+
+    private final Map<String, Set<Connection>> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> shardChannels = new ConcurrentHashMap<>();
+
+    /** Registered scripts by SHA1 of their source, and the SHA1s loaded by EVAL or SCRIPT LOAD. */
+    private final Map<String, Script> scripts = new ConcurrentHashMap<>();
+    private final Set<String> loadedScripts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong commandsProcessed = new AtomicLong();
+    private final AtomicLong messagesPublished = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private FakeRedisServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Starts a server listening on an ephemeral loopback port.
+     *
+     * @return the running server
+     * @throws IOException if the socket cannot be bound
+     */
+    public static FakeRedisServer start() throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        FakeRedisServer server = new FakeRedisServer(socket);
+        server.registerScript(TokenBucketRateLimiter.TOKEN_BUCKET_SCRIPT, new TokenBucketScript());
+        server.connections.submit(server::acceptLoop);
+        server.sweeper.scheduleAtFixedRate(server::sweepExpired, 1, 1, TimeUnit.SECONDS);
+        return server;
+    }
+
+    /**
+     * Runs {@code script} for the {@code EVAL} of {@code source}, and for the
+     * {@code EVALSHA} of its SHA1 once loaded.
+     */
+    public void registerScript(String source, Script script) {
+        scripts.put(sha1Hex(source), script);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long commandsProcessed() {
+        return commandsProcessed.get();
+    }
+
+    public long messagesPublished() {
+        return messagesPublished.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        sweeper.shutdownNow();
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.submit(() -> new Connection(socket).serve());
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("FakeRedisServer accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (data) {
+            Iterator<Map.Entry<String, Long>> it = expiresAt.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() <= now) {
+                    data.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /** A client connection: parses commands and serializes replies and pushes. */
+    private final class Connection implements Keyspace {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+        private final Set<String> shardSubscriptions = ConcurrentHashMap.newKeySet();
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            try {
+                this.in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+                this.out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void serve() {
+            try (socket) {
+                while (running) {
+                    List<String> command = readCommand();
+                    if (command == null) {
+                        break;
+                    }
+                    if (command.isEmpty()) {
+                        continue;
+                    }
+                    commandsProcessed.incrementAndGet();
+                    synchronized (out) {
+                        boolean keepOpen = execute(command);
+                        // Flush once the pipeline drained: replies of pipelined commands are batched.
+                        if (in.available() == 0) {
+                            out.flush();
+                        }
+                        if (!keepOpen) {
+                            out.flush();
+                            break;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away.
+            } finally {
+                subscriptions.forEach(channel -> unsubscribe(channels, channel));
+                shardSubscriptions.forEach(channel -> unsubscribe(shardChannels, channel));
+            }
+        }
+
+        private List<String> readCommand() throws IOException {
+            int first = in.read();
+            if (first == -1) {
+                return null;
+            }
+            if (first != '*') {
+                // Inline command (e.g. "PING\r\n" typed in telnet).
+                String line = (char) first + readLine();
+                return line.isBlank() ? List.of() : List.of(line.trim().split("\\s+"));
+            }
+            int count = Integer.parseInt(readLine());
+            List<String> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (in.read() != '$') {
+                    throw new IOException("Protocol error: expected bulk string");
+                }
+                int length = Integer.parseInt(readLine());
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length != length) {
+                    throw new EOFException();
+                }
+                in.skipNBytes(2);
+                args.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return args;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c == -1) {
+                    throw new EOFException();
+                }
+                line.append((char) c);
+            }
+            in.read(); // '\n'
+            return line.toString();
+        }
+
+        /** Executes one command; returns {@code false} when the connection must be closed. */
+        private boolean execute(List<String> command) throws IOException {
+            String name = command.get(0).toUpperCase(Locale.ROOT);
+            List<String> args = command.subList(1, command.size());
+            switch (name) {
+                case "HELLO" -> error("ERR unknown command 'HELLO'");
+                case "AUTH", "SELECT", "CLIENT", "FLUSHALL" -> {
+                    if ("FLUSHALL".equals(name)) {
+                        synchronized (data) {
+                            data.clear();
+                            expiresAt.clear();
+                        }
+                    }
+                    simple("OK");
+                }
+                case "QUIT" -> {
+                    simple("OK");
+                    return false;
+                }
+                case "PING" -> {
+                    if (args.isEmpty()) {
+                        simple("PONG");
+                    } else {
+                        bulk(args.get(0));
+                    }
+                }
+                case "ECHO" -> bulk(args.get(0));
+                case "INFO" -> bulk("# Server\r\nredis_version:7.2.0\r\nredis_mode:standalone\r\n");
+                case "COMMAND" -> arrayHeader(0);
+                case "SCRIPT" -> script(args);
+                case "PUBLISH" -> integer(publish(channels, "message", args.get(0), args.get(1)));
+                case "SPUBLISH" -> integer(publish(shardChannels, "smessage", args.get(0), args.get(1)));
+                case "SUBSCRIBE" -> subscribe(channels, subscriptions, "subscribe", args);
+                case "SSUBSCRIBE" -> subscribe(shardChannels, shardSubscriptions, "ssubscribe", args);
+                case "UNSUBSCRIBE" -> unsubscribeAll(channels, subscriptions, "unsubscribe", args);
+                case "SUNSUBSCRIBE" -> unsubscribeAll(shardChannels, shardSubscriptions, "sunsubscribe", args);
+                default -> {
+                    try {
+                        synchronized (data) {
+                            executeDataCommand(name, args);
+                        }
+                    } catch (WrongTypeException e) {
+                        error(e.getMessage());
+                    } catch (NumberFormatException e) {
+                        error("ERR value is not an integer or out of range");
+                    } catch (IndexOutOfBoundsException e) {
+                        error("ERR wrong number of arguments for '" + name.toLowerCase(Locale.ROOT) + "' command");
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void executeDataCommand(String name, List<String> args) throws IOException {
+            switch (name) {
+                case "EVAL", "EVALSHA" -> {
+                    String sha = "EVAL".equals(name) ? sha1Hex(args.get(0)) : args.get(0).toLowerCase(Locale.ROOT);
+                    Script script = scripts.get(sha);
+                    if ("EVAL".equals(name) && script == null) {
+                        error("ERR the load-test Redis stand-in only runs the registered scripts");
+                    } else if ("EVALSHA".equals(name) && !loadedScripts.contains(sha)) {
+                        error("NOSCRIPT No matching script. Please use EVAL.");
+                    } else {
+                        loadedScripts.add(sha);
+                        int numKeys = Integer.parseInt(args.get(1));
+                        reply(script.run(this, args.subList(2, 2 + numKeys), args.subList(2 + numKeys, args.size())));
+                    }
+                }
+                case "GET" -> bulk(string(args.get(0)));
+                case "SET" -> set(args);
+                case "SETEX" -> {
+                    put(args.get(0), args.get(2), System.currentTimeMillis() + Long.parseLong(args.get(1)) * 1000);
+                    simple("OK");
+                }
+                case "GETDEL" -> {
+                    String value = string(args.get(0));
+                    remove(args.get(0));
+                    bulk(value);
+                }
+                case "DEL", "UNLINK" -> {
+                    long removed = 0;
+                    for (String key : args) {
+                        if (live(key) != null) {
+                            remove(key);
+                            removed++;
+                        }
+                    }
+                    integer(removed);
+                }
+                case "EXISTS" -> integer(args.stream().filter(key -> live(key) != null).count());
+                case "EXPIRE", "PEXPIRE" -> {
+                    long amount = Long.parseLong(args.get(1));
+                    if (live(args.get(0)) == null) {
+                        integer(0);
+                    } else {
+                        expiresAt.put(args.get(0),
+                                System.currentTimeMillis() + ("EXPIRE".equals(name) ? amount * 1000 : amount));
+                        integer(1);
+                    }
+                }
+                case "TTL", "PTTL" -> {
+                    if (live(args.get(0)) == null) {
+                        integer(-2);
+                    } else {
+                        Long expiry = expiresAt.get(args.get(0));
+                        long remaining = expiry == null ? -1 : expiry - System.currentTimeMillis();
+                        integer(expiry == null ? -1 : "TTL".equals(name) ? (remaining + 999) / 1000 : remaining);
+                    }
+                }
+                case "HSET" -> {
+                    Map<String, String> hash = hash(args.get(0), true);
+                    long added = 0;
+                    for (int i = 1; i + 1 < args.size(); i += 2) {
+                        if (hash.put(args.get(i), args.get(i + 1)) == null) {
+                            added++;
+                        }
+                    }
+                    integer(added);
+                }
+                case "HMGET" -> {
+                    Map<String, String> hash = hash(args.get(0), false);
+                    arrayHeader(args.size() - 1);
+                    for (String field : args.subList(1, args.size())) {
+                        bulk(hash == null ? null : hash.get(field));
+                    }
+                }
+                case "ZADD" -> {
+                    SortedSet zset = sortedSet(args.get(0), true);
+                    int i = 1;
+                    while (i < args.size() && !isNumber(args.get(i))) {
+                        i++; // NX, XX, GT, LT, CH flags are accepted and ignored
+                    }
+                    long added = 0;
+                    for (; i + 1 < args.size(); i += 2) {
+                        double score = parseScore(args.get(i));
+                        String member = args.get(i + 1);
+                        Double previous = zset.scores.put(member, score);
+                        if (previous != null) {
+                            zset.ordered.remove(new ScoredMember(previous, member));
+                        } else {
+                            added++;
+                        }
+                        zset.ordered.add(new ScoredMember(score, member));
+                    }
+                    integer(added);
+                }
+                case "ZREM" -> {
+                    SortedSet zset = sortedSet(args.get(0), false);
+                    long removed = 0;
+                    if (zset != null) {
+                        for (String member : args.subList(1, args.size())) {
+                            Double score = zset.scores.remove(member);
+                            if (score != null) {
+                                zset.ordered.remove(new ScoredMember(score, member));
+                                removed++;
+                            }
+                        }
+                        if (zset.scores.isEmpty()) {
+                            remove(args.get(0));
+                        }
+                    }
+                    integer(removed);
+                }
+                case "ZRANGEBYSCORE" -> zrangeByScore(args);
+                default -> error("ERR unknown command '" + name + "'");
+            }
+        }
+
+        private void set(List<String> args) throws IOException {
+            String key = args.get(0);
+            Long expiry = null;
+            boolean nx = false;
+            boolean xx = false;
+            boolean get = false;
+            boolean keepTtl = false;
+            for (int i = 2; i < args.size(); i++) {
+                switch (args.get(i).toUpperCase(Locale.ROOT)) {
+                    case "EX" -> expiry = System.currentTimeMillis() + Long.parseLong(args.get(++i)) * 1000;
+                    case "PX" -> expiry = System.currentTimeMillis() + Long.parseLong(args.get(++i));
+                    case "EXAT" -> expiry = Long.parseLong(args.get(++i)) * 1000;
+                    case "PXAT" -> expiry = Long.parseLong(args.get(++i));
+                    case "NX" -> nx = true;
+                    case "XX" -> xx = true;
+                    case "GET" -> get = true;
+                    case "KEEPTTL" -> keepTtl = true;
+                    default -> {
+                        error("ERR syntax error");
+                        return;
+                    }
+                }
+            }
+            Object current = live(key);
+            String previous = current instanceof String s ? s : null;
+            boolean apply = !(nx && current != null) && !(xx && current == null);
+            if (apply) {
+                Long keptExpiry = keepTtl ? expiresAt.get(key) : null;
+                put(key, args.get(1), keepTtl ? keptExpiry : expiry);
+            }
+            if (get) {
+                bulk(previous);
+            } else if (apply) {
+                simple("OK");
+            } else {
+                bulk(null);
+            }
+        }
+
+        private void zrangeByScore(List<String> args) throws IOException {
+            SortedSet zset = sortedSet(args.get(0), false);
+            Bound min = Bound.parse(args.get(1));
+            Bound max = Bound.parse(args.get(2));
+            boolean withScores = false;
+            long offset = 0;
+            long count = Long.MAX_VALUE;
+            for (int i = 3; i < args.size(); i++) {
+                String option = args.get(i).toUpperCase(Locale.ROOT);
+                if ("WITHSCORES".equals(option)) {
+                    withScores = true;
+                } else if ("LIMIT".equals(option)) {
+                    offset = Long.parseLong(args.get(++i));
+                    count = Long.parseLong(args.get(++i));
+                    if (count < 0) {
+                        count = Long.MAX_VALUE;
+                    }
+                }
+            }
+            List<ScoredMember> result = new ArrayList<>();
+            if (zset != null) {
+                long skipped = 0;
+                for (ScoredMember member : zset.ordered) {
+                    if (!min.belowOrAt(member.score())) {
+                        continue;
+                    }
+                    if (!max.aboveOrAt(member.score()) || result.size() >= count) {
+                        break;
+                    }
+                    if (skipped++ < offset) {
+                        continue;
+                    }
+                    result.add(member);
+                }
+            }
+            arrayHeader(withScores ? result.size() * 2 : result.size());
+            for (ScoredMember member : result) {
+                bulk(member.member());
+                if (withScores) {
+                    bulk(formatScore(member.score()));
+                }
+            }
+        }
+
+        private void script(List<String> args) throws IOException {
+            switch (args.get(0).toUpperCase(Locale.ROOT)) {
+                case "LOAD" -> {
+                    String sha = sha1Hex(args.get(1));
+                    if (scripts.containsKey(sha)) {
+                        loadedScripts.add(sha);
+                        bulk(sha);
+                    } else {
+                        error("ERR the load-test Redis stand-in only runs the registered scripts");
+                    }
+                }
+                case "EXISTS" -> {
+                    arrayHeader(args.size() - 1);
+                    for (String sha : args.subList(1, args.size())) {
+                        integer(loadedScripts.contains(sha.toLowerCase(Locale.ROOT)) ? 1 : 0);
+                    }
+                }
+                case "FLUSH" -> {
+                    loadedScripts.clear();
+                    simple("OK");
+                }
+                default -> error("ERR unknown subcommand '" + args.get(0) + "'");
+            }
+        }
+
+        private void subscribe(Map<String, Set<Connection>> registry, Set<String> own, String kind,
+                List<String> names) throws IOException {
+            for (String channel : names) {
+                registry.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(this);
+                own.add(channel);
+                arrayHeader(3);
+                bulk(kind);
+                bulk(channel);
+                integer(subscriptions.size() + shardSubscriptions.size());
+            }
+        }
+
+        private void unsubscribeAll(Map<String, Set<Connection>> registry, Set<String> own, String kind,
+                List<String> names) throws IOException {
+            List<String> targets = names.isEmpty() ? new ArrayList<>(own) : names;
+            if (targets.isEmpty()) {
+                arrayHeader(3);
+                bulk(kind);
+                bulk(null);
+                integer(0);
+            }
+            for (String channel : targets) {
+                own.remove(channel);
+                unsubscribe(registry, channel);
+                arrayHeader(3);
+                bulk(kind);
+                bulk(channel);
+                integer(subscriptions.size() + shardSubscriptions.size());
+            }
+        }
+
+        private void unsubscribe(Map<String, Set<Connection>> registry, String channel) {
+            registry.computeIfPresent(channel, (c, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+
+        private long publish(Map<String, Set<Connection>> registry, String kind, String channel, String message) {
+            messagesPublished.incrementAndGet();
+            Set<Connection> subscribers = registry.getOrDefault(channel, Set.of());
+            long delivered = 0;
+            for (Connection subscriber : subscribers) {
+                if (subscriber.push(kind, channel, message)) {
+                    delivered++;
+                }
+            }
+            return delivered;
+        }
+
+        /** Writes a Pub/Sub message to this (subscribed) connection from another connection's thread. */
+        private boolean push(String kind, String channel, String message) {
+            if (subscriptions.isEmpty() && shardSubscriptions.isEmpty()) {
+                return false;
+            }
+            synchronized (out) {
+                try {
+                    arrayHeader(3);
+                    bulk(kind);
+                    bulk(channel);
+                    bulk(message);
+                    out.flush();
+                    return true;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+        }
+
+        // ── Keyspace helpers (caller holds the data lock) ───────────────────
+
+        private Object live(String key) {
+            Long expiry = expiresAt.get(key);
+            if (expiry != null && expiry <= System.currentTimeMillis()) {
+                remove(key);
+                return null;
+            }
+            return data.get(key);
+        }
+
+        private void put(String key, Object value, Long expiry) {
+            data.put(key, value);
+            if (expiry == null) {
+                expiresAt.remove(key);
+            } else {
+                expiresAt.put(key, expiry);
+            }
+        }
+
+        private void remove(String key) {
+            data.remove(key);
+            expiresAt.remove(key);
+        }
+
+        private String string(String key) {
+            Object value = live(key);
+            if (value != null && !(value instanceof String)) {
+                throw new WrongTypeException();
+            }
+            return (String) value;
+        }
+
+        @Override
+        public Map<String, String> hash(String key) {
+            return hash(key, true);
+        }
+
+        @Override
+        public void pexpire(String key, long millis) {
+            if (live(key) != null) {
+                expiresAt.put(key, System.currentTimeMillis() + millis);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, String> hash(String key, boolean create) {
+            Object value = live(key);
+            if (value == null && create) {
+                value = new LinkedHashMap<String, String>();
+                data.put(key, value);
+            }
+            if (value != null && !(value instanceof Map)) {
+                throw new WrongTypeException();
+            }
+            return (Map<String, String>) value;
+        }
+
+        private SortedSet sortedSet(String key, boolean create) {
+            Object value = live(key);
+            if (value == null && create) {
+                value = new SortedSet();
+                data.put(key, value);
+            }
+            if (value != null && !(value instanceof SortedSet)) {
+                throw new WrongTypeException();
+            }
+            return (SortedSet) value;
+        }
+
+        // ── RESP2 serialization (caller holds the output lock) ──────────────
+
+        private void simple(String value) throws IOException {
+            out.write(('+' + value).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        }
+
+        private void error(String message) throws IOException {
+            out.write(('-' + message).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        }
+
+        private void integer(long value) throws IOException {
+            out.write((":" + value).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        }
+
+        private void bulk(String value) throws IOException {
+            if (value == null) {
+                out.write("$-1".getBytes(StandardCharsets.UTF_8));
+                out.write(CRLF);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.write(("$" + bytes.length).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+
+        private void reply(Object value) throws IOException {
+            if (value instanceof Long number) {
+                integer(number);
+            } else if (value instanceof List<?> list) {
+                arrayHeader(list.size());
+                for (Object item : list) {
+                    reply(item);
+                }
+            } else {
+                bulk((String) value);
+            }
+        }
+
+        private void arrayHeader(int size) throws IOException {
+            out.write(("*" + size).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        }
+    }
+
+    /** Raised when a command targets a key holding another type; answered as a WRONGTYPE error. */
+    private static final class WrongTypeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        WrongTypeException() {
+            super("WRONGTYPE Operation against a key holding the wrong kind of value", null, false, false);
+        }
+    }
+
+    /** A ZRANGEBYSCORE bound: {@code -inf}, {@code +inf}, {@code 1.5} or exclusive {@code (1.5}. */
+    private record Bound(double value, boolean exclusive) {
+
+        static Bound parse(String text) {
+            boolean exclusive = text.startsWith("(");
+            return new Bound(parseScore(exclusive ? text.substring(1) : text), exclusive);
+        }
+
+        boolean belowOrAt(double score) {
+            return exclusive ? value < score : value <= score;
+        }
+
+        boolean aboveOrAt(double score) {
+            return exclusive ? score < value : score <= value;
+        }
+    }
+
+    private static double parseScore(String text) {
+        return switch (text.toLowerCase(Locale.ROOT)) {
+            case "-inf" -> Double.NEGATIVE_INFINITY;
+            case "+inf", "inf" -> Double.POSITIVE_INFINITY;
+            default -> Double.parseDouble(text);
+        };
+    }
+
+    private static boolean isNumber(String text) {
+        try {
+            parseScore(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String sha1Hex(String source) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static String formatScore(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score)
+                ? Long.toString((long) score)
+                : Double.toString(score);
+    }
+}
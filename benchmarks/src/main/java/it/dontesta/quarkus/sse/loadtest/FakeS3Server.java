@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-JVM S3-compatible stand-in for MinIO, serving path-style requests on a
+ * loopback port.
+ *
+ * <p>Supported operations are the ones the MinIO Java client issues for this
+ * application: bucket location, {@code HEAD}/{@code PUT} bucket, object
+ * {@code PUT}/{@code GET}/{@code HEAD}/{@code DELETE}, multi-object delete and
+ * {@code ListObjectsV2}. Request signatures are not verified. Objects are kept
+ * in memory; the total stored size is exposed to the harness report.
+ */
+public final class FakeS3Server implements AutoCloseable {
+
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ISO_INSTANT;
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private record StoredObject(byte[] content, String contentType, String etag, Instant lastModified) {
+    }
+
+    private final HttpServer server;
+    private final Map<String, NavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    private FakeS3Server(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts a server listening on an ephemeral loopback port.
+     *
+     * @return the running server
+     * @throws IOException if the socket cannot be bound
+     */
+    public static FakeS3Server start() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        FakeS3Server fake = new FakeS3Server(httpServer);
+        httpServer.createContext("/", fake::handle);
+        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        httpServer.start();
+        return fake;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public long storedBytes() {
+        return storedBytes.get();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long objectCount() {
+        return buckets.values().stream().mapToLong(Map::size).sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String[] parts = path.substring(1).split("/", 2);
+            String bucket = URLDecoder.decode(parts[0], StandardCharsets.UTF_8);
+            String key = parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "";
+            String method = exchange.getRequestMethod();
+
+            if (bucket.isEmpty()) {
+                sendError(exchange, 400, "InvalidBucketName", "Bucket name is required");
+            } else if (key.isEmpty()) {
+                handleBucket(exchange, method, bucket, query);
+            } else {
+                handleObject(exchange, method, bucket, key);
+            }
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucket, Map<String, String> query)
+            throws IOException {
+        NavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        if (query.containsKey("location")) {
+            sendXml(exchange, 200, "<LocationConstraint xmlns=\"" + S3_NAMESPACE + "\">us-east-1</LocationConstraint>");
+            return;
+        }
+        switch (method) {
+            case "HEAD" -> sendEmpty(exchange, objects == null ? 404 : 200);
+            case "PUT" -> {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                if (buckets.putIfAbsent(bucket, new ConcurrentSkipListMap<>()) != null) {
+                    sendError(exchange, 409, "BucketAlreadyOwnedByYou", "Bucket already exists");
+                } else {
+                    exchange.getResponseHeaders().add("Location", "/" + bucket);
+                    sendEmpty(exchange, 200);
+                }
+            }
+            case "POST" -> {
+                if (objects == null) {
+                    sendError(exchange, 404, "NoSuchBucket", "The specified bucket does not exist");
+                } else if (query.containsKey("delete")) {
+                    deleteObjects(exchange, objects);
+                } else {
+                    sendError(exchange, 501, "NotImplemented", "Unsupported bucket operation");
+                }
+            }
+            case "GET" -> {
+                if (objects == null) {
+                    sendError(exchange, 404, "NoSuchBucket", "The specified bucket does not exist");
+                } else {
+                    listObjects(exchange, bucket, objects, query);
+                }
+            }
+            default -> sendError(exchange, 405, "MethodNotAllowed", "Unsupported method " + method);
+        }
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String bucket, String key) throws IOException {
+        NavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        if (objects == null) {
+            sendError(exchange, 404, "NoSuchBucket", "The specified bucket does not exist");
+            return;
+        }
+        switch (method) {
+            case "PUT" -> {
+                byte[] content;
+                try (InputStream body = exchange.getRequestBody()) {
+                    content = body.readAllBytes();
+                }
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                StoredObject stored = new StoredObject(content,
+                        contentType == null ? "application/octet-stream" : contentType, md5(content), Instant.now());
+                StoredObject previous = objects.put(key, stored);
+                storedBytes.addAndGet(content.length - (previous == null ? 0 : previous.content().length));
+                exchange.getResponseHeaders().add("ETag", "\"" + stored.etag() + "\"");
+                sendEmpty(exchange, 200);
+            }
+            case "GET", "HEAD" -> {
+                StoredObject stored = objects.get(key);
+                if (stored == null) {
+                    sendError(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+                    return;
+                }
+                exchange.getResponseHeaders().add("ETag", "\"" + stored.etag() + "\"");
+                exchange.getResponseHeaders().add("Last-Modified", HTTP_DATE.format(stored.lastModified()));
+                exchange.getResponseHeaders().add("Content-Type", stored.contentType());
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().add("Content-Length", Integer.toString(stored.content().length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, stored.content().length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(stored.content());
+                    }
+                }
+            }
+            case "DELETE" -> {
+                StoredObject removed = objects.remove(key);
+                if (removed != null) {
+                    storedBytes.addAndGet(-removed.content().length);
+                }
+                sendEmpty(exchange, 204);
+            }
+            default -> sendError(exchange, 405, "MethodNotAllowed", "Unsupported method " + method);
+        }
+    }
+
+    private void listObjects(HttpExchange exchange, String bucket, NavigableMap<String, StoredObject> objects,
+            Map<String, String> query) throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        String startAfter = query.getOrDefault("continuation-token", query.getOrDefault("start-after", ""));
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        String lastKey = null;
+        boolean truncated = false;
+        NavigableMap<String, StoredObject> view = startAfter.compareTo(prefix) > 0
+                ? objects.tailMap(startAfter, false)
+                : objects.tailMap(prefix, true);
+        for (Map.Entry<String, StoredObject> entry : view.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            StoredObject stored = entry.getValue();
+            contents.append("<Contents><Key>").append(escape(entry.getKey())).append("</Key>")
+                    .append("<LastModified>").append(ISO_DATE.format(stored.lastModified())).append("</LastModified>")
+                    .append("<ETag>&quot;").append(stored.etag()).append("&quot;</ETag>")
+                    .append("<Size>").append(stored.content().length).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+            lastKey = entry.getKey();
+            count++;
+        }
+
+        StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"").append(S3_NAMESPACE).append("\">")
+                .append("<Name>").append(escape(bucket)).append("</Name>")
+                .append("<Prefix>").append(escape(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(count).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(escape(lastKey)).append("</NextContinuationToken>");
+        }
+        xml.append(contents).append("</ListBucketResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private void deleteObjects(HttpExchange exchange, NavigableMap<String, StoredObject> objects) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Matcher matcher = DELETE_KEY.matcher(body);
+        StringBuilder xml = new StringBuilder("<DeleteResult xmlns=\"").append(S3_NAMESPACE).append("\">");
+        while (matcher.find()) {
+            String key = unescape(matcher.group(1));
+            StoredObject removed = objects.remove(key);
+            if (removed != null) {
+                storedBytes.addAndGet(-removed.content().length);
+            }
+            xml.append("<Deleted><Key>").append(escape(key)).append("</Key></Deleted>");
+        }
+        xml.append("</DeleteResult>");
+        sendXml(exchange, 200, xml.toString());
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        String xml = "<Error><Code>" + code + "</Code><Message>" + escape(message) + "</Message>"
+                + "<Resource>" + escape(exchange.getRequestURI().getPath()) + "</Resource>"
+                + "<RequestId>fake-s3</RequestId><HostId>fake-s3</HostId></Error>";
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("x-minio-error-code", code);
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            sendXml(exchange, status, xml);
+        }
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    private static String unescape(String text) {
+        return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+}
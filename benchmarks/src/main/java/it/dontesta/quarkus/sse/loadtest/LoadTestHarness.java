@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import it.dontesta.quarkus.sse.cluster.ProcessIds;
+
+/**
+ * End-to-end load generator: starts the in-JVM Redis and S3 stand-ins, launches
+ * the requested number of application replicas against them and drives
+ * concurrent {@code POST /api/pdf/generate} + SSE {@code GET /api/pdf/status}
+ * round trips, the way the browser page does.
+ *
+ * <p>Every status stream is opened on a different replica than the one that
+ * accepted the request (when there is more than one), so completion events
+ * always travel through Redis pub/sub; with {@code --routing=affinity} it is
+ * opened on the replica named by the processId, as the reverse proxy does, and
+ * the events are delivered in-process. The harness reports end-to-end latency
+ * percentiles, throughput and the peak heap and thread usage of the replicas.
+ *
+ * <pre>
+ * ./mvnw package -DskipTests &amp;&amp; ./mvnw install -DskipTests
+ * mvn -f benchmarks/pom.xml package
+ * java -cp benchmarks/target/benchmarks.jar it.dontesta.quarkus.sse.loadtest.LoadTestHarness \
+ *     --replicas=2 --pool-size=10 --clients=1000 --requests=5000
+ * </pre>
+ */
+public final class LoadTestHarness {
+
+    static final String EVENT_COMPLETED = "PDF_COMPLETED";
+    private static final String EVENT_ERROR = "PDF_ERROR";
+    private static final Duration READY_TIMEOUT = Duration.ofSeconds(120);
+
+    /**
+     * Result of a single round trip; latencies are in nanoseconds, {@code -1} when not reached.
+     */
+    private record RoundTrip(long acceptNanos, long endToEndNanos, String failure) {
+    }
+
+    /**
+     * Latency percentiles in milliseconds.
+     */
+    record Percentiles(long samples, double p50, double p99, double p999, double max) {
+
+        static Percentiles of(long[] nanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return new Percentiles(sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted.length == 0 ? 0 : millis(sorted[sorted.length - 1]));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // Nearest-rank method.
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return millis(sorted[Math.max(0, rank - 1)]);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    record ReplicaUsage(String name, long maxHeapUsedBytes, long maxLiveThreads) {
+    }
+
+    record Report(int replicas, int poolSize, int clients, int requests, boolean affinity, long succeeded,
+            long failed,
+            List<String> failureSamples, double durationSeconds, double throughputPerSecond,
+            Percentiles acceptLatencyMillis, Percentiles endToEndLatencyMillis, List<ReplicaUsage> replicaUsage,
+            long redisCommands, long redisMessagesPublished, long objectStoreRequests, long objectStoreBytes) {
+    }
+
+    private final LoadTestOptions options;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private LoadTestHarness(LoadTestOptions options, HttpClient httpClient) {
+        this.options = options;
+        this.httpClient = httpClient;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clientExecutor)
+                    .build();
+            Report report = new LoadTestHarness(options, httpClient).run();
+            print(report);
+
+            Path reportFile = options.report().toAbsolutePath();
+            Files.createDirectories(reportFile.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+            System.out.println("Report written to " + reportFile);
+        }
+        System.exit(0);
+    }
+
+    private Report run() throws Exception {
+        List<ReplicaProcess> replicas = new ArrayList<>();
+        try (FakeRedisServer redis = FakeRedisServer.start(); FakeS3Server s3 = FakeS3Server.start()) {
+            Path logDirectory = options.report().toAbsolutePath().getParent().resolve("loadtest-logs");
+            try {
+                for (int i = 0; i < options.replicas(); i++) {
+                    replicas.add(ReplicaProcess.launch("replica-" + (i + 1), options, freePort(), redis.port(),
+                            s3.port(), logDirectory));
+                }
+                for (ReplicaProcess replica : replicas) {
+                    replica.awaitReady(httpClient, READY_TIMEOUT);
+                }
+                System.out.printf("%d replica(s) ready, logs in %s%n", replicas.size(), logDirectory);
+
+                scheduler.scheduleAtFixedRate(() -> replicas.forEach(replica -> replica.sampleResources(httpClient)),
+                        0, 1, TimeUnit.SECONDS);
+                return drive(replicas, redis, s3);
+            } finally {
+                scheduler.shutdownNow();
+                for (ReplicaProcess replica : replicas) {
+                    replica.close();
+                }
+            }
+        }
+    }
+
+    private Report drive(List<ReplicaProcess> replicas, FakeRedisServer redis, FakeS3Server s3)
+            throws InterruptedException {
+        RoundTrip[] results = new RoundTrip[options.requests()];
+        Semaphore inFlight = new Semaphore(options.clients());
+        AtomicInteger completed = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.requests(); i++) {
+                inFlight.acquire();
+                int index = i;
+                clients.execute(() -> {
+                    try {
+                        ReplicaProcess generator = replicas.get(index % replicas.size());
+                        ReplicaProcess other = replicas.get((index + 1) % replicas.size());
+                        results[index] = roundTrip(generator,
+                                processId -> options.affinity() ? owner(replicas, processId, generator) : other);
+                    } catch (RuntimeException e) {
+                        results[index] = new RoundTrip(-1, -1, e.toString());
+                    } finally {
+                        inFlight.release();
+                        int done = completed.incrementAndGet();
+                        if (done % 1000 == 0) {
+                            System.out.printf("%d/%d round trips completed%n", done, options.requests());
+                        }
+                    }
+                });
+            }
+        }
+        double durationSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        replicas.forEach(replica -> replica.sampleResources(httpClient));
+
+        List<String> failureSamples = new ArrayList<>();
+        long[] accept = Arrays.stream(results).mapToLong(RoundTrip::acceptNanos).filter(n -> n >= 0).toArray();
+        long[] endToEnd = Arrays.stream(results).mapToLong(RoundTrip::endToEndNanos).filter(n -> n >= 0).toArray();
+        long failed = 0;
+        for (RoundTrip result : results) {
+            if (result.failure() != null) {
+                failed++;
+                if (failureSamples.size() < 10) {
+                    failureSamples.add(result.failure());
+                }
+            }
+        }
+
+        return new Report(options.replicas(), options.poolSize(), options.clients(), options.requests(),
+                options.affinity(), endToEnd.length, failed, failureSamples, durationSeconds, endToEnd.length / durationSeconds,
+                Percentiles.of(accept), Percentiles.of(endToEnd),
+                replicas.stream()
+                        .map(r -> new ReplicaUsage(r.name(), r.maxHeapUsedBytes(), r.maxLiveThreads()))
+                        .toList(),
+                redis.commandsProcessed(), redis.messagesPublished(), s3.requests(), s3.storedBytes());
+    }
+
+    /**
+     * @return the replica named by {@code processId}, {@code fallback} if it names none
+     */
+    private static ReplicaProcess owner(List<ReplicaProcess> replicas, String processId, ReplicaProcess fallback) {
+        String node = ProcessIds.node(processId);
+        return replicas.stream().filter(replica -> replica.name().equals(node)).findFirst().orElse(fallback);
+    }
+
+    /**
+     * Requests a PDF on {@code generator} and waits for its completion event on a status stream
+     * opened on the replica chosen by {@code listeners} for the processId.
+     */
+    private RoundTrip roundTrip(ReplicaProcess generator, Function<String, ReplicaProcess> listeners) {
+        long start = System.nanoTime();
+        long acceptNanos = -1;
+        try {
+            HttpRequest generate = HttpRequest.newBuilder(generator.baseUri().resolve("/api/pdf/generate"))
+                    .timeout(Duration.ofSeconds(options.timeoutSeconds()))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<String> accepted = httpClient.send(generate, HttpResponse.BodyHandlers.ofString());
+            acceptNanos = System.nanoTime() - start;
+            if (accepted.statusCode() != 200) {
+                return new RoundTrip(acceptNanos, -1, "generate returned HTTP " + accepted.statusCode());
+            }
+
+            String processId = accepted.body().trim();
+            URI statusUri = listeners.apply(processId).baseUri().resolve("/api/pdf/status/" + processId);
+            SseEventWaiter waiter = new SseEventWaiter();
+            HttpRequest status = HttpRequest.newBuilder(statusUri)
+                    .header("Accept", "text/event-stream")
+                    .GET()
+                    .build();
+            httpClient.sendAsync(status, HttpResponse.BodyHandlers.fromLineSubscriber(waiter))
+                    .whenComplete((response, failure) -> waiter.onResponse(response, failure));
+
+            long remainingNanos = TimeUnit.SECONDS.toNanos(options.timeoutSeconds()) - (System.nanoTime() - start);
+            String event = waiter.event().get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+            long endToEndNanos = System.nanoTime() - start;
+            waiter.cancel();
+            return EVENT_COMPLETED.equals(event)
+                    ? new RoundTrip(acceptNanos, endToEndNanos, null)
+                    : new RoundTrip(acceptNanos, -1, "received " + event + " for " + processId);
+        } catch (TimeoutException e) {
+            return new RoundTrip(acceptNanos, -1, "timed out after " + options.timeoutSeconds() + "s");
+        } catch (ExecutionException e) {
+            return new RoundTrip(acceptNanos, -1, String.valueOf(e.getCause()));
+        } catch (IOException e) {
+            return new RoundTrip(acceptNanos, -1, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RoundTrip(acceptNanos, -1, "interrupted");
+        }
+    }
+
+    /**
+     * Line subscriber that completes with the name of the first PDF event of the stream.
+     */
+    static final class SseEventWaiter implements Flow.Subscriber<String> {
+
+        private final CompletableFuture<String> event = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+
+        CompletableFuture<String> event() {
+            return event;
+        }
+
+        void onResponse(HttpResponse<Void> response, Throwable failure) {
+            if (failure != null) {
+                event.completeExceptionally(failure);
+            } else if (response.statusCode() != 200) {
+                event.completeExceptionally(new IOException("status returned HTTP " + response.statusCode()));
+            } else {
+                event.completeExceptionally(new IOException("stream closed before a PDF event"));
+            }
+        }
+
+        void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (event.isDone()) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("event:")) {
+                String name = line.substring("event:".length()).trim();
+                if (EVENT_COMPLETED.equals(name) || EVENT_ERROR.equals(name)) {
+                    event.complete(name);
+                    cancel();
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            event.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            event.completeExceptionally(new IOException("stream closed before a PDF event"));
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void print(Report report) {
+        System.out.printf("%nReplicas: %d, pool size: %d, clients: %d, requests: %d, routing: %s%n",
+                report.replicas(), report.poolSize(), report.clients(), report.requests(),
+                report.affinity() ? "affinity" : "cross");
+        System.out.printf("Succeeded: %d, failed: %d, duration: %.1fs, throughput: %.1f req/s%n",
+                report.succeeded(), report.failed(), report.durationSeconds(), report.throughputPerSecond());
+        printPercentiles("Accept latency (ms)    ", report.acceptLatencyMillis());
+        printPercentiles("End-to-end latency (ms)", report.endToEndLatencyMillis());
+        for (ReplicaUsage usage : report.replicaUsage()) {
+            System.out.printf("%s: max heap used %.1f MiB, max live threads %d%n", usage.name(),
+                    usage.maxHeapUsedBytes() / (1024.0 * 1024.0), usage.maxLiveThreads());
+        }
+        System.out.printf("Redis commands: %d, messages published: %d; object store requests: %d, bytes: %d%n",
+                report.redisCommands(), report.redisMessagesPublished(), report.objectStoreRequests(),
+                report.objectStoreBytes());
+        report.failureSamples().forEach(failure -> System.out.println("  failure: " + failure));
+    }
+
+    private static void printPercentiles(String label, Percentiles percentiles) {
+        System.out.printf("%s p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n", label, percentiles.p50(),
+                percentiles.p99(), percentiles.p999(), percentiles.max());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of the load-test harness, given as {@code --name=value}.
+ *
+ * @param app           path of the application {@code quarkus-run.jar}
+ * @param replicas      number of application replicas to start
+ * @param poolSize      value of {@code pdf.generation.executor.pool-size} for every replica
+ * @param redisPoolSize value of {@code quarkus.redis.max-pool-size} for every replica
+ * @param heap          maximum heap of every replica, as accepted by {@code -Xmx}
+ * @param jvmArgs       extra JVM arguments for every replica, comma separated on the command line
+ * @param clients       number of concurrent clients
+ * @param requests      total number of generate + status round trips
+ * @param timeoutSeconds time allowed for a single round trip before it counts as an error
+ * @param affinity      open each status stream on the replica named by the processId, as the reverse proxy does,
+ *                      rather than on another replica
+ * @param report        path of the JSON report
+ */
+record LoadTestOptions(Path app, int replicas, int poolSize, int redisPoolSize, String heap, List<String> jvmArgs,
+        int clients, int requests, int timeoutSeconds, boolean affinity, Path report) {
+
+    static final String USAGE = """
+            Usage: java -cp benchmarks.jar it.dontesta.quarkus.sse.loadtest.LoadTestHarness [options]
+              --app=<path>              application jar (default target/quarkus-app/quarkus-run.jar)
+              --replicas=<n>            application replicas (default 2)
+              --pool-size=<n>           initial PDF generation concurrency limit per replica (default 10)
+              --redis-pool-size=<n>     Redis connection pool size per replica (default 32)
+              --heap=<size>             -Xmx of every replica (default 512m)
+              --jvm-args=<a,b,...>      extra JVM arguments of every replica
+              --clients=<n>             concurrent clients (default 1000)
+              --requests=<n>            total round trips (default 5000)
+              --timeout-seconds=<n>     round trip timeout (default 120)
+              --routing=<cross|affinity> replica of the status streams: another one, or the one named
+                                        by the processId (default cross)
+              --report=<path>           JSON report (default target/loadtest-report.json)
+            """;
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Unrecognized argument: " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.containsKey("app") ? Path.of(values.remove("app")) : defaultApp(),
+                positive(values, "replicas", 2),
+                positive(values, "pool-size", 10),
+                positive(values, "redis-pool-size", 32),
+                values.getOrDefault("heap", "512m"),
+                values.containsKey("jvm-args")
+                        ? Arrays.stream(values.get("jvm-args").split(",")).map(String::trim)
+                                .filter(arg -> !arg.isEmpty()).toList()
+                        : List.of(),
+                positive(values, "clients", 1000),
+                positive(values, "requests", 5000),
+                positive(values, "timeout-seconds", 120),
+                affinity(values.getOrDefault("routing", "cross")),
+                Path.of(values.getOrDefault("report", "target/loadtest-report.json")));
+        values.keySet().removeAll(List.of("heap", "jvm-args", "routing", "report"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        if (!Files.isRegularFile(options.app())) {
+            throw new IllegalArgumentException("Application jar not found: " + options.app()
+                    + " (build it with ./mvnw package -DskipTests)");
+        }
+        return options;
+    }
+
+    private static int positive(Map<String, String> values, String name, int defaultValue) {
+        String value = values.remove(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive: " + value);
+        }
+        return parsed;
+    }
+
+    private static boolean affinity(String routing) {
+        return switch (routing) {
+            case "cross" -> false;
+            case "affinity" -> true;
+            default -> throw new IllegalArgumentException("--routing must be cross or affinity: " + routing);
+        };
+    }
+
+    private static Path defaultApp() {
+        // Works both from the repository root and from the benchmarks directory.
+        Path app = Path.of("target", "quarkus-app", "quarkus-run.jar");
+        Path parentApp = Path.of("..").resolve(app);
+        return Files.isRegularFile(app) || !Files.isRegularFile(parentApp) ? app : parentApp;
+    }
+}
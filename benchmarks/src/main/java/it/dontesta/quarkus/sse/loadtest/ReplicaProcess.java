@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An application replica running as a child process of the harness
+ * ({@code java -jar quarkus-run.jar}, or the native executable), wired to the
+ * in-JVM Redis and S3 stand-ins through system properties so that no external
+ * service is needed.
+ */
+final class ReplicaProcess implements AutoCloseable {
+
+    private final String name;
+    private final int httpPort;
+    private final int managementPort;
+    private final Process process;
+
+    private volatile long maxHeapUsedBytes;
+    private volatile long maxLiveThreads;
+
+    private ReplicaProcess(String name, int httpPort, int managementPort, Process process) {
+        this.name = name;
+        this.httpPort = httpPort;
+        this.managementPort = managementPort;
+        this.process = process;
+    }
+
+    /**
+     * Launches a replica and returns immediately; use {@link #awaitReady} before sending traffic.
+     */
+    static ReplicaProcess launch(String name, LoadTestOptions options, int httpPort, int redisPort, int s3Port,
+            Path logDirectory) throws IOException {
+        return launch(name, options.app(), options.heap(), options.jvmArgs(), options.poolSize(),
+                options.redisPoolSize(), httpPort, redisPort, s3Port, logDirectory);
+    }
+
+    /**
+     * Launches a replica of {@code app}: a jar runs on the JVM of the harness, anything
+     * else is run as a native executable, which takes the same {@code -X} and {@code -D} options.
+     */
+    static ReplicaProcess launch(String name, Path app, String heap, List<String> jvmArgs, int poolSize,
+            int redisPoolSize, int httpPort, int redisPort, int s3Port, Path logDirectory) throws IOException {
+        boolean jar = app.getFileName().toString().endsWith(".jar");
+        // The probes and the metrics are served on the management interface
+        int managementPort = LoadTestHarness.freePort();
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("quarkus.http.port", Integer.toString(httpPort));
+        properties.put("quarkus.management.port", Integer.toString(managementPort));
+        properties.put("quarkus.redis.hosts", "redis://127.0.0.1:" + redisPort);
+        properties.put("quarkus.redis.password", "loadtest");
+        properties.put("quarkus.redis.max-pool-size", Integer.toString(redisPoolSize));
+        properties.put("quarkus.redis.max-pool-waiting", "8192");
+        properties.put("quarkus.minio.host", "http://127.0.0.1");
+        properties.put("quarkus.minio.port", Integer.toString(s3Port));
+        properties.put("quarkus.minio.secure", "false");
+        properties.put("quarkus.minio.region", "us-east-1");
+        properties.put("quarkus.minio.access-key", "loadtest");
+        properties.put("quarkus.minio.secret-key", "loadtest");
+        properties.put("pdf.generation.executor.pool-size", Integer.toString(poolSize));
+        properties.put("pdf.generation.delay.min-seconds", "0");
+        properties.put("pdf.generation.delay.max-seconds", "0");
+        // The limiter runs on every request, with a bucket sized above the offered load:
+        // all the virtual users share the loopback address
+        properties.put("pdf.rate-limit.ip.capacity", "1000000");
+        properties.put("pdf.rate-limit.ip.refill-per-second", "1000000");
+        properties.put("app.instance.id", name);
+        properties.put("quarkus.log.category.\"it.dontesta.quarkus.sse\".level", "INFO");
+
+        List<String> command = new ArrayList<>();
+        command.add(jar ? Path.of(System.getProperty("java.home"), "bin", "java").toString() : app.toString());
+        command.add("-Xmx" + heap);
+        command.addAll(jvmArgs);
+        properties.forEach((key, value) -> {
+            // Set both forms: the packaged jar runs with the prod profile, whose
+            // %prod.* entries in application.properties would otherwise win.
+            command.add("-D" + key + "=" + value);
+            command.add("-D%prod." + key + "=" + value);
+        });
+        if (jar) {
+            command.add("-jar");
+            command.add(app.toString());
+        }
+
+        Files.createDirectories(logDirectory);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logDirectory.resolve(name + ".log").toFile());
+        builder.environment().put("DATABASE_PASSWORD", "loadtest");
+        builder.environment().put("MINIO_USER_ACCESS_KEY", "loadtest");
+        builder.environment().put("MINIO_USER_SECRET_KEY", "loadtest");
+        return new ReplicaProcess(name, httpPort, managementPort, builder.start());
+    }
+
+    /**
+     * Restores a replica from a CRaC checkpoint taken with {@code -XX:CRaCCheckpointTo}: it
+     * resumes with the configuration of the checkpoint, so {@code httpPort} and {@code managementPort}
+     * must be the ports the checkpointed replica was launched with. The harness must run on a CRaC JDK.
+     */
+    static ReplicaProcess restore(String name, Path checkpoint, int httpPort, int managementPort,
+            Path logDirectory) throws IOException {
+        List<String> command = List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-XX:CRaCRestoreFrom=" + checkpoint);
+        Files.createDirectories(logDirectory);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logDirectory.resolve(name + ".log").toFile());
+        return new ReplicaProcess(name, httpPort, managementPort, builder.start());
+    }
+
+    String name() {
+        return name;
+    }
+
+    URI baseUri() {
+        return URI.create("http://127.0.0.1:" + httpPort);
+    }
+
+    int managementPort() {
+        return managementPort;
+    }
+
+    URI managementUri() {
+        return URI.create("http://127.0.0.1:" + managementPort);
+    }
+
+    /**
+     * @return the resident set size of the process, {@code -1} where {@code /proc} is not available
+     */
+    long rssBytes() {
+        return procStatusBytes("VmRSS:");
+    }
+
+    /**
+     * @return the peak resident set size of the process, {@code -1} where {@code /proc} is not available
+     */
+    long peakRssBytes() {
+        return procStatusBytes("VmHWM:");
+    }
+
+    private long procStatusBytes(String field) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(process.pid()), "status"))) {
+                if (line.startsWith(field)) {
+                    // "VmRSS:	  123456 kB"
+                    return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not on Linux, or the process is gone.
+        }
+        return -1;
+    }
+
+    long maxHeapUsedBytes() {
+        return maxHeapUsedBytes;
+    }
+
+    long maxLiveThreads() {
+        return maxLiveThreads;
+    }
+
+    /**
+     * Polls the readiness probe until the replica answers {@code UP}.
+     *
+     * @throws IOException if the replica exits or is not ready within {@code timeout}
+     */
+    void awaitReady(HttpClient client, Duration timeout) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest probe = HttpRequest.newBuilder(managementUri().resolve("/q/health/ready"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("Replica " + name + " exited with code " + process.exitValue());
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(250);
+        }
+        throw new IOException("Replica " + name + " not ready within " + timeout);
+    }
+
+    /**
+     * Waits for the replica to exit by itself, as a training run or a checkpointed replica does.
+     *
+     * @return the exit code
+     * @throws IOException if the replica is still running after {@code timeout}
+     */
+    int awaitExit(Duration timeout) throws IOException, InterruptedException {
+        if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IOException("Replica " + name + " did not exit within " + timeout);
+        }
+        return process.exitValue();
+    }
+
+    /**
+     * Scrapes {@code /q/metrics} and keeps the maximum heap usage and live thread count seen so far.
+     */
+    void sampleResources(HttpClient client) {
+        HttpRequest scrape = HttpRequest.newBuilder(managementUri().resolve("/q/metrics"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        try {
+            String body = client.send(scrape, HttpResponse.BodyHandlers.ofString()).body();
+            long heap = 0;
+            long threads = 0;
+            for (String line : body.split("\n")) {
+                if (line.startsWith("jvm_memory_used_bytes{") && line.contains("area=\"heap\"")) {
+                    heap += (long) parseSampleValue(line);
+                } else if (line.startsWith("jvm_threads_live_threads")) {
+                    threads = (long) parseSampleValue(line);
+                }
+            }
+            maxHeapUsedBytes = Math.max(maxHeapUsedBytes, heap);
+            maxLiveThreads = Math.max(maxLiveThreads, threads);
+        } catch (IOException e) {
+            // Sampling is best effort.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double parseSampleValue(String line) {
+        // "name{labels} value [timestamp]": label values may contain spaces.
+        int labelsEnd = line.lastIndexOf('}');
+        String rest = labelsEnd >= 0 ? line.substring(labelsEnd + 1) : line.substring(line.indexOf(' '));
+        return Double.parseDouble(rest.trim().split("\\s+")[0]);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(15, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
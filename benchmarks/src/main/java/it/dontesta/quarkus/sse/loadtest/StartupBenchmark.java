@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Cold start of a replica, on the JVM and as a native executable: the time from
+ * the launch of the process to its readiness and to its first PDF, and its
+ * resident memory once the PDF is done. Every run starts a new process against
+ * the in-JVM Redis and S3 stand-ins, with no simulated generation delay.
+ *
+ * <p>The JVM build can also be measured in its fast-start modes, both trained by
+ * the renderer warm-up of the application ({@code pdf.warmup.*}):
+ * {@code jvm-appcds} runs with an AppCDS archive dumped by a training run, and
+ * {@code jvm-crac} is restored from a CRaC checkpoint taken after the warm-up,
+ * which requires running the benchmark on a CRaC JDK.
+ *
+ * <pre>
+ * ./mvnw package -DskipTests &amp;&amp; ./mvnw package -Dnative -DskipTests
+ * mvn -f benchmarks/pom.xml package
+ * java -cp benchmarks/target/benchmarks.jar it.dontesta.quarkus.sse.loadtest.StartupBenchmark \
+ *     --jvm-app=target/quarkus-app/quarkus-run.jar --native-app=target/quarkus-sse-poc-1.3.1-SNAPSHOT-runner \
+ *     --appcds=true
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final Duration READY_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration FIRST_PDF_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration TRAINING_TIMEOUT = Duration.ofSeconds(300);
+
+    /**
+     * Command line options, given as {@code --name=value}.
+     *
+     * @param apps   the applications to start by mode ({@code jvm}, {@code native}), at least one
+     * @param appcds whether to measure the JVM application with an AppCDS archive too
+     * @param crac   whether to measure the JVM application restored from a CRaC checkpoint too
+     * @param runs   cold starts of every application
+     * @param heap   maximum heap of the replica, as accepted by {@code -Xmx}
+     * @param report path of the JSON report
+     */
+    record Options(Map<String, Path> apps, boolean appcds, boolean crac, int runs, String heap, Path report) {
+
+        static final String USAGE = """
+                Usage: java -cp benchmarks.jar it.dontesta.quarkus.sse.loadtest.StartupBenchmark [options]
+                  --jvm-app=<path>      application jar (default target/quarkus-app/quarkus-run.jar, if built)
+                  --native-app=<path>   native executable (./mvnw package -Dnative)
+                  --appcds=<bool>       also run the JVM application with a trained AppCDS archive (default false)
+                  --crac=<bool>         also restore the JVM application from a CRaC checkpoint (default false,
+                                        the benchmark must run on a CRaC JDK)
+                  --runs=<n>            cold starts of every application (default 5)
+                  --heap=<size>         -Xmx of the replica (default 512m)
+                  --report=<path>       JSON report (default target/startup-report.json)
+                """;
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Unrecognized argument: " + arg);
+                }
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+
+            Map<String, Path> apps = new LinkedHashMap<>();
+            Path jvmApp = Path.of(values.getOrDefault("jvm-app", "target/quarkus-app/quarkus-run.jar"));
+            if (values.containsKey("jvm-app") || Files.isRegularFile(jvmApp)) {
+                apps.put("jvm", jvmApp);
+            }
+            if (values.containsKey("native-app")) {
+                apps.put("native", Path.of(values.get("native-app")));
+            }
+            boolean appcds = Boolean.parseBoolean(values.getOrDefault("appcds", "false"));
+            boolean crac = Boolean.parseBoolean(values.getOrDefault("crac", "false"));
+            int runs = Integer.parseInt(values.getOrDefault("runs", "5"));
+            Options options = new Options(apps, appcds, crac, runs, values.getOrDefault("heap", "512m"),
+                    Path.of(values.getOrDefault("report", "target/startup-report.json")));
+            values.keySet().removeAll(List.of("jvm-app", "native-app", "appcds", "crac", "runs", "heap", "report"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            if ((appcds || crac) && !apps.containsKey("jvm")) {
+                throw new IllegalArgumentException("--appcds and --crac need the JVM application");
+            }
+            if (apps.isEmpty()) {
+                throw new IllegalArgumentException("No application to start: build it or pass --jvm-app/--native-app");
+            }
+            for (Path app : apps.values()) {
+                if (!Files.isRegularFile(app)) {
+                    throw new IllegalArgumentException("Application not found: " + app);
+                }
+            }
+            if (runs < 1) {
+                throw new IllegalArgumentException("--runs must be positive: " + runs);
+            }
+            return options;
+        }
+    }
+
+    /**
+     * A cold start; times are in milliseconds from the launch of the process.
+     */
+    record Run(double readyMillis, double firstPdfMillis, long rssBytes, long peakRssBytes) {
+    }
+
+    /**
+     * The runs of an application and their medians.
+     */
+    record ModeReport(String mode, String app, List<Run> runs, double medianReadyMillis,
+            double medianFirstPdfMillis, long medianRssBytes, long maxPeakRssBytes) {
+
+        static ModeReport of(String mode, Path app, List<Run> runs) {
+            return new ModeReport(mode, app.toString(), runs,
+                    median(runs.stream().mapToDouble(Run::readyMillis).toArray()),
+                    median(runs.stream().mapToDouble(Run::firstPdfMillis).toArray()),
+                    (long) median(runs.stream().mapToDouble(Run::rssBytes).toArray()),
+                    runs.stream().mapToLong(Run::peakRssBytes).max().orElse(-1));
+        }
+
+        private static double median(double[] values) {
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int middle = sorted.length / 2;
+            return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+        }
+    }
+
+    private final Options options;
+    private final HttpClient httpClient;
+
+    private StartupBenchmark(Options options, HttpClient httpClient) {
+        this.options = options;
+        this.httpClient = httpClient;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clientExecutor)
+                    .build();
+            List<ModeReport> reports = new StartupBenchmark(options, httpClient).run();
+            reports.forEach(StartupBenchmark::print);
+
+            Path reportFile = options.report().toAbsolutePath();
+            Files.createDirectories(reportFile.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), reports);
+            System.out.println("Report written to " + reportFile);
+        }
+        System.exit(0);
+    }
+
+    private List<ModeReport> run() throws Exception {
+        List<ModeReport> reports = new ArrayList<>();
+        Path workDirectory = options.report().toAbsolutePath().getParent();
+        Path logDirectory = workDirectory.resolve("startup-logs");
+        try (FakeRedisServer redis = FakeRedisServer.start(); FakeS3Server s3 = FakeS3Server.start()) {
+            for (Map.Entry<String, Path> app : options.apps().entrySet()) {
+                reports.add(measure(app.getKey(), app.getValue(), (name, port) -> ReplicaProcess.launch(name,
+                        app.getValue(), options.heap(), List.of(), 10, 32, port, redis.port(), s3.port(), logDirectory)));
+            }
+
+            Path jvmApp = options.apps().get("jvm");
+            if (options.appcds()) {
+                Path archive = workDirectory.resolve("startup-appcds.jsa");
+                Files.deleteIfExists(archive);
+                train("jvm-appcds-training", jvmApp, List.of("-XX:ArchiveClassesAtExit=" + archive,
+                        "-Dpdf.warmup.enabled=true", "-Dpdf.warmup.exit=true"), redis, s3, logDirectory);
+                reports.add(measure("jvm-appcds", jvmApp, (name, port) -> ReplicaProcess.launch(name, jvmApp,
+                        options.heap(), List.of("-XX:SharedArchiveFile=" + archive), 10, 32, port, redis.port(),
+                        s3.port(), logDirectory)));
+            }
+            if (options.crac()) {
+                Path checkpoint = workDirectory.resolve("startup-crac");
+                deleteRecursively(checkpoint);
+                // A restored replica keeps the configuration of the checkpoint, its ports included
+                int port = LoadTestHarness.freePort();
+                int managementPort;
+                try (ReplicaProcess replica = ReplicaProcess.launch("jvm-crac-checkpoint", jvmApp, options.heap(),
+                        List.of("-XX:CRaCCheckpointTo=" + checkpoint, "-Dpdf.warmup.enabled=true",
+                                "-Dpdf.warmup.checkpoint=true"),
+                        10, 32, port, redis.port(), s3.port(), logDirectory)) {
+                    managementPort = replica.managementPort();
+                    replica.awaitExit(TRAINING_TIMEOUT);
+                }
+                if (!Files.isDirectory(checkpoint)) {
+                    throw new IOException("No CRaC checkpoint in " + checkpoint + ": is the JDK CRaC-enabled?");
+                }
+                reports.add(measure("jvm-crac", jvmApp,
+                        (name, ignored) -> ReplicaProcess.restore(name, checkpoint, port, managementPort,
+                                logDirectory)));
+            }
+        }
+        return reports;
+    }
+
+    @FunctionalInterface
+    private interface Launcher {
+        ReplicaProcess launch(String name, int httpPort) throws IOException;
+    }
+
+    private ModeReport measure(String mode, Path app, Launcher launcher) throws Exception {
+        List<Run> runs = new ArrayList<>();
+        for (int i = 1; i <= options.runs(); i++) {
+            String name = mode + "-" + i;
+            runs.add(coldStart(name, launcher));
+            System.out.printf("%s: %s%n", name, runs.getLast());
+        }
+        return ModeReport.of(mode, app, runs);
+    }
+
+    private Run coldStart(String name, Launcher launcher) throws Exception {
+        long start = System.nanoTime();
+        try (ReplicaProcess replica = launcher.launch(name, LoadTestHarness.freePort())) {
+            replica.awaitReady(httpClient, READY_TIMEOUT);
+            long ready = System.nanoTime() - start;
+            firstPdf(replica);
+            long firstPdf = System.nanoTime() - start;
+            return new Run(ready / 1e6, firstPdf / 1e6, replica.rssBytes(), replica.peakRssBytes());
+        }
+    }
+
+    /**
+     * Runs the renderer warm-up of the application until it exits by itself.
+     */
+    private void train(String name, Path app, List<String> jvmArgs, FakeRedisServer redis, FakeS3Server s3,
+            Path logDirectory) throws Exception {
+        try (ReplicaProcess replica = ReplicaProcess.launch(name, app, options.heap(), jvmArgs, 10, 32,
+                LoadTestHarness.freePort(), redis.port(), s3.port(), logDirectory)) {
+            int exitCode = replica.awaitExit(TRAINING_TIMEOUT);
+            if (exitCode != 0) {
+                throw new IOException("Training run " + name + " exited with code " + exitCode);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Requests a PDF and waits for its completion event.
+     *
+     * @throws IOException if the generation fails
+     */
+    private void firstPdf(ReplicaProcess replica) throws Exception {
+        HttpRequest generate = HttpRequest.newBuilder(replica.baseUri().resolve("/api/pdf/generate"))
+                .timeout(FIRST_PDF_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> accepted = httpClient.send(generate, HttpResponse.BodyHandlers.ofString());
+        if (accepted.statusCode() != 200) {
+            throw new IOException("generate returned HTTP " + accepted.statusCode());
+        }
+        URI statusUri = replica.baseUri().resolve("/api/pdf/status/" + accepted.body().trim());
+        LoadTestHarness.SseEventWaiter waiter = new LoadTestHarness.SseEventWaiter();
+        httpClient.sendAsync(HttpRequest.newBuilder(statusUri).header("Accept", "text/event-stream").GET().build(),
+                        HttpResponse.BodyHandlers.fromLineSubscriber(waiter))
+                .whenComplete((response, failure) -> waiter.onResponse(response, failure));
+        String event = waiter.event().get(FIRST_PDF_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        waiter.cancel();
+        if (!LoadTestHarness.EVENT_COMPLETED.equals(event)) {
+            throw new IOException("received " + event + " instead of the first PDF");
+        }
+    }
+
+    private static void print(ModeReport report) {
+        System.out.printf("%n%s (%s), %d runs%n", report.mode(), report.app(), report.runs().size());
+        System.out.printf("  ready: median %.0f ms, first PDF: median %.0f ms%n", report.medianReadyMillis(),
+                report.medianFirstPdfMillis());
+        System.out.printf("  RSS after the first PDF: median %.1f MiB, peak %.1f MiB%n",
+                report.medianRssBytes() / (1024.0 * 1024.0), report.maxPeakRssBytes() / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+import it.dontesta.quarkus.sse.ratelimit.TokenBucketRateLimiter;
+
+/**
+ * Java port of {@link TokenBucketRateLimiter#TOKEN_BUCKET_SCRIPT} for the
+ * {@link FakeRedisServer}, step by step: refill the bucket of {@code KEYS[1]}
+ * with the elapsed time and the returned tokens, take up to the requested
+ * tokens, store the state and its TTL. Lua numbers become integers in the
+ * reply, so the reply values are truncated as Redis does.
+ */
+final class TokenBucketScript implements FakeRedisServer.Script {
+
+    @Override
+    public Object run(FakeRedisServer.Keyspace keyspace, List<String> keys, List<String> args) {
+        double capacity = Double.parseDouble(args.get(0));
+        double rate = Double.parseDouble(args.get(1));
+        double requested = Double.parseDouble(args.get(2));
+        double returned = Double.parseDouble(args.get(3));
+        long now = System.currentTimeMillis();
+
+        Map<String, String> state = keyspace.hash(keys.get(0));
+        double tokens = capacity;
+        long ts = now;
+        if (state.containsKey("tokens") && state.containsKey("ts")) {
+            tokens = Double.parseDouble(state.get("tokens"));
+            ts = Long.parseLong(state.get("ts"));
+        }
+        tokens = Math.min(capacity, tokens + Math.max(0, now - ts) * rate / 1000 + returned);
+        double granted = Math.min(requested, Math.floor(tokens));
+        tokens -= granted;
+        double fullIn = Math.ceil((capacity - tokens) * 1000 / rate);
+        state.put("tokens", Double.toString(tokens));
+        state.put("ts", Long.toString(now));
+        keyspace.pexpire(keys.get(0), (long) fullIn + 1000);
+        double retryIn = granted == 0 ? Math.ceil((1 - tokens) * 1000 / rate) : 0;
+        return List.of((long) granted, (long) Math.floor(tokens), (long) retryIn, (long) fullIn);
+    }
+}
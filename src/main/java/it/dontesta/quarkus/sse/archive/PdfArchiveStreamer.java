@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import it.dontesta.quarkus.sse.storage.DocumentKeys;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Streams a ZIP archive of several generated documents of one format (PDF by
+ * default), assembled on the fly from MinIO objects.
+ *
+ * <p>Objects are fetched through a bounded prefetch window: while entry
+ * {@code n} is being copied to the client, the requests for the next
+ * {@code prefetch-window - 1} objects are already in flight on virtual threads,
+ * so the per-object MinIO latency is overlapped instead of paid sequentially.
+ * A prefetched object is only an open HTTP response: its body is copied to the
+ * archive through a small buffer, never materialised in memory.
+ *
+ * <p>Entries are not compressed (deflated at level 0): PDF files are already
+ * compressed internally, so compressing them again costs CPU for no size benefit. Missing objects are
+ * skipped and logged, any other MinIO failure aborts the archive.
+ */
+@ApplicationScoped
+public class PdfArchiveStreamer {
+
+    private final ExecutorService prefetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Inject
+    MinioClient minioClient;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.minio.bucket-name")
+    String bucketName;
+
+    @Inject
+    @ConfigProperty(name = "pdf.download.archive.prefetch-window", defaultValue = "4")
+    int prefetchWindow;
+
+    @Inject
+    @ConfigProperty(name = "pdf.download.archive.max-entries", defaultValue = "500")
+    int maxEntries;
+
+    private Counter archivesCounter;
+    private Counter entriesCounter;
+    private Counter missingEntriesCounter;
+
+    /**
+     * A pending MinIO fetch: the future completes with the open object stream,
+     * or with {@code null} when the object does not exist. The entry is named
+     * after the file, without the date prefix of the key.
+     */
+    private record Prefetch(String objectKey, String entryName, CompletableFuture<InputStream> stream) {
+
+        /** Closes the object stream once (and if) the fetch completes. */
+        void discard() {
+            stream.thenAccept(in -> {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        Log.debugf(e, "Failed to close discarded MinIO stream for key: %s", objectKey);
+                    }
+                }
+            });
+        }
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        if (prefetchWindow < 1) {
+            // A window of zero would never fetch an object, a negative one breaks the deque
+            throw new IllegalArgumentException(
+                    "pdf.download.archive.prefetch-window must be at least 1: " + prefetchWindow);
+        }
+
+        archivesCounter = Counter.builder("pdf.download.archive.total")
+                .description("Total number of ZIP archives streamed to clients")
+                .register(meterRegistry);
+
+        entriesCounter = Counter.builder("pdf.download.archive.entries.total")
+                .tag("status", "written")
+                .description("Total number of archive entries by outcome")
+                .register(meterRegistry);
+
+        missingEntriesCounter = Counter.builder("pdf.download.archive.entries.total")
+                .tag("status", "missing")
+                .description("Total number of archive entries by outcome")
+                .register(meterRegistry);
+
+        Log.debugf("PdfArchiveStreamer initialized with a prefetch window of %d objects", prefetchWindow);
+    }
+
+    void onShutdown(@Observes ShutdownEvent ev) {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the maximum number of documents accepted in a single archive.
+     *
+     * @return the configured maximum number of entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Writes a ZIP archive containing the document of each {@code processId} to
+     * {@code output}, in the given order. The output stream is flushed but not
+     * closed.
+     *
+     * @param processIds the process identifiers of the documents to include
+     * @param format     the format the documents were generated in
+     * @param output     the target stream (typically the HTTP response body)
+     * @throws IOException if a MinIO fetch fails or the client goes away
+     */
+    public void writeArchive(List<String> processIds, DocFormat format, OutputStream output) throws IOException {
+        Deque<Prefetch> window = new ArrayDeque<>(prefetchWindow);
+        Iterator<String> pending = processIds.iterator();
+        int written = 0;
+
+        try {
+            StreamingZipOutputStream zip = new StreamingZipOutputStream(output);
+            while (window.size() < prefetchWindow && pending.hasNext()) {
+                window.add(prefetch(pending.next(), format));
+            }
+
+            while (!window.isEmpty()) {
+                Prefetch next = window.poll();
+                // Keep the window full: start the next fetch before copying this entry.
+                if (pending.hasNext()) {
+                    window.add(prefetch(pending.next(), format));
+                }
+
+                try (InputStream in = await(next)) {
+                    if (in == null) {
+                        Log.warnf("Document with key: %s not found in MinIO bucket: %s — skipped from archive",
+                                next.objectKey(), bucketName);
+                        missingEntriesCounter.increment();
+                        continue;
+                    }
+                    long size = zip.writeEntry(next.entryName(), in);
+                    entriesCounter.increment();
+                    written++;
+                    Log.debugf("Archived document with key: %s (%d bytes)", next.objectKey(), size);
+                }
+            }
+            // The central directory is written only on success, so a failed
+            // transfer never looks like a valid (but incomplete) archive.
+            zip.finish();
+        } finally {
+            // On failure, release the HTTP connections of the fetches still in the window.
+            window.forEach(Prefetch::discard);
+        }
+
+        archivesCounter.increment();
+        Log.debugf("ZIP archive streamed with %d of %d requested documents", written, processIds.size());
+    }
+
+    private Prefetch prefetch(String processId, DocFormat format) {
+        String objectKey = DocumentKeys.objectKey(processId, format);
+        CompletableFuture<InputStream> stream = CompletableFuture.supplyAsync(() -> {
+            try {
+                return minioClient.getObject(
+                        GetObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectKey)
+                                .build());
+            } catch (ErrorResponseException e) {
+                if ("NoSuchKey".equals(e.errorResponse().code())) {
+                    return null;
+                }
+                throw new CompletionException(e);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, prefetchExecutor);
+        return new Prefetch(objectKey, format.fileName(processId), stream);
+    }
+
+    private InputStream await(Prefetch prefetch) throws IOException {
+        try {
+            return prefetch.stream().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + prefetch.objectKey());
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to fetch " + prefetch.objectKey() + " from MinIO", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal ZIP writer that emits uncompressed entries in a single forward pass:
+ * {@code DEFLATED} at level 0, i.e. the content in stored deflate blocks.
+ *
+ * <p>A {@code STORED} entry needs its size and CRC-32 <em>before</em> its data,
+ * for the readers that do not go through the central directory, such as
+ * {@link java.util.zip.ZipInputStream}: they cannot find the end of its data
+ * otherwise. That forces the caller to buffer the whole entry. A deflate stream
+ * marks its own end, so this writer sets general purpose flag bit 3 and writes
+ * the CRC-32 and the sizes in a data descriptor after each entry: the content is
+ * copied straight from the source stream to the target stream through a small
+ * fixed-size buffer, at the cost of 5 bytes per 64 KiB block.
+ *
+ * <p>Only the classic ZIP32 format is supported: the archive is limited to
+ * 65535 entries and 4 GiB; exceeding those limits raises a {@link ZipException}.
+ * The target stream is never closed: its lifecycle belongs to the caller
+ * (e.g. the HTTP response).
+ */
+class StreamingZipOutputStream {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    /** Version 2.0: required for data descriptors. */
+    private static final int VERSION = 20;
+
+    /** Bit 3 (sizes and CRC in data descriptor) + bit 11 (UTF-8 file names). */
+    private static final int FLAGS = 0x0808;
+
+    private static final int METHOD_DEFLATED = 8;
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
+    private record CentralEntry(byte[] name, long crc, long compressedSize, long size, long offset, int dosTime,
+            int dosDate) {
+    }
+
+    private final OutputStream out;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+    private final byte[] deflateBuffer = new byte[COPY_BUFFER_SIZE];
+    private final Deflater deflater = new Deflater(Deflater.NO_COMPRESSION, true);
+    private long written;
+    private boolean finished;
+
+    StreamingZipOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Copies {@code content} into a new entry named {@code name}.
+     * The input stream is read to the end but not closed.
+     *
+     * @param name    the entry name
+     * @param content the entry content
+     * @return the number of content bytes written
+     * @throws IOException if reading or writing fails or the ZIP32 limits are exceeded
+     */
+    long writeEntry(String name, InputStream content) throws IOException {
+        if (finished) {
+            throw new IOException("ZIP archive already finished");
+        }
+        if (entries.size() == MAX_ENTRIES) {
+            throw new ZipException("ZIP archive exceeds the maximum number of entries: " + MAX_ENTRIES);
+        }
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        LocalDateTime now = LocalDateTime.now();
+        int dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        int dosDate = ((now.getYear() - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+
+        // Local file header: CRC and sizes are zero, they follow in the data descriptor.
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(VERSION);
+        writeShort(FLAGS);
+        writeShort(METHOD_DEFLATED);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        writeInt(0);
+        writeInt(0);
+        writeInt(0);
+        writeShort(nameBytes.length);
+        writeShort(0);
+        writeBytes(nameBytes, nameBytes.length);
+
+        CRC32 crc = new CRC32();
+        deflater.reset();
+        int read;
+        while ((read = content.read(copyBuffer)) != -1) {
+            crc.update(copyBuffer, 0, read);
+            deflater.setInput(copyBuffer, 0, read);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate();
+        }
+        long size = deflater.getBytesRead();
+        long compressedSize = deflater.getBytesWritten();
+        if (compressedSize > ZIP32_LIMIT) {
+            throw new ZipException("ZIP entry '" + name + "' exceeds the ZIP32 size limit");
+        }
+
+        writeInt(DATA_DESCRIPTOR_SIGNATURE);
+        writeInt((int) crc.getValue());
+        writeInt((int) compressedSize);
+        writeInt((int) size);
+
+        entries.add(new CentralEntry(nameBytes, crc.getValue(), compressedSize, size, offset, dosTime, dosDate));
+        return size;
+    }
+
+    /**
+     * Writes the central directory and the end of central directory record, then
+     * flushes the target stream and releases the deflater. Further calls are no-ops.
+     *
+     * @throws IOException if writing fails or the ZIP32 limits are exceeded
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        deflater.end();
+
+        long centralDirectoryOffset = written;
+        for (CentralEntry entry : entries) {
+            writeInt(CENTRAL_HEADER_SIGNATURE);
+            writeShort(VERSION);
+            writeShort(VERSION);
+            writeShort(FLAGS);
+            writeShort(METHOD_DEFLATED);
+            writeShort(entry.dosTime());
+            writeShort(entry.dosDate());
+            writeInt((int) entry.crc());
+            writeInt((int) entry.compressedSize());
+            writeInt((int) entry.size());
+            writeShort(entry.name().length);
+            writeShort(0); // extra field length
+            writeShort(0); // comment length
+            writeShort(0); // disk number start
+            writeShort(0); // internal attributes
+            writeInt(0);   // external attributes
+            writeInt((int) entry.offset());
+            writeBytes(entry.name(), entry.name().length);
+        }
+        long centralDirectorySize = written - centralDirectoryOffset;
+        if (written > ZIP32_LIMIT) {
+            throw new ZipException("ZIP archive exceeds the ZIP32 size limit");
+        }
+
+        writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt((int) centralDirectorySize);
+        writeInt((int) centralDirectoryOffset);
+        writeShort(0);
+        out.flush();
+    }
+
+    private void deflate() throws IOException {
+        writeBytes(deflateBuffer, deflater.deflate(deflateBuffer));
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        written += 2;
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        out.write((value >>> 16) & 0xFF);
+        out.write((value >>> 24) & 0xFF);
+        written += 4;
+    }
+
+    private void writeBytes(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        written += length;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.cluster;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.PdfEventProcessor;
+import it.dontesta.quarkus.sse.eventbus.sse.SseBroadcaster;
+import it.dontesta.quarkus.sse.scheduling.GenerationScheduler;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+
+/**
+ * Graceful drain of a replica, for rolling deploys: started by
+ * {@code POST /api/admin/drain} (the {@code preStop} hook of the pod) or, at the
+ * latest, by the shutdown of the application.
+ *
+ * <p>A draining replica
+ * <ol>
+ * <li>reports itself not ready, and refuses new generations with
+ * {@code 503 Service Unavailable}, so that the load balancer sends them to the
+ * others;</li>
+ * <li>stops claiming the deferred generations, left to the other replicas;</li>
+ * <li>hands the generations that have not started rendering off to the other
+ * replicas, through the Redis sorted set of the schedules, and lets the
+ * others finish, notifications included, within {@code pdf.drain.timeout};</li>
+ * <li>closes the SSE streams with a {@code retry:} hint, spread over
+ * {@code pdf.drain.reconnect-spread}: the clients reconnect to the other
+ * replicas, a few at a time, and get the result from there.</li>
+ * </ol>
+ * A drain cannot be undone: the replica is expected to stop.
+ */
+@ApplicationScoped
+public class DrainCoordinator {
+
+    @Inject
+    PdfEventProcessor pdfEventProcessor;
+
+    @Inject
+    GenerationScheduler generationScheduler;
+
+    @Inject
+    SseBroadcaster sseBroadcaster;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.drain.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "pdf.drain.timeout", defaultValue = "30s")
+    Duration timeout;
+
+    private volatile boolean draining;
+
+    // Guarded by this
+    private CompletableFuture<Boolean> drained;
+
+    void onStart(@Observes StartupEvent ev) {
+        Gauge.builder("pdf.drain.draining", this, coordinator -> coordinator.isDraining() ? 1 : 0)
+                .description("1 while this replica drains, 0 otherwise")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drains the replica before the other observers release their resources.
+     */
+    void onShutdown(@Observes @Priority(Interceptor.Priority.PLATFORM_BEFORE) ShutdownEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Bounded by the drain itself: the margin covers the closing of the streams
+            drain().get(timeout.plusSeconds(5).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.warnf(e, "Drain of the replica not completed before the shutdown");
+        }
+    }
+
+    /**
+     * @return {@code false} if the replica stops without draining, {@code pdf.drain.enabled=false}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return {@code true} once a drain has started
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * @return {@code true} once the drain has ended, whether or not every generation was done in time
+     */
+    public synchronized boolean isDrained() {
+        return drained != null && drained.isDone();
+    }
+
+    /**
+     * Starts the drain of the replica, unless it already has.
+     *
+     * @return a future completed with {@code true} once every generation of the
+     *         replica was handed off or notified, {@code false} if some of them were
+     *         still running after {@code pdf.drain.timeout}
+     */
+    public synchronized CompletableFuture<Boolean> drain() {
+        if (drained == null) {
+            draining = true;
+            drained = new CompletableFuture<>();
+            Thread.ofPlatform().name("pdf-drain").start(this::runDrain);
+        }
+        return drained;
+    }
+
+    private void runDrain() {
+        long startNanos = System.nanoTime();
+        try {
+            generationScheduler.stopClaiming();
+            boolean completed = pdfEventProcessor.drain(timeout);
+            int streams = sseBroadcaster.closeStreams();
+            Log.infof("Replica drained in %d ms (all generations done: %s, SSE streams closed: %d)",
+                    (System.nanoTime() - startNanos) / 1_000_000, completed, streams);
+            drained.complete(completed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            Log.errorf(e, "Drain of the replica failed");
+            drained.completeExceptionally(e);
+        }
+    }
+}
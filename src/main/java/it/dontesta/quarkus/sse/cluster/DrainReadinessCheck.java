@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.cluster;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Reports the replica not ready ({@code /q/health/ready}) once it drains, so
+ * that the load balancer stops sending it requests and SSE connections.
+ */
+@Readiness
+@ApplicationScoped
+public class DrainReadinessCheck implements HealthCheck {
+
+    @Inject
+    DrainCoordinator drainCoordinator;
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("drain")
+                .status(!drainCoordinator.isDraining())
+                .build();
+    }
+}
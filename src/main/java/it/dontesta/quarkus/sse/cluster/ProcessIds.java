@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.cluster;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import it.dontesta.quarkus.sse.ids.IdGenerator;
+import it.dontesta.quarkus.sse.ids.TimeOrderedIdGenerator;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Mints the processIds of the generations accepted by this replica.
+ *
+ * <p>With {@code pdf.routing.node-affinity.enabled} (the default) a processId is
+ * the route key of the accepting replica, its {@code app.instance.id} reduced to
+ * lower case letters, digits and dashes, followed by a dot and a UUID:
+ * {@code app-1.0b9d5c1e-...}. The reverse proxy reads it back from the status and
+ * download URLs and sends them to that replica, which renders the job: the events
+ * reach its SSE stream in-process, without the Redis round trip. Without it, or for
+ * the processIds minted before, the processId is a bare UUID.
+ *
+ * <p>The UUID comes from the {@link IdGenerator} named by {@code pdf.ids.generator}:
+ * time-ordered by default, so that the processIds sort by creation time and their
+ * creation time can be read back ({@link #createdAt}).
+ *
+ * <p>Thread-safe.
+ */
+@ApplicationScoped
+public class ProcessIds {
+
+    /** Separator between the route key and the UUID: neither contains a dot. */
+    static final char SEPARATOR = '.';
+
+    /** A processId: optionally the route key of the replica and a dot, then a UUID. */
+    private static final Pattern PROCESS_ID = Pattern.compile(
+            "(?:([a-z0-9-]+)\\.)?([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})");
+
+    /** Allowed characters of a processId sent by a client: guards the MinIO object keys built from it. */
+    private static final Pattern WELL_FORMED = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final boolean nodeAffinity;
+    private final String routeKey;
+    private final IdGenerator idGenerator;
+
+    public ProcessIds(ReplicaIdentity replicaIdentity,
+            @ConfigProperty(name = "pdf.routing.node-affinity.enabled", defaultValue = "true") boolean nodeAffinity,
+            @ConfigProperty(name = "pdf.ids.generator", defaultValue = IdGenerator.TIME_ORDERED) String idGenerator) {
+        this.nodeAffinity = nodeAffinity;
+        this.routeKey = routeKey(replicaIdentity.id());
+        this.idGenerator = IdGenerator.of(idGenerator);
+    }
+
+    /**
+     * @return {@code true} if the processIds name the replica that accepted them
+     */
+    public boolean nodeAffinity() {
+        return nodeAffinity;
+    }
+
+    /**
+     * @return a new processId, prefixed by the route key of this replica with node affinity
+     */
+    public String newProcessId() {
+        String uuid = idGenerator.next().toString();
+        return nodeAffinity ? routeKey + SEPARATOR + uuid : uuid;
+    }
+
+    /**
+     * @return {@code true} if {@code processId} was minted by this replica with node affinity
+     */
+    public boolean isLocal(String processId) {
+        return routeKey.equals(node(processId));
+    }
+
+    /**
+     * @return {@code true} if {@code processId}, as sent by a client, has only the allowed characters
+     */
+    public static boolean isWellFormed(String processId) {
+        return processId != null && WELL_FORMED.matcher(processId).matches();
+    }
+
+    /**
+     * @return the route key of the replica that minted {@code processId}, {@code null} for a bare UUID
+     */
+    public static String node(String processId) {
+        if (processId == null) {
+            return null;
+        }
+        Matcher matcher = PROCESS_ID.matcher(processId);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * @return the time {@code processId} was minted, empty unless its UUID is time-ordered
+     */
+    public static Optional<Instant> createdAt(String processId) {
+        if (processId == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = PROCESS_ID.matcher(processId);
+        return matcher.matches()
+                ? TimeOrderedIdGenerator.timestamp(UUID.fromString(matcher.group(2)))
+                : Optional.empty();
+    }
+
+    /**
+     * @return {@code replicaId} in lower case, every character other than a letter, a digit or a dash replaced by a dash
+     */
+    static String routeKey(String replicaId) {
+        String routeKey = replicaId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9-]", "-");
+        return routeKey.isEmpty() ? "local" : routeKey;
+    }
+}
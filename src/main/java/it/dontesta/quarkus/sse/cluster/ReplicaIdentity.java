@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.cluster;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Identity of this application instance among the replicas sharing the same
+ * Redis and MinIO, as configured by {@code app.instance.id} (the
+ * {@code APP_INSTANCE_ID} environment variable in docker-compose, the pod
+ * host name on OpenShift).
+ */
+@ApplicationScoped
+public class ReplicaIdentity {
+
+    private final String id;
+
+    public ReplicaIdentity(@ConfigProperty(name = "app.instance.id", defaultValue = "local") String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the identifier of this replica, used to tag metrics and logs
+     */
+    public String id() {
+        return id;
+    }
+}
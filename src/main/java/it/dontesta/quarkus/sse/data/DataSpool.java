@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Bytes written once and read back any number of times: kept in memory up to a
+ * threshold, spilled to a temporary file beyond it, so that a large payload
+ * never sits on the heap.
+ *
+ * <p>The temporary file is deleted by {@link #close()}.
+ */
+public final class DataSpool implements AutoCloseable {
+
+    /**
+     * Thrown when more bytes than the limit of the spool are written.
+     */
+    public static class TooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public TooLargeException(long maxBytes) {
+            super("The data exceeds the limit of " + maxBytes + " bytes");
+        }
+    }
+
+    /**
+     * Writes a spool; {@link #finish()} returns it, {@link #close()} without
+     * {@code finish()} discards what was written.
+     */
+    public static final class Writer extends OutputStream {
+
+        private final long memoryThreshold;
+        private final long maxBytes;
+        private final Path directory;
+
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private Path file;
+        private OutputStream fileOut;
+        private long size;
+        private boolean finished;
+
+        private Writer(long memoryThreshold, long maxBytes, Path directory) {
+            this.memoryThreshold = memoryThreshold;
+            this.maxBytes = maxBytes;
+            this.directory = directory;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (size + len > maxBytes) {
+                throw new TooLargeException(maxBytes);
+            }
+            if (fileOut == null && size + len > memoryThreshold) {
+                spill();
+            }
+            if (fileOut != null) {
+                fileOut.write(b, off, len);
+            } else {
+                memory.write(b, off, len);
+            }
+            size += len;
+        }
+
+        private void spill() throws IOException {
+            file = directory == null
+                    ? Files.createTempFile("pdf-data-", ".spool")
+                    : Files.createTempFile(directory, "pdf-data-", ".spool");
+            fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+            memory.writeTo(fileOut);
+            memory = null;
+        }
+
+        /**
+         * @return the spool of the bytes written
+         */
+        public DataSpool finish() throws IOException {
+            finished = true;
+            if (fileOut != null) {
+                fileOut.close();
+                return new DataSpool(null, file, size);
+            }
+            return new DataSpool(memory.toByteArray(), null, size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (fileOut != null) {
+                fileOut.close();
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private final byte[] memory;
+    private final Path file;
+    private final long size;
+
+    private DataSpool(byte[] memory, Path file, long size) {
+        this.memory = memory;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * @param memoryThreshold bytes kept in memory before spilling to a file
+     * @param maxBytes        bytes accepted at most
+     * @param directory       directory of the temporary file, {@code null} for the default one
+     */
+    public static Writer writer(long memoryThreshold, long maxBytes, Path directory) {
+        return new Writer(memoryThreshold, maxBytes, directory);
+    }
+
+    /**
+     * @return a new stream over the bytes of the spool, to be closed by the caller
+     */
+    public InputStream open() throws IOException {
+        return file == null ? new ByteArrayInputStream(memory) : new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return whether the bytes were spilled to a file
+     */
+    public boolean spilled() {
+        return file != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.data;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapperBuilder;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+import it.dontesta.quarkus.sse.fjdoc.DocRows;
+
+/**
+ * The rows of a document sent with {@code POST /api/pdf/generate}: a JSON array
+ * of objects, or NDJSON (one object per line).
+ *
+ * <p>The payload is validated with a streaming parser while it is copied to a
+ * {@link DataSpool}, so neither the bytes nor the rows are held on the heap. The
+ * templates list the rows through a FreeMarker collection that parses the spool
+ * again, one row at a time, each time it is listed.
+ */
+public final class DocData implements DocRows, AutoCloseable {
+
+    /**
+     * Format of the payload.
+     */
+    public enum Format {
+        /** A JSON array of objects. */
+        JSON,
+        /** Newline-delimited JSON: a sequence of objects. */
+        NDJSON
+    }
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {
+    };
+
+    private static final ObjectWrapper ROW_WRAPPER =
+            new DefaultObjectWrapperBuilder(Configuration.VERSION_2_3_32).build();
+
+    private final DataSpool spool;
+    private final Format format;
+    private final int rows;
+    private final ObjectMapper objectMapper;
+
+    private DocData(DataSpool spool, Format format, int rows, ObjectMapper objectMapper) {
+        this.spool = spool;
+        this.format = format;
+        this.rows = rows;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads and validates the payload from {@code body}, copying it to {@code spool}.
+     *
+     * @return the data, owning the spool
+     * @throws JsonParseException        if the payload is not valid JSON, or not made of objects
+     * @throws DataSpool.TooLargeException if the payload exceeds the limit of the spool
+     * @throws IOException               if the body cannot be read or the spool written
+     */
+    public static DocData read(InputStream body, Format format, DataSpool.Writer spool, ObjectMapper objectMapper)
+            throws IOException {
+        try (spool; JsonParser parser = objectMapper.createParser(new CopyingInputStream(body, spool))) {
+            int rows = 0;
+            JsonToken token = parser.nextToken();
+            if (format == Format.JSON) {
+                expect(parser, token, JsonToken.START_ARRAY, "a JSON array of objects");
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                expect(parser, token, JsonToken.START_OBJECT, "an object per row");
+                parser.skipChildren();
+                rows++;
+                token = parser.nextToken();
+            }
+            if (format == Format.JSON) {
+                expect(parser, token, JsonToken.END_ARRAY, "the end of the array");
+                if (parser.nextToken() != null) {
+                    throw new JsonParseException(parser, "Unexpected content after the array");
+                }
+            } else if (token != null) {
+                throw new JsonParseException(parser, "Unexpected end of array in NDJSON");
+            }
+            return new DocData(spool.finish(), format, rows, objectMapper);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected, String description)
+            throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + description + ", found " + token);
+        }
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * @return the size of the payload in bytes
+     */
+    public long bytes() {
+        return spool.size();
+    }
+
+    /**
+     * @return whether the payload was spilled to a temporary file
+     */
+    public boolean spilled() {
+        return spool.spilled();
+    }
+
+    @Override
+    public Object slice(int from, int to) {
+        return (TemplateCollectionModel) () -> new RowIterator(from, to);
+    }
+
+    /**
+     * Deletes the spool.
+     */
+    @Override
+    public void close() throws IOException {
+        spool.close();
+    }
+
+    /**
+     * Parses the rows {@code [from, to)} of the spool, one at a time; its stream is
+     * closed once the last one is read.
+     */
+    private final class RowIterator implements TemplateModelIterator {
+
+        private final int to;
+        private final JsonParser parser;
+        private int index;
+        private boolean closed;
+
+        RowIterator(int from, int to) throws TemplateModelException {
+            this.to = to;
+            try {
+                this.parser = objectMapper.createParser(spool.open());
+                if (format == Format.JSON) {
+                    parser.nextToken();
+                }
+                while (index < from && parser.nextToken() == JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    index++;
+                }
+            } catch (IOException e) {
+                throw new TemplateModelException("Cannot read the data of the document", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() throws TemplateModelException {
+            if (index < to && !closed) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public TemplateModel next() throws TemplateModelException {
+            try {
+                if (index >= to || parser.nextToken() != JsonToken.START_OBJECT) {
+                    close();
+                    throw new TemplateModelException("No more rows in the data of the document");
+                }
+                Map<String, Object> row = objectMapper.readValue(parser, ROW_TYPE);
+                index++;
+                return ROW_WRAPPER.wrap(row);
+            } catch (IOException e) {
+                close();
+                throw new TemplateModelException("Cannot read the data of the document", e);
+            }
+        }
+
+        private void close() throws TemplateModelException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new TemplateModelException("Cannot close the data of the document", e);
+            }
+        }
+    }
+
+    /**
+     * Copies the bytes read to the spool.
+     */
+    private static final class CopyingInputStream extends FilterInputStream {
+
+        private final DataSpool.Writer spool;
+
+        CopyingInputStream(InputStream in, DataSpool.Writer spool) {
+            super(in);
+            this.spool = spool;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                spool.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                spool.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes would be missing from the spool
+            return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Per-stage latency of the PDF pipeline, from the HTTP request to the SSE
+ * delivery, recorded as {@code pdf.pipeline.stage.duration.seconds} histograms
+ * tagged with {@code stage}, {@code chain} and {@code replica}.
+ *
+ * <p>Histogram buckets are the service level objectives configured by
+ * {@code pdf.pipeline.metrics.slo-buckets}, so that the share of requests
+ * within a given latency can be read per stage directly from Prometheus.
+ */
+@ApplicationScoped
+public class PipelineStageMetrics {
+
+    /** Tag value used when the document chain is not known (e.g. events from an older replica). */
+    public static final String UNKNOWN_CHAIN = "unknown";
+
+    /**
+     * The stages of the pipeline, in order.
+     */
+    public enum Stage {
+        /** From the HTTP request accepted to the event bus consumer picking it up. */
+        ACCEPT_TO_DEQUEUE("accept_to_dequeue"),
+        /** From the event bus consumer to the start of rendering on the worker pool (the demo delay excluded). */
+        DEQUEUE_TO_RENDER_START("dequeue_to_render_start"),
+        /** Document rendering, from the start of the templating to the document laid out. */
+        RENDER("render"),
+        /** Part of {@link #RENDER}: the template, up to the XSL-FO of a PDF or the final document of the other formats. */
+        TEMPLATE("template"),
+        /** Part of {@link #RENDER}: wait of the XSL-FO of a PDF in the handoff queue of the FOP stage. */
+        HANDOFF("handoff"),
+        /** Part of {@link #RENDER}: layout of the XSL-FO of a PDF by FOP. */
+        LAYOUT("layout"),
+        /** Upload of the document to MinIO. */
+        UPLOAD("upload"),
+        /** From the Redis publish to the Pub/Sub message received, possibly on another replica. */
+        PUBLISH_TO_RECEIVE("publish_to_receive"),
+        /** From the completion event received to the SSE event emitted to the client stream. */
+        RECEIVE_TO_SSE_FLUSH("receive_to_sse_flush");
+
+        private final String tagValue;
+
+        Stage(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    private record TimerKey(Stage stage, String chainId) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final String replicaId;
+    private final Duration[] sloBuckets;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public PipelineStageMetrics(
+            MeterRegistry meterRegistry,
+            ReplicaIdentity replicaIdentity,
+            @ConfigProperty(name = "pdf.pipeline.metrics.slo-buckets",
+                    defaultValue = "5ms,10ms,25ms,50ms,100ms,250ms,500ms,1s,2.5s,5s,10s,30s,60s")
+            List<Duration> sloBuckets) {
+        this.meterRegistry = meterRegistry;
+        this.replicaId = replicaIdentity.id();
+        this.sloBuckets = sloBuckets.toArray(Duration[]::new);
+    }
+
+    /**
+     * Records the duration of a stage; negative durations (clock skew between
+     * replicas) are recorded as zero.
+     *
+     * @param stage   the pipeline stage
+     * @param chainId the document chain, {@code null} if unknown
+     * @param nanos   the duration in nanoseconds
+     */
+    public void record(Stage stage, String chainId, long nanos) {
+        timer(stage, chainId == null ? UNKNOWN_CHAIN : chainId).record(Math.max(0L, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(Stage stage, String chainId) {
+        return timers.computeIfAbsent(new TimerKey(stage, chainId), key -> Timer
+                .builder("pdf.pipeline.stage.duration.seconds")
+                .description("Latency of each stage of the PDF pipeline, from the HTTP request to the SSE delivery")
+                .tag("stage", key.stage().tagValue())
+                .tag("chain", key.chainId())
+                .tag("replica", replicaId)
+                .serviceLevelObjectives(sloBuckets)
+                .register(meterRegistry));
+    }
+}
@@ -4,5 +4,18 @@
  */
 package it.dontesta.quarkus.sse.eventbus.model;
 
-public record PdfGenerationCompleted(String processId, String pdfUrl) {
+/**
+ * Completion of a PDF generation, published on Redis Pub/Sub.
+ *
+ * @param processId              the unique identifier of the generation process
+ * @param pdfUrl                 the download URL of the generated document
+ * @param chainId                the document chain used for rendering, {@code null} if unknown
+ * @param publishedAtEpochMillis wall-clock time of the Redis publish, {@code 0} if unknown; the
+ *                               receiver may run on another replica, so a monotonic clock cannot be used
+ */
+public record PdfGenerationCompleted(String processId, String pdfUrl, String chainId, long publishedAtEpochMillis) {
+
+    public PdfGenerationCompleted(String processId, String pdfUrl) {
+        this(processId, pdfUrl, null, 0L);
+    }
 }
@@ -4,5 +4,30 @@
  */
 package it.dontesta.quarkus.sse.eventbus.model;
 
-public record PdfGenerationRequest(String processId) {
-}
\ No newline at end of file
+import it.dontesta.quarkus.sse.data.DocData;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+
+/**
+ * Request of a PDF generation, published on the local event bus.
+ *
+ * @param processId       the unique identifier of the generation process
+ * @param format          the output format of the document
+ * @param acceptedAtNanos {@link System#nanoTime()} when the HTTP request was accepted; only
+ *                        comparable within the same JVM, which is where the event bus delivers it
+ * @param data            the rows sent with the request, {@code null} for the sample data; owned by the
+ *                        generation, which deletes it once done
+ */
+public record PdfGenerationRequest(String processId, DocFormat format, long acceptedAtNanos, DocData data) {
+
+    public PdfGenerationRequest(String processId) {
+        this(processId, DocFormat.PDF);
+    }
+
+    public PdfGenerationRequest(String processId, DocFormat format) {
+        this(processId, format, null);
+    }
+
+    public PdfGenerationRequest(String processId, DocFormat format, DocData data) {
+        this(processId, format, System.nanoTime(), data);
+    }
+}
@@ -6,48 +6,101 @@ package it.dontesta.quarkus.sse.eventbus.processor.pdf;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import java.util.random.RandomGenerator;
+import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.fugerit.java.doc.base.config.DocConfig;
+import org.fugerit.java.doc.base.config.DocInput;
+import org.fugerit.java.doc.base.config.DocOutput;
 import org.fugerit.java.doc.base.process.DocProcessContext;
+import org.fugerit.java.doc.base.process.DocProcessData;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.management.ThreadMXBean;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import io.quarkus.arc.Unremovable;
 import io.quarkus.logging.Log;
-import io.quarkus.redis.datasource.ReactiveRedisDataSource;
-import io.quarkus.redis.datasource.pubsub.ReactivePubSubCommands;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.vertx.mutiny.core.eventbus.EventBus;
 import io.vertx.mutiny.core.eventbus.Message;
 import io.vertx.mutiny.core.eventbus.MessageConsumer;
+import it.dontesta.quarkus.sse.data.DocData;
+import it.dontesta.quarkus.sse.eventbus.metrics.PipelineStageMetrics;
+import it.dontesta.quarkus.sse.eventbus.metrics.PipelineStageMetrics.Stage;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationError;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationRequest;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation.PdfJob;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation.PdfJobCancellation;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.AdaptiveConcurrencyLimiter;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.AdaptiveConcurrencyLimiter.Decision;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.ChainBulkheads;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.ChainBulkheads.Bulkhead;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.ChainCpuUsage;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.LimitedExecutor;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.MemoryBudget;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.MemoryCostEstimator;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline.ChainLayoutStages;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline.FoPdfRenderer;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline.RenderStage;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline.SectionedPdfRenderer;
+import it.dontesta.quarkus.sse.eventbus.sse.SseBroadcaster;
+import it.dontesta.quarkus.sse.fjdoc.DocChainIds;
+import it.dontesta.quarkus.sse.fjdoc.DocContexts;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
 import it.dontesta.quarkus.sse.fjdoc.DocHelper;
+import it.dontesta.quarkus.sse.fjdoc.DocRows;
+import it.dontesta.quarkus.sse.jfr.PdfJobEnqueuedEvent;
+import it.dontesta.quarkus.sse.jfr.PdfRenderEvent;
+import it.dontesta.quarkus.sse.jfr.PdfUploadEvent;
+import it.dontesta.quarkus.sse.jfr.RedisPublishEvent;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import it.dontesta.quarkus.sse.redis.RedisNotifications;
+import it.dontesta.quarkus.sse.scheduling.GenerationScheduler;
+import it.dontesta.quarkus.sse.storage.DocumentKeys;
+import it.dontesta.quarkus.sse.tracing.TracePropagation;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
@@ -57,13 +110,40 @@ import jakarta.ws.rs.core.MediaType;
 @ApplicationScoped
 public class PdfEventProcessor {
 
+    /** Prefix of the per-chain bulkhead settings, followed by the {@code docChain} id. */
+    private static final String BULKHEAD_CONFIG_PREFIX = "pdf.generation.bulkhead.";
+
+    /** The HotSpot bean also measures the bytes allocated by a thread. */
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Weight of the latest observation in the heap estimates. */
+    private static final double MEMORY_ESTIMATE_SMOOTHING = 0.1;
+
+    /** Observations of a kind of document before its heap estimate replaces the configured one. */
+    private static final int MEMORY_ESTIMATE_MIN_OBSERVATIONS = 3;
+
     private final EventBus eventBus;
-    private final ScheduledExecutorService executor;
+    /** Per-chain limiters and executors; the demo picks a chain at random among them. */
+    private final ChainBulkheads bulkheads;
+    /** Runs the periodic adjustment of the concurrency limit. */
+    private final ScheduledExecutorService scheduler;
     private final MinioClient minioClient;
     private final DocHelper docHelper;
+    /** Second stage of the render pipeline, one per chain: lays out the XSL-FO of the PDFs. */
+    private final ChainLayoutStages layoutStages;
+    private final FoPdfRenderer foPdfRenderer;
+    /** Uploads to MinIO, off the render stages. */
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    /** Busy time and tasks of the first stage (templating), run by the bulkheads. */
+    private final LongAdder templateBusyNanos = new LongAdder();
+    private final LongAdder templateCompleted = new LongAdder();
+    /** Generations held by this replica, from the dequeue of their request to their notification. */
+    private final Map<PdfJob, Generation> generations = new ConcurrentHashMap<>();
+    /** Redis publishes and hand-offs sent and not yet acknowledged. */
+    private final AtomicInteger pendingRedisWrites = new AtomicInteger();
 
-    @Inject
-    ReactiveRedisDataSource reactiveRedisDS;
+    /** Set when the replica drains: the generations not started are handed off to the others. */
+    private volatile boolean draining;
 
     @Inject
     ObjectMapper objectMapper;
@@ -71,15 +151,47 @@ public class PdfEventProcessor {
     @Inject
     MeterRegistry meterRegistry;
 
+    @Inject
+    PipelineStageMetrics stageMetrics;
+
+    @Inject
+    PdfJobCancellation jobCancellation;
+
+    @Inject
+    JobStateStore jobStateStore;
+
+    @Inject
+    GenerationScheduler generationScheduler;
+
+    @Inject
+    RedisNotifications redisNotifications;
+
+    @Inject
+    SseBroadcaster sseBroadcaster;
+
+    @Inject
+    Tracer tracer;
+
+    @Inject
+    TracePropagation tracePropagation;
+
     // Metriche di business
     private Counter successCounter;
     private Counter errorCounter;
+    private Counter cancelledCounter;
+    private Counter handedOffCounter;
     private Timer generationTimer;
     private DistributionSummary fileSizeSummary;
     private final AtomicInteger activeGenerations = new AtomicInteger(0);
+    private final Map<String, Map<Decision, Counter>> concurrencyDecisionCounters = new LinkedHashMap<>();
 
-    /** Dedicated Redis publisher — initialised once at startup. */
-    private ReactivePubSubCommands<String> redisPublisher;
+    /** Renders the large PDFs in sections, {@code null} if disabled. */
+    private SectionedPdfRenderer sectionedRenderer;
+    private Counter sectionedCounter;
+
+    /** Admits the generations by estimated heap, {@code null} if disabled. */
+    private MemoryBudget memoryBudget;
+    private MemoryCostEstimator memoryCostEstimator;
 
     @Inject
     @ConfigProperty(name = "pdf.eventbus.destination.requests", defaultValue = "pdf-generation-requests")
@@ -105,23 +217,145 @@ public class PdfEventProcessor {
     @ConfigProperty(name = "pdf.generation.delay.max-seconds", defaultValue = "40")
     long maxDelayInSeconds;
 
+    @Inject
+    @ConfigProperty(name = "pdf.generation.concurrency.adjust-interval", defaultValue = "5s")
+    Duration concurrencyAdjustInterval;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.sectioned.enabled", defaultValue = "true")
+    boolean sectionedEnabled;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.sectioned.min-rows", defaultValue = "5000")
+    int sectionedMinRows;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.sectioned.rows-per-section", defaultValue = "1000")
+    int sectionedRowsPerSection;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.sectioned.parallelism", defaultValue = "0")
+    int sectionedParallelism;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.memory.enabled", defaultValue = "true")
+    boolean memoryBudgetEnabled;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.memory.budget")
+    Optional<MemorySize> memoryBudgetSize;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.memory.budget-ratio", defaultValue = "0.5")
+    double memoryBudgetRatio;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.memory.initial-estimate", defaultValue = "16M")
+    MemorySize memoryInitialEstimate;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.memory.initial-bytes-per-row", defaultValue = "4K")
+    MemorySize memoryInitialBytesPerRow;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.memory.live-ratio", defaultValue = "0.25")
+    double memoryLiveRatio;
+
     private MessageConsumer<PdfGenerationRequest> consumer;
 
     public PdfEventProcessor(
             EventBus eventBus,
             MinioClient minioClient,
-            @ConfigProperty(name = "pdf.generation.executor.pool-size", defaultValue = "10") int poolSize) {
+            Config config,
+            @ConfigProperty(name = "pdf.generation.executor.pool-size", defaultValue = "10") int poolSize,
+            @ConfigProperty(name = "pdf.generation.concurrency.min-limit", defaultValue = "1") int minLimit,
+            @ConfigProperty(name = "pdf.generation.concurrency.max-limit", defaultValue = "32") int maxLimit,
+            @ConfigProperty(name = "pdf.generation.concurrency.cpu-high-threshold", defaultValue = "0.85") double cpuHighThreshold,
+            @ConfigProperty(name = "pdf.generation.concurrency.queue-wait-target", defaultValue = "500ms") Duration queueWaitTarget,
+            @ConfigProperty(name = "pdf.generation.concurrency.latency-tolerance", defaultValue = "1.5") double latencyTolerance,
+            @ConfigProperty(name = "pdf.generation.concurrency.backoff-ratio", defaultValue = "0.75") double backoffRatio,
+            @ConfigProperty(name = "pdf.generation.pipeline.fop.parallelism", defaultValue = "4") int fopParallelism,
+            @ConfigProperty(name = "pdf.generation.pipeline.handoff.queue-size", defaultValue = "16") int handoffQueueSize) {
         this.eventBus = eventBus;
         this.minioClient = minioClient;
-        this.executor = Executors.newScheduledThreadPool(poolSize);
+        AdaptiveConcurrencyLimiter.Settings defaults = new AdaptiveConcurrencyLimiter.Settings(poolSize, minLimit,
+                maxLimit, cpuHighThreshold, queueWaitTarget, latencyTolerance, backoffRatio);
+        Map<String, AdaptiveConcurrencyLimiter.Settings> settingsByChain = new LinkedHashMap<>();
+        Map<String, ChainLayoutStages.Settings> layoutSettingsByChain = new LinkedHashMap<>();
+        for (String chainId : DocChainIds.renderable()) {
+            settingsByChain.put(chainId, bulkheadSettings(config, chainId, defaults));
+            layoutSettingsByChain.put(chainId, layoutSettings(config, chainId,
+                    new ChainLayoutStages.Settings(fopParallelism, handoffQueueSize)));
+        }
+        // The global CPU threshold is also the guard of the host, shared by the chains
+        this.bulkheads = new ChainBulkheads(settingsByChain, AdaptiveConcurrencyLimiter.systemCpuLoad(),
+                cpuHighThreshold);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pdf-generation-scheduler").daemon().factory());
         this.docHelper = new DocHelper();
-        Log.debugf("PDF generation executor initialized with a thread pool size of %d", poolSize);
+        this.foPdfRenderer = new FoPdfRenderer();
+        this.layoutStages = new ChainLayoutStages(layoutSettingsByChain);
+        settingsByChain.forEach((chainId, settings) -> Log.debugf(
+                "PDF generation bulkhead '%s' initialized with a concurrency limit of %d (min %d, max %d)",
+                chainId, settings.initialLimit(), settings.minLimit(), settings.maxLimit()));
+        layoutSettingsByChain.forEach((chainId, settings) -> Log.debugf(
+                "PDF layout stage '%s' initialized with %d FOP workers and a handoff queue of %d",
+                chainId, settings.parallelism(), settings.queueSize()));
+    }
+
+    /**
+     * Settings of the bulkhead of {@code chainId}: {@code pdf.generation.bulkhead.<chainId>.*}
+     * when set, the global {@code pdf.generation.executor.pool-size} and
+     * {@code pdf.generation.concurrency.*} values otherwise.
+     */
+    private static AdaptiveConcurrencyLimiter.Settings bulkheadSettings(Config config, String chainId,
+            AdaptiveConcurrencyLimiter.Settings defaults) {
+        String prefix = BULKHEAD_CONFIG_PREFIX + chainId + ".";
+        return new AdaptiveConcurrencyLimiter.Settings(
+                config.getOptionalValue(prefix + "pool-size", Integer.class).orElse(defaults.initialLimit()),
+                config.getOptionalValue(prefix + "min-limit", Integer.class).orElse(defaults.minLimit()),
+                config.getOptionalValue(prefix + "max-limit", Integer.class).orElse(defaults.maxLimit()),
+                config.getOptionalValue(prefix + "cpu-high-threshold", Double.class).orElse(defaults.cpuHighThreshold()),
+                config.getOptionalValue(prefix + "queue-wait-target", Duration.class).orElse(defaults.queueWaitTarget()),
+                config.getOptionalValue(prefix + "latency-tolerance", Double.class).orElse(defaults.latencyTolerance()),
+                config.getOptionalValue(prefix + "backoff-ratio", Double.class).orElse(defaults.backoffRatio()));
+    }
+
+    /**
+     * Settings of the layout stage of {@code chainId}: {@code pdf.generation.bulkhead.<chainId>.fop-parallelism}
+     * and {@code handoff-queue-size} when set, the global {@code pdf.generation.pipeline.*} values otherwise.
+     */
+    private static ChainLayoutStages.Settings layoutSettings(Config config, String chainId,
+            ChainLayoutStages.Settings defaults) {
+        String prefix = BULKHEAD_CONFIG_PREFIX + chainId + ".";
+        return new ChainLayoutStages.Settings(
+                config.getOptionalValue(prefix + "fop-parallelism", Integer.class).orElse(defaults.parallelism()),
+                config.getOptionalValue(prefix + "handoff-queue-size", Integer.class).orElse(defaults.queueSize()));
     }
 
     void onStart(@Observes StartupEvent ev) {
         Log.debug("Initialization of the PdfEventProcessor...");
+        if (sectionedEnabled) {
+            int parallelism = sectionedParallelism > 0
+                    ? sectionedParallelism
+                    : Runtime.getRuntime().availableProcessors();
+            sectionedRenderer = new SectionedPdfRenderer(docHelper, foPdfRenderer, parallelism,
+                    sectionedRowsPerSection);
+            Log.debugf("Sectioned rendering of the PDFs over %d rows enabled, %d rows per section on %d threads",
+                    sectionedMinRows, sectionedRowsPerSection, parallelism);
+        }
+        if (memoryBudgetEnabled) {
+            long budget = memoryBudgetSize.map(MemorySize::asLongValue)
+                    .orElse((long) (Runtime.getRuntime().maxMemory() * memoryBudgetRatio));
+            memoryBudget = new MemoryBudget(budget);
+            memoryCostEstimator = new MemoryCostEstimator(new MemoryCostEstimator.Settings(
+                    memoryInitialEstimate.asLongValue(), memoryInitialBytesPerRow.asLongValue(), memoryLiveRatio,
+                    MEMORY_ESTIMATE_SMOOTHING, MEMORY_ESTIMATE_MIN_OBSERVATIONS));
+            Log.debugf("PDF generations admitted within a heap budget of %d MiB", budget >> 20);
+        }
         initializeMetrics();
-        redisPublisher = reactiveRedisDS.pubsub(String.class);
+        scheduler.scheduleAtFixedRate(this::adjustConcurrencyLimit, concurrencyAdjustInterval.toMillis(),
+                concurrencyAdjustInterval.toMillis(), TimeUnit.MILLISECONDS);
         try {
             boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
             if (!found) {
@@ -150,6 +384,15 @@ public class PdfEventProcessor {
                 .description("Total number of failed PDF generations")
                 .register(meterRegistry);
         
+        cancelledCounter = Counter.builder("pdf.generation.total")
+                .tag("status", "cancelled")
+                .description("Total number of cancelled PDF generations")
+                .register(meterRegistry);
+        
+        handedOffCounter = Counter.builder("pdf.drain.handed-off.total")
+                .description("Total number of PDF generations handed off to the other replicas by a drain")
+                .register(meterRegistry);
+        
         generationTimer = Timer.builder("pdf.generation.duration.seconds")
                 .description("Time taken to generate and upload PDF files")
                 .register(meterRegistry);
@@ -162,6 +405,101 @@ public class PdfEventProcessor {
         Gauge.builder("pdf.generation.active", activeGenerations, AtomicInteger::get)
                 .description("Number of PDF generation tasks currently executing in the worker pool")
                 .register(meterRegistry);
+
+        for (Bulkhead bulkhead : bulkheads.all()) {
+            Tags chainTag = Tags.of("chain", bulkhead.chainId());
+
+            Gauge.builder("pdf.generation.concurrency.limit", bulkhead.limiter(), AdaptiveConcurrencyLimiter::getLimit)
+                    .tags(chainTag)
+                    .description("Current limit of PDF generations of the chain allowed to run concurrently")
+                    .register(meterRegistry);
+
+            Gauge.builder("pdf.generation.concurrency.inflight", bulkhead.executor(), LimitedExecutor::inFlight)
+                    .tags(chainTag)
+                    .description("Number of PDF generations of the chain holding a concurrency permit")
+                    .register(meterRegistry);
+
+            Gauge.builder("pdf.generation.concurrency.queued", bulkhead.executor(), LimitedExecutor::queued)
+                    .tags(chainTag)
+                    .description("Number of PDF generations of the chain waiting for a concurrency permit")
+                    .register(meterRegistry);
+
+            Gauge.builder("pdf.generation.concurrency.saturation", bulkhead,
+                            b -> (double) b.executor().inFlight() / b.limiter().getLimit())
+                    .tags(chainTag)
+                    .description("Ratio of the permits of the chain in use, 1 when its bulkhead is saturated")
+                    .register(meterRegistry);
+
+            Map<Decision, Counter> counters = new EnumMap<>(Decision.class);
+            for (Decision decision : Decision.values()) {
+                counters.put(decision, Counter.builder("pdf.generation.concurrency.decisions.total")
+                        .tags(chainTag)
+                        .tag("decision", decision.tagValue())
+                        .description("Total number of decisions taken by the adaptive concurrency limiter")
+                        .register(meterRegistry));
+            }
+            concurrencyDecisionCounters.put(bulkhead.chainId(), counters);
+        }
+
+        // Render pipeline: utilisation of a stage = rate(busy seconds) / parallelism
+        FunctionCounter.builder("pdf.render.stage.busy.seconds", templateBusyNanos, busy -> busy.sum() / 1e9)
+                .tag("stage", "template")
+                .description("Time spent by the workers of the render stage on its tasks")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("pdf.render.stage.completed.total", templateCompleted, LongAdder::sum)
+                .tag("stage", "template")
+                .description("Total number of tasks completed by the render stage")
+                .register(meterRegistry);
+
+        // The templating runs on the bulkheads: its parallelism is the sum of their limits
+        Gauge.builder("pdf.render.stage.parallelism", bulkheads,
+                        b -> b.all().stream().mapToInt(bulkhead -> bulkhead.limiter().getLimit()).sum())
+                .tag("stage", "template")
+                .description("Number of tasks the render stage can run at once")
+                .register(meterRegistry);
+
+        // One layout stage per chain: layout-<docChain id>
+        for (RenderStage layoutStage : layoutStages.all()) {
+            FunctionCounter.builder("pdf.render.stage.busy.seconds", layoutStage, stage -> stage.busyNanos() / 1e9)
+                    .tag("stage", layoutStage.name())
+                    .description("Time spent by the workers of the render stage on its tasks")
+                    .register(meterRegistry);
+            FunctionCounter.builder("pdf.render.stage.completed.total", layoutStage, RenderStage::completed)
+                    .tag("stage", layoutStage.name())
+                    .description("Total number of tasks completed by the render stage")
+                    .register(meterRegistry);
+            Gauge.builder("pdf.render.stage.parallelism", layoutStage, RenderStage::parallelism)
+                    .tag("stage", layoutStage.name())
+                    .description("Number of tasks the render stage can run at once")
+                    .register(meterRegistry);
+            Gauge.builder("pdf.render.stage.active", layoutStage, RenderStage::active)
+                    .tag("stage", layoutStage.name())
+                    .description("Number of workers of the render stage running a task")
+                    .register(meterRegistry);
+            Gauge.builder("pdf.render.stage.queued", layoutStage, RenderStage::queued)
+                    .tag("stage", layoutStage.name())
+                    .description("Number of documents waiting in the handoff queue of the render stage")
+                    .register(meterRegistry);
+        }
+
+        if (memoryBudget != null) {
+            Gauge.builder("pdf.generation.memory.budget.bytes", memoryBudget, MemoryBudget::budget)
+                    .baseUnit("bytes")
+                    .description("Heap available to the PDF generations running at once")
+                    .register(meterRegistry);
+            Gauge.builder("pdf.generation.memory.committed.bytes", memoryBudget, MemoryBudget::committed)
+                    .baseUnit("bytes")
+                    .description("Estimated heap of the PDF generations admitted")
+                    .register(meterRegistry);
+            Gauge.builder("pdf.generation.memory.waiting", memoryBudget, MemoryBudget::waiting)
+                    .description("Number of PDF generations waiting for their heap to fit in the budget")
+                    .register(meterRegistry);
+        }
+
+        sectionedCounter = Counter.builder("pdf.render.sectioned.total")
+                .description("Total number of PDFs rendered in sections and merged")
+                .register(meterRegistry);
         
         Log.debug("Micrometer metrics initialized for PdfEventProcessor");
     }
@@ -184,18 +522,111 @@ public class PdfEventProcessor {
         shutdownExecutor();
     }
 
+    /**
+     * @return the number of PDF generations currently rendering or uploading on this replica
+     */
+    public int activeGenerations() {
+        return activeGenerations.get();
+    }
+
+    /**
+     * @return the rows sent with the request of {@code processId}, while this replica
+     *         holds its generation; empty for the sample rows, or once the generation is done
+     */
+    public Optional<DocRows> data(String processId) {
+        return generations.values().stream()
+                .filter(generation -> generation.data != null && generation.job.processId().equals(processId))
+                .<DocRows> map(generation -> generation.data)
+                .findFirst();
+    }
+
+    /**
+     * Drains the replica: the generations that have not started rendering are
+     * handed off to the other replicas through {@link GenerationScheduler#handOff},
+     * as are the requests dequeued from now on; the others run to completion.
+     * The generations of requests with data, spooled on the disk of this replica,
+     * are not handed off: they skip their simulated delay instead.
+     *
+     * @param timeout how long to wait for the generations and their notifications
+     * @return {@code true} if every generation was handed off or notified within {@code timeout}
+     */
+    public boolean drain(Duration timeout) throws InterruptedException {
+        draining = true;
+        Log.infof("Draining the PDF generations: %d in progress", generations.size());
+        generations.values().forEach(this::drain);
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!generations.isEmpty() || pendingRedisWrites.get() > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                Log.warnf("PDF generations still in progress after a drain of %s: %d", timeout, generations.size());
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return true;
+    }
+
+    private void drain(Generation generation) {
+        if (generation.data != null) {
+            generation.delay.complete(null);
+        } else if (generation.job.handOff()) {
+            // Notified by the replica that runs it: the chain of the generation only cleans up
+            handOff(generation.job.processId(), generation.format);
+        }
+    }
+
+    private void handOff(String processId, DocFormat format) {
+        pendingRedisWrites.incrementAndGet();
+        generationScheduler.handOff(processId, format)
+                .subscribe().with(
+                        v -> {
+                            Log.debugf("PDF generation handed off for ID: %s", processId);
+                            handedOffCounter.increment();
+                            pendingRedisWrites.decrementAndGet();
+                        },
+                        err -> {
+                            Log.errorf(err, "Failed to hand off the PDF generation for ID: %s", processId);
+                            pendingRedisWrites.decrementAndGet();
+                        });
+    }
+
+    private void adjustConcurrencyLimit() {
+        for (Bulkhead bulkhead : bulkheads.all()) {
+            try {
+                int previousLimit = bulkhead.limiter().getLimit();
+                Decision decision = bulkhead.executor().adjustLimit();
+                concurrencyDecisionCounters.get(bulkhead.chainId()).get(decision).increment();
+                if (decision != Decision.HOLD) {
+                    Log.debugf("PDF generation concurrency limit of '%s' %s: %d -> %d (in flight %d, queued %d)",
+                            bulkhead.chainId(), decision.tagValue(), previousLimit, bulkhead.limiter().getLimit(),
+                            bulkhead.executor().inFlight(), bulkhead.executor().queued());
+                }
+            } catch (RuntimeException e) {
+                // An exception would cancel the periodic task
+                Log.errorf(e, "Failed to adjust the PDF generation concurrency limit of '%s'", bulkhead.chainId());
+            }
+        }
+    }
+
     private void shutdownExecutor() {
-        if (!executor.isShutdown()) {
+        scheduler.shutdownNow();
+        if (!bulkheads.isShutdown()) {
             try {
-                executor.shutdown();
-                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
+                bulkheads.shutdown();
+                if (!bulkheads.awaitTermination(5, TimeUnit.SECONDS)) {
+                    bulkheads.shutdownNow();
                 }
             } catch (InterruptedException e) {
                 Log.error("Error occurred during the shutdown of the executor", e);
                 Thread.currentThread().interrupt();
             }
         }
+        // After the bulkheads, whose workers hand their XSL-FO over to the layout stages
+        layoutStages.close();
+        if (sectionedRenderer != null) {
+            sectionedRenderer.close();
+        }
+        uploadExecutor.shutdown();
     }
 
     private void unregisterConsumer() {
@@ -208,125 +639,597 @@ public class PdfEventProcessor {
     // Handler to process PDF generation requests
     private void handlePdfGenerationRequest(Message<PdfGenerationRequest> message) {
         PdfGenerationRequest request = message.body();
+        long dequeuedAtNanos = System.nanoTime();
+        if (draining && request.data() == null) {
+            handOff(request.processId(), request.format());
+            return;
+        }
+        List<String> chainIds = bulkheads.chainIds();
+        String chainId = chainIds.get(RandomGenerator.getDefault().nextInt(chainIds.size()));
+        stageMetrics.record(Stage.ACCEPT_TO_DEQUEUE, chainId, dequeuedAtNanos - request.acceptedAtNanos());
         Log.debugf("Received PDF generation request with ID: %s", request.processId());
 
-        generatePdfAsync(request.processId())
+        // Resume the trace of the HTTP request that accepted the job (possibly on another thread)
+        Context parentContext = tracePropagation.extract(message.headers());
+        Span jobSpan = tracer.spanBuilder("pdf.generate")
+                .setParent(parentContext)
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute(TracePropagation.PROCESS_ID, request.processId())
+                .setAttribute(TracePropagation.CHAIN_ID, chainId)
+                .startSpan();
+        Context jobContext = parentContext.with(jobSpan);
+        // Dispatched once the cancellation marker was checked: a job cancelled on the event bus never renders
+        jobCancellation.register(request.processId(), chainId)
+                .subscribe().with(
+                        job -> {
+                            try {
+                                dispatch(request, job, dequeuedAtNanos, jobSpan, jobContext);
+                            } catch (RuntimeException e) {
+                                jobCancellation.unregister(job);
+                                generations.remove(job);
+                                abandon(request, e, jobSpan, jobContext);
+                            }
+                        },
+                        err -> {
+                            jobCancellation.unregister(request.processId());
+                            abandon(request, err, jobSpan, jobContext);
+                        });
+    }
+
+    /**
+     * Fails a job that could not be dispatched: its render never started, so
+     * nothing else would close its data, end its span or notify its client.
+     */
+    private void abandon(PdfGenerationRequest request, Throwable err, Span jobSpan, Context jobContext) {
+        String processId = request.processId();
+        String errorMessage = "Failed to dispatch PDF generation: " + err.getMessage();
+        Log.errorf(err, "Failed to dispatch PDF generation for ID: %s", processId);
+        try {
+            if (request.data() != null) {
+                request.data().close();
+            }
+        } catch (IOException e) {
+            Log.warnf(e, "Cannot delete the data of process ID: %s", processId);
+        }
+        jobSpan.recordException(err);
+        jobSpan.setStatus(StatusCode.ERROR, errorMessage);
+        jobStateStore.markFailed(processId, errorMessage);
+        publishToRedis(errorsDestination, new PdfGenerationError(processId, errorMessage), jobContext);
+        errorCounter.increment();
+        jobSpan.end();
+    }
+
+    private void dispatch(PdfGenerationRequest request, PdfJob job, long dequeuedAtNanos, Span jobSpan,
+            Context jobContext) {
+        String chainId = job.chainId();
+        jobStateStore.markScheduled(request.processId(), chainId);
+
+        DocFormat format = request.format();
+        jobSpan.setAttribute(TracePropagation.FORMAT, format.param());
+
+        generatePdfAsync(job, format, request.data(), dequeuedAtNanos, jobContext)
                         .thenAccept(
                         result -> {
                             String downloadUrl = String.format("/api/pdf/download/%s", request.processId());
+                            if (format != DocFormat.PDF) {
+                                downloadUrl += "?format=" + format.param();
+                            }
                             PdfGenerationCompleted completionEvent = new PdfGenerationCompleted(request.processId(),
-                                    downloadUrl);
+                                    downloadUrl, chainId, System.currentTimeMillis());
 
                             Log.debugf(
                                     "Attempting to send PDF completion notification for ID: %s", request.processId());
 
-                            publishToRedis(completedDestination, completionEvent);
+                            jobStateStore.markCompleted(request.processId(), downloadUrl);
+                            publishToRedis(completedDestination, completionEvent, jobContext);
                             Log.debugf("PDF completion notification sent for ID: %s", request.processId());
                             
                             // Incremento counter successo
                             successCounter.increment();
                         })
                 .exceptionally(ex -> {
+                    if (job.isHandedOff()) {
+                        jobSpan.setAttribute("pdf.handed-off", true);
+                        return null;
+                    }
+                    if (unwrap(ex) instanceof CancellationException) {
+                        Log.debugf("PDF generation cancelled for ID: %s", request.processId());
+                        jobSpan.setAttribute("pdf.cancelled", true);
+                        jobStateStore.markCancelled(request.processId());
+                        publishToRedis(errorsDestination,
+                                new PdfGenerationError(request.processId(), "PDF generation cancelled"), jobContext);
+                        jobCancellation.recordCancelled(job);
+                        cancelledCounter.increment();
+                        return null;
+                    }
                     String errorMessage = "Failed to process PDF generation: " + ex.getCause().getMessage();
                     Log.errorf(ex, "Failed to process PDF generation for ID: %s", request.processId());
 
                     PdfGenerationError errorEvent = new PdfGenerationError(request.processId(), errorMessage);
 
-                    publishToRedis(errorsDestination, errorEvent);
+                    jobSpan.recordException(ex.getCause() != null ? ex.getCause() : ex);
+                    jobSpan.setStatus(StatusCode.ERROR, errorMessage);
+                    jobStateStore.markFailed(request.processId(), errorMessage);
+                    publishToRedis(errorsDestination, errorEvent, jobContext);
                     Log.debugf("PDF generation error notification sent for ID: %s", request.processId());
                     
                     // Incremento counter errore
                     errorCounter.increment();
                     return null;
+                })
+                .whenComplete((v, ex) -> {
+                    jobCancellation.unregister(job);
+                    generations.remove(job);
+                    jobSpan.end();
                 });
     }
 
+    private static Throwable unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
     /**
-     * Serializes {@code event} to JSON and publishes it to the given Redis channel.
-     * Errors are logged but do not propagate to the caller.
+     * Serializes {@code event} to JSON, embedding the trace context of the
+     * publish span, and publishes it to the given Redis channel. If the SSE stream
+     * of the job is open on this replica the event is delivered to it in-process
+     * instead, and not published: the job state, written before, resolves the
+     * streams of the job opened later, on any replica. Errors are logged but do not
+     * propagate to the caller.
      */
-    private void publishToRedis(String channel, Object event) {
+    void publishToRedis(String channel, Object event, Context parentContext) {
+        Span publishSpan = tracer.spanBuilder("redis.publish")
+                .setParent(parentContext)
+                .setSpanKind(SpanKind.PRODUCER)
+                .setAttribute("messaging.system", "redis")
+                .setAttribute("messaging.destination.name", channel)
+                .startSpan();
         try {
-            String json = objectMapper.writeValueAsString(event);
+            ObjectNode payload = objectMapper.valueToTree(event);
+            tracePropagation.inject(parentContext.with(publishSpan), payload);
+            String json = objectMapper.writeValueAsString(payload);
+            String processId = payload.path("processId").asText(null);
+            if (sseBroadcaster.deliverLocally(channel, processId, json)) {
+                Log.debugf("Delivered event for processId %s in-process, not published on Redis channel '%s'",
+                        processId, channel);
+                publishSpan.setAttribute("messaging.destination.local", true);
+                publishSpan.end();
+                return;
+            }
+            RedisPublishEvent publishEvent = new RedisPublishEvent(channel, processId, json.length());
             // ReactivePubSubCommands.publish() returns Uni<Void>: the Redis subscriber
             // count is discarded by the Quarkus API, so it cannot be logged here.
-            redisPublisher.publish(channel, json)
+            pendingRedisWrites.incrementAndGet();
+            redisNotifications.publish(channel, processId, json)
                     .subscribe().with(
-                            v -> Log.debugf("Published event to Redis channel '%s'", channel),
-                            err -> Log.errorf(err, "Failed to publish event to Redis channel: '%s'", channel));
-        } catch (JsonProcessingException e) {
+                            v -> {
+                                Log.debugf("Published event to Redis channel '%s'", channel);
+                                pendingRedisWrites.decrementAndGet();
+                                publishEvent.complete(true);
+                                publishSpan.end();
+                            },
+                            err -> {
+                                Log.errorf(err, "Failed to publish event to Redis channel: '%s'", channel);
+                                pendingRedisWrites.decrementAndGet();
+                                publishEvent.complete(false);
+                                publishSpan.recordException(err);
+                                publishSpan.setStatus(StatusCode.ERROR);
+                                publishSpan.end();
+                            });
+        } catch (JsonProcessingException | IllegalArgumentException e) {
             Log.errorf(e, "Failed to serialize event for Redis channel: '%s'", channel);
+            publishSpan.recordException(e);
+            publishSpan.setStatus(StatusCode.ERROR);
+            publishSpan.end();
+        }
+    }
+
+    /**
+     * A step of the generation run inside its own span.
+     */
+    @FunctionalInterface
+    private interface TracedStep<T> {
+        T run(Span span) throws Exception;
+    }
+
+    /**
+     * Runs {@code step} inside a child span of the current context; failures are
+     * recorded on the span and rethrown.
+     */
+    private <T> T inSpan(String spanName, SpanKind kind, TracedStep<T> step) throws Exception {
+        Span span = tracer.spanBuilder(spanName).setSpanKind(kind).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return step.run(span);
+        } catch (Exception e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * A generation through the render pipeline, shared by its stages: each of them
+     * runs on its own thread, one after the other.
+     */
+    private static final class Generation {
+
+        final PdfJob job;
+        final DocFormat format;
+        final String objectKey;
+        /** The rows of the request, or the sample ones. */
+        final DocRows rows;
+        /** The data of the request, deleted once the generation is done; {@code null} for the sample rows. */
+        final DocData data;
+
+        volatile Timer.Sample sample;
+        volatile PdfRenderEvent renderEvent;
+        volatile long renderStartNanos;
+        /** CPU time of the render stages, summed over their threads. */
+        final LongAdder renderCpuNanos = new LongAdder();
+        /** Bytes allocated by the render stages, summed over their threads. */
+        final LongAdder renderAllocatedBytes = new LongAdder();
+        /** Heap reserved in the memory budget, {@code null} until admitted or without a budget. */
+        volatile MemoryBudget.Reservation reservation;
+        /** The simulated delay, completed early by a drain. */
+        final CompletableFuture<Void> delay;
+        /** The time the simulated delay actually took, once elapsed. */
+        volatile long delayNanos;
+
+        Generation(PdfJob job, DocFormat format, DocData data, CompletableFuture<Void> delay) {
+            this.job = job;
+            this.format = format;
+            this.objectKey = DocumentKeys.objectKey(job.processId(), format);
+            this.data = data;
+            this.delay = delay;
+            this.rows = data != null ? data : DocRows.of(DocContexts.samplePeople());
+        }
+
+        boolean started() {
+            return sample != null;
         }
     }
 
     // This method simulates the asynchronous generation of a PDF
-    private CompletableFuture<String> generatePdfAsync(String processId) {
+    private CompletableFuture<String> generatePdfAsync(PdfJob job, DocFormat format, DocData data,
+            long dequeuedAtNanos, Context jobContext) {
+        String processId = job.processId();
+        String chainId = job.chainId();
         // Simulate a random delay between minDelayInSeconds and maxDelayInSeconds
         // only for demonstration purposes
         long delay = ThreadLocalRandom.current().nextLong(minDelayInSeconds, maxDelayInSeconds + 1);
 
         Log.debugf("Scheduling PDF generation for process ID: %s with a delay of %d seconds", processId, delay);
+        PdfJobEnqueuedEvent.emit(processId, chainId, delay);
 
-        return CompletableFuture.supplyAsync(() -> {
-            activeGenerations.incrementAndGet();
-            Timer.Sample sample = Timer.start(meterRegistry);
-            
-            String objectKey = processId + ".pdf";
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                String[] chainId = new String[] {"simple-document", "complex-document"};
-                int selectedRandomIndex = RandomGenerator.getDefault().nextInt(chainId.length);
+        // The delay elapses on the timer wheel; the job then waits for its heap to fit in the memory budget,
+        // the templating for a permit of its chain's bulkhead, the layout for a FOP worker of its chain.
+        // All of them are cancelled with the job.
+        Bulkhead bulkhead = bulkheads.get(chainId);
+        long scheduledAtNanos = System.nanoTime();
+        Generation generation = new Generation(job, format, data,
+                generationScheduler.delay(Duration.ofSeconds(delay)));
+        generations.put(job, generation);
+        if (draining) {
+            drain(generation);
+        }
+        return job.await(PdfJob.Phase.SCHEDULED, generation.delay)
+                .thenCompose(elapsed -> {
+                    // Shorter than drawn if a drain completed it early
+                    generation.delayNanos = System.nanoTime() - scheduledAtNanos;
+                    return job.await(PdfJob.Phase.QUEUED, reserveHeap(generation));
+                })
+                .thenCompose(reservation -> {
+                    generation.reservation = reservation;
+                    return job.await(PdfJob.Phase.QUEUED, bulkhead.executor().submit(() -> {
+                        job.startRendering();
+                        jobStateStore.markRendering(processId);
+                        activeGenerations.incrementAndGet();
+                        generation.sample = Timer.start(meterRegistry);
+                        generation.renderEvent = new PdfRenderEvent(processId, chainId, generation.rows.size());
 
-                String handlerId = DocConfig.TYPE_PDF;
+                        // The simulated delay is not queueing: only waiting for heap and a worker counts
+                        generation.renderStartNanos = System.nanoTime();
+                        stageMetrics.record(Stage.DEQUEUE_TO_RENDER_START, chainId,
+                                generation.renderStartNanos - dequeuedAtNanos - generation.delayNanos);
 
-                DocProcessContext context = DocProcessContext.newContext("processId", processId);
+                        try (Scope ignored = jobContext.makeCurrent()) {
+                            return template(generation, bulkhead, jobContext);
+                        }
+                    }));
+                })
+                .thenCompose(document -> job.await(PdfJob.Phase.RENDERING, document))
+                .thenApplyAsync(document -> {
+                    try (Scope ignored = jobContext.makeCurrent()) {
+                        return upload(generation, document);
+                    }
+                }, uploadExecutor)
+                .whenComplete((objectKey, failure) -> {
+                    // Held until the upload is done: the document stays on the heap until then
+                    if (generation.reservation != null) {
+                        generation.reservation.close();
+                    }
+                    closeData(generation);
+                    if (!generation.started()) {
+                        return;
+                    }
+                    activeGenerations.decrementAndGet();
+                    // Registra durata, anche in caso di errore
+                    generation.sample.stop(generationTimer);
+                    if (failure != null && !(unwrap(failure) instanceof CancellationException)) {
+                        Log.errorf(unwrap(failure), "Failed to generate and upload PDF for process ID: %s", processId);
+                    }
+                });
+    }
 
-                // this contest used only for demonstration purposes, in a real scenario you would populate it with actual data
-                // and only complex-document would use it, simple-document does not use any data from the context
-                context.setAttribute("listPeople", generatePeopleList());
+    /**
+     * Reserves the estimated heap of {@code generation}, right away without a memory budget.
+     * A sectioned PDF holds at most a section per thread of the fork-join pool.
+     */
+    private CompletableFuture<MemoryBudget.Reservation> reserveHeap(Generation generation) {
+        if (memoryBudget == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long bytes = memoryCostEstimator.estimate(memoryKind(generation), memoryRows(generation));
+        Log.debugf("Estimated heap of the generation of process ID %s: %d KiB (committed %d of %d KiB)",
+                generation.job.processId(), bytes >> 10, memoryBudget.committed() >> 10, memoryBudget.budget() >> 10);
+        return memoryBudget.reserve(bytes);
+    }
 
-                docHelper.getDocProcessConfig().fullProcess(chainId[selectedRandomIndex], context, handlerId, baos);
+    /**
+     * @return the kind of document of the heap estimates: documents of a chain differ by format, and
+     *         the PDFs rendered in sections, whose heap grows with the sections in flight, are a kind of their own
+     */
+    private String memoryKind(Generation generation) {
+        String kind = generation.job.chainId() + "/" + generation.format.param();
+        return sectioned(generation) ? kind + "/sectioned" : kind;
+    }
 
-                byte[] pdfBytes = baos.toByteArray();
-                minioClient.putObject(
-                        PutObjectArgs.builder()
-                                .bucket(bucketName)
-                                .object(objectKey)
-                                .stream(new ByteArrayInputStream(pdfBytes), pdfBytes.length, -1)
-                                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                                .build());
+    /**
+     * @return the rows the heap of {@code generation} grows with: at most those of the sections in flight, if sectioned
+     */
+    private int memoryRows(Generation generation) {
+        int rows = generation.rows.size();
+        return sectioned(generation) ? Math.min(rows, sectionedRenderer.maxRowsInFlight()) : rows;
+    }
+
+    /**
+     * @return whether {@code generation} is a PDF large enough to be rendered in sections
+     */
+    private boolean sectioned(Generation generation) {
+        return generation.format == DocFormat.PDF && sectionedRenderer != null
+                && sectionedRenderer.supports(generation.job.chainId())
+                && generation.rows.size() >= sectionedMinRows;
+    }
 
-                Log.debugf("PDF successfully generated and uploaded to MinIO with key: %s", objectKey);
-                
-                // Registra dimensione del file
-                fileSizeSummary.record(pdfBytes.length);
-                
-                // Registra durata
-                sample.stop(generationTimer);
-                
-                return objectKey;
+    private void closeData(Generation generation) {
+        if (generation.data == null) {
+            return;
+        }
+        try {
+            generation.data.close();
+        } catch (IOException e) {
+            Log.warnf(e, "Cannot delete the data of process ID: %s", generation.job.processId());
+        }
+    }
+
+    /**
+     * First stage, on a worker of the chain's bulkhead: runs the template. A PDF
+     * stops at the XSL-FO, handed over to the layout stage of the chain; the other
+     * formats are rendered here by FreeMarker alone.
+     *
+     * @return the rendered document, once the layout stage has laid it out for a PDF
+     */
+    private CompletableFuture<byte[]> template(Generation generation, Bulkhead bulkhead, Context jobContext)
+            throws Exception {
+        PdfJob job = generation.job;
+        String processId = job.processId();
+        String chainId = job.chainId();
+        boolean pdf = generation.format == DocFormat.PDF;
+        String handlerId = pdf ? FoPdfRenderer.FO_HANDLER_ID : generation.format.handlerId();
+
+        if (sectioned(generation)) {
+            return renderSectioned(generation, bulkhead);
+        }
+
+        long templateStartNanos = System.nanoTime();
+        ChainCpuUsage.Measurement cpu = bulkhead.cpuUsage().start();
+        long allocatedStartBytes = currentThreadAllocatedBytes();
+        byte[] document;
+        try {
+            document = render(generation, chainId, handlerId);
+        } catch (Exception e) {
+            generation.renderEvent.complete(0, false);
+            throw e;
+        } finally {
+            long templateNanos = System.nanoTime() - templateStartNanos;
+            cpu.close();
+            generation.renderCpuNanos.add(cpu.cpuNanos());
+            addAllocatedBytes(generation, allocatedStartBytes);
+            templateBusyNanos.add(templateNanos);
+            templateCompleted.increment();
+            stageMetrics.record(Stage.TEMPLATE, chainId, templateNanos);
+        }
+
+        if (!pdf) {
+            // The limiter admits the templating: its latency is the signal of the bulkhead
+            bulkhead.limiter().recordRenderLatency(System.nanoTime() - templateStartNanos, generation.rows.size());
+            renderCompleted(generation, document.length);
+            return CompletableFuture.completedFuture(document);
+        }
+
+        // Handed over while holding the bulkhead permit: a full queue slows down the templating of this chain only
+        byte[] fo = document;
+        long handoffNanos = System.nanoTime();
+        CompletableFuture<byte[]> layout = layoutStages.get(chainId).submit(() -> {
+            long layoutStartNanos = System.nanoTime();
+            stageMetrics.record(Stage.HANDOFF, chainId, layoutStartNanos - handoffNanos);
+            // Last chance to skip the layout of a job cancelled while waiting in the handoff queue
+            if (job.isCancelled()) {
+                generation.renderEvent.complete(0, false);
+                throw new PdfJob.CancelledException(processId);
+            }
+            ChainCpuUsage.Measurement layoutCpu = bulkhead.cpuUsage().start();
+            long layoutAllocatedStartBytes = currentThreadAllocatedBytes();
+            try (Scope ignored = jobContext.makeCurrent()) {
+                byte[] pdfBytes = inSpan("fop.render", SpanKind.INTERNAL, span -> {
+                    span.setAttribute("pdf.handler_id", generation.format.handlerId());
+                    span.setAttribute("pdf.fo.size", (long) fo.length);
+                    return foPdfRenderer.render(fo);
+                });
+                renderCompleted(generation, pdfBytes.length);
+                return pdfBytes;
             } catch (Exception e) {
-                Log.errorf(e, "Failed to generate and upload PDF for process ID: %s", processId);
-                
-                // Registra durata anche in caso di errore
-                sample.stop(generationTimer);
-                
-                throw new CompletionException(e);
+                generation.renderEvent.complete(0, false);
+                throw e;
             } finally {
-                activeGenerations.decrementAndGet();
+                layoutCpu.close();
+                generation.renderCpuNanos.add(layoutCpu.cpuNanos());
+                addAllocatedBytes(generation, layoutAllocatedStartBytes);
+                stageMetrics.record(Stage.LAYOUT, chainId, System.nanoTime() - layoutStartNanos);
             }
-        }, CompletableFuture.delayedExecutor(delay, TimeUnit.SECONDS, executor));
+        });
+        // Recorded once handed over: the wait for room in a full queue lengthens the latency the limiter backs off on
+        bulkhead.limiter().recordRenderLatency(System.nanoTime() - templateStartNanos, generation.rows.size());
+        return layout;
+    }
+
+    /**
+     * Renders a large PDF in sections, in parallel on the fork-join pool of the
+     * {@link SectionedPdfRenderer}; the bulkhead worker waits for the merged document.
+     * Its latency is not reported to the limiter: it grows with the rows, not with the load.
+     */
+    private CompletableFuture<byte[]> renderSectioned(Generation generation, Bulkhead bulkhead) throws Exception {
+        PdfJob job = generation.job;
+        String chainId = job.chainId();
+        int rows = generation.rows.size();
+        try {
+            byte[] pdfBytes = inSpan("pdf.sectioned.render", SpanKind.INTERNAL, span -> {
+                span.setAttribute(TracePropagation.CHAIN_ID, chainId);
+                span.setAttribute("pdf.rows", (long) rows);
+                span.setAttribute("pdf.sections", (long) sectionedRenderer.sectionCount(rows));
+                return sectionedRenderer.render(chainId, job.processId(), generation.rows,
+                        generation.renderAllocatedBytes, bulkhead.cpuUsage(), generation.renderCpuNanos);
+            });
+            sectionedCounter.increment();
+            renderCompleted(generation, pdfBytes.length);
+            return CompletableFuture.completedFuture(pdfBytes);
+        } catch (Exception e) {
+            generation.renderEvent.complete(0, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the chain and the handler {@code handlerId}: the XSL-FO of a PDF, the
+     * final document of the other formats.
+     */
+    private byte[] render(Generation generation, String chainId, String handlerId) throws Exception {
+        String processId = generation.job.processId();
+        DocProcessContext context = DocContexts.newContext(processId, generation.rows);
+        DocProcessData data = new DocProcessData();
+        inSpan("freemarker.process", SpanKind.INTERNAL, span -> {
+            span.setAttribute(TracePropagation.CHAIN_ID, chainId);
+            docHelper.getDocProcessConfig().process(chainId, context, data);
+            return null;
+        });
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            inSpan(generation.format == DocFormat.PDF ? "fo.render" : "doc.render", SpanKind.INTERNAL, span -> {
+                span.setAttribute("pdf.handler_id", handlerId);
+                docHelper.getDocProcessConfig().getFacade().handle(
+                        DocInput.newInput(handlerId, data.getCurrentXmlReader()), DocOutput.newOutput(baos));
+                return null;
+            });
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * @return the bytes allocated by the current thread, {@code -1} if the JVM does not measure them
+     *         (the native executable may not)
+     */
+    private static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN.isThreadAllocatedMemorySupported() && THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled()
+                ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes()
+                : -1;
     }
 
     /**
-     * Return the list with the sample data to be used in the fremarker template 'simple-document.ftl'.
+     * Adds the bytes allocated by the current thread since {@code startBytes}, if the JVM measures them.
+     */
+    private static void addAllocatedBytes(Generation generation, long startBytes) {
+        if (startBytes >= 0) {
+            generation.renderAllocatedBytes.add(currentThreadAllocatedBytes() - startBytes);
+        }
+    }
+
+    /**
+     * Records the end of the rendering, both stages included.
+     */
+    private void renderCompleted(Generation generation, long documentBytes) {
+        generation.renderEvent.complete(documentBytes, true);
+        String chainId = generation.job.chainId();
+        long cpuNanos = generation.renderCpuNanos.sum();
+        // Not measured for the sectioned renders, run on the threads of the fork-join pool
+        if (cpuNanos > 0) {
+            jobCancellation.recordRenderCpu(chainId, cpuNanos);
+        }
+        long allocatedBytes = generation.renderAllocatedBytes.sum();
+        if (memoryCostEstimator != null && allocatedBytes > 0) {
+            int rows = generation.rows.size();
+            int memoryRows = memoryRows(generation);
+            // The sections in flight hold their share only of the bytes allocated by all the sections
+            long heldBytes = memoryRows < rows
+                    ? Math.round((double) allocatedBytes * memoryRows / rows)
+                    : allocatedBytes;
+            memoryCostEstimator.observe(memoryKind(generation), memoryRows, heldBytes, documentBytes);
+        }
+        stageMetrics.record(Stage.RENDER, chainId, System.nanoTime() - generation.renderStartNanos);
+    }
+
+    /**
+     * Last stage: stores the document in MinIO.
      *
-     * @return List of maps containing sample people data
+     * @return the object key of the document
      */
-    private List<Map<String, String>> generatePeopleList() {
-        return List.of(
-            Map.of("name", "Alice", "surname", "Rossi", "title", "Developer"),
-            Map.of("name", "Bob", "surname", "Bianchi", "title", "Designer"),
-            Map.of("name", "Charlie","surname", "Verdi", "title", "Manager")
-        );
+    private String upload(Generation generation, byte[] document) {
+        PdfJob job = generation.job;
+        String objectKey = generation.objectKey;
+        // Last chance to stop a cancelled job: nothing is stored
+        job.startUploading(document.length);
+        long uploadStartNanos = System.nanoTime();
+        PdfUploadEvent uploadEvent = new PdfUploadEvent(job.processId(), objectKey, document.length);
+        boolean uploaded = false;
+        try {
+            inSpan("minio.putObject", SpanKind.CLIENT, span -> {
+                span.setAttribute("minio.bucket", bucketName);
+                span.setAttribute("minio.object", objectKey);
+                return minioClient.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectKey)
+                                .stream(new ByteArrayInputStream(document), document.length, -1)
+                                .contentType(generation.format == DocFormat.PDF
+                                        ? MediaType.APPLICATION_OCTET_STREAM
+                                        : generation.format.mediaType())
+                                .build());
+            });
+            uploaded = true;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            uploadEvent.complete(uploaded);
+        }
+        stageMetrics.record(Stage.UPLOAD, job.chainId(), System.nanoTime() - uploadStartNanos);
+
+        Log.debugf("Document successfully generated and uploaded to MinIO with key: %s", objectKey);
+
+        // Registra dimensione del file
+        fileSizeSummary.record(document.length);
+        return objectKey;
     }
 }
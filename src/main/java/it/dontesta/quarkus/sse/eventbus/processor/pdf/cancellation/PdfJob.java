@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A PDF generation held by this replica, from the moment its request is
+ * dequeued until the document is uploaded.
+ *
+ * <p>A job can be cancelled while it is {@linkplain Phase#SCHEDULED scheduled},
+ * {@linkplain Phase#QUEUED queued} for a permit of its bulkhead or
+ * {@linkplain Phase#RENDERING rendering}: the pending stage is cancelled, and a
+ * running generation stops at its next checkpoint, at the latest before the
+ * upload. Once the upload has started the job runs to completion.
+ *
+ * <p>A job that has not started rendering can also be
+ * {@linkplain #handOff() handed off}, when the replica drains: its pending stage
+ * is cancelled as well, but the generation goes on elsewhere.
+ */
+public class PdfJob {
+
+    /**
+     * Where the generation is.
+     */
+    public enum Phase {
+        SCHEDULED("scheduled"),
+        QUEUED("queued"),
+        RENDERING("rendering"),
+        UPLOADING("uploading");
+
+        private final String tagValue;
+
+        Phase(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Thrown at a checkpoint of a cancelled job.
+     */
+    public static class CancelledException extends CancellationException {
+
+        private static final long serialVersionUID = 1L;
+
+        public CancelledException(String processId) {
+            super("PDF generation cancelled for process ID: " + processId);
+        }
+    }
+
+    private final String processId;
+    private final String chainId;
+
+    // Guarded by this
+    private Phase phase = Phase.SCHEDULED;
+    private Phase cancelledIn;
+    private boolean handedOff;
+    private CompletableFuture<?> pendingStage;
+    private long renderedBytes;
+
+    public PdfJob(String processId, String chainId) {
+        this.processId = processId;
+        this.chainId = chainId;
+    }
+
+    public String processId() {
+        return processId;
+    }
+
+    public String chainId() {
+        return chainId;
+    }
+
+    public synchronized Phase phase() {
+        return phase;
+    }
+
+    /**
+     * @return the phase the job was in when it was cancelled, {@code null} if it was not
+     */
+    public synchronized Phase cancelledIn() {
+        return cancelledIn;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelledIn != null;
+    }
+
+    /**
+     * @return {@code true} if the job was cancelled to be generated by another replica
+     */
+    public synchronized boolean isHandedOff() {
+        return handedOff;
+    }
+
+    /**
+     * @return the size of the rendered document a cancellation before the upload did not store
+     */
+    public synchronized long renderedBytes() {
+        return renderedBytes;
+    }
+
+    /**
+     * Moves the job to {@code phase}, waiting for {@code stage} to complete.
+     * The stage is cancelled right away if the job already is.
+     *
+     * @return {@code stage}, for chaining
+     */
+    public synchronized <T> CompletableFuture<T> await(Phase phase, CompletableFuture<T> stage) {
+        this.phase = phase;
+        this.pendingStage = stage;
+        if (cancelledIn != null) {
+            stage.cancel(false);
+        }
+        return stage;
+    }
+
+    /**
+     * Checkpoint of the worker thread: the document is about to be rendered.
+     *
+     * @throws CancelledException if the job was cancelled
+     */
+    public synchronized void startRendering() {
+        checkNotCancelled();
+        phase = Phase.RENDERING;
+        pendingStage = null;
+    }
+
+    /**
+     * Checkpoint of the worker thread: the rendered document is about to be uploaded.
+     * Past this point the job can no longer be cancelled.
+     *
+     * @param bytes size of the rendered document
+     * @throws CancelledException if the job was cancelled
+     */
+    public synchronized void startUploading(long bytes) {
+        renderedBytes = bytes;
+        checkNotCancelled();
+        phase = Phase.UPLOADING;
+    }
+
+    /**
+     * Cancels the job, unless its upload has started.
+     *
+     * @return {@code true} if the job was cancelled by this call
+     */
+    public synchronized boolean cancel() {
+        if (cancelledIn != null || phase == Phase.UPLOADING) {
+            return false;
+        }
+        cancelledIn = phase;
+        if (pendingStage != null) {
+            pendingStage.cancel(false);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the job to hand it off to another replica, if it has not started
+     * rendering: its pending stage is cancelled as by {@link #cancel()}.
+     *
+     * @return {@code true} if the job was handed off by this call
+     */
+    public synchronized boolean handOff() {
+        if (cancelledIn != null || (phase != Phase.SCHEDULED && phase != Phase.QUEUED)) {
+            return false;
+        }
+        handedOff = true;
+        return cancel();
+    }
+
+    private void checkNotCancelled() {
+        if (cancelledIn != null) {
+            throw new CancelledException(processId);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import it.dontesta.quarkus.sse.redis.RedisKeys;
+import it.dontesta.quarkus.sse.redis.RedisNotifications;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Cancellation of PDF generations across the replicas.
+ *
+ * <p>A cancellation request ({@code DELETE /api/pdf/{processId}}, or an SSE
+ * stream abandoned for longer than the grace period) is not necessarily received
+ * by the replica holding the job, so it is:
+ * <ul>
+ *   <li>recorded as the Redis key {@code cancelled:{processId}} (TTL
+ *       {@code pdf.cancellation.marker-ttl}), checked when a replica dequeues the
+ *       request and before it dispatches the render, for a job still travelling
+ *       on the event bus;</li>
+ *   <li>published on the Redis channel {@code pdf.cancellation.channel}; every
+ *       replica cancels the matching {@link PdfJob} it holds, if any.</li>
+ * </ul>
+ *
+ * <h2>Abandoned streams</h2>
+ * <p>When {@code pdf.cancellation.abandon.enabled=true}, a disconnected SSE client
+ * marks its job with the Redis key {@code abandoned:{processId}}. A client opening
+ * a stream for the same process on any replica removes it; if the key is still
+ * there after {@code pdf.cancellation.abandon.grace-period}, the job is cancelled.
+ *
+ * <p>The CPU time saved by a cancellation before rendering is estimated from the
+ * average render CPU time of the chain.
+ */
+@ApplicationScoped
+public class PdfJobCancellation {
+
+    /** Redis key prefix of the cancellation markers. */
+    static final String CANCELLED_PREFIX = "cancelled:";
+
+    /** Redis key prefix of the streams abandoned by their SSE client. */
+    static final String ABANDONED_PREFIX = "abandoned:";
+
+    /** Weight of the latest render in the moving average of the render CPU time. */
+    private static final double RENDER_CPU_SMOOTHING = 0.2;
+
+    /** Jobs held by this replica, keyed by processId. */
+    private final Map<String, PdfJob> jobs = new ConcurrentHashMap<>();
+
+    /** Moving average of the render CPU time (nanoseconds), keyed by chain id. */
+    private final Map<String, Double> renderCpuNanosByChain = new ConcurrentHashMap<>();
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    RedisKeys redisKeys;
+
+    @Inject
+    RedisNotifications redisNotifications;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.cancellation.channel", defaultValue = "pdf-generation-cancellations")
+    String cancellationChannel;
+
+    @Inject
+    @ConfigProperty(name = "pdf.cancellation.marker-ttl", defaultValue = "10m")
+    Duration markerTtl;
+
+    @Inject
+    @ConfigProperty(name = "pdf.cancellation.abandon.enabled", defaultValue = "false")
+    boolean abandonEnabled;
+
+    @Inject
+    @ConfigProperty(name = "pdf.cancellation.abandon.grace-period", defaultValue = "30s")
+    Duration abandonGracePeriod;
+
+    private RedisNotifications.Subscription redisChannelSubscriber;
+
+    private Counter storageSavedCounter;
+
+    /** Cancelled generations, keyed by chain id and phase: registered once each. */
+    private final Map<String, Counter> cancelledCounters = new ConcurrentHashMap<>();
+
+    /** Estimated CPU time saved, keyed by chain id. */
+    private final Map<String, Counter> cpuSavedCounters = new ConcurrentHashMap<>();
+
+    void onStart(@Observes StartupEvent ev) {
+        storageSavedCounter = Counter.builder("pdf.generation.cancellation.storage.saved.bytes")
+                .description("Bytes of rendered documents not uploaded because their job was cancelled")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        redisNotifications.subscribe(List.of(cancellationChannel), (channel, processId) -> cancelLocal(processId))
+                .subscribe().with(
+                        sub -> {
+                            this.redisChannelSubscriber = sub;
+                            Log.debugf("Subscribed to Redis channel: '%s'", cancellationChannel);
+                        },
+                        err -> Log.errorf(err, "Failed to subscribe to Redis channel '%s'", cancellationChannel));
+    }
+
+    void onShutdown(@Observes ShutdownEvent ev) {
+        if (redisChannelSubscriber != null) {
+            redisChannelSubscriber.unsubscribe()
+                    .subscribe().with(
+                            v -> Log.debugf("Unsubscribed from Redis channel '%s'", cancellationChannel),
+                            err -> Log.warnf(err, "Error while unsubscribing from Redis channel '%s'",
+                                    cancellationChannel));
+        }
+    }
+
+    /**
+     * Requests the cancellation of {@code processId}, wherever the job is.
+     *
+     * @return a {@link Uni} completed once the request is recorded and published
+     */
+    public Uni<Void> requestCancel(String processId) {
+        Log.debugf("Requesting the cancellation of the PDF generation for ID: %s", processId);
+        return reactiveRedisDS.value(String.class)
+                .setex(redisKeys.job(CANCELLED_PREFIX, processId), markerTtl.toSeconds(), processId)
+                .chain(() -> redisNotifications.publish(cancellationChannel, processId, processId));
+    }
+
+    /**
+     * Registers a job dequeued by this replica, and cancels it if a cancellation
+     * was requested while its request was on the event bus. The job is registered
+     * first, so that a cancellation published during the check is not missed.
+     *
+     * @return a {@link Uni} emitting the job once the cancellation marker was
+     *         checked: the render must be dispatched only then. The job is emitted
+     *         as is if the marker cannot be read.
+     */
+    public Uni<PdfJob> register(String processId, String chainId) {
+        PdfJob job = new PdfJob(processId, chainId);
+        jobs.put(processId, job);
+        return reactiveRedisDS.key(String.class)
+                .exists(redisKeys.job(CANCELLED_PREFIX, processId))
+                .map(cancelled -> {
+                    if (Boolean.TRUE.equals(cancelled)) {
+                        cancel(job);
+                    }
+                    return job;
+                })
+                .onFailure().recoverWithItem(err -> {
+                    Log.warnf(err, "Failed to check the cancellation marker for processId: %s", processId);
+                    return job;
+                });
+    }
+
+    /**
+     * Forgets a job once it completed, failed or was cancelled.
+     */
+    public void unregister(PdfJob job) {
+        jobs.remove(job.processId(), job);
+    }
+
+    /**
+     * Forgets the job of {@code processId}, registered but never emitted by {@link #register}.
+     */
+    public void unregister(String processId) {
+        jobs.remove(processId);
+    }
+
+    /**
+     * Records the CPU time of a render, used to estimate the CPU time saved by cancellations.
+     */
+    public void recordRenderCpu(String chainId, long cpuNanos) {
+        renderCpuNanosByChain.merge(chainId, (double) cpuNanos,
+                (average, latest) -> average * (1 - RENDER_CPU_SMOOTHING) + latest * RENDER_CPU_SMOOTHING);
+    }
+
+    /**
+     * Records the metrics of a job that stopped because it was cancelled.
+     */
+    public void recordCancelled(PdfJob job) {
+        PdfJob.Phase phase = job.cancelledIn();
+        if (phase == null) {
+            return;
+        }
+        cancelledCounters.computeIfAbsent(job.chainId() + "/" + phase.tagValue(),
+                key -> Counter.builder("pdf.generation.cancelled.total")
+                        .tag("phase", phase.tagValue())
+                        .tag("chain", job.chainId())
+                        .description("Total number of PDF generations cancelled, by the phase they were in")
+                        .register(meterRegistry))
+                .increment();
+        if (phase == PdfJob.Phase.RENDERING) {
+            // The render CPU time was spent: only the upload and the storage were saved
+            storageSavedCounter.increment(job.renderedBytes());
+        } else {
+            double renderCpuNanos = renderCpuNanosByChain.getOrDefault(job.chainId(), 0d);
+            cpuSavedCounters.computeIfAbsent(job.chainId(),
+                    chainId -> Counter.builder("pdf.generation.cancellation.cpu.saved.seconds")
+                            .tag("chain", chainId)
+                            .description("Estimated CPU time not spent rendering documents whose job was cancelled")
+                            .baseUnit("seconds")
+                            .register(meterRegistry))
+                    .increment(renderCpuNanos / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Called when an SSE stream is opened for {@code processId}: a client is
+     * waiting again, the job is no longer abandoned.
+     */
+    public void onStreamOpened(String processId) {
+        if (!abandonEnabled) {
+            return;
+        }
+        reactiveRedisDS.key(String.class)
+                .del(redisKeys.job(ABANDONED_PREFIX, processId))
+                .subscribe().with(
+                        deleted -> {
+                        },
+                        err -> Log.warnf(err, "Failed to clear the abandoned marker for processId: %s", processId));
+    }
+
+    /**
+     * Called when the SSE client of {@code processId} disconnects: the job is
+     * cancelled if no client opens a stream for it within the grace period.
+     */
+    public void onStreamAbandoned(String processId) {
+        if (!abandonEnabled) {
+            return;
+        }
+        String key = redisKeys.job(ABANDONED_PREFIX, processId);
+        reactiveRedisDS.value(String.class)
+                .setex(key, abandonGracePeriod.multipliedBy(2).toSeconds(), processId)
+                .onItem().delayIt().by(abandonGracePeriod)
+                .chain(() -> reactiveRedisDS.value(String.class).getdel(key))
+                .chain(marker -> {
+                    if (marker == null) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    Log.debugf("SSE stream abandoned for more than %s, cancelling processId: %s",
+                            abandonGracePeriod, processId);
+                    return requestCancel(processId);
+                })
+                .subscribe().with(
+                        v -> {
+                        },
+                        err -> Log.warnf(err, "Failed to handle the abandoned stream of processId: %s", processId));
+    }
+
+    private void cancelLocal(String processId) {
+        PdfJob job = jobs.get(processId);
+        if (job != null) {
+            cancel(job);
+        }
+    }
+
+    private void cancel(PdfJob job) {
+        PdfJob.Phase phase = job.phase();
+        if (job.cancel()) {
+            Log.debugf("Cancelled the PDF generation for ID: %s in phase %s", job.processId(), phase.tagValue());
+        } else {
+            Log.debugf("PDF generation for ID: %s not cancelled: already %s", job.processId(), phase.tagValue());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.function.DoubleSupplier;
+
+import com.sun.management.OperatingSystemMXBean;
+
+/**
+ * Adaptive limit of the number of PDF generations running at the same time.
+ *
+ * <p>The limit is re-evaluated at every {@link #adjust} call (a fixed interval)
+ * from what was observed since the previous one:
+ * <ol>
+ *   <li><strong>CPU saturated</strong> (CPU load at or above {@code cpuHighThreshold}, or
+ *       system CPU load at or above the threshold of the host guard): multiplicative
+ *       decrease by {@code backoffRatio}.</li>
+ *   <li><strong>Render latency inflated</strong> (average render time per row above
+ *       {@code latencyTolerance} times its long-term baseline): decrease by the latency
+ *       gradient ({@code baseline / current}, at least 0.5). Rendering is CPU-bound,
+ *       so a slower render means the generations are competing for CPU. The latency is
+ *       normalized by the rows of the documents, so that a burst of large documents
+ *       does not read as congestion.</li>
+ *   <li><strong>Backlog</strong> (all permits in use, jobs queued and either the average queue wait
+ *       or the wait of the oldest queued job above {@code queueWaitTarget}): additive increase by {@code sqrt(limit)}. This is what lets
+ *       the limit grow when uploads are slow and the workers mostly wait on I/O.</li>
+ *   <li>Otherwise the limit is held.</li>
+ * </ol>
+ * The limit always stays within {@code [minLimit, maxLimit]}.
+ *
+ * <p>Each document chain has its own limiter ({@link ChainBulkheads}), hence its
+ * own baseline: the documents of a chain render at their own cost per row.
+ *
+ * <p>Thread-safe: samples are recorded by the worker threads, {@link #adjust}
+ * is called by a scheduler.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Weight of the latest window in the exponential moving average of the render baseline, per row. */
+    private static final double BASELINE_SMOOTHING = 0.1;
+
+    /** Lowest latency gradient applied in a single decrease. */
+    private static final double MIN_GRADIENT = 0.5;
+
+    /**
+     * Outcome of an {@link #adjust} call.
+     */
+    public enum Decision {
+        INCREASE("increase"),
+        DECREASE_CPU("decrease_cpu"),
+        DECREASE_LATENCY("decrease_latency"),
+        HOLD("hold");
+
+        private final String tagValue;
+
+        Decision(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Tuning of the limiter.
+     *
+     * @param initialLimit     limit at startup, clamped to the bounds
+     * @param minLimit         lower bound of the limit, at least 1
+     * @param maxLimit         upper bound of the limit, also the size of the worker pool
+     * @param cpuHighThreshold CPU load (0..1) at or above which the limit decreases
+     * @param queueWaitTarget  average queue wait above which a saturated pool grows
+     * @param latencyTolerance render latency inflation (current / baseline) tolerated before decreasing
+     * @param backoffRatio     multiplicative decrease on CPU saturation (0..1)
+     */
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double cpuHighThreshold,
+            Duration queueWaitTarget, double latencyTolerance, double backoffRatio) {
+
+        public Settings {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalArgumentException(
+                        "Invalid concurrency bounds: min " + minLimit + ", max " + maxLimit);
+            }
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("The backoff ratio must be between 0 and 1: " + backoffRatio);
+            }
+            if (latencyTolerance < 1) {
+                throw new IllegalArgumentException("The latency tolerance must be at least 1: " + latencyTolerance);
+            }
+            initialLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+        }
+    }
+
+    private final Settings settings;
+    private final DoubleSupplier cpuLoad;
+    private final DoubleSupplier systemCpuLoad;
+    private final double systemCpuHighThreshold;
+
+    private volatile int limit;
+
+    // Observations of the current window, guarded by this
+    private long renderRows;
+    private long renderNanosSum;
+    private long queueWaitSamples;
+    private long queueWaitNanosSum;
+    private double baselineRenderNanos = Double.NaN;
+
+    /**
+     * @param settings the tuning of the limiter
+     * @param cpuLoad  the current CPU load between 0 and 1, negative if not available
+     */
+    public AdaptiveConcurrencyLimiter(Settings settings, DoubleSupplier cpuLoad) {
+        this(settings, cpuLoad, () -> -1, 1);
+    }
+
+    /**
+     * @param settings               the tuning of the limiter
+     * @param cpuLoad                the current CPU load between 0 and 1, negative if not available
+     * @param systemCpuLoad          the current CPU load of the host between 0 and 1, negative if not
+     *                               available: the guard of the limiters whose loads only add up to a
+     *                               saturated host
+     * @param systemCpuHighThreshold system CPU load (0..1) at or above which the limit decreases
+     */
+    public AdaptiveConcurrencyLimiter(Settings settings, DoubleSupplier cpuLoad, DoubleSupplier systemCpuLoad,
+            double systemCpuHighThreshold) {
+        this.settings = settings;
+        this.cpuLoad = cpuLoad;
+        this.systemCpuLoad = systemCpuLoad;
+        this.systemCpuHighThreshold = systemCpuHighThreshold;
+        this.limit = settings.initialLimit();
+    }
+
+    /**
+     * @return the system CPU load as seen by the JVM (container aware)
+     */
+    public static DoubleSupplier systemCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+        return os::getCpuLoad;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return the current number of generations allowed to run concurrently
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the duration of a document rendering.
+     *
+     * @param nanos the duration of the rendering
+     * @param rows  the rows of the document, counted as one if it has none
+     */
+    public synchronized void recordRenderLatency(long nanos, int rows) {
+        renderRows += Math.max(1, rows);
+        renderNanosSum += nanos;
+    }
+
+    /**
+     * Records the time a generation waited for a permit.
+     */
+    public synchronized void recordQueueWait(long nanos) {
+        queueWaitSamples++;
+        queueWaitNanosSum += nanos;
+    }
+
+    /**
+     * Re-evaluates the limit from the observations since the previous call.
+     *
+     * @param inFlight              number of generations currently running
+     * @param queued                number of generations waiting for a permit
+     * @param oldestQueuedWaitNanos how long the oldest queued generation has been waiting, 0 if none
+     * @return the decision taken; {@link Decision#HOLD} if the limit did not change
+     */
+    public synchronized Decision adjust(int inFlight, int queued, long oldestQueuedWaitNanos) {
+        double currentRenderNanos = renderRows == 0 ? Double.NaN : (double) renderNanosSum / renderRows;
+        double averageQueueWaitNanos = queueWaitSamples == 0 ? 0 : (double) queueWaitNanosSum / queueWaitSamples;
+        // Jobs still in the queue are not in the samples yet: a long-waiting one counts as well
+        boolean queueWaitAboveTarget = Math.max(averageQueueWaitNanos, oldestQueuedWaitNanos)
+                > settings.queueWaitTarget().toNanos();
+        renderRows = 0;
+        renderNanosSum = 0;
+        queueWaitSamples = 0;
+        queueWaitNanosSum = 0;
+
+        int current = limit;
+        int next = current;
+        Decision decision = Decision.HOLD;
+        // Both read at every call: the CPU load is measured since the previous reading
+        double load = cpuLoad.getAsDouble();
+        double systemLoad = systemCpuLoad.getAsDouble();
+        if (load >= settings.cpuHighThreshold() || systemLoad >= systemCpuHighThreshold) {
+            next = (int) Math.floor(current * settings.backoffRatio());
+            decision = Decision.DECREASE_CPU;
+        } else if (!Double.isNaN(currentRenderNanos) && !Double.isNaN(baselineRenderNanos)
+                && currentRenderNanos > baselineRenderNanos * settings.latencyTolerance()) {
+            double gradient = Math.max(MIN_GRADIENT, baselineRenderNanos / currentRenderNanos);
+            next = (int) Math.floor(current * gradient);
+            decision = Decision.DECREASE_LATENCY;
+        } else if (inFlight >= current && queued > 0 && queueWaitAboveTarget) {
+            next = current + Math.max(1, (int) Math.sqrt(current));
+            decision = Decision.INCREASE;
+        }
+
+        if (!Double.isNaN(currentRenderNanos)) {
+            baselineRenderNanos = Double.isNaN(baselineRenderNanos)
+                    ? currentRenderNanos
+                    : baselineRenderNanos * (1 - BASELINE_SMOOTHING) + currentRenderNanos * BASELINE_SMOOTHING;
+        }
+
+        next = Math.clamp(next, settings.minLimit(), settings.maxLimit());
+        if (next == current) {
+            return Decision.HOLD;
+        }
+        limit = next;
+        return decision;
+    }
+}
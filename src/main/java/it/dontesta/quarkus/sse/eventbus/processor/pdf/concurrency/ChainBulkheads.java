@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * One bulkhead per document chain: each chain has its own
+ * {@link AdaptiveConcurrencyLimiter}, queue and worker threads, so a burst of slow
+ * renders of one chain cannot take the permits, or delay the queue, of another.
+ *
+ * <p>Each limiter is driven by the signals of its own chain: the render latency
+ * and the CPU load of the chain ({@link ChainCpuUsage}), the in-flight and queued
+ * generations of its executor, against the thresholds of its settings. The system
+ * CPU load is the one signal they share, as a guard: chains each under their own
+ * threshold can still saturate the host together, and then all of them back off.
+ */
+public class ChainBulkheads {
+
+    /**
+     * The limiter, the executor and the CPU usage of a document chain.
+     */
+    public record Bulkhead(String chainId, AdaptiveConcurrencyLimiter limiter, LimitedExecutor executor,
+            ChainCpuUsage cpuUsage) {
+    }
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    /**
+     * @param settingsByChain        the limiter settings of every chain, in the order the chains are listed
+     * @param systemCpuLoad          the current CPU load of the host, shared by all the limiters
+     * @param systemCpuHighThreshold system CPU load (0..1) at or above which every limit decreases
+     */
+    public ChainBulkheads(Map<String, AdaptiveConcurrencyLimiter.Settings> settingsByChain,
+            DoubleSupplier systemCpuLoad, double systemCpuHighThreshold) {
+        if (settingsByChain.isEmpty()) {
+            throw new IllegalArgumentException("At least one document chain is required");
+        }
+        Map<String, Bulkhead> map = new LinkedHashMap<>();
+        settingsByChain.forEach((chainId, settings) -> {
+            ChainCpuUsage cpuUsage = new ChainCpuUsage();
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings, cpuUsage, systemCpuLoad,
+                    systemCpuHighThreshold);
+            LimitedExecutor executor = new LimitedExecutor(limiter,
+                    Thread.ofPlatform().name("pdf-generation-" + chainId + "-", 0).factory());
+            map.put(chainId, new Bulkhead(chainId, limiter, executor, cpuUsage));
+        });
+        this.bulkheads = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @return the bulkhead of {@code chainId}
+     * @throws IllegalArgumentException if the chain has no bulkhead
+     */
+    public Bulkhead get(String chainId) {
+        Bulkhead bulkhead = bulkheads.get(chainId);
+        if (bulkhead == null) {
+            throw new IllegalArgumentException("No bulkhead for document chain: " + chainId);
+        }
+        return bulkhead;
+    }
+
+    public List<String> chainIds() {
+        return List.copyOf(bulkheads.keySet());
+    }
+
+    public Collection<Bulkhead> all() {
+        return bulkheads.values();
+    }
+
+    public void shutdown() {
+        bulkheads.values().forEach(bulkhead -> bulkhead.executor().shutdown());
+    }
+
+    /**
+     * Waits for all the executors, within a single overall {@code timeout}.
+     *
+     * @return {@code true} if all the executors terminated
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            long remaining = deadline - System.nanoTime();
+            if (!bulkhead.executor().awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void shutdownNow() {
+        bulkheads.values().forEach(bulkhead -> bulkhead.executor().shutdownNow());
+    }
+
+    public boolean isShutdown() {
+        return bulkheads.values().stream().allMatch(bulkhead -> bulkhead.executor().isShutdown());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * CPU load of the renders of one document chain: the CPU time its generations
+ * consumed since the previous reading, as a share (0..1) of the processors
+ * available to the JVM over the same time.
+ *
+ * <p>It is the CPU signal of the {@link AdaptiveConcurrencyLimiter} of the chain,
+ * read once per {@link AdaptiveConcurrencyLimiter#adjust}: a chain backs off when
+ * its own renders take more than its share of the CPU, not when another chain does.
+ * The CPU load of the host is read next to it, as a guard shared by all the chains.
+ *
+ * <p>A render measured from its thread ({@link #start}) is accounted at every
+ * reading while it runs, not in one lump when it ends: a long render spreads
+ * over the intervals it spans. The CPU time measured elsewhere, e.g. by the
+ * section tasks of a fork-join pool, is added with {@link #record}.
+ *
+ * <p>Thread-safe: the CPU time is recorded by the render threads, the load is read
+ * by the scheduler of the limiters.
+ */
+public class ChainCpuUsage implements DoubleSupplier {
+
+    /**
+     * The CPU time of a render running on a thread, from {@link #start} to {@link #close}.
+     */
+    public final class Measurement implements AutoCloseable {
+
+        private final long threadId;
+        private final long startCpuNanos;
+
+        // Guarded by ChainCpuUsage.this
+        private long accountedCpuNanos;
+        private long cpuNanos;
+
+        private Measurement(long threadId, long startCpuNanos) {
+            this.threadId = threadId;
+            this.startCpuNanos = startCpuNanos;
+            this.accountedCpuNanos = startCpuNanos;
+        }
+
+        /**
+         * Accounts the CPU time of the render not read yet, and stops measuring it.
+         */
+        @Override
+        public void close() {
+            synchronized (ChainCpuUsage.this) {
+                if (running.remove(this)) {
+                    account(this);
+                    cpuNanos = accountedCpuNanos - startCpuNanos;
+                }
+            }
+        }
+
+        /**
+         * @return the CPU time of the render, once closed
+         */
+        public long cpuNanos() {
+            synchronized (ChainCpuUsage.this) {
+                return cpuNanos;
+            }
+        }
+    }
+
+    private final LongAdder cpuNanos = new LongAdder();
+    private final int processors;
+    private final LongSupplier nanoClock;
+    private final LongUnaryOperator threadCpuNanos;
+
+    // Guarded by this
+    private final Set<Measurement> running = new HashSet<>();
+    private long lastReadNanos;
+    private long lastCpuNanos;
+
+    public ChainCpuUsage() {
+        this(Runtime.getRuntime().availableProcessors(), System::nanoTime);
+    }
+
+    /**
+     * @param processors the processors available to the renders
+     * @param nanoClock  the current time in nanoseconds
+     */
+    ChainCpuUsage(int processors, LongSupplier nanoClock) {
+        this(processors, nanoClock, ManagementFactory.getThreadMXBean()::getThreadCpuTime);
+    }
+
+    /**
+     * @param processors     the processors available to the renders
+     * @param nanoClock      the current time in nanoseconds
+     * @param threadCpuNanos the CPU time of a thread by id, negative if not measured
+     */
+    ChainCpuUsage(int processors, LongSupplier nanoClock, LongUnaryOperator threadCpuNanos) {
+        this.processors = processors;
+        this.nanoClock = nanoClock;
+        this.threadCpuNanos = threadCpuNanos;
+        this.lastReadNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Starts measuring the CPU time of a render of the chain on the current thread.
+     */
+    public synchronized Measurement start() {
+        long threadId = Thread.currentThread().threadId();
+        Measurement measurement = new Measurement(threadId, Math.max(0, threadCpuNanos.applyAsLong(threadId)));
+        running.add(measurement);
+        return measurement;
+    }
+
+    /**
+     * Records the CPU time consumed by a render of the chain.
+     */
+    public void record(long nanos) {
+        cpuNanos.add(nanos);
+    }
+
+    /**
+     * @return the CPU load of the chain since the previous call, running renders included, 0 if no time has passed
+     */
+    @Override
+    public synchronized double getAsDouble() {
+        running.forEach(this::account);
+        long now = nanoClock.getAsLong();
+        long cpu = cpuNanos.sum();
+        long elapsedNanos = now - lastReadNanos;
+        double load = elapsedNanos <= 0 ? 0 : (double) (cpu - lastCpuNanos) / elapsedNanos / processors;
+        lastReadNanos = now;
+        lastCpuNanos = cpu;
+        return Math.min(1, load);
+    }
+
+    /**
+     * Adds the CPU time of {@code measurement} since it was last accounted. Guarded by this.
+     */
+    private void account(Measurement measurement) {
+        long current = threadCpuNanos.applyAsLong(measurement.threadId);
+        if (current > measurement.accountedCpuNanos) {
+            cpuNanos.add(current - measurement.accountedCpuNanos);
+            measurement.accountedCpuNanos = current;
+        }
+    }
+}
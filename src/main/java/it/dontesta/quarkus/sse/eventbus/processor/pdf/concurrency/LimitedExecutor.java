@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on a worker pool sized for the {@code maxLimit} of an
+ * {@link AdaptiveConcurrencyLimiter}, never more at once than its current limit.
+ * Tasks over the limit wait in a FIFO queue; the time they wait is reported to
+ * the limiter.
+ */
+public class LimitedExecutor {
+
+    private record Task<T>(Callable<T> callable, CompletableFuture<T> future, long enqueuedAtNanos) {
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ThreadPoolExecutor workers;
+
+    // Guarded by this
+    private final Queue<Task<?>> queue = new ArrayDeque<>();
+    private int inFlight;
+    private boolean shutdown;
+
+    public LimitedExecutor(AdaptiveConcurrencyLimiter limiter, ThreadFactory threadFactory) {
+        this.limiter = limiter;
+        int maxLimit = limiter.getSettings().maxLimit();
+        // Threads are started on demand and retired when idle, so a high maxLimit costs nothing at rest
+        this.workers = new ThreadPoolExecutor(maxLimit, maxLimit, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFactory);
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues {@code callable} and runs it as soon as a permit is available.
+     * Cancelling the returned future removes the task from the queue; a task
+     * already running is not interrupted.
+     *
+     * @return a future completed with the result of {@code callable}, or exceptionally with what it threw
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Task<T> task = new Task<>(callable, future, System.nanoTime());
+        synchronized (this) {
+            if (shutdown) {
+                future.completeExceptionally(new RejectedExecutionException("The executor is shut down"));
+                return future;
+            }
+            queue.add(task);
+            drain();
+        }
+        future.whenComplete((result, failure) -> {
+            if (future.isCancelled()) {
+                dequeue(task);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Re-evaluates the limit of the limiter and starts queued tasks if it grew.
+     *
+     * @return the decision of the limiter
+     */
+    public AdaptiveConcurrencyLimiter.Decision adjustLimit() {
+        int running;
+        int waiting;
+        long oldestWaitNanos;
+        synchronized (this) {
+            running = inFlight;
+            waiting = queue.size();
+            Task<?> oldest = queue.peek();
+            oldestWaitNanos = oldest == null ? 0 : System.nanoTime() - oldest.enqueuedAtNanos();
+        }
+        AdaptiveConcurrencyLimiter.Decision decision = limiter.adjust(running, waiting, oldestWaitNanos);
+        synchronized (this) {
+            drain();
+        }
+        return decision;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting tasks; queued and running tasks still complete.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            if (!queue.isEmpty()) {
+                return;
+            }
+        }
+        workers.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Fails the queued tasks and interrupts the running ones.
+     */
+    public void shutdownNow() {
+        synchronized (this) {
+            shutdown = true;
+            Task<?> task;
+            while ((task = queue.poll()) != null) {
+                task.future().completeExceptionally(new RejectedExecutionException("The executor was shut down"));
+            }
+        }
+        workers.shutdownNow();
+    }
+
+    public boolean isShutdown() {
+        return workers.isShutdown();
+    }
+
+    private synchronized void dequeue(Task<?> task) {
+        queue.remove(task);
+        if (shutdown && queue.isEmpty()) {
+            workers.shutdown();
+        }
+    }
+
+    // Must hold the lock
+    private void drain() {
+        while (inFlight < limiter.getLimit() && !queue.isEmpty()) {
+            Task<?> task = queue.poll();
+            if (task.future().isDone()) {
+                continue;
+            }
+            inFlight++;
+            try {
+                workers.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                inFlight--;
+                task.future().completeExceptionally(e);
+            }
+        }
+        if (shutdown && queue.isEmpty()) {
+            workers.shutdown();
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        limiter.recordQueueWait(System.nanoTime() - task.enqueuedAtNanos());
+        try {
+            if (task.future().isDone()) {
+                // Cancelled after it was handed to a worker
+                return;
+            }
+            task.future().complete(task.callable().call());
+        } catch (Throwable t) {
+            task.future().completeExceptionally(t);
+        } finally {
+            synchronized (this) {
+                inFlight--;
+                drain();
+            }
+        }
+    }
+}
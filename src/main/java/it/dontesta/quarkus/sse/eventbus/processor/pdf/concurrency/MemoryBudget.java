@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Heap budget shared by the generations of a replica: a generation starts only
+ * once the estimated heap of the generations already admitted, plus its own,
+ * fits in the budget.
+ *
+ * <p>Reservations are granted in FIFO order, so a large generation is not
+ * starved by a stream of small ones. A reservation larger than the whole budget
+ * is granted once nothing else is reserved: it runs alone.
+ *
+ * <p>Thread-safe.
+ */
+public class MemoryBudget {
+
+    /**
+     * Heap reserved for a generation, released by {@link #close()}.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final long bytes;
+        private boolean released;
+
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Releases the reservation; only the first call has an effect.
+         */
+        @Override
+        public void close() {
+            List<Request> granted;
+            synchronized (MemoryBudget.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                committed -= bytes;
+                granted = grant();
+            }
+            complete(granted);
+        }
+    }
+
+    private record Request(Reservation reservation, CompletableFuture<Reservation> future) {
+    }
+
+    private final long budgetBytes;
+
+    // Guarded by this
+    private final Queue<Request> queue = new ArrayDeque<>();
+    private long committed;
+
+    /**
+     * @param budgetBytes heap available to the generations, positive
+     */
+    public MemoryBudget(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("The memory budget must be positive: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Reserves {@code bytes} of heap as soon as they fit in the budget.
+     * Cancelling the returned future withdraws the request.
+     *
+     * @return a future completed with the reservation once granted
+     */
+    public CompletableFuture<Reservation> reserve(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Negative reservation: " + bytes);
+        }
+        CompletableFuture<Reservation> future = new CompletableFuture<>();
+        Request request = new Request(new Reservation(bytes), future);
+        List<Request> granted;
+        synchronized (this) {
+            queue.add(request);
+            granted = grant();
+        }
+        complete(granted);
+        future.whenComplete((reservation, failure) -> {
+            if (future.isCancelled()) {
+                withdraw(request);
+            }
+        });
+        return future;
+    }
+
+    public long budget() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return the bytes reserved by the generations admitted
+     */
+    public synchronized long committed() {
+        return committed;
+    }
+
+    /**
+     * @return the requests waiting for a reservation
+     */
+    public synchronized int waiting() {
+        return queue.size();
+    }
+
+    private void withdraw(Request request) {
+        List<Request> granted;
+        synchronized (this) {
+            // Removing the head may let the next requests in
+            granted = queue.remove(request) ? grant() : List.of();
+        }
+        complete(granted);
+    }
+
+    /**
+     * Takes the requests that fit from the head of the queue. Called holding the lock;
+     * the futures are completed by {@link #complete} once it is released, since they
+     * run the next stage of their generation.
+     */
+    private List<Request> grant() {
+        List<Request> granted = new ArrayList<>();
+        Request head;
+        while ((head = queue.peek()) != null
+                && (committed == 0 || committed + head.reservation().bytes() <= budgetBytes)) {
+            queue.poll();
+            committed += head.reservation().bytes();
+            granted.add(head);
+        }
+        return granted;
+    }
+
+    private static void complete(List<Request> granted) {
+        for (Request request : granted) {
+            if (!request.future().complete(request.reservation())) {
+                // Cancelled in the meantime
+                request.reservation().close();
+            }
+        }
+    }
+}
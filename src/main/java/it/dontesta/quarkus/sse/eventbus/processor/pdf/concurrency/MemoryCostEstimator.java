@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the heap a generation needs from the kind of document (chain and
+ * format) and the rows it lists, with a linear model {@code base + perRow * rows}
+ * per kind.
+ *
+ * <p>The model starts from the configured defaults and is fitted online, by
+ * least squares over exponentially decayed observations, to the heap the
+ * generations actually took: a fraction ({@code liveRatio}) of the bytes their
+ * threads allocated, the live part of the intermediate documents, plus the size
+ * of the rendered document, held until the upload.
+ *
+ * <p>Thread-safe.
+ */
+public class MemoryCostEstimator {
+
+    /**
+     * Tuning of the estimator.
+     *
+     * @param initialBytes       heap of a generation without rows, before any observation
+     * @param initialBytesPerRow heap per row, before any observation
+     * @param liveRatio          fraction (0..1] of the allocated bytes assumed live at the peak
+     * @param smoothing          weight (0..1] of the latest observation
+     * @param minObservations    observations of a kind before its model replaces the defaults
+     */
+    public record Settings(long initialBytes, long initialBytesPerRow, double liveRatio, double smoothing,
+            int minObservations) {
+
+        public Settings {
+            if (initialBytes <= 0 || initialBytesPerRow < 0) {
+                throw new IllegalArgumentException(
+                        "Invalid initial estimate: " + initialBytes + " bytes, " + initialBytesPerRow + " per row");
+            }
+            if (liveRatio <= 0 || liveRatio > 1) {
+                throw new IllegalArgumentException("The live ratio must be in (0, 1]: " + liveRatio);
+            }
+            if (smoothing <= 0 || smoothing > 1) {
+                throw new IllegalArgumentException("The smoothing must be in (0, 1]: " + smoothing);
+            }
+            if (minObservations < 1) {
+                throw new IllegalArgumentException("At least one observation is required: " + minObservations);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final Map<String, Fit> fits = new ConcurrentHashMap<>();
+
+    public MemoryCostEstimator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return the estimated heap, in bytes, of a generation of {@code kind} listing {@code rows} rows
+     */
+    public long estimate(String kind, int rows) {
+        Fit fit = fits.get(kind);
+        return fit == null ? prior(rows) : fit.estimate(rows);
+    }
+
+    /**
+     * Records the heap taken by a generation of {@code kind}.
+     *
+     * @param allocatedBytes bytes allocated by the threads of the generation
+     * @param documentBytes  size of the rendered document
+     */
+    public void observe(String kind, int rows, long allocatedBytes, long documentBytes) {
+        double bytes = allocatedBytes * settings.liveRatio() + documentBytes;
+        fits.computeIfAbsent(kind, k -> new Fit()).add(rows, bytes);
+    }
+
+    private long prior(int rows) {
+        return settings.initialBytes() + settings.initialBytesPerRow() * rows;
+    }
+
+    /**
+     * Weighted least squares of the bytes over the rows; the weights decay by
+     * {@code 1 - smoothing} at every observation.
+     */
+    private final class Fit {
+
+        // Guarded by this
+        private long observations;
+        private double weight;
+        private double sumX;
+        private double sumY;
+        private double sumXX;
+        private double sumXY;
+
+        synchronized void add(int rows, double bytes) {
+            double decay = 1 - settings.smoothing();
+            weight = weight * decay + 1;
+            sumX = sumX * decay + rows;
+            sumY = sumY * decay + bytes;
+            sumXX = sumXX * decay + (double) rows * rows;
+            sumXY = sumXY * decay + rows * bytes;
+            observations++;
+        }
+
+        synchronized long estimate(int rows) {
+            if (observations < settings.minObservations()) {
+                return prior(rows);
+            }
+            double meanX = sumX / weight;
+            double meanY = sumY / weight;
+            double varianceX = sumXX / weight - meanX * meanX;
+            // Too few distinct row counts to fit a slope: keep the default one around the mean
+            double perRow = varianceX < 1
+                    ? settings.initialBytesPerRow()
+                    : Math.max(0, (sumXY / weight - meanX * meanY) / varianceX);
+            double base = Math.max(0, meanY - perRow * meanX);
+            return Math.max(1, Math.round(base + perRow * rows));
+        }
+    }
+}
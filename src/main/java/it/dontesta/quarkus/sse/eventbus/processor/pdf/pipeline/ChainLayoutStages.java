@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One layout {@link RenderStage} per document chain, next to its bulkhead: each
+ * chain has its own FOP workers and handoff queue, so the layouts of a slow chain
+ * cannot take the workers, or fill the queue, the templating of another chain
+ * hands its XSL-FO over to. A full queue only blocks the bulkhead workers of its
+ * own chain, and only their wait counts in the latency of its limiter.
+ */
+public class ChainLayoutStages implements AutoCloseable {
+
+    /**
+     * The FOP workers and the size of the handoff queue of a document chain.
+     */
+    public record Settings(int parallelism, int queueSize) {
+    }
+
+    private final Map<String, RenderStage> stages;
+
+    /**
+     * @param settingsByChain the settings of every chain, in the order the chains are listed
+     */
+    public ChainLayoutStages(Map<String, Settings> settingsByChain) {
+        if (settingsByChain.isEmpty()) {
+            throw new IllegalArgumentException("At least one document chain is required");
+        }
+        Map<String, RenderStage> map = new LinkedHashMap<>();
+        settingsByChain.forEach((chainId, settings) -> map.put(chainId, new RenderStage("layout-" + chainId,
+                settings.parallelism(), settings.queueSize(),
+                Thread.ofPlatform().name("pdf-fop-" + chainId + "-", 0).daemon().factory())));
+        this.stages = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @return the layout stage of {@code chainId}
+     * @throws IllegalArgumentException if the chain has no layout stage
+     */
+    public RenderStage get(String chainId) {
+        RenderStage stage = stages.get(chainId);
+        if (stage == null) {
+            throw new IllegalArgumentException("No layout stage for document chain: " + chainId);
+        }
+        return stage;
+    }
+
+    public Collection<RenderStage> all() {
+        return stages.values();
+    }
+
+    /**
+     * Stops the workers of every chain; the tasks still queued are cancelled.
+     */
+    @Override
+    public void close() {
+        stages.values().forEach(RenderStage::close);
+    }
+}
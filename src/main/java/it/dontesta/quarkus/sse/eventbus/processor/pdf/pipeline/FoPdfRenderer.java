@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.xml.sax.SAXException;
+
+/**
+ * Second stage of the PDF pipeline: lays out an XSL-FO document with Apache FOP.
+ *
+ * <p>The {@link FopFactory} is built once from the same configuration as the
+ * {@code pdf-fop} handler ({@value #FOP_CONFIG_PATH}) and shared: it holds the
+ * font and image caches, which are the expensive part of a FOP setup. Each worker
+ * of the stage keeps its own identity {@link Transformer}, which is not thread-safe.
+ */
+public class FoPdfRenderer {
+
+    /** Handler of {@code fm-doc-process-config.xml} producing the XSL-FO laid out by this renderer. */
+    public static final String FO_HANDLER_ID = "fo-fop";
+
+    /** Classpath location of the FOP configuration, shared with the {@code pdf-fop} handler. */
+    static final String FOP_CONFIG_PATH = "fj-doc/fop-config.xml";
+
+    private final FopFactory fopFactory;
+
+    private final ThreadLocal<Transformer> transformers = ThreadLocal.withInitial(FoPdfRenderer::newTransformer);
+
+    public FoPdfRenderer() {
+        try (InputStream config = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream(FOP_CONFIG_PATH)) {
+            if (config == null) {
+                throw new IllegalStateException("FOP configuration not found: " + FOP_CONFIG_PATH);
+            }
+            this.fopFactory = FopFactory.newInstance(new File(".").toURI(), config);
+        } catch (IOException | SAXException e) {
+            throw new IllegalStateException("Cannot load the FOP configuration " + FOP_CONFIG_PATH, e);
+        }
+    }
+
+    /**
+     * @param fo the XSL-FO document, as produced by the {@code fo-fop} handler
+     * @return the PDF document
+     * @throws Exception if the document cannot be laid out
+     */
+    public byte[] render(byte[] fo) throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream(Math.max(8192, fo.length / 2));
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, pdf);
+        Transformer transformer = transformers.get();
+        try {
+            transformer.transform(new StreamSource(new ByteArrayInputStream(fo)),
+                    new SAXResult(fop.getDefaultHandler()));
+        } finally {
+            transformer.reset();
+        }
+        return pdf.toByteArray();
+    }
+
+    private static Transformer newTransformer() {
+        try {
+            return TransformerFactory.newInstance().newTransformer();
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("Cannot create the XSL-FO transformer", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+/**
+ * Concatenates the PDFs of the sections of a document, in order, into one PDF.
+ *
+ * <p>The outline of the sections is merged with their pages, so the bookmarks
+ * of the document point to the right pages of the result. The page numbers
+ * ({@code current / total}) cannot be laid out by FOP, which only sees one
+ * section at a time: they are stamped on the merged pages, right-aligned in the
+ * bottom margin, as the footer of the single-pass rendering.
+ */
+public class PdfSectionMerger {
+
+    /** Millimetres to PDF points. */
+    private static final float MM = 72f / 25.4f;
+
+    /** Right margin of the documents ({@code margins} of the templates). */
+    private static final float RIGHT_MARGIN = 10 * MM;
+
+    /** Baseline of the page numbers, from the bottom of the page. */
+    private static final float FOOTER_BASELINE = 15 * MM;
+
+    private static final float FONT_SIZE = 10f;
+
+    /**
+     * @param sections the PDFs of the sections, in document order
+     * @return the merged PDF, with its pages numbered
+     * @throws IOException if a section is not a valid PDF
+     */
+    public byte[] merge(List<byte[]> sections) throws IOException {
+        if (sections.isEmpty()) {
+            throw new IllegalArgumentException("No section to merge");
+        }
+        PDFMergerUtility merger = new PDFMergerUtility();
+        // The sources must stay open until the merged document is saved
+        List<PDDocument> sources = new ArrayList<>(sections.size() - 1);
+        try (PDDocument merged = Loader.loadPDF(sections.getFirst())) {
+            for (byte[] section : sections.subList(1, sections.size())) {
+                PDDocument source = Loader.loadPDF(section);
+                sources.add(source);
+                merger.appendDocument(merged, source);
+            }
+            numberPages(merged);
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            merged.save(pdf);
+            return pdf.toByteArray();
+        } finally {
+            for (PDDocument source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    private void numberPages(PDDocument document) throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        int pageCount = document.getNumberOfPages();
+        int pageNumber = 0;
+        for (PDPage page : document.getPages()) {
+            pageNumber++;
+            String text = pageNumber + " / " + pageCount;
+            PDRectangle box = page.getMediaBox();
+            float x = box.getUpperRightX() - RIGHT_MARGIN - font.getStringWidth(text) / 1000 * FONT_SIZE;
+            try (PDPageContentStream content = new PDPageContentStream(document, page,
+                    PDPageContentStream.AppendMode.APPEND, true, true)) {
+                content.beginText();
+                content.setFont(font, FONT_SIZE);
+                content.newLineAtOffset(x, box.getLowerLeftY() + FOOTER_BASELINE);
+                content.showText(text);
+                content.endText();
+            }
+        }
+    }
+}
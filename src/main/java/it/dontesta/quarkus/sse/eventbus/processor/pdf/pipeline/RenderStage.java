@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A stage of the render pipeline: {@code parallelism} dedicated workers taking
+ * tasks from a bounded handoff queue.
+ *
+ * <p>When the queue is full {@link #submit(Callable)} blocks the caller, that is
+ * the worker of the previous stage: a slow stage slows down the one feeding it
+ * instead of piling up intermediates in memory.
+ *
+ * <p>The stage accounts the time its workers are busy, running tasks included:
+ * its utilisation is the rate of {@link #busyNanos()} divided by its parallelism.
+ */
+public class RenderStage implements AutoCloseable {
+
+    private record Task<T>(Callable<T> callable, CompletableFuture<T> future) {
+
+        void run() {
+            if (future.isDone()) {
+                // Cancelled while queued
+                return;
+            }
+            try {
+                future.complete(callable.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /** Marks an idle worker in {@link #busySince}. */
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private final String name;
+    private final int parallelism;
+    private final BlockingQueue<Task<?>> queue;
+    private final Thread[] workers;
+    private final LongSupplier nanoTime;
+
+    /** Start of the running task of each worker, {@link #IDLE} if none. */
+    private final AtomicLongArray busySince;
+    /** Busy time of the completed tasks. */
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    private volatile boolean closed;
+
+    public RenderStage(String name, int parallelism, int queueSize, ThreadFactory threadFactory) {
+        this(name, parallelism, queueSize, threadFactory, System::nanoTime);
+    }
+
+    RenderStage(String name, int parallelism, int queueSize, ThreadFactory threadFactory, LongSupplier nanoTime) {
+        if (parallelism < 1 || queueSize < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid render stage '" + name + "': parallelism " + parallelism + ", queue size " + queueSize);
+        }
+        this.name = name;
+        this.parallelism = parallelism;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.nanoTime = nanoTime;
+        this.busySince = new AtomicLongArray(parallelism);
+        this.workers = new Thread[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            busySince.set(i, IDLE);
+            int worker = i;
+            workers[i] = threadFactory.newThread(() -> work(worker));
+            workers[i].start();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Hands {@code callable} over to the stage, waiting for room in the queue.
+     * Cancelling the returned future skips the task if it has not started yet; a
+     * running task is not interrupted.
+     *
+     * @return a future completed with the result of {@code callable}, or exceptionally with what it threw
+     * @throws InterruptedException if the caller was interrupted while the queue was full
+     * @throws RejectedExecutionException if the stage is closed
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable) throws InterruptedException {
+        Task<T> task = new Task<>(callable, new CompletableFuture<>());
+        while (!queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+            checkNotClosed();
+        }
+        // Closed while waiting: the workers may be gone already
+        checkNotClosed();
+        return task.future();
+    }
+
+    /**
+     * @return the number of tasks waiting for a worker
+     */
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of workers running a task
+     */
+    public int active() {
+        int active = 0;
+        for (int i = 0; i < parallelism; i++) {
+            if (busySince.get(i) != IDLE) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * @return the number of tasks completed, successfully or not
+     */
+    public long completed() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the time the workers have been busy since the stage started, in nanoseconds
+     */
+    public long busyNanos() {
+        long now = nanoTime.getAsLong();
+        long busy = busyNanos.sum();
+        for (int i = 0; i < parallelism; i++) {
+            long since = busySince.get(i);
+            if (since != IDLE) {
+                busy += Math.max(0L, now - since);
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * Stops the workers; the tasks still queued are cancelled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Task<?> task;
+        while ((task = queue.poll()) != null) {
+            task.future().cancel(false);
+        }
+    }
+
+    private void work(int worker) {
+        while (!closed) {
+            Task<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long start = nanoTime.getAsLong();
+            busySince.set(worker, start);
+            try {
+                task.run();
+            } finally {
+                busyNanos.add(Math.max(0L, nanoTime.getAsLong() - start));
+                completed.increment();
+                busySince.set(worker, IDLE);
+            }
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new RejectedExecutionException("The render stage '" + name + "' is closed");
+        }
+    }
+}
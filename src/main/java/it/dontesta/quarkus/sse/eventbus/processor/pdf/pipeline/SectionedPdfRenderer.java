@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.fugerit.java.doc.base.config.DocInput;
+import org.fugerit.java.doc.base.config.DocOutput;
+import org.fugerit.java.doc.base.process.DocProcessData;
+
+import com.sun.management.ThreadMXBean;
+
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.ChainCpuUsage;
+import it.dontesta.quarkus.sse.fjdoc.DocContexts;
+import it.dontesta.quarkus.sse.fjdoc.DocHelper;
+import it.dontesta.quarkus.sse.fjdoc.DocRows;
+import it.dontesta.quarkus.sse.fjdoc.DocSections;
+import it.dontesta.quarkus.sse.fjdoc.DocSections.Section;
+
+/**
+ * Renders a large PDF in sections: the rows are partitioned with {@link DocSections},
+ * each section is templated and laid out on its own on a {@link ForkJoinPool},
+ * and the partial PDFs are merged by {@link PdfSectionMerger}.
+ *
+ * <p>Rendering a PDF is linear in its rows and single-threaded: split in sections
+ * it takes roughly {@code 1 / parallelism} of the time, at the cost of a new page
+ * at each section boundary.
+ *
+ * <p>The bytes allocated and the CPU time consumed by the section tasks, on the
+ * threads of the pool, are reported to the caller for its heap estimates and to
+ * the CPU load of the chain.
+ */
+public class SectionedPdfRenderer implements AutoCloseable {
+
+    /** The only chain whose template can be rendered in sections. */
+    static final String COMPLEX_DOCUMENT = "complex-document";
+
+    /** Parts of {@code complex-document}: the two tables listing {@code listPeople}. */
+    private static final int COMPLEX_DOCUMENT_PARTS = 2;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final DocHelper docHelper;
+    private final FoPdfRenderer foPdfRenderer;
+    private final PdfSectionMerger merger = new PdfSectionMerger();
+    private final ForkJoinPool pool;
+    private final int rowsPerSection;
+
+    public SectionedPdfRenderer(DocHelper docHelper, FoPdfRenderer foPdfRenderer, int parallelism,
+            int rowsPerSection) {
+        this.docHelper = docHelper;
+        this.foPdfRenderer = foPdfRenderer;
+        this.pool = new ForkJoinPool(parallelism);
+        this.rowsPerSection = rowsPerSection;
+    }
+
+    /**
+     * @return whether the documents of {@code chainId} can be rendered in sections
+     */
+    public boolean supports(String chainId) {
+        return COMPLEX_DOCUMENT.equals(chainId);
+    }
+
+    /**
+     * @return the sections {@code rows} rows are split into
+     */
+    public int sectionCount(int rows) {
+        return DocSections.plan(COMPLEX_DOCUMENT_PARTS, rows, rowsPerSection).size();
+    }
+
+    /**
+     * @return the rows of the sections rendered at once, at most: one section per thread of the pool
+     */
+    public int maxRowsInFlight() {
+        return pool.getParallelism() * rowsPerSection;
+    }
+
+    /**
+     * Renders the document of {@code processId}, blocking until it is merged.
+     *
+     * @param allocatedBytes incremented by the bytes the section tasks allocated, if the JVM measures them
+     * @param cpuUsage       the CPU load of the chain, the section tasks are measured in while they run
+     * @param cpuNanos       incremented by the CPU time of the section tasks
+     * @return the PDF
+     * @throws Exception if a section cannot be rendered, or the sections merged
+     */
+    public byte[] render(String chainId, String processId, DocRows rows, LongAdder allocatedBytes,
+            ChainCpuUsage cpuUsage, LongAdder cpuNanos) throws Exception {
+        List<Section> sections = DocSections.plan(COMPLEX_DOCUMENT_PARTS, rows.size(), rowsPerSection);
+        byte[][] pdfs = new byte[sections.size()][];
+        pool.invoke(new RenderSections(new Render(chainId, processId, rows, sections, pdfs, allocatedBytes, cpuUsage,
+                cpuNanos), 0, sections.size()));
+        return merger.merge(Arrays.asList(pdfs));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private byte[] renderSection(String chainId, String processId, DocRows rows, Section section)
+            throws Exception {
+        DocProcessData data = new DocProcessData();
+        docHelper.getDocProcessConfig().process(chainId,
+                DocContexts.newSectionContext(processId, rows, section), data);
+        try (ByteArrayOutputStream fo = new ByteArrayOutputStream()) {
+            docHelper.getDocProcessConfig().getFacade().handle(
+                    DocInput.newInput(FoPdfRenderer.FO_HANDLER_ID, data.getCurrentXmlReader()),
+                    DocOutput.newOutput(fo));
+            return foPdfRenderer.render(fo.toByteArray());
+        }
+    }
+
+    /**
+     * What the section tasks of one render share.
+     */
+    private record Render(String chainId, String processId, DocRows rows, List<Section> sections, byte[][] pdfs,
+            LongAdder allocatedBytes, ChainCpuUsage cpuUsage, LongAdder cpuNanos) {
+    }
+
+    /**
+     * Renders the sections {@code [from, to)} into {@code pdfs}, splitting the
+     * range in halves down to one section per task.
+     */
+    private final class RenderSections extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Render render;
+        private final int from;
+        private final int to;
+
+        RenderSections(Render render, int from, int to) {
+            this.render = render;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                boolean measured = THREAD_MX_BEAN.isThreadAllocatedMemorySupported()
+                        && THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled();
+                long startBytes = measured ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() : 0;
+                ChainCpuUsage.Measurement cpu = render.cpuUsage().start();
+                try {
+                    render.pdfs()[from] = renderSection(render.chainId(), render.processId(), render.rows(),
+                            render.sections().get(from));
+                } catch (Exception e) {
+                    throw new IllegalStateException(
+                            "Cannot render section " + from + " of processId " + render.processId(), e);
+                } finally {
+                    cpu.close();
+                    render.cpuNanos().add(cpu.cpuNanos());
+                    if (measured) {
+                        render.allocatedBytes().add(THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - startBytes);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RenderSections(render, from, middle), new RenderSections(render, middle, to));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.sse;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Reconnection delay advised to the SSE clients (the {@code retry:} field),
+ * growing with the load of the replica: from {@code minDelay} when idle to
+ * {@code maxDelay} at capacity. The load is the highest of the ratios of the
+ * open streams and of the generations in progress to their capacity.
+ *
+ * <p>Each client gets the delay minus a random part, up to {@code jitter} of it,
+ * so that the clients of a replica that stops do not all come back at the same
+ * time. Over {@code shedLoad} new streams are shed: closed right away with the
+ * longest delay.
+ *
+ * <p>Thread-safe.
+ */
+public class ReconnectAdvisor {
+
+    /**
+     * Tuning of the advisor.
+     *
+     * @param minDelay           delay advised to the clients of an idle replica
+     * @param maxDelay           delay advised at capacity, and to the shed clients
+     * @param jitter             fraction [0..1) of the delay randomized per client
+     * @param streamCapacity     open SSE streams of a replica at capacity
+     * @param generationCapacity generations in progress on a replica at capacity
+     * @param shedLoad           load over which new streams are shed
+     */
+    public record Settings(Duration minDelay, Duration maxDelay, double jitter, int streamCapacity,
+            int generationCapacity, double shedLoad) {
+
+        public Settings {
+            if (minDelay.isNegative() || maxDelay.compareTo(minDelay) < 0) {
+                throw new IllegalArgumentException("Invalid delays: " + minDelay + " to " + maxDelay);
+            }
+            if (jitter < 0 || jitter >= 1) {
+                throw new IllegalArgumentException("The jitter must be in [0, 1): " + jitter);
+            }
+            if (streamCapacity < 1 || generationCapacity < 1) {
+                throw new IllegalArgumentException(
+                        "Invalid capacity: " + streamCapacity + " streams, " + generationCapacity + " generations");
+            }
+            if (shedLoad <= 0) {
+                throw new IllegalArgumentException("The shed load must be positive: " + shedLoad);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final RandomGenerator random;
+
+    public ReconnectAdvisor(Settings settings, RandomGenerator random) {
+        this.settings = settings;
+        this.random = random;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return the load of a replica, 1 at capacity
+     */
+    public double load(int openStreams, int activeGenerations) {
+        return Math.max((double) openStreams / settings.streamCapacity(),
+                (double) activeGenerations / settings.generationCapacity());
+    }
+
+    /**
+     * @return whether a new stream is shed at {@code load}
+     */
+    public boolean shed(double load) {
+        return load >= settings.shedLoad();
+    }
+
+    /**
+     * @return the delay advised at {@code load}, before the jitter
+     */
+    public long delayMillis(double load) {
+        long min = settings.minDelay().toMillis();
+        long max = settings.maxDelay().toMillis();
+        return min + Math.round((max - min) * Math.min(1, Math.max(0, load)));
+    }
+
+    /**
+     * @return the delay advised to a client at {@code load}, jitter included
+     */
+    public long jitteredDelayMillis(double load) {
+        return jittered(delayMillis(load));
+    }
+
+    /**
+     * @return the delay advised to a shed client, jitter included
+     */
+    public long shedDelayMillis() {
+        return jittered(settings.maxDelay().toMillis());
+    }
+
+    private long jittered(long delayMillis) {
+        return delayMillis - Math.round(delayMillis * settings.jitter() * random.nextDouble());
+    }
+}
@@ -4,26 +4,51 @@
  */
 package it.dontesta.quarkus.sse.eventbus.sse;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 import io.quarkus.logging.Log;
 import io.quarkus.redis.datasource.ReactiveRedisDataSource;
-import io.quarkus.redis.datasource.pubsub.ReactivePubSubCommands;
-import io.quarkus.redis.datasource.value.ReactiveValueCommands;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+import io.vertx.redis.client.Command;
+import it.dontesta.quarkus.sse.cluster.ProcessIds;
+import it.dontesta.quarkus.sse.eventbus.metrics.PipelineStageMetrics;
+import it.dontesta.quarkus.sse.eventbus.metrics.PipelineStageMetrics.Stage;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationError;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.PdfEventProcessor;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation.PdfJobCancellation;
+import it.dontesta.quarkus.sse.jfr.SseDeliveryEvent;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import it.dontesta.quarkus.sse.jobs.JobStatus;
+import it.dontesta.quarkus.sse.redis.RedisKeys;
+import it.dontesta.quarkus.sse.redis.RedisNotifications;
+import it.dontesta.quarkus.sse.tracing.TracePropagation;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
@@ -45,16 +70,35 @@ import jakarta.ws.rs.sse.Sse;
  * with a configurable TTL ({@value #PENDING_EVENT_TTL_SECONDS} s by default).
  * When {@link #createStream} is subsequently called the method checks those
  * keys and, if present, immediately emits the buffered event to the new
- * subscriber (atomic GET + DEL to guarantee exactly-once delivery).
+ * subscriber (atomic GET + DEL to guarantee exactly-once delivery). Both keys
+ * are read in one round trip: on a Redis Cluster the processId is their hash
+ * tag, so they are on the same slot (see {@link RedisKeys}).
+ *
+ * <p>A stream opened after the terminal event was consumed, e.g. by the
+ * duplicate of a request replayed by its {@code Idempotency-Key}, finds no
+ * pending event: the terminal state of the job is then read from the
+ * {@link JobStateStore} and emitted as its event.
  *
  * <h2>Resource leak prevention</h2>
  * <p>The {@link BroadcastProcessor} entry for a given {@code processId} is
  * removed from the local map on any of these conditions:
  * <ul>
- *   <li>The SSE client disconnects (stream cancellation).</li>
+ *   <li>The last SSE client of the process disconnects (stream cancellation).
+ *       Several clients can share a process, e.g. duplicate submissions collapsed
+ *       by their {@code Idempotency-Key}.</li>
  *   <li>A completion or error event is successfully delivered.</li>
  *   <li>The application shuts down (all open processors are completed).</li>
+ *   <li>The replica drains: the streams are closed with a {@code retry:} hint,
+ *       see {@link #closeStreams}.</li>
  * </ul>
+ *
+ * <h2>Reconnection backoff</h2>
+ * <p>Every stream opened by {@link #connect} starts with a comment carrying a
+ * {@code retry:} field, advised by the {@link ReconnectAdvisor} from the load of
+ * the replica, and the processId as event id: if the connection drops, the
+ * browser waits that long and reconnects with a {@code Last-Event-ID} header,
+ * counted as a reconnection. Over the shed load new streams only get the
+ * longest delay, and end.
  */
 @ApplicationScoped
 public class SseBroadcaster {
@@ -79,21 +123,53 @@ public class SseBroadcaster {
      * Each instance tracks only the SSE clients connected to itself.
      * Cross-instance delivery relies on Redis Pub/Sub; late-arrival delivery
      * relies on the Redis pending-event buffer (see {@link #checkPendingEvents}).
+     * The events of a job rendered by the replica holding its stream are
+     * delivered in-process (see {@link #deliverLocally}).
      */
     private final Map<String, BroadcastProcessor<OutboundSseEvent>> processors = new ConcurrentHashMap<>();
 
+    /** Number of SSE clients subscribed to each processor, keyed by processId. */
+    private final Map<String, Integer> streamSubscribers = new ConcurrentHashMap<>();
+
     @Inject
     Sse sse;
 
     @Inject
     ReactiveRedisDataSource reactiveRedisDS;
 
+    @Inject
+    RedisKeys redisKeys;
+
+    @Inject
+    ProcessIds processIds;
+
+    @Inject
+    RedisNotifications redisNotifications;
+
     @Inject
     ObjectMapper objectMapper;
 
     @Inject
     MeterRegistry meterRegistry;
 
+    @Inject
+    PipelineStageMetrics stageMetrics;
+
+    @Inject
+    PdfJobCancellation jobCancellation;
+
+    @Inject
+    PdfEventProcessor pdfEventProcessor;
+
+    @Inject
+    JobStateStore jobStateStore;
+
+    @Inject
+    Tracer tracer;
+
+    @Inject
+    TracePropagation tracePropagation;
+
     @Inject
     @ConfigProperty(name = "pdf.eventbus.destination.completed", defaultValue = "pdf-generation-completed")
     String completedChannel;
@@ -102,21 +178,60 @@ public class SseBroadcaster {
     @ConfigProperty(name = "pdf.eventbus.destination.errors", defaultValue = "pdf-generation-errors")
     String errorsChannel;
 
+    @Inject
+    @ConfigProperty(name = "pdf.drain.reconnect-delay", defaultValue = "2s")
+    Duration reconnectDelay;
+
+    @Inject
+    @ConfigProperty(name = "pdf.drain.reconnect-spread", defaultValue = "10s")
+    Duration reconnectSpread;
+
+    @Inject
+    @ConfigProperty(name = "pdf.sse.reconnect.min-delay", defaultValue = "1s")
+    Duration reconnectMinDelay;
+
+    @Inject
+    @ConfigProperty(name = "pdf.sse.reconnect.max-delay", defaultValue = "30s")
+    Duration reconnectMaxDelay;
+
+    @Inject
+    @ConfigProperty(name = "pdf.sse.reconnect.jitter", defaultValue = "0.5")
+    double reconnectJitter;
+
+    @Inject
+    @ConfigProperty(name = "pdf.sse.reconnect.stream-capacity", defaultValue = "2000")
+    int streamCapacity;
+
+    @Inject
+    @ConfigProperty(name = "pdf.sse.reconnect.generation-capacity", defaultValue = "32")
+    int generationCapacity;
+
+    @Inject
+    @ConfigProperty(name = "pdf.sse.reconnect.shed-load", defaultValue = "1.5")
+    double shedLoad;
+
+    private ReconnectAdvisor reconnectAdvisor;
+
     /** Subscriber handle — used to unsubscribe cleanly on shutdown. */
-    private ReactivePubSubCommands.ReactiveRedisSubscriber redisChannelSubscriber;
+    private RedisNotifications.Subscription redisChannelSubscriber;
     
     // Metriche SSE e Scalabilità
     private Counter eventsDeliveredCounter;
     private Counter pendingBufferHitsCounter;
     private Counter pendingBufferWritesCounter;
+    private Counter connectionsCounter;
+    private Counter reconnectionsCounter;
+    private Counter shedCounter;
+    private Counter misroutedCounter;
+    private Counter localDeliveriesCounter;
 
     void onStart(@Observes StartupEvent ev) {
         Log.debug("SseBroadcaster initializing with Redis Pub/Sub...");
+        reconnectAdvisor = new ReconnectAdvisor(new ReconnectAdvisor.Settings(reconnectMinDelay, reconnectMaxDelay,
+                reconnectJitter, streamCapacity, generationCapacity, shedLoad), RandomGenerator.getDefault());
         initializeMetrics();
-        ReactivePubSubCommands<String> redisPubSub = reactiveRedisDS.pubsub(String.class);
-
-        redisPubSub.subscribe(
-                        java.util.List.of(completedChannel, errorsChannel),
+        redisNotifications.subscribe(
+                        List.of(completedChannel, errorsChannel),
                         (channel, json) -> {
                             if (channel.equals(completedChannel)) {
                                 onCompletedMessage(json);
@@ -134,7 +249,7 @@ public class SseBroadcaster {
         Log.debug("SseBroadcaster initialized and listening for events via Redis Pub/Sub.");
     }
 
-    private void initializeMetrics() {
+    void initializeMetrics() {
         Log.debug("Initializing Micrometer metrics for SseBroadcaster...");
         
         // Gauge basato sulla dimensione della mappa processors
@@ -151,6 +266,33 @@ public class SseBroadcaster {
         pendingBufferWritesCounter = Counter.builder("sse.pending.buffer.writes.total")
                 .description("Total number of events written to Redis pending buffer")
                 .register(meterRegistry);
+
+        connectionsCounter = Counter.builder("sse.connections.total")
+                .tag("type", "new")
+                .description("Total number of SSE connections opened by the clients")
+                .register(meterRegistry);
+
+        reconnectionsCounter = Counter.builder("sse.connections.total")
+                .tag("type", "reconnect")
+                .description("Total number of SSE connections opened by the clients")
+                .register(meterRegistry);
+
+        shedCounter = Counter.builder("sse.connections.shed.total")
+                .description("Total number of SSE connections closed on overload with the longest retry delay")
+                .register(meterRegistry);
+
+        misroutedCounter = Counter.builder("sse.connections.misrouted.total")
+                .description("Total number of SSE connections for a processId minted by another replica")
+                .register(meterRegistry);
+
+        localDeliveriesCounter = Counter.builder("sse.events.local.total")
+                .description("Total number of events delivered in-process by the replica that published them")
+                .register(meterRegistry);
+
+        Gauge.builder("sse.reconnect.advised.delay.seconds", this,
+                        broadcaster -> broadcaster.reconnectAdvisor.delayMillis(broadcaster.load()) / 1000.0)
+                .description("Reconnection delay advised to the SSE clients at the current load, before the jitter")
+                .register(meterRegistry);
         
         Log.debug("Micrometer metrics initialized for SseBroadcaster");
     }
@@ -163,6 +305,7 @@ public class SseBroadcaster {
             processor.onComplete();
         });
         processors.clear();
+        streamSubscribers.clear();
 
         if (redisChannelSubscriber != null) {
             redisChannelSubscriber.unsubscribe()
@@ -172,6 +315,97 @@ public class SseBroadcaster {
         }
     }
 
+    /**
+     * Closes every open SSE stream of a draining replica, without a result: each
+     * client gets a {@linkplain #reconnectEvent() reconnection hint}, then the end
+     * of the stream. The browsers reconnect after the hinted delay, through the
+     * load balancer, to another replica, which delivers the event from Redis
+     * Pub/Sub or the pending buffer.
+     *
+     * <p>The jobs of the closed streams are not reported as abandoned.
+     *
+     * @return the number of streams closed
+     */
+    public int closeStreams() {
+        int closed = 0;
+        for (String processId : processors.keySet()) {
+            BroadcastProcessor<OutboundSseEvent> processor = processors.remove(processId);
+            streamSubscribers.remove(processId);
+            if (processor == null) {
+                continue;
+            }
+            processor.onNext(reconnectEvent(processId));
+            processor.onComplete();
+            Log.debugf("SSE stream closed for processId: %s on drain", processId);
+            closed++;
+        }
+        return closed;
+    }
+
+    /**
+     * @return a stream made of a reconnection hint only, for the clients connecting to a draining replica
+     */
+    public Multi<OutboundSseEvent> reconnectStream(String processId) {
+        return Multi.createFrom().item(() -> reconnectEvent(processId));
+    }
+
+    /**
+     * A comment with a {@code retry:} hint between {@code pdf.drain.reconnect-delay}
+     * and that delay plus {@code pdf.drain.reconnect-spread}: the random spread keeps
+     * the clients of a replica from reconnecting all at once.
+     */
+    private OutboundSseEvent reconnectEvent(String processId) {
+        long delayMillis = reconnectDelay.toMillis()
+                + ThreadLocalRandom.current().nextLong(reconnectSpread.toMillis() + 1);
+        return retryEvent(processId, "draining", delayMillis);
+    }
+
+    /**
+     * Opens the SSE stream of a client for {@code processId}: the stream of
+     * {@link #createStream}, preceded by the reconnection delay advised at the
+     * current load. Over the shed load the client only gets the longest delay.
+     *
+     * @param processId   the unique identifier for the PDF generation process
+     * @param lastEventId the {@code Last-Event-ID} header, sent by the browsers when they reconnect
+     * @return a {@link Multi} of {@link OutboundSseEvent} events
+     */
+    public Multi<OutboundSseEvent> connect(String processId, String lastEventId) {
+        (lastEventId != null ? reconnectionsCounter : connectionsCounter).increment();
+        if (ProcessIds.node(processId) != null && !processIds.isLocal(processId)) {
+            // Routed away from the replica of the job: down, or the proxy does not know it
+            misroutedCounter.increment();
+        }
+        double load = load();
+        if (reconnectAdvisor.shed(load)) {
+            shedCounter.increment();
+            long delayMillis = reconnectAdvisor.shedDelayMillis();
+            Log.debugf("SSE connection shed for processId: %s (load %.2f), retry in %d ms", processId, load,
+                    delayMillis);
+            return Multi.createFrom().item(() -> retryEvent(processId, "overloaded", delayMillis));
+        }
+        OutboundSseEvent retry = retryEvent(processId, "connected", reconnectAdvisor.jitteredDelayMillis(load));
+        return Multi.createBy().concatenating().streams(Multi.createFrom().item(retry), createStream(processId));
+    }
+
+    /**
+     * @return the load of the replica, as seen by the {@link ReconnectAdvisor}
+     */
+    double load() {
+        return reconnectAdvisor.load(processors.size(), pdfEventProcessor.activeGenerations());
+    }
+
+    /**
+     * A comment with a {@code retry:} field, and the processId as event id: the
+     * browser sends it back in {@code Last-Event-ID} when it reconnects.
+     */
+    private OutboundSseEvent retryEvent(String processId, String comment, long delayMillis) {
+        return sse.newEventBuilder()
+                .id(processId)
+                .comment(comment)
+                .reconnectDelay(delayMillis)
+                .build();
+    }
+
     /**
      * Returns a reactive SSE stream for the given {@code processId}.
      *
@@ -182,26 +416,48 @@ public class SseBroadcaster {
      *
      * <p>Resource leak prevention: the processor entry is removed on stream
      * cancellation (client disconnect), after event delivery, and on shutdown.
+     * A disconnect also reports the job as abandoned to {@link PdfJobCancellation},
+     * which cancels it if no client comes back within the grace period.
      *
      * @param processId the unique identifier for the PDF generation process
      * @return a {@link Multi} of {@link OutboundSseEvent} events
      */
     public Multi<OutboundSseEvent> createStream(String processId) {
         Log.debugf("Creating SSE stream for processId: %s", processId);
-        BroadcastProcessor<OutboundSseEvent> processor =
-                processors.computeIfAbsent(processId, id -> BroadcastProcessor.create());
+        BroadcastProcessor<OutboundSseEvent> processor = registerProcessor(processId);
+        streamSubscribers.merge(processId, 1, Integer::sum);
 
         // Check Redis for an event that arrived before this SSE client connected.
         checkPendingEvents(processId);
+        jobCancellation.onStreamOpened(processId);
 
         return processor
                 .onCancellation().invoke(() -> {
+                    Integer remaining = streamSubscribers.computeIfPresent(processId,
+                            (id, subscribers) -> subscribers > 1 ? subscribers - 1 : null);
+                    if (remaining != null) {
+                        Log.debugf("SSE client disconnected for processId: %s — %d client(s) still connected",
+                                processId, remaining);
+                        return;
+                    }
                     processors.remove(processId);
                     Log.debugf("SSE stream cancelled (client disconnected) for processId: %s — processor cleaned up",
                             processId);
+                    jobCancellation.onStreamAbandoned(processId);
                 });
     }
 
+    /**
+     * Registers (or returns the already registered) local processor for
+     * {@code processId}, without touching Redis.
+     *
+     * @param processId the unique identifier for the PDF generation process
+     * @return the local {@link BroadcastProcessor} for the process
+     */
+    BroadcastProcessor<OutboundSseEvent> registerProcessor(String processId) {
+        return processors.computeIfAbsent(processId, id -> BroadcastProcessor.create());
+    }
+
     /**
      * Checks Redis for a pending completed or error event for {@code processId}.
      *
@@ -213,66 +469,208 @@ public class SseBroadcaster {
      * @param processId the unique identifier for the PDF generation process
      */
     private void checkPendingEvents(String processId) {
-        ReactiveValueCommands<String, String> values = reactiveRedisDS.value(String.class);
-
-        // GETDEL atomically returns the value and removes the key in one round-trip,
-        // preventing double-delivery if two concurrent createStream calls race.
-        values.getdel(PENDING_COMPLETED_PREFIX + processId)
+        // GETDEL atomically returns the value and removes the key, preventing
+        // double-delivery if two concurrent createStream calls race; both keys
+        // are consumed in one pipeline.
+        reactiveRedisDS.getRedis()
+                .batch(List.of(
+                        Request.cmd(Command.GETDEL).arg(redisKeys.job(PENDING_COMPLETED_PREFIX, processId)),
+                        Request.cmd(Command.GETDEL).arg(redisKeys.job(PENDING_ERROR_PREFIX, processId))))
                 .subscribe().with(
-                        json -> {
-                            if (json != null) {
+                        responses -> {
+                            Response completed = responses.get(0);
+                            Response error = responses.get(1);
+                            if (completed != null) {
                                 Log.debugf("Consuming pending completed event from Redis for processId: %s", processId);
                                 pendingBufferHitsCounter.increment();
-                                onCompletedMessage(json);
+                                dispatchCompleted(completed.toString(), DeliverySource.PENDING_BUFFER);
+                            } else if (error != null) {
+                                Log.debugf("Consuming pending error event from Redis for processId: %s", processId);
+                                pendingBufferHitsCounter.increment();
+                                dispatchError(error.toString(), DeliverySource.PENDING_BUFFER);
                             } else {
-                                // No completed event — check for a pending error event.
-                                values.getdel(PENDING_ERROR_PREFIX + processId)
-                                        .subscribe().with(
-                                                errJson -> {
-                                                    if (errJson != null) {
-                                                        Log.debugf(
-                                                                "Consuming pending error event from Redis for processId: %s",
-                                                                processId);
-                                                        pendingBufferHitsCounter.increment();
-                                                        onErrorMessage(errJson);
-                                                    }
-                                                },
-                                                err -> Log.error(
-                                                        "Failed to check pending:error event for processId: " + processId,
-                                                        err));
+                                checkFinalState(processId);
                             }
                         },
-                        err -> Log.error(
-                                "Failed to check pending:completed event for processId: " + processId, err));
+                        err -> Log.error("Failed to check the pending events for processId: " + processId, err));
     }
 
-    private void onCompletedMessage(String json) {
+    /**
+     * Emits the terminal event of {@code processId} from its job state, if the job
+     * already reached a final state: its pending event, if there was one, was
+     * consumed by an earlier stream.
+     *
+     * @param processId the unique identifier for the PDF generation process
+     */
+    private void checkFinalState(String processId) {
+        jobStateStore.get(processId)
+                .subscribe().with(
+                        status -> status.filter(s -> s.state().isFinal()).ifPresent(this::dispatchFinalState),
+                        err -> Log.error("Failed to read the job state for processId: " + processId, err));
+    }
+
+    private void dispatchFinalState(JobStatus status) {
+        Log.debugf("Job already %s, emitting its final state for processId: %s", status.state(),
+                status.processId());
+        try {
+            if (status.state() == JobStatus.State.COMPLETED) {
+                dispatchCompleted(objectMapper.writeValueAsString(new PdfGenerationCompleted(status.processId(),
+                        status.pdfUrl(), status.chainId(), 0L)), DeliverySource.JOB_STATE);
+            } else {
+                String errorMessage = status.state() == JobStatus.State.CANCELLED
+                        ? "PDF generation cancelled"
+                        : status.error();
+                dispatchError(objectMapper.writeValueAsString(new PdfGenerationError(status.processId(),
+                        errorMessage)), DeliverySource.JOB_STATE);
+            }
+        } catch (JsonProcessingException e) {
+            Log.errorf(e, "Failed to serialize the final state of processId: %s", status.processId());
+        }
+    }
+
+    /**
+     * Where an event delivered to the SSE streams comes from.
+     */
+    private enum DeliverySource {
+        PUBSUB("pubsub"),
+        PENDING_BUFFER("pending-buffer"),
+        JOB_STATE("job-state"),
+        LOCAL("local");
+
+        private final String label;
+
+        DeliverySource(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Delivers an event published by this replica straight to the local SSE
+     * stream of its job, skipping the Redis round trip. With node-affine
+     * processIds the reverse proxy sends the stream of a job to the replica that
+     * accepted it, which also renders it: most events take this path.
+     *
+     * <p>The event is then not published on Redis: a stream of the job opened
+     * later, on this replica or another one, reads its final state from the
+     * {@link JobStateStore}.
+     *
+     * @param channel   the Redis channel the event is meant for
+     * @param processId the processId of the event
+     * @param json      the JSON payload, as it would be published
+     * @return {@code true} if delivered, {@code false} if this replica holds no
+     *         stream of the job: the event is then to be published on Redis
+     */
+    public boolean deliverLocally(String channel, String processId, String json) {
+        if (!processIds.nodeAffinity() || processId == null || !processors.containsKey(processId)) {
+            return false;
+        }
+        if (channel.equals(completedChannel)) {
+            dispatchCompleted(json, DeliverySource.LOCAL);
+        } else if (channel.equals(errorsChannel)) {
+            dispatchError(json, DeliverySource.LOCAL);
+        } else {
+            return false;
+        }
+        localDeliveriesCounter.increment();
+        return true;
+    }
+
+    void onCompletedMessage(String json) {
+        dispatchCompleted(json, DeliverySource.PUBSUB);
+    }
+
+    /**
+     * Decodes and delivers a completion event received from Redis Pub/Sub, from
+     * the pending buffer or from this replica. Only Pub/Sub messages contribute to
+     * the publish-to-receive stage: a buffered event has waited for its SSE client,
+     * a local one has not left the JVM.
+     */
+    private void dispatchCompleted(String json, DeliverySource source) {
+        long receivedAtNanos = System.nanoTime();
         try {
-            PdfGenerationCompleted event = objectMapper.readValue(json, PdfGenerationCompleted.class);
-            handleCompletionEvent(event, json);
+            SseDeliveryEvent deliveryEvent = new SseDeliveryEvent("PDF_COMPLETED", source.label);
+            ObjectNode payload = (ObjectNode) objectMapper.readTree(json);
+            Span span = startDeliverySpan(payload, "PDF_COMPLETED", source);
+            String processId = null;
+            boolean delivered = false;
+            try (Scope ignored = span.makeCurrent()) {
+                PdfGenerationCompleted event = objectMapper.treeToValue(payload, PdfGenerationCompleted.class);
+                processId = event.processId();
+                span.setAttribute(TracePropagation.PROCESS_ID, processId);
+                if (source == DeliverySource.PUBSUB && event.publishedAtEpochMillis() > 0) {
+                    stageMetrics.record(Stage.PUBLISH_TO_RECEIVE, event.chainId(),
+                            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - event.publishedAtEpochMillis()));
+                }
+                delivered = handleCompletionEvent(event, json, receivedAtNanos);
+            } catch (Exception e) {
+                span.recordException(e);
+                span.setStatus(StatusCode.ERROR);
+                throw e;
+            } finally {
+                span.end();
+                deliveryEvent.complete(processId, delivered);
+            }
         } catch (Exception e) {
             Log.errorf(e, "Failed to deserialize PDF_COMPLETED event from Redis: %s", json);
         }
     }
 
-    private void onErrorMessage(String json) {
+    void onErrorMessage(String json) {
+        dispatchError(json, DeliverySource.PUBSUB);
+    }
+
+    private void dispatchError(String json, DeliverySource source) {
         try {
-            PdfGenerationError event = objectMapper.readValue(json, PdfGenerationError.class);
-            handleErrorEvent(event, json);
+            SseDeliveryEvent deliveryEvent = new SseDeliveryEvent("PDF_ERROR", source.label);
+            ObjectNode payload = (ObjectNode) objectMapper.readTree(json);
+            Span span = startDeliverySpan(payload, "PDF_ERROR", source);
+            String processId = null;
+            boolean delivered = false;
+            try (Scope ignored = span.makeCurrent()) {
+                PdfGenerationError event = objectMapper.treeToValue(payload, PdfGenerationError.class);
+                processId = event.processId();
+                span.setAttribute(TracePropagation.PROCESS_ID, processId);
+                delivered = handleErrorEvent(event, json);
+            } catch (Exception e) {
+                span.recordException(e);
+                span.setStatus(StatusCode.ERROR);
+                throw e;
+            } finally {
+                span.end();
+                deliveryEvent.complete(processId, delivered);
+            }
         } catch (Exception e) {
             Log.errorf(e, "Failed to deserialize PDF_ERROR event from Redis: %s", json);
         }
     }
 
+    /**
+     * Starts the span of an event delivery, resuming the trace context embedded in
+     * the payload by the replica that published it (the field is stripped so that
+     * the payload binds to the event record; the raw JSON, kept for the pending
+     * buffer, still carries it).
+     */
+    private Span startDeliverySpan(ObjectNode payload, String eventName, DeliverySource source) {
+        return tracer.spanBuilder("sse.deliver")
+                .setParent(tracePropagation.extractAndStrip(payload))
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute("messaging.system", "redis")
+                .setAttribute("sse.event.name", eventName)
+                .setAttribute("sse.event.source", source.label)
+                .startSpan();
+    }
+
     /**
      * Delivers a {@link PdfGenerationCompleted} event to the local SSE client,
      * or — if no client is currently connected — buffers the raw JSON in Redis
      * so that a late-arriving SSE connection can still receive it.
      *
-     * @param event   the deserialized completion event
-     * @param rawJson the original JSON string (used for the Redis pending buffer)
+     * @param event           the deserialized completion event
+     * @param rawJson         the original JSON string (used for the Redis pending buffer)
+     * @param receivedAtNanos {@link System#nanoTime()} when the event was received from Redis
+     * @return {@code true} if the event was emitted to a local SSE stream, {@code false} if buffered
      */
-    private void handleCompletionEvent(PdfGenerationCompleted event, String rawJson) {
+    private boolean handleCompletionEvent(PdfGenerationCompleted event, String rawJson, long receivedAtNanos) {
         String processId = event.processId();
         BroadcastProcessor<OutboundSseEvent> processor = processors.get(processId);
 
@@ -284,19 +682,22 @@ public class SseBroadcaster {
                     .mediaType(MediaType.APPLICATION_JSON_TYPE)
                     .build();
             processor.onNext(sseEvent);
+            stageMetrics.record(Stage.RECEIVE_TO_SSE_FLUSH, event.chainId(), System.nanoTime() - receivedAtNanos);
             processor.onComplete();
             processors.remove(processId);
+            streamSubscribers.remove(processId);
             
             // Incremento counter eventi consegnati
             eventsDeliveredCounter.increment();
             
             Log.debugf("Removed SSE processor for processId: %s", processId);
+            return true;
         } else {
             // No local SSE client yet — buffer in Redis for late-arriving connections.
             Log.debugf("No active SSE processor for processId: %s — buffering completed event in Redis (TTL=%ds)",
                     processId, PENDING_EVENT_TTL_SECONDS);
             reactiveRedisDS.value(String.class)
-                    .setex(PENDING_COMPLETED_PREFIX + processId, PENDING_EVENT_TTL_SECONDS, rawJson)
+                    .setex(redisKeys.job(PENDING_COMPLETED_PREFIX, processId), PENDING_EVENT_TTL_SECONDS, rawJson)
                     .subscribe().with(
                             v -> {
                                 Log.debugf("Pending completed event stored in Redis for processId: %s", processId);
@@ -305,6 +706,7 @@ public class SseBroadcaster {
                             },
                             err -> Log.errorf(err,
                                     "Failed to store pending completed event in Redis for processId: %s", processId));
+            return false;
         }
     }
 
@@ -314,8 +716,9 @@ public class SseBroadcaster {
      *
      * @param event   the deserialized error event
      * @param rawJson the original JSON string (used for the Redis pending buffer)
+     * @return {@code true} if the event was emitted to a local SSE stream, {@code false} if buffered
      */
-    private void handleErrorEvent(PdfGenerationError event, String rawJson) {
+    private boolean handleErrorEvent(PdfGenerationError event, String rawJson) {
         String processId = event.processId();
         BroadcastProcessor<OutboundSseEvent> processor = processors.get(processId);
 
@@ -329,17 +732,19 @@ public class SseBroadcaster {
             processor.onNext(sseEvent);
             processor.onComplete();
             processors.remove(processId);
+            streamSubscribers.remove(processId);
             
             // Incremento counter eventi consegnati
             eventsDeliveredCounter.increment();
             
             Log.debugf("Removed SSE processor for processId: %s after error event", processId);
+            return true;
         } else {
             // No local SSE client yet — buffer in Redis for late-arriving connections.
             Log.debugf("No active SSE processor for processId: %s — buffering error event in Redis (TTL=%ds)",
                     processId, PENDING_EVENT_TTL_SECONDS);
             reactiveRedisDS.value(String.class)
-                    .setex(PENDING_ERROR_PREFIX + processId, PENDING_EVENT_TTL_SECONDS, rawJson)
+                    .setex(redisKeys.job(PENDING_ERROR_PREFIX, processId), PENDING_EVENT_TTL_SECONDS, rawJson)
                     .subscribe().with(
                             v -> {
                                 Log.debugf("Pending error event stored in Redis for processId: %s", processId);
@@ -348,6 +753,7 @@ public class SseBroadcaster {
                             },
                             err -> Log.errorf(err,
                                     "Failed to store pending error event in Redis for processId: %s", processId));
+            return false;
         }
     }
 }
\ No newline at end of file
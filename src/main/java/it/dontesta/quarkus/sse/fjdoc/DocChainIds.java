@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads the ids of the document chains declared in {@code fm-doc-process-config.xml}.
+ */
+public final class DocChainIds {
+
+    /** Classpath location of the configuration loaded by {@link DocHelper}. */
+    public static final String CONFIG_RESOURCE = "fj-doc/fm-doc-process-config.xml";
+
+    private DocChainIds() {
+    }
+
+    /**
+     * Returns the ids of the chains that render a template, in declaration order.
+     * Chains without a {@code template-path} step (such as {@code shared}, which only
+     * holds the FreeMarker configuration inherited by the others) are left out.
+     *
+     * @return the renderable chain ids of {@link #CONFIG_RESOURCE}
+     * @throws IllegalStateException if the configuration cannot be read
+     */
+    public static List<String> renderable() {
+        try (InputStream in = DocChainIds.class.getClassLoader().getResourceAsStream(CONFIG_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Document process configuration not found: " + CONFIG_RESOURCE);
+            }
+            return renderable(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read document process configuration " + CONFIG_RESOURCE, e);
+        }
+    }
+
+    static List<String> renderable(InputStream config) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            NodeList chains = factory.newDocumentBuilder().parse(config).getElementsByTagName("docChain");
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < chains.getLength(); i++) {
+                Element chain = (Element) chains.item(i);
+                NodeList steps = chain.getElementsByTagName("chainStep");
+                for (int j = 0; j < steps.getLength(); j++) {
+                    if (((Element) steps.item(j)).hasAttribute("template-path")) {
+                        ids.add(chain.getAttribute("id"));
+                        break;
+                    }
+                }
+            }
+            return List.copyOf(ids);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid document process configuration", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import java.util.List;
+import java.util.Map;
+
+import org.fugerit.java.doc.base.process.DocProcessContext;
+
+/**
+ * Data model of the document templates, shared by the generation and the preview
+ * so that both render the same content.
+ */
+public final class DocContexts {
+
+    private DocContexts() {
+    }
+
+    /**
+     * Return the list with the sample data to be used in the fremarker template 'simple-document.ftl'.
+     *
+     * <p>Only for demonstration purposes, in a real scenario you would populate it with actual data;
+     * only complex-document uses it, simple-document does not use any data from the context.
+     *
+     * @return List of maps containing sample people data
+     */
+    public static List<Map<String, String>> samplePeople() {
+        return List.of(
+            Map.of("name", "Alice", "surname", "Rossi", "title", "Developer"),
+            Map.of("name", "Bob", "surname", "Bianchi", "title", "Designer"),
+            Map.of("name", "Charlie","surname", "Verdi", "title", "Manager")
+        );
+    }
+
+    /**
+     * @return the context of the templates for the document of {@code processId}
+     */
+    public static DocProcessContext newContext(String processId, List<Map<String, String>> people) {
+        return newContext(processId, DocRows.of(people));
+    }
+
+    /**
+     * @return the context of the templates for the document of {@code processId}, listing {@code rows}
+     */
+    public static DocProcessContext newContext(String processId, DocRows rows) {
+        return listing(processId, rows.slice(0, rows.size()));
+    }
+
+    /**
+     * @return the context of the templates for {@code section} of the document of {@code processId},
+     *         listing the rows of the section only
+     */
+    public static DocProcessContext newSectionContext(String processId, DocRows rows, DocSections.Section section) {
+        DocProcessContext context = listing(processId, rows.slice(section.fromRow(), section.toRow()));
+        context.setAttribute("sectioned", true);
+        context.setAttribute("sectionPart", section.part());
+        context.setAttribute("sectionFirst", section.first());
+        context.setAttribute("sectionPartStart", section.partStart());
+        context.setAttribute("sectionLast", section.last());
+        return context;
+    }
+
+    private static DocProcessContext listing(String processId, Object listPeople) {
+        DocProcessContext context = DocProcessContext.newContext("processId", processId);
+        context.setAttribute("listPeople", listPeople);
+        return context;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import java.util.Locale;
+
+/**
+ * Output formats of a generation, each rendered by a type handler registered in
+ * {@code fj-doc/fm-doc-process-config.xml}. Only {@link #PDF} goes through FOP;
+ * the others are rendered by FreeMarker alone, in milliseconds.
+ */
+public enum DocFormat {
+    PDF("pdf", "pdf-fop", "pdf", "application/pdf"),
+    HTML("html", "html-fm", "html", "text/html"),
+    MARKDOWN("md", "md-ext", "md", "text/markdown");
+
+    private final String param;
+    private final String handlerId;
+    private final String extension;
+    private final String mediaType;
+
+    DocFormat(String param, String handlerId, String extension, String mediaType) {
+        this.param = param;
+        this.handlerId = handlerId;
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return the value of the {@code format} request parameter
+     */
+    public String param() {
+        return param;
+    }
+
+    /**
+     * @return the id of the fj-doc type handler
+     */
+    public String handlerId() {
+        return handlerId;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return the file name of the document of {@code processId} in this format
+     */
+    public String fileName(String processId) {
+        return processId + "." + extension;
+    }
+
+    /**
+     * Parses a {@code format} request parameter.
+     *
+     * @param param {@code pdf}, {@code html} or {@code md}, case insensitive; {@code null} for {@link #PDF}
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static DocFormat fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return PDF;
+        }
+        String value = param.trim().toLowerCase(Locale.ROOT);
+        for (DocFormat format : values()) {
+            if (format.param.equals(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + param);
+    }
+}
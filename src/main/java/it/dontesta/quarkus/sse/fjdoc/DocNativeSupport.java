@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Classes of the document pipeline instantiated by name, registered for
+ * reflection in the native executable: the type handlers and the helper class
+ * of {@code fm-doc-process-config.xml}, the element mappings FOP loads from
+ * {@code META-INF/services} and the PDF output of FOP.
+ *
+ * <p>The dynamic proxies of the FOP events are declared in
+ * {@code META-INF/native-image/.../proxy-config.json}, the resources in
+ * {@code quarkus.native.resources.includes}.
+ */
+@RegisterForReflection(classNames = {
+        // fm-doc-process-config.xml
+        "it.dontesta.quarkus.sse.fjdoc.DocHelper",
+        "org.fugerit.java.doc.base.typehandler.markdown.SimpleMarkdownExtTypeHandler",
+        "org.fugerit.java.doc.base.config.DocTypeHandlerXMLUTF8",
+        "org.fugerit.java.doc.freemarker.html.FreeMarkerHtmlTypeHandlerEscapeUTF8",
+        "org.fugerit.java.doc.freemarker.html.FreeMarkerHtmlFragmentTypeHandlerEscapeUTF8",
+        "org.fugerit.java.doc.freemarker.asciidoc.FreeMarkerAsciidocTypeHandlerUTF8",
+        "org.fugerit.java.doc.mod.fop.FreeMarkerFopTypeHandlerUTF8",
+        "org.fugerit.java.doc.mod.fop.PdfFopTypeHandler",
+        // META-INF/services/org.apache.fop.fo.ElementMapping
+        "org.apache.fop.fo.FOElementMapping",
+        "org.apache.fop.fo.extensions.svg.SVGElementMapping",
+        "org.apache.fop.fo.extensions.svg.BatikExtensionElementMapping",
+        "org.apache.fop.fo.extensions.ExtensionElementMapping",
+        "org.apache.fop.fo.extensions.InternalElementMapping",
+        "org.apache.fop.fo.extensions.OldExtensionElementMapping",
+        "org.apache.fop.fo.extensions.xmp.XMPElementMapping",
+        "org.apache.fop.fo.extensions.xmp.RDFElementMapping",
+        "org.apache.fop.render.pdf.extensions.PDFElementMapping",
+        "org.apache.fop.render.intermediate.extensions.IFElementMapping",
+        // META-INF/services/org.apache.fop.render.intermediate.IFDocumentHandler
+        "org.apache.fop.render.pdf.PDFDocumentHandlerMaker",
+        "org.apache.fop.render.intermediate.IFSerializerMaker",
+})
+public final class DocNativeSupport {
+
+    private DocNativeSupport() {
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows listed by a document ({@code listPeople} in the templates), either
+ * in memory or read lazily from the data of the request.
+ */
+public interface DocRows {
+
+    /**
+     * @return the number of rows
+     */
+    int size();
+
+    /**
+     * @return the value of {@code listPeople} for the rows {@code [from, to)}: a
+     *         {@link List}, or a FreeMarker collection that can be listed more than once
+     */
+    Object slice(int from, int to);
+
+    /**
+     * @return the rows of {@code rows}, in memory
+     */
+    static DocRows of(List<? extends Map<String, ?>> rows) {
+        return new DocRows() {
+            @Override
+            public int size() {
+                return rows.size();
+            }
+
+            @Override
+            public Object slice(int from, int to) {
+                return rows.subList(from, to);
+            }
+        };
+    }
+}
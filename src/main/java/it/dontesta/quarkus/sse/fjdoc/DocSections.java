@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitions a document into sections that can be rendered independently and
+ * concatenated, in order, into the same document.
+ *
+ * <p>A document lists its rows in one or more parts ({@code complex-document}
+ * lists {@code listPeople} in two tables): each part is cut into slices of at
+ * most {@code rowsPerSection} rows. The first section also carries the title and
+ * the bookmarks of the document, the first section of a part its heading.
+ */
+public final class DocSections {
+
+    /**
+     * A section of a document.
+     *
+     * @param index     position of the section in the document, from 0
+     * @param part      part of the document the rows belong to, from 1
+     * @param fromRow   first row of the section, inclusive
+     * @param toRow     last row of the section, exclusive
+     * @param first     whether the section opens the document
+     * @param partStart whether the section opens its part
+     * @param last      whether the section closes the document
+     */
+    public record Section(int index, int part, int fromRow, int toRow, boolean first, boolean partStart,
+            boolean last) {
+    }
+
+    private DocSections() {
+    }
+
+    /**
+     * @return the sections of a document of {@code parts} parts listing {@code rows} rows each, in order
+     * @throws IllegalArgumentException if {@code parts} or {@code rowsPerSection} is not positive
+     */
+    public static List<Section> plan(int parts, int rows, int rowsPerSection) {
+        if (parts < 1 || rowsPerSection < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid sections: " + parts + " parts, " + rowsPerSection + " rows per section");
+        }
+        // An empty part is still one section, with its heading and no rows
+        int slices = Math.max(1, (rows + rowsPerSection - 1) / rowsPerSection);
+        int count = parts * slices;
+        List<Section> sections = new ArrayList<>(count);
+        for (int part = 1; part <= parts; part++) {
+            for (int slice = 0; slice < slices; slice++) {
+                int index = sections.size();
+                int fromRow = Math.min(rows, slice * rowsPerSection);
+                int toRow = Math.min(rows, fromRow + rowsPerSection);
+                sections.add(new Section(index, part, fromRow, toRow, index == 0, slice == 0, index == count - 1));
+            }
+        }
+        return sections;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.idempotency;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.redis.datasource.value.SetArgs;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Maps {@code Idempotency-Key} request headers to processIds, shared by all the
+ * replicas through Redis: the first request with a key claims it with an atomic
+ * {@code SET idempotency:{format}:{key} processId NX GET EX ttl}, the following
+ * ones get the processId stored by the first and start no new generation. The
+ * key is claimed per format: the same key with another format is a new document.
+ *
+ * <p>If Redis cannot be reached the request is let through as a new generation
+ * (fail open): a duplicate render is preferable to rejecting the request.
+ */
+@ApplicationScoped
+public class IdempotencyKeyStore {
+
+    /** Name of the request header carrying the key. */
+    public static final String HEADER = "Idempotency-Key";
+
+    /** Redis key prefix of the claimed idempotency keys. */
+    static final String KEY_PREFIX = "idempotency:";
+
+    /** Visible ASCII characters only, at most 255: bounds the size of the Redis keys. */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[\\x21-\\x7E]{1,255}");
+
+    /**
+     * Outcome of a claim.
+     *
+     * @param processId the processId of the request: the candidate, or the one of the first request
+     * @param replayed  {@code true} if an earlier request already claimed the key
+     */
+    public record Claim(String processId, boolean replayed) {
+    }
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.idempotency.ttl", defaultValue = "1h")
+    Duration ttl;
+
+    private Counter newCounter;
+    private Counter collapsedCounter;
+    private Counter unavailableCounter;
+
+    void onStart(@Observes StartupEvent ev) {
+        newCounter = requestsCounter("new", "Requests with an Idempotency-Key that started a new generation");
+        collapsedCounter = requestsCounter("collapsed",
+                "Duplicate requests collapsed onto the generation of an earlier request with the same Idempotency-Key");
+        unavailableCounter = requestsCounter("unavailable",
+                "Requests with an Idempotency-Key let through because Redis could not be reached");
+    }
+
+    private Counter requestsCounter(String outcome, String description) {
+        return Counter.builder("pdf.generation.idempotency.requests.total")
+                .tag("outcome", outcome)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code true} if {@code key} can be used as an idempotency key
+     */
+    public static boolean isValid(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    /**
+     * Claims {@code key} for {@code candidateProcessId}, unless an earlier request
+     * for the same format did.
+     *
+     * @param key                a valid idempotency key
+     * @param format             the format of the requested document
+     * @param candidateProcessId the processId to use if the key is new
+     * @return the processId to return to the client
+     */
+    public Uni<Claim> claim(String key, DocFormat format, String candidateProcessId) {
+        return reactiveRedisDS.value(String.class)
+                .setGet(KEY_PREFIX + format.param() + ":" + key, candidateProcessId, new SetArgs().nx().ex(ttl))
+                .map(existing -> {
+                    if (existing == null) {
+                        newCounter.increment();
+                        return new Claim(candidateProcessId, false);
+                    }
+                    Log.debugf("Idempotency-Key %s already claimed by processId %s", key, existing);
+                    collapsedCounter.increment();
+                    return new Claim(existing, true);
+                })
+                .onFailure().recoverWithItem(err -> {
+                    Log.warnf(err, "Cannot check Idempotency-Key %s, starting a new generation", key);
+                    unavailableCounter.increment();
+                    return new Claim(candidateProcessId, false);
+                });
+    }
+}
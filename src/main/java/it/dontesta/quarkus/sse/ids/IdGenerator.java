@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ids;
+
+import java.util.UUID;
+
+/**
+ * Source of the UUIDs of the processIds, chosen by {@code pdf.ids.generator}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /** Name of the {@link TimeOrderedIdGenerator time-ordered} generator, the default. */
+    String TIME_ORDERED = "time-ordered";
+
+    /** Name of the random generator: {@link UUID#randomUUID()}, version 4. */
+    String RANDOM = "random";
+
+    /**
+     * @return a new UUID
+     */
+    UUID next();
+
+    /**
+     * @param name {@value #TIME_ORDERED} or {@value #RANDOM}
+     * @return the generator named {@code name}
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static IdGenerator of(String name) {
+        return switch (name) {
+            case TIME_ORDERED -> new TimeOrderedIdGenerator();
+            case RANDOM -> UUID::randomUUID;
+            default -> throw new IllegalArgumentException(
+                    "Unknown id generator: " + name + " (" + TIME_ORDERED + " or " + RANDOM + " expected)");
+        };
+    }
+}
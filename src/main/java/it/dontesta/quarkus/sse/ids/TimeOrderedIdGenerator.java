@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ids;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered UUIDs, version 7 (RFC 9562): the Unix time in milliseconds in
+ * the 48 most significant bits, then a 12-bit counter and 62 random bits.
+ *
+ * <p>The ids sort by creation time, as strings too, so that they make compact
+ * keys for the Redis sorted sets and date-prefixed MinIO listings, and the
+ * creation time of a job can be read back from its id ({@link #timestamp}).
+ *
+ * <p>Each thread has its own state: the last millisecond and the counter, which
+ * makes the ids of a thread strictly increasing, and its own {@code DRBG}
+ * {@link SecureRandom}, so that no lock is shared with the other threads (the
+ * random bits keep the processIds unguessable). The counter starts at a random
+ * value below 2048 in every millisecond; past 4095 ids in the same millisecond
+ * the thread moves on to the next one, ahead of the clock. A clock going back
+ * does not move the ids of a thread back.
+ *
+ * <p>Thread-safe.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int VERSION = 7;
+
+    /** Largest value of the 12-bit counter. */
+    private static final int MAX_COUNTER = 0xFFF;
+
+    /** Largest initial value of the counter of a millisecond: leaves at least 2048 ids. */
+    private static final int MAX_INITIAL_COUNTER = 0x7FF;
+
+    /** Random bits of the least significant half, below the variant bits. */
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    /** IETF variant, {@code 10} in the two most significant bits. */
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+
+    /**
+     * The state of a thread.
+     */
+    private static final class State {
+
+        final SecureRandom random = newRandom();
+        long millis = -1;
+        int counter;
+    }
+
+    private final ThreadLocal<State> states = ThreadLocal.withInitial(State::new);
+    private final LongSupplier clock;
+
+    public TimeOrderedIdGenerator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds
+     */
+    TimeOrderedIdGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID next() {
+        State state = states.get();
+        long now = clock.getAsLong();
+        if (now > state.millis) {
+            state.millis = now;
+            state.counter = state.random.nextInt(MAX_INITIAL_COUNTER + 1);
+        } else if (state.counter < MAX_COUNTER) {
+            state.counter++;
+        } else {
+            state.millis++;
+            state.counter = state.random.nextInt(MAX_INITIAL_COUNTER + 1);
+        }
+        long mostSigBits = state.millis << 16 | (long) VERSION << 12 | state.counter;
+        long leastSigBits = state.random.nextLong() & RANDOM_MASK | VARIANT;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * @return the creation time of {@code uuid} if it is a version 7 UUID, empty otherwise
+     */
+    public static Optional<Instant> timestamp(UUID uuid) {
+        if (uuid.version() != VERSION) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16));
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
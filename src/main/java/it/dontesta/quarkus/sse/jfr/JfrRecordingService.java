@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Manages a single on-demand JDK Flight Recorder recording of this replica.
+ *
+ * <p>Recordings are bounded: they stop by themselves after
+ * {@code pdf.profiling.jfr.max-duration} and keep at most
+ * {@code pdf.profiling.jfr.max-size-bytes} of data on disk, so a forgotten
+ * recording cannot fill the disk. The file of the last recording is kept until
+ * the next one starts or the application stops.
+ */
+@ApplicationScoped
+public class JfrRecordingService {
+
+    /**
+     * Snapshot of the current recording.
+     *
+     * @param id          JFR recording id
+     * @param state       JFR recording state ({@code RUNNING}, {@code STOPPED}, ...)
+     * @param settings    name of the JFR configuration ({@code default} or {@code profile})
+     * @param startTime   when the recording started
+     * @param duration    duration after which the recording stops by itself
+     * @param maxSizeBytes maximum size of the recording data
+     */
+    public record RecordingStatus(long id, String state, String settings, Instant startTime, Duration duration,
+            long maxSizeBytes) {
+    }
+
+    @ConfigProperty(name = "pdf.profiling.jfr.max-duration", defaultValue = "5m")
+    Duration maxDuration;
+
+    @ConfigProperty(name = "pdf.profiling.jfr.max-size-bytes", defaultValue = "104857600")
+    long maxSizeBytes;
+
+    @ConfigProperty(name = "pdf.profiling.jfr.settings", defaultValue = "profile")
+    String defaultSettings;
+
+    private Recording recording;
+    private String recordingSettings;
+    private Path recordingFile;
+
+    /**
+     * Starts a new recording.
+     *
+     * @param duration requested duration, capped to {@code pdf.profiling.jfr.max-duration}; {@code null} for the maximum
+     * @param settings name of the JFR configuration; {@code null} for {@code pdf.profiling.jfr.settings}
+     * @return the status of the started recording
+     * @throws IllegalStateException if a recording is already running
+     * @throws ParseException        if {@code settings} is not a known JFR configuration
+     */
+    public synchronized RecordingStatus start(Duration duration, String settings) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A JFR recording is already running (id " + recording.getId() + ")");
+        }
+        discardRecording();
+
+        String settingsName = settings == null || settings.isBlank() ? defaultSettings : settings;
+        Duration boundedDuration = duration == null || duration.isNegative() || duration.isZero()
+                || duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+
+        Configuration configuration = Configuration.getConfiguration(settingsName);
+        Recording newRecording = new Recording(configuration);
+        Path file = null;
+        try {
+            file = Files.createTempFile("pdf-profiling-", ".jfr");
+            newRecording.setName("pdf-profiling");
+            newRecording.setToDisk(true);
+            newRecording.setDuration(boundedDuration);
+            newRecording.setMaxSize(maxSizeBytes);
+            // Written when the recording stops, either by stop() or when the duration elapses
+            newRecording.setDestination(file);
+            newRecording.start();
+        } catch (IOException | RuntimeException e) {
+            // Not started: release its JFR resources and its file
+            newRecording.close();
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+
+        recording = newRecording;
+        recordingSettings = settingsName;
+        recordingFile = file;
+        Log.infof("Started JFR recording %d (settings %s, duration %s, max %d bytes)", newRecording.getId(),
+                settingsName, boundedDuration, maxSizeBytes);
+        return snapshot();
+    }
+
+    /**
+     * @return the status of the current (or last) recording, if any
+     */
+    public synchronized Optional<RecordingStatus> status() {
+        return recording == null ? Optional.empty() : Optional.of(snapshot());
+    }
+
+    /**
+     * Stops the current recording, if still running, and returns its file.
+     *
+     * @return the JFR file of the recording
+     * @throws IllegalStateException if no recording was started
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No JFR recording was started");
+        }
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            recording.stop();
+            Log.infof("Stopped JFR recording %d", recording.getId());
+        }
+        if (!Files.exists(recordingFile) || Files.size(recordingFile) == 0) {
+            // Stopped by the duration but not dumped yet: write it explicitly
+            recording.dump(recordingFile);
+        }
+        return recordingFile;
+    }
+
+    void onShutdown(@Observes ShutdownEvent ev) {
+        synchronized (this) {
+            discardRecording();
+        }
+    }
+
+    private RecordingStatus snapshot() {
+        return new RecordingStatus(recording.getId(), recording.getState().name(), recordingSettings,
+                recording.getStartTime(), recording.getDuration(), recording.getMaxSize());
+    }
+
+    private void discardRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        if (recordingFile != null) {
+            try {
+                Files.deleteIfExists(recordingFile);
+            } catch (IOException e) {
+                Log.warnf(e, "Could not delete JFR recording file %s", recordingFile);
+            }
+            recordingFile = null;
+        }
+    }
+}
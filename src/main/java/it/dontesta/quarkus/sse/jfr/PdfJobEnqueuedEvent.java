@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A PDF generation job handed to the worker pool by {@code PdfEventProcessor}.
+ */
+@Name("it.dontesta.quarkus.sse.PdfJobEnqueued")
+@Label("PDF Job Enqueued")
+@Category({"Quarkus SSE PoC", "PDF Generation"})
+@Description("A PDF generation request taken from the event bus and submitted to the worker pool")
+@StackTrace(false)
+public final class PdfJobEnqueuedEvent extends Event {
+
+    @Label("Process Id")
+    private String processId;
+
+    @Label("Chain Id")
+    private String chainId;
+
+    @Label("Scheduled Delay")
+    @Description("Simulated delay before the job becomes eligible to run")
+    @Timespan(Timespan.SECONDS)
+    private long scheduledDelaySeconds;
+
+    private PdfJobEnqueuedEvent(String processId, String chainId, long scheduledDelaySeconds) {
+        this.processId = processId;
+        this.chainId = chainId;
+        this.scheduledDelaySeconds = scheduledDelaySeconds;
+    }
+
+    /**
+     * Commits an instant event, if the event type is enabled.
+     */
+    public static void emit(String processId, String chainId, long scheduledDelaySeconds) {
+        PdfJobEnqueuedEvent event = new PdfJobEnqueuedEvent(processId, chainId, scheduledDelaySeconds);
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+}
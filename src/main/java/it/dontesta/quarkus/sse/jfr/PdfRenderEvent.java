@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering of a document (FreeMarker template and FOP), from the start of the
+ * chain to the PDF bytes available.
+ */
+@Name("it.dontesta.quarkus.sse.PdfRender")
+@Label("PDF Render")
+@Category({"Quarkus SSE PoC", "PDF Generation"})
+@Description("Rendering of a PDF document through the fj-doc chain and the FOP handler")
+@StackTrace(false)
+public final class PdfRenderEvent extends Event {
+
+    @Label("Process Id")
+    private String processId;
+
+    @Label("Chain Id")
+    private String chainId;
+
+    @Label("Data Size")
+    @Description("Number of rows of data passed to the template")
+    private int dataSize;
+
+    @Label("Output Size")
+    @DataAmount
+    private long outputBytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    /**
+     * Creates the event and starts its timing.
+     */
+    public PdfRenderEvent(String processId, String chainId, int dataSize) {
+        this.processId = processId;
+        this.chainId = chainId;
+        this.dataSize = dataSize;
+        begin();
+    }
+
+    /**
+     * Ends the timing and commits the event, if the event type is enabled and above its threshold.
+     *
+     * @param outputBytes size of the rendered PDF, {@code 0} if rendering failed
+     * @param succeeded   whether the document was rendered
+     */
+    public void complete(long outputBytes, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.outputBytes = outputBytes;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Upload of a generated PDF to MinIO.
+ */
+@Name("it.dontesta.quarkus.sse.PdfUpload")
+@Label("PDF Upload")
+@Category({"Quarkus SSE PoC", "PDF Generation"})
+@Description("Upload of a generated PDF document to the MinIO bucket")
+@StackTrace(false)
+public final class PdfUploadEvent extends Event {
+
+    @Label("Process Id")
+    private String processId;
+
+    @Label("Object Key")
+    private String objectKey;
+
+    @Label("Size")
+    @DataAmount
+    private long bytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    /**
+     * Creates the event and starts its timing.
+     */
+    public PdfUploadEvent(String processId, String objectKey, long bytes) {
+        this.processId = processId;
+        this.objectKey = objectKey;
+        this.bytes = bytes;
+        begin();
+    }
+
+    /**
+     * Ends the timing and commits the event, if the event type is enabled and above its threshold.
+     */
+    public void complete(boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
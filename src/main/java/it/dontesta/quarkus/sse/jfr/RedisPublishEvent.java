@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Publish of a completion or error event to Redis Pub/Sub, until Redis acknowledges it.
+ *
+ * <p>The event is committed by the thread that receives the acknowledgement (a
+ * Vert.x event loop), not by the one that started the publish.
+ */
+@Name("it.dontesta.quarkus.sse.RedisPublish")
+@Label("Redis Publish")
+@Category({"Quarkus SSE PoC", "Redis"})
+@Description("Publish of a PDF generation event to a Redis Pub/Sub channel, until acknowledged")
+@StackTrace(false)
+public final class RedisPublishEvent extends Event {
+
+    @Label("Channel")
+    private String channel;
+
+    @Label("Process Id")
+    private String processId;
+
+    @Label("Payload Size")
+    @DataAmount
+    private long payloadBytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    /**
+     * Creates the event and starts its timing.
+     */
+    public RedisPublishEvent(String channel, String processId, long payloadBytes) {
+        this.channel = channel;
+        this.processId = processId;
+        this.payloadBytes = payloadBytes;
+        begin();
+    }
+
+    /**
+     * Ends the timing and commits the event, if the event type is enabled and above its threshold.
+     */
+    public void complete(boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Handling of a completion or error event by {@code SseBroadcaster}: decoding,
+ * then emission to the local SSE stream or write to the Redis pending buffer.
+ */
+@Name("it.dontesta.quarkus.sse.SseDelivery")
+@Label("SSE Delivery")
+@Category({"Quarkus SSE PoC", "SSE"})
+@Description("Delivery of a PDF generation event to the local SSE client, or its buffering in Redis")
+@StackTrace(false)
+public final class SseDeliveryEvent extends Event {
+
+    @Label("Event Name")
+    private String eventName;
+
+    @Label("Source")
+    @Description("Where the event came from: pubsub or pending-buffer")
+    private String source;
+
+    @Label("Process Id")
+    private String processId;
+
+    @Label("Delivered")
+    @Description("True if emitted to a local SSE stream, false if written to the pending buffer")
+    private boolean delivered;
+
+    /**
+     * Creates the event and starts its timing.
+     */
+    public SseDeliveryEvent(String eventName, String source) {
+        this.eventName = eventName;
+        this.source = source;
+        begin();
+    }
+
+    /**
+     * Ends the timing and commits the event, if the event type is enabled and above its threshold.
+     *
+     * @param processId the process of the event, {@code null} if it could not be decoded
+     * @param delivered whether the event was emitted to a local SSE stream
+     */
+    public void complete(String processId, boolean delivered) {
+        end();
+        if (shouldCommit()) {
+            this.processId = processId;
+            this.delivered = delivered;
+            commit();
+        }
+    }
+}
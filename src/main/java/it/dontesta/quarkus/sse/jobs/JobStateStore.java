@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+import io.vertx.redis.client.Command;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import it.dontesta.quarkus.sse.jobs.JobStatus.State;
+import it.dontesta.quarkus.sse.redis.RedisKeys;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Compact per-job state kept in the Redis hash {@code job:{processId}}, so that
+ * the state of a generation can be read without opening an SSE stream.
+ *
+ * <p>Each state is recorded as its own timestamp field ({@code acceptedAt},
+ * {@code scheduledAt}, {@code renderingAt}, {@code completedAt}, {@code failedAt},
+ * {@code cancelledAt}) and the state is the furthest one present. Writes coming
+ * from different replicas and threads therefore commute: a late write of an
+ * earlier state can never move a job backwards. A deferred job also stores its
+ * {@code notBefore}, a job started with data the number of its {@code rows}.
+ *
+ * <p>Every write refreshes the TTL of the hash ({@code pdf.jobs.state-ttl}) in
+ * the same pipeline; batch reads send one {@code HMGET} per job in a single
+ * pipeline. In Redis Cluster mode the processId is the hash tag of the key, and
+ * the batch reads, spanning several slots, are sent as separate commands.
+ */
+@ApplicationScoped
+public class JobStateStore {
+
+    /** Redis key prefix of the job hashes. */
+    static final String KEY_PREFIX = "job:";
+
+    static final String ACCEPTED_AT = "acceptedAt";
+    static final String NOT_BEFORE = "notBefore";
+    static final String SCHEDULED_AT = "scheduledAt";
+    static final String RENDERING_AT = "renderingAt";
+    static final String COMPLETED_AT = "completedAt";
+    static final String FAILED_AT = "failedAt";
+    static final String CANCELLED_AT = "cancelledAt";
+    static final String CHAIN_ID = "chainId";
+    static final String REPLICA = "replica";
+    static final String PDF_URL = "pdfUrl";
+    static final String ERROR = "error";
+    static final String ROWS = "rows";
+
+    /** Fields read for a status, in {@code HMGET} order. */
+    private static final String[] FIELDS = {ACCEPTED_AT, SCHEDULED_AT, RENDERING_AT, COMPLETED_AT, FAILED_AT,
+            CANCELLED_AT, CHAIN_ID, REPLICA, PDF_URL, ERROR, NOT_BEFORE, ROWS};
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    ReplicaIdentity replicaIdentity;
+
+    @Inject
+    RedisKeys redisKeys;
+
+    @Inject
+    @ConfigProperty(name = "pdf.jobs.state-ttl", defaultValue = "24h")
+    Duration stateTtl;
+
+    /**
+     * Records that {@code /generate} accepted the job.
+     *
+     * @return a {@link Uni} completed once the state is stored
+     */
+    public Uni<Void> accepted(String processId) {
+        return write(processId, ACCEPTED_AT, now());
+    }
+
+    /**
+     * Records that {@code /generate} accepted a job listing the {@code rows} sent with the request.
+     *
+     * @return a {@link Uni} completed once the state is stored
+     */
+    public Uni<Void> acceptedWithData(String processId, int rows) {
+        return write(processId, ACCEPTED_AT, now(), ROWS, Integer.toString(rows));
+    }
+
+    /**
+     * Records that {@code /generate} accepted a job deferred to {@code notBefore}.
+     * The hash outlives the deferral: its TTL is {@code pdf.jobs.state-ttl} past
+     * {@code notBefore}.
+     *
+     * @return a {@link Uni} completed once the state is stored
+     */
+    public Uni<Void> accepted(String processId, Instant notBefore) {
+        Duration deferral = Duration.between(Instant.now(), notBefore);
+        Duration ttl = deferral.isNegative() ? stateTtl : stateTtl.plus(deferral);
+        return write(processId, ttl, ACCEPTED_AT, now(), NOT_BEFORE, Long.toString(notBefore.toEpochMilli()));
+    }
+
+    public void markScheduled(String processId, String chainId) {
+        fireAndForget(processId, write(processId, SCHEDULED_AT, now(), CHAIN_ID, chainId, REPLICA, replicaIdentity.id()));
+    }
+
+    public void markRendering(String processId) {
+        fireAndForget(processId, write(processId, RENDERING_AT, now()));
+    }
+
+    public void markCompleted(String processId, String pdfUrl) {
+        fireAndForget(processId, write(processId, COMPLETED_AT, now(), PDF_URL, pdfUrl));
+    }
+
+    public void markFailed(String processId, String error) {
+        fireAndForget(processId, write(processId, FAILED_AT, now(), ERROR, error == null ? "" : error));
+    }
+
+    public void markCancelled(String processId) {
+        fireAndForget(processId, write(processId, CANCELLED_AT, now()));
+    }
+
+    /**
+     * @return the status of {@code processId}, empty if there is no job hash
+     */
+    public Uni<Optional<JobStatus>> get(String processId) {
+        return getAll(List.of(processId))
+                .map(statuses -> Optional.of(statuses.getFirst()).filter(status -> status.state() != State.NOT_FOUND));
+    }
+
+    /**
+     * Reads the status of all the {@code processIds} in one pipeline.
+     *
+     * @return the statuses, in the order of {@code processIds}; {@link State#NOT_FOUND} for unknown ones
+     */
+    public Uni<List<JobStatus>> getAll(List<String> processIds) {
+        if (processIds.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        List<Request> requests = new ArrayList<>(processIds.size());
+        for (String processId : processIds) {
+            Request request = Request.cmd(Command.HMGET).arg(redisKeys.job(KEY_PREFIX, processId));
+            for (String field : FIELDS) {
+                request.arg(field);
+            }
+            requests.add(request);
+        }
+        return send(requests)
+                .map(responses -> {
+                    List<JobStatus> statuses = new ArrayList<>(processIds.size());
+                    for (int i = 0; i < processIds.size(); i++) {
+                        statuses.add(toStatus(processIds.get(i), values(responses.get(i))));
+                    }
+                    return statuses;
+                });
+    }
+
+    /**
+     * Sends {@code requests} in one pipeline; one by one, concurrently, in cluster
+     * mode, where a batch must stay on one slot.
+     */
+    private Uni<List<Response>> send(List<Request> requests) {
+        if (!redisKeys.cluster() || requests.size() == 1) {
+            return reactiveRedisDS.getRedis().batch(requests);
+        }
+        List<Uni<Response>> responses = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            responses.add(reactiveRedisDS.getRedis().send(request));
+        }
+        return Uni.join().all(responses).andFailFast();
+    }
+
+    private static String[] values(Response response) {
+        String[] values = new String[FIELDS.length];
+        for (int i = 0; response != null && i < FIELDS.length && i < response.size(); i++) {
+            Response value = response.get(i);
+            values[i] = value == null ? null : value.toString();
+        }
+        return values;
+    }
+
+    /**
+     * Builds the status from the {@link #FIELDS} values of a job hash.
+     */
+    static JobStatus toStatus(String processId, String[] values) {
+        Instant acceptedAt = instant(values[0]);
+        Instant scheduledAt = instant(values[1]);
+        Instant renderingAt = instant(values[2]);
+        Instant completedAt = instant(values[3]);
+        Instant failedAt = instant(values[4]);
+        Instant cancelledAt = instant(values[5]);
+
+        State state;
+        Instant finishedAt = null;
+        if (completedAt != null) {
+            state = State.COMPLETED;
+            finishedAt = completedAt;
+        } else if (failedAt != null) {
+            state = State.FAILED;
+            finishedAt = failedAt;
+        } else if (cancelledAt != null) {
+            state = State.CANCELLED;
+            finishedAt = cancelledAt;
+        } else if (renderingAt != null) {
+            state = State.RENDERING;
+        } else if (scheduledAt != null) {
+            state = State.SCHEDULED;
+        } else if (acceptedAt != null) {
+            state = State.ACCEPTED;
+        } else {
+            return JobStatus.notFound(processId);
+        }
+
+        Instant updatedAt = null;
+        for (Instant timestamp : new Instant[] {acceptedAt, scheduledAt, renderingAt, finishedAt}) {
+            if (timestamp != null && (updatedAt == null || timestamp.isAfter(updatedAt))) {
+                updatedAt = timestamp;
+            }
+        }
+        return new JobStatus(processId, state, values[6], values[7], acceptedAt, instant(values[10]), updatedAt,
+                finishedAt, values[8], values[9], values[11] == null ? null : Integer.valueOf(values[11]));
+    }
+
+    private Uni<Void> write(String processId, String... fieldValues) {
+        return write(processId, stateTtl, fieldValues);
+    }
+
+    private Uni<Void> write(String processId, Duration ttl, String... fieldValues) {
+        String key = redisKeys.job(KEY_PREFIX, processId);
+        Request hset = Request.cmd(Command.HSET).arg(key);
+        for (String fieldValue : fieldValues) {
+            hset.arg(fieldValue);
+        }
+        Request expire = Request.cmd(Command.EXPIRE).arg(key).arg(ttl.toSeconds());
+        return reactiveRedisDS.getRedis().batch(List.of(hset, expire)).replaceWithVoid();
+    }
+
+    private static void fireAndForget(String processId, Uni<Void> write) {
+        write.subscribe().with(
+                v -> {
+                },
+                err -> Log.warnf(err, "Failed to update the job state of processId: %s", processId));
+    }
+
+    private static String now() {
+        return Long.toString(System.currentTimeMillis());
+    }
+
+    private static Instant instant(String epochMillis) {
+        return epochMillis == null ? null : Instant.ofEpochMilli(Long.parseLong(epochMillis));
+    }
+}
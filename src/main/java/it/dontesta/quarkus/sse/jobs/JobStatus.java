@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.jobs;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Snapshot of the state of a PDF generation, as stored in its Redis job hash.
+ *
+ * @param processId  the identifier of the generation
+ * @param state      the furthest state reached
+ * @param chainId    the document chain, once the job is scheduled
+ * @param replica    the replica that holds (or held) the job, once scheduled
+ * @param acceptedAt when {@code /generate} accepted the request
+ * @param notBefore  the time the generation was deferred to, if any
+ * @param updatedAt  when the job last changed state
+ * @param finishedAt when the job reached a final state
+ * @param pdfUrl     the download URL, once completed
+ * @param error      the error message, if failed
+ * @param rows       the rows sent with the request, {@code null} for a document of the sample rows
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobStatus(String processId, State state, String chainId, String replica, Instant acceptedAt,
+        Instant notBefore, Instant updatedAt, Instant finishedAt, String pdfUrl, String error, Integer rows) {
+
+    /**
+     * States of a job, in the order they are reached.
+     */
+    public enum State {
+        ACCEPTED,
+        SCHEDULED,
+        RENDERING,
+        COMPLETED,
+        FAILED,
+        CANCELLED,
+        /** No job hash: unknown processId, or expired. Only used by batch queries. */
+        NOT_FOUND;
+
+        public boolean isFinal() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    static JobStatus notFound(String processId) {
+        return new JobStatus(processId, State.NOT_FOUND, null, null, null, null, null, null, null, null, null);
+    }
+}
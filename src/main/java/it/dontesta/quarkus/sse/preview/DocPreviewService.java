@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.preview;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.fugerit.java.doc.base.config.DocInput;
+import org.fugerit.java.doc.base.config.DocOutput;
+import org.fugerit.java.doc.base.process.DocProcessData;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import it.dontesta.quarkus.sse.fjdoc.DocChainIds;
+import it.dontesta.quarkus.sse.fjdoc.DocContexts;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import it.dontesta.quarkus.sse.fjdoc.DocHelper;
+import it.dontesta.quarkus.sse.fjdoc.DocRows;
+import it.dontesta.quarkus.sse.util.LruCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Synchronous HTML preview of a document: the same chain and data model as the
+ * generation, the rows sent with the request or the sample ones, rendered by the
+ * {@code html-fm} handler, without FOP. Renders take milliseconds and are kept in
+ * a small in-memory LRU cache ({@code pdf.preview.cache.max-entries}), keyed by
+ * chain and processId: the rows of a processId never change.
+ */
+@ApplicationScoped
+public class DocPreviewService {
+
+    private final DocHelper docHelper = new DocHelper();
+
+    private final List<String> chainIds = DocChainIds.renderable();
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.preview.cache.max-entries", defaultValue = "256")
+    int cacheMaxEntries;
+
+    private LruCache<String, String> cache;
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Timer renderTimer;
+
+    void onStart(@Observes StartupEvent ev) {
+        cache = new LruCache<>(cacheMaxEntries);
+
+        hitCounter = Counter.builder("pdf.preview.cache.requests.total")
+                .tag("result", "hit")
+                .description("Previews served from the cache")
+                .register(meterRegistry);
+
+        missCounter = Counter.builder("pdf.preview.cache.requests.total")
+                .tag("result", "miss")
+                .description("Previews rendered because they were not in the cache")
+                .register(meterRegistry);
+
+        renderTimer = Timer.builder("pdf.preview.render.duration.seconds")
+                .description("Time taken to render an HTML preview")
+                .register(meterRegistry);
+
+        Gauge.builder("pdf.preview.cache.size", cache, LruCache::size)
+                .description("Number of previews in the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the chains that can be previewed, in the order of the configuration
+     */
+    public List<String> chainIds() {
+        return chainIds;
+    }
+
+    /**
+     * @return the cached HTML preview of the document of {@code processId} rendered with {@code chainId}, if any
+     */
+    public Optional<String> cached(String chainId, String processId) {
+        String html = cache.get(chainId + "/" + processId);
+        if (html != null) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+        return Optional.ofNullable(html);
+    }
+
+    /**
+     * @param rows the rows of the document of {@code processId}, {@code null} for the sample ones
+     * @return the HTML preview of the document of {@code processId} rendered with {@code chainId}
+     * @throws IllegalStateException if the rendering failed
+     */
+    public String preview(String chainId, String processId, DocRows rows) {
+        Optional<String> cached = cached(chainId, processId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        String html = renderTimer.record(() -> render(chainId, processId,
+                rows != null ? rows : DocRows.of(DocContexts.samplePeople())));
+        cache.put(chainId + "/" + processId, html);
+        return html;
+    }
+
+    private String render(String chainId, String processId, DocRows rows) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            DocProcessData data = new DocProcessData();
+            docHelper.getDocProcessConfig().process(chainId, DocContexts.newContext(processId, rows), data);
+            docHelper.getDocProcessConfig().getFacade().handle(
+                    DocInput.newInput(DocFormat.HTML.handlerId(), data.getCurrentXmlReader()),
+                    DocOutput.newOutput(baos));
+            Log.debugf("HTML preview of chain '%s' rendered for processId: %s", chainId, processId);
+            return baos.toString(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot render the preview of chain " + chainId, e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Tokens taken from the Redis bucket of a client in advance, and spent locally.
+ *
+ * <p>A replica asks Redis for a lease of several tokens at once; the following
+ * requests of the client are admitted from the lease without a Redis round trip.
+ * The tokens are removed from the shared bucket when leased, so the cluster never
+ * admits more than the bucket allows; the tokens of a lease not used within its
+ * TTL are set aside and handed back to the bucket by the next Redis call for the
+ * client ({@link #takeReturned}), so that a client spread over several replicas
+ * does not lose them. Past {@value #PURGE_THRESHOLD} clients the expired leases,
+ * and the tokens set aside for clients that did not come back, are dropped.
+ *
+ * <p>Thread-safe.
+ */
+public class LocalTokenLeases {
+
+    /** Above this number of clients, expired leases are purged at the next grant. */
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private static final class Lease {
+
+        private final AtomicInteger tokens;
+        /** Tokens left in the Redis bucket when the lease was granted. */
+        private final long bucketRemaining;
+        private final long limit;
+        private final long resetSeconds;
+        private final long expiresAtNanos;
+
+        private Lease(int tokens, long bucketRemaining, long limit, long resetSeconds, long expiresAtNanos) {
+            this.tokens = new AtomicInteger(tokens);
+            this.bucketRemaining = bucketRemaining;
+            this.limit = limit;
+            this.resetSeconds = resetSeconds;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    /** Unused tokens of the expired leases, to hand back to the Redis buckets. */
+    private final Map<String, Integer> returned = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    /**
+     * @param ttl      how long leased tokens can be spent
+     * @param nanoTime the clock, {@code System::nanoTime} outside of tests
+     */
+    public LocalTokenLeases(Duration ttl, LongSupplier nanoTime) {
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Spends a leased token of {@code clientId}.
+     *
+     * @return the decision if a token was available locally, {@code null} if Redis must be asked
+     */
+    public RateLimitDecision tryAcquire(String clientId) {
+        Lease lease = leases.get(clientId);
+        if (lease == null) {
+            return null;
+        }
+        if (nanoTime.getAsLong() - lease.expiresAtNanos >= 0) {
+            if (leases.remove(clientId, lease)) {
+                giveBack(clientId, lease.tokens.getAndSet(0));
+            }
+            return null;
+        }
+        int left = lease.tokens.decrementAndGet();
+        if (left < 0) {
+            leases.remove(clientId, lease);
+            return null;
+        }
+        return new RateLimitDecision(true, lease.limit, lease.bucketRemaining + left, lease.resetSeconds, 0);
+    }
+
+    /**
+     * Stores the tokens granted by Redis beyond the one spent by the current request.
+     *
+     * @param tokens          the tokens left to spend locally
+     * @param bucketRemaining the tokens left in the Redis bucket
+     * @param limit           the capacity of the bucket
+     * @param resetSeconds    seconds until the bucket is full again
+     */
+    public void grant(String clientId, int tokens, long bucketRemaining, long limit, long resetSeconds) {
+        long now = nanoTime.getAsLong();
+        if (leases.size() > PURGE_THRESHOLD) {
+            leases.values().removeIf(lease -> now - lease.expiresAtNanos >= 0);
+            returned.clear();
+        }
+        Lease previous = tokens <= 0
+                ? leases.remove(clientId)
+                : leases.put(clientId, new Lease(tokens, bucketRemaining, limit, resetSeconds, now + ttlNanos));
+        if (previous != null) {
+            // Granted concurrently by another request of the client
+            giveBack(clientId, previous.tokens.getAndSet(0));
+        }
+    }
+
+    /**
+     * Takes the unused tokens of the expired leases of {@code clientId}, to hand
+     * them back to its Redis bucket.
+     *
+     * @return the number of tokens, 0 if none
+     */
+    public int takeReturned(String clientId) {
+        Integer tokens = returned.remove(clientId);
+        return tokens == null ? 0 : tokens;
+    }
+
+    /**
+     * Sets aside {@code tokens} of {@code clientId} again, when they could not be
+     * handed back to Redis.
+     */
+    public void giveBack(String clientId, int tokens) {
+        if (tokens > 0) {
+            returned.merge(clientId, tokens, Integer::sum);
+        }
+    }
+
+    /**
+     * @return the number of clients holding a lease, expired ones included
+     */
+    public int size() {
+        return leases.size();
+    }
+}
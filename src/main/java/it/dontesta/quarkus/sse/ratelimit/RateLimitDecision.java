@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ratelimit;
+
+/**
+ * Outcome of a rate limit check, with the values of the rate limit response headers.
+ *
+ * @param allowed           {@code true} if the request may proceed
+ * @param limit             capacity of the bucket of the client, -1 if the limit could not be checked
+ * @param remaining         tokens left for the client after this request
+ * @param resetSeconds      seconds until the bucket is full again
+ * @param retryAfterSeconds seconds before a rejected client can retry, 0 if allowed
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, long resetSeconds,
+        long retryAfterSeconds) {
+
+    /**
+     * @return a decision letting the request through without a known limit (disabled, or Redis unavailable)
+     */
+    public static RateLimitDecision unchecked() {
+        return new RateLimitDecision(true, -1, -1, 0, 0);
+    }
+
+    /**
+     * @return {@code true} if the rate limit headers can be sent
+     */
+    public boolean hasLimit() {
+        return limit >= 0;
+    }
+}
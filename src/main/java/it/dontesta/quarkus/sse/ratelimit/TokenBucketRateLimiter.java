@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ratelimit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.mutiny.redis.client.Response;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Per-client token bucket on the generation requests, shared by all the replicas
+ * through Redis.
+ *
+ * <p>A client is identified by its API key (header {@code pdf.rate-limit.api-key-header})
+ * or, without one, by its IP address; each kind has its own capacity and refill
+ * rate. The bucket is the Redis hash {@code ratelimit:{clientId}}, refilled and
+ * debited by a Lua script in a single atomic step using the Redis clock, so the
+ * replicas need no synchronized clocks.
+ *
+ * <p>The script hands out up to {@code pdf.rate-limit.lease-size} tokens at once:
+ * the following requests of the client are admitted from the {@link LocalTokenLeases}
+ * of the replica without a Redis round trip. The tokens a lease did not spend
+ * within {@code pdf.rate-limit.lease-ttl} are handed back to the bucket by the
+ * next script call for the client.
+ *
+ * <p>If Redis cannot be reached the request is let through (fail open): the
+ * limiter protects the render capacity, it must not take the service down with Redis.
+ */
+@ApplicationScoped
+public class TokenBucketRateLimiter {
+
+    /** Redis key prefix of the buckets. */
+    static final String KEY_PREFIX = "ratelimit:";
+
+    /** Tag value of the rejections of the clients beyond {@code pdf.rate-limit.metrics.max-clients}. */
+    static final String OTHER_CLIENTS = "other";
+
+    /**
+     * Refills the bucket for the time elapsed since the previous call and with the
+     * ARGV[4] unused tokens of expired leases, then takes up to ARGV[3] tokens.
+     * Returns the tokens granted, the tokens left, the milliseconds before a token
+     * is available (when none was granted) and before the bucket is full.
+     */
+    public static final String TOKEN_BUCKET_SCRIPT = """
+            local capacity = tonumber(ARGV[1])
+            local rate = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local returned = tonumber(ARGV[4])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1])
+            local ts = tonumber(state[2])
+            if tokens == nil or ts == nil then
+              tokens = capacity
+              ts = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000 + returned)
+            local granted = math.min(requested, math.floor(tokens))
+            tokens = tokens - granted
+            local full_in = math.ceil((capacity - tokens) * 1000 / rate)
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], full_in + 1000)
+            local retry_in = 0
+            if granted == 0 then
+              retry_in = math.ceil((1 - tokens) * 1000 / rate)
+            end
+            return {granted, math.floor(tokens), retry_in, full_in}
+            """;
+
+    private static final String TOKEN_BUCKET_SHA = sha1Hex(TOKEN_BUCKET_SCRIPT);
+
+    /**
+     * Capacity and refill rate of a kind of client.
+     */
+    record Policy(long capacity, double refillPerSecond) {
+
+        Policy {
+            if (capacity < 1 || refillPerSecond <= 0) {
+                throw new IllegalArgumentException(
+                        "Invalid rate limit: capacity " + capacity + ", refill rate " + refillPerSecond);
+            }
+        }
+    }
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.api-key-header", defaultValue = "X-API-Key")
+    String apiKeyHeader;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.api-key.capacity", defaultValue = "120")
+    long apiKeyCapacity;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.api-key.refill-per-second", defaultValue = "2")
+    double apiKeyRefillPerSecond;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.ip.capacity", defaultValue = "30")
+    long ipCapacity;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.ip.refill-per-second", defaultValue = "0.5")
+    double ipRefillPerSecond;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.lease-size", defaultValue = "5")
+    int leaseSize;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.lease-ttl", defaultValue = "1s")
+    Duration leaseTtl;
+
+    @Inject
+    @ConfigProperty(name = "pdf.rate-limit.metrics.max-clients", defaultValue = "100")
+    int metricsMaxClients;
+
+    private Policy apiKeyPolicy;
+    private Policy ipPolicy;
+    private LocalTokenLeases leases;
+
+    /** Rejection counters of the clients, bounded by {@code pdf.rate-limit.metrics.max-clients}. */
+    private final Map<String, Counter> clientRejectionCounters = new ConcurrentHashMap<>();
+
+    private Counter allowedLocalCounter;
+    private Counter allowedRedisCounter;
+    private Counter rejectedCounter;
+    private Counter unavailableCounter;
+    private Counter otherClientsRejectionCounter;
+
+    void onStart(@Observes StartupEvent ev) {
+        apiKeyPolicy = new Policy(apiKeyCapacity, apiKeyRefillPerSecond);
+        ipPolicy = new Policy(ipCapacity, ipRefillPerSecond);
+        leases = new LocalTokenLeases(leaseTtl, System::nanoTime);
+
+        allowedLocalCounter = requestsCounter("allowed_local", "Requests admitted from a token lease of this replica");
+        allowedRedisCounter = requestsCounter("allowed_redis", "Requests admitted by the Redis token bucket");
+        rejectedCounter = requestsCounter("rejected", "Requests rejected because the token bucket of the client was empty");
+        unavailableCounter = requestsCounter("unavailable",
+                "Requests let through because the Redis token bucket could not be reached");
+        otherClientsRejectionCounter = clientRejectionCounter(OTHER_CLIENTS);
+    }
+
+    private Counter requestsCounter(String outcome, String description) {
+        return Counter.builder("pdf.rate-limit.requests.total")
+                .tag("outcome", outcome)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Identifies the client of {@code request}: {@code key:<hash of the API key>}
+     * (the key itself is never stored nor exposed in metrics) or {@code ip:<address>}.
+     */
+    public String clientId(HttpServerRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey != null && !apiKey.isBlank()) {
+            return "key:" + sha256Hex(apiKey).substring(0, 16);
+        }
+        return "ip:" + (request.remoteAddress() == null ? "unknown" : request.remoteAddress().hostAddress());
+    }
+
+    /**
+     * Takes a token from the bucket of {@code clientId}.
+     *
+     * @return a {@link Uni} with the decision; never fails
+     */
+    public Uni<RateLimitDecision> acquire(String clientId) {
+        if (!enabled) {
+            return Uni.createFrom().item(RateLimitDecision.unchecked());
+        }
+        RateLimitDecision local = leases.tryAcquire(clientId);
+        if (local != null) {
+            allowedLocalCounter.increment();
+            return Uni.createFrom().item(local);
+        }
+
+        Policy policy = clientId.startsWith("key:") ? apiKeyPolicy : ipPolicy;
+        int requested = (int) Math.max(1, Math.min(leaseSize, policy.capacity()));
+        int returned = leases.takeReturned(clientId);
+        String[] args = {KEY_PREFIX + clientId, Long.toString(policy.capacity()),
+                Double.toString(policy.refillPerSecond()), Integer.toString(requested), Integer.toString(returned)};
+        return evalTokenBucket(args)
+                .map(response -> {
+                    long granted = response.get(0).toLong();
+                    long remaining = response.get(1).toLong();
+                    long retryInMillis = response.get(2).toLong();
+                    long resetSeconds = ceilSeconds(response.get(3).toLong());
+                    if (granted == 0) {
+                        rejectedCounter.increment();
+                        rejectionCounter(clientId).increment();
+                        Log.debugf("Rate limit exceeded for client %s", clientId);
+                        return new RateLimitDecision(false, policy.capacity(), 0, resetSeconds,
+                                Math.max(1, ceilSeconds(retryInMillis)));
+                    }
+                    allowedRedisCounter.increment();
+                    // One token for this request, the others for the next ones
+                    leases.grant(clientId, (int) granted - 1, remaining, policy.capacity(), resetSeconds);
+                    return new RateLimitDecision(true, policy.capacity(), remaining + granted - 1, resetSeconds, 0);
+                })
+                .onFailure().recoverWithItem(err -> {
+                    Log.warnf(err, "Rate limit of client %s not checked: Redis unavailable", clientId);
+                    leases.giveBack(clientId, returned);
+                    unavailableCounter.increment();
+                    return RateLimitDecision.unchecked();
+                });
+    }
+
+    /**
+     * Runs the script by its SHA1, loading it with {@code EVAL} the first time
+     * (or after a {@code SCRIPT FLUSH}).
+     */
+    private Uni<Response> evalTokenBucket(String[] args) {
+        return reactiveRedisDS.execute("EVALSHA", TOKEN_BUCKET_SHA, "1", args[0], args[1], args[2], args[3], args[4])
+                .onFailure(err -> err.getMessage() != null && err.getMessage().startsWith("NOSCRIPT"))
+                .recoverWithUni(() -> reactiveRedisDS.execute("EVAL", TOKEN_BUCKET_SCRIPT, "1", args[0], args[1],
+                        args[2], args[3], args[4]));
+    }
+
+    private Counter rejectionCounter(String clientId) {
+        Counter counter = clientRejectionCounters.get(clientId);
+        if (counter != null) {
+            return counter;
+        }
+        if (clientRejectionCounters.size() >= metricsMaxClients) {
+            return otherClientsRejectionCounter;
+        }
+        return clientRejectionCounters.computeIfAbsent(clientId, this::clientRejectionCounter);
+    }
+
+    private Counter clientRejectionCounter(String client) {
+        return Counter.builder("pdf.rate-limit.rejected.total")
+                .tag("client", client)
+                .description("Requests rejected by the rate limiter, by client")
+                .register(meterRegistry);
+    }
+
+    private static long ceilSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    private static String sha1Hex(String value) {
+        return digestHex("SHA-1", value);
+    }
+
+    private static String sha256Hex(String value) {
+        return digestHex("SHA-256", value);
+    }
+
+    private static String digestHex(String algorithm, String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance(algorithm).digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not available", e);
+        }
+    }
+}
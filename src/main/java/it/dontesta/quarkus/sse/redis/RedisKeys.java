@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Names of the per-job Redis keys and of the notification channels, for a
+ * standalone Redis or, with {@code pdf.redis.cluster.enabled=true}, a Redis
+ * Cluster.
+ *
+ * <p>In cluster mode:
+ * <ul>
+ * <li>the processId of a per-job key is a hash tag ({@code pending:completed:{<processId>}}):
+ * all the keys of a job are on the slot of its processId, so that the commands
+ * reading several of them in one round trip stay on one node;</li>
+ * <li>a notification channel is split in {@code pdf.redis.cluster.channel-shards}
+ * sharded channels ({@code <channel>:{<tag>}}), whose tags are chosen to land on
+ * evenly spaced slots: published with {@code SPUBLISH}, a message only reaches
+ * the node that owns the slot of its shard, chosen by the processId, instead of
+ * being broadcast to every node of the cluster.</li>
+ * </ul>
+ * Without it the names are the ones of a standalone Redis, unchanged.
+ */
+@ApplicationScoped
+public class RedisKeys {
+
+    /** Number of hash slots of a Redis Cluster. */
+    static final int SLOTS = 16384;
+
+    /** Most shards of a channel: more would only add subscriptions. */
+    static final int MAX_CHANNEL_SHARDS = 1024;
+
+    private final boolean cluster;
+    /** Hash tag of each shard of a channel, by shard index. */
+    private final List<String> shardTags;
+
+    public RedisKeys(@ConfigProperty(name = "pdf.redis.cluster.enabled", defaultValue = "false") boolean cluster,
+            @ConfigProperty(name = "pdf.redis.cluster.channel-shards", defaultValue = "16") int channelShards) {
+        if (channelShards < 1 || channelShards > MAX_CHANNEL_SHARDS) {
+            throw new IllegalArgumentException(
+                    "The channel shards must be in [1, " + MAX_CHANNEL_SHARDS + "]: " + channelShards);
+        }
+        this.cluster = cluster;
+        this.shardTags = shardTags(channelShards);
+    }
+
+    /**
+     * @return {@code true} in Redis Cluster mode: sharded Pub/Sub and hash-tagged keys
+     */
+    public boolean cluster() {
+        return cluster;
+    }
+
+    /**
+     * @return the key {@code prefix + processId} of a job, the processId hash-tagged in cluster mode
+     */
+    public String job(String prefix, String processId) {
+        return cluster ? prefix + '{' + processId + '}' : prefix + processId;
+    }
+
+    /**
+     * @return the channel of the messages about {@code shardKey}: its shard of {@code channel} in cluster mode
+     */
+    public String channel(String channel, String shardKey) {
+        if (!cluster) {
+            return channel;
+        }
+        int shard = shardKey == null ? 0 : Math.floorMod(shardKey.hashCode(), shardTags.size());
+        return shardChannel(channel, shard);
+    }
+
+    /**
+     * @return the channels to subscribe to receive all the messages of {@code channel}: all its shards in cluster mode
+     */
+    public List<String> channels(String channel) {
+        if (!cluster) {
+            return List.of(channel);
+        }
+        List<String> channels = new ArrayList<>(shardTags.size());
+        for (int shard = 0; shard < shardTags.size(); shard++) {
+            channels.add(shardChannel(channel, shard));
+        }
+        return channels;
+    }
+
+    private String shardChannel(String channel, int shard) {
+        return channel + ":{" + shardTags.get(shard) + '}';
+    }
+
+    /**
+     * Picks for each shard the first numeric tag whose slot falls in the shard's
+     * range of {@code SLOTS / shards} slots: the shards spread over the slots, hence
+     * over the nodes, which own ranges of slots.
+     */
+    static List<String> shardTags(int shards) {
+        List<String> tags = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            int from = (int) ((long) shard * SLOTS / shards);
+            int to = (int) ((long) (shard + 1) * SLOTS / shards);
+            for (int candidate = 0; ; candidate++) {
+                int slot = slot(Integer.toString(candidate));
+                if (slot >= from && slot < to) {
+                    tags.add(Integer.toString(candidate));
+                    break;
+                }
+            }
+        }
+        return List.copyOf(tags);
+    }
+
+    /**
+     * @return the hash slot of {@code key} (CRC16 of its hash tag, or of the whole key, modulo {@value #SLOTS})
+     */
+    static int slot(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                key = key.substring(open + 1, close);
+            }
+        }
+        return crc16(key.getBytes(StandardCharsets.UTF_8)) % SLOTS;
+    }
+
+    /**
+     * CRC16-CCITT (XMODEM), the checksum of the Redis Cluster key slots.
+     */
+    private static int crc16(byte[] bytes) {
+        int crc = 0;
+        for (byte b : bytes) {
+            crc ^= (b & 0xff) << 8;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return crc & 0xffff;
+    }
+}
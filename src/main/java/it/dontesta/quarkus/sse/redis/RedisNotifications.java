@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.redis;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.redis.client.RedisConnection;
+import io.vertx.mutiny.redis.client.Request;
+import io.vertx.mutiny.redis.client.Response;
+import io.vertx.redis.client.Command;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Redis Pub/Sub between the replicas: completion and error events, cancellation
+ * requests, hand-offs.
+ *
+ * <p>On a standalone Redis the messages are published with {@code PUBLISH} and
+ * received with {@code SUBSCRIBE}. In Redis Cluster mode ({@link RedisKeys#cluster()})
+ * they go through sharded Pub/Sub: {@code SPUBLISH} to the shard of the channel
+ * chosen by the processId of the message, and {@code SSUBSCRIBE} to every shard,
+ * each served by the node that owns its slot. A message then crosses one node
+ * instead of the cluster bus to all of them, and the notification load spreads
+ * over the primaries.
+ */
+@ApplicationScoped
+public class RedisNotifications {
+
+    /** Longest wait before subscribing again after the connection of a sharded subscription was lost. */
+    private static final Duration MAX_RESUBSCRIBE_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * A subscription to some channels.
+     */
+    @FunctionalInterface
+    public interface Subscription {
+
+        /**
+         * @return a {@link Uni} completed once the subscription is closed
+         */
+        Uni<Void> unsubscribe();
+    }
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    RedisKeys redisKeys;
+
+    /**
+     * Publishes {@code message} on {@code channel}; {@code shardKey}, the processId
+     * the message is about, picks the shard of the channel in cluster mode.
+     *
+     * @return a {@link Uni} completed once Redis received the message
+     */
+    public Uni<Void> publish(String channel, String shardKey, String message) {
+        if (!redisKeys.cluster()) {
+            return reactiveRedisDS.pubsub(String.class).publish(channel, message);
+        }
+        return reactiveRedisDS.getRedis()
+                .send(Request.cmd(Command.SPUBLISH).arg(redisKeys.channel(channel, shardKey)).arg(message))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Subscribes to {@code channels}: {@code onMessage} receives the channel, as
+     * passed here, and the message.
+     *
+     * @return a {@link Uni} completed with the subscription once it is active
+     */
+    public Uni<Subscription> subscribe(List<String> channels, BiConsumer<String, String> onMessage) {
+        if (!redisKeys.cluster()) {
+            return reactiveRedisDS.pubsub(String.class).subscribe(channels, onMessage)
+                    .map(subscriber -> (Subscription) () -> subscriber.unsubscribe());
+        }
+        Map<String, String> channelsByShard = new LinkedHashMap<>();
+        for (String channel : channels) {
+            for (String shard : redisKeys.channels(channel)) {
+                channelsByShard.put(shard, channel);
+            }
+        }
+        ShardedSubscription subscription = new ShardedSubscription(channelsByShard, onMessage);
+        return subscription.connect().replaceWith(subscription);
+    }
+
+    /**
+     * {@code SSUBSCRIBE} to the shards of the channels on a dedicated connection,
+     * routed by the cluster client to the nodes owning their slots. The shards are
+     * subscribed again when their slot moves ({@code sunsubscribe} pushed by the
+     * server) or the connection is lost.
+     */
+    private final class ShardedSubscription implements Subscription {
+
+        /** The channel of each shard, by shard. */
+        private final Map<String, String> channelsByShard;
+        private final BiConsumer<String, String> onMessage;
+
+        private volatile RedisConnection connection;
+        private volatile boolean closed;
+
+        ShardedSubscription(Map<String, String> channelsByShard, BiConsumer<String, String> onMessage) {
+            this.channelsByShard = channelsByShard;
+            this.onMessage = onMessage;
+        }
+
+        Uni<Void> connect() {
+            return reactiveRedisDS.getRedis().connect()
+                    .call(conn -> {
+                        connection = conn;
+                        conn.handler(this::onPush);
+                        conn.exceptionHandler(err -> Log.warnf(err, "Error on the sharded Pub/Sub connection"));
+                        conn.endHandler(this::onEnd);
+                        return Multi.createFrom().iterable(channelsByShard.keySet())
+                                .onItem().transformToUniAndConcatenate(this::subscribe)
+                                .collect().last();
+                    })
+                    .invoke(() -> Log.debugf("Subscribed to the sharded Redis channels: %s", channelsByShard.keySet()))
+                    .replaceWithVoid();
+        }
+
+        private Uni<Response> subscribe(String shard) {
+            return connection.send(Request.cmd(Command.SSUBSCRIBE).arg(shard));
+        }
+
+        private void onPush(Response push) {
+            if (push == null || push.size() < 3) {
+                return;
+            }
+            String kind = push.get(0).toString();
+            String shard = push.get(1).toString();
+            String channel = channelsByShard.get(shard);
+            if (channel == null) {
+                return;
+            }
+            if ("smessage".equals(kind)) {
+                onMessage.accept(channel, push.get(2).toString());
+            } else if ("sunsubscribe".equals(kind) && !closed) {
+                // The slot of the shard moved to another node: subscribe there
+                Log.debugf("Sharded Redis channel '%s' moved, subscribing again", shard);
+                subscribe(shard).subscribe().with(
+                        subscribed -> {
+                        },
+                        err -> Log.errorf(err, "Failed to subscribe again to the sharded Redis channel '%s'", shard));
+            }
+        }
+
+        private void onEnd() {
+            if (closed) {
+                return;
+            }
+            Log.warn("Sharded Pub/Sub connection lost, subscribing again");
+            connect().onFailure().retry()
+                    .withBackOff(Duration.ofSeconds(1), MAX_RESUBSCRIBE_BACKOFF).indefinitely()
+                    .subscribe().with(
+                            v -> {
+                            },
+                            err -> Log.errorf(err, "Failed to subscribe again to the sharded Redis channels"));
+        }
+
+        @Override
+        public Uni<Void> unsubscribe() {
+            closed = true;
+            // Closing the connection ends its subscriptions
+            return connection == null ? Uni.createFrom().voidItem() : connection.close();
+        }
+    }
+}
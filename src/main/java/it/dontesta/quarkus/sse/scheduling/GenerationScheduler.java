@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.scheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.redis.datasource.sortedset.ReactiveSortedSetCommands;
+import io.quarkus.redis.datasource.sortedset.ScoreRange;
+import io.quarkus.redis.datasource.sortedset.ScoredValue;
+import io.quarkus.redis.datasource.sortedset.ZRangeArgs;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.mutiny.core.eventbus.EventBus;
+import it.dontesta.quarkus.sse.eventbus.codec.PdfGenerationRequestCodec;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationError;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationRequest;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import it.dontesta.quarkus.sse.redis.RedisNotifications;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Deferred PDF generations ({@code POST /api/pdf/generate?notBefore=...}) and
+ * the timers of the pipeline.
+ *
+ * <p>A schedule is persisted in the Redis sorted set {@value #SCHEDULES_KEY}
+ * (member: the processId, followed by {@code #<format>} unless the format is PDF;
+ * score: {@code notBefore} in epoch milliseconds) and
+ * armed on the local {@link HashedTimerWheel}. When it fires, the replica claims
+ * it with {@code ZREM}: only the replica that removed the member publishes the
+ * generation request on its event bus, so a schedule armed on several replicas
+ * runs once.
+ *
+ * <p>Every {@code pdf.scheduling.poll-interval} each replica arms the schedules
+ * due within the next two intervals: schedules of a replica that stopped, or
+ * that could not be claimed because Redis was unavailable, are picked up by the
+ * others.
+ *
+ * <p>A replica that drains {@linkplain #stopClaiming() stops claiming} schedules
+ * and {@linkplain #handOff hands off} the generations it has not started: they
+ * are added to the sorted set, due now, and the member is published on
+ * {@code pdf.scheduling.handoff-channel} so that the other replicas arm it right
+ * away instead of at their next poll.
+ */
+@ApplicationScoped
+public class GenerationScheduler {
+
+    /** Redis sorted set of the deferred generations. */
+    static final String SCHEDULES_KEY = "pdf:schedules";
+
+    /** Separates the processId from the format in a member; never found in a processId. */
+    private static final char FORMAT_SEPARATOR = '#';
+
+    private final HashedTimerWheel wheel;
+
+    /** Schedules armed on the local wheel, keyed by sorted set member. */
+    private final Map<String, HashedTimerWheel.Timeout> armed = new ConcurrentHashMap<>();
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    RedisNotifications redisNotifications;
+
+    @Inject
+    EventBus eventBus;
+
+    @Inject
+    JobStateStore jobStateStore;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.eventbus.destination.requests", defaultValue = "pdf-generation-requests")
+    String requestsDestination;
+
+    @Inject
+    @ConfigProperty(name = "pdf.eventbus.destination.errors", defaultValue = "pdf-generation-errors")
+    String errorsDestination;
+
+    @Inject
+    @ConfigProperty(name = "pdf.scheduling.poll-interval", defaultValue = "30s")
+    Duration pollInterval;
+
+    @Inject
+    @ConfigProperty(name = "pdf.scheduling.poll-batch-size", defaultValue = "10000")
+    int pollBatchSize;
+
+    @Inject
+    @ConfigProperty(name = "pdf.scheduling.max-delay", defaultValue = "30d")
+    Duration maxDelay;
+
+    @Inject
+    @ConfigProperty(name = "pdf.scheduling.handoff-channel", defaultValue = "pdf-generation-handoffs")
+    String handOffChannel;
+
+    private ReactiveSortedSetCommands<String, String> schedules;
+
+    private RedisNotifications.Subscription handOffSubscriber;
+
+    private Counter claimedCounter;
+    private Counter takenCounter;
+
+    private volatile boolean stopped;
+
+    public GenerationScheduler(
+            @ConfigProperty(name = "pdf.scheduling.tick", defaultValue = "100ms") Duration tick,
+            @ConfigProperty(name = "pdf.scheduling.wheel-size", defaultValue = "512") int wheelSize) {
+        this.wheel = new HashedTimerWheel(tick, wheelSize,
+                Thread.ofPlatform().name("pdf-scheduling-wheel").daemon().factory(), GenerationScheduler::runSafely);
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        schedules = reactiveRedisDS.sortedSet(String.class);
+
+        claimedCounter = Counter.builder("pdf.scheduling.fired.total")
+                .tag("outcome", "claimed")
+                .description("Total number of deferred generations started by this replica")
+                .register(meterRegistry);
+
+        takenCounter = Counter.builder("pdf.scheduling.fired.total")
+                .tag("outcome", "taken")
+                .description("Total number of deferred generations already started by another replica, or cancelled")
+                .register(meterRegistry);
+
+        Gauge.builder("pdf.scheduling.armed", armed, Map::size)
+                .description("Number of deferred generations armed on the timer wheel of this replica")
+                .register(meterRegistry);
+
+        Gauge.builder("pdf.scheduling.timeouts.pending", wheel, HashedTimerWheel::pendingTimeouts)
+                .description("Number of timeouts pending on the timer wheel of this replica")
+                .register(meterRegistry);
+
+        redisNotifications.subscribe(List.of(handOffChannel), (channel, member) -> arm(member, Instant.now()))
+                .subscribe().with(
+                        sub -> handOffSubscriber = sub,
+                        // The hand-offs are still picked up by the polls
+                        err -> Log.errorf(err, "Failed to subscribe to the Redis channel '%s'", handOffChannel));
+
+        poll();
+    }
+
+    void onShutdown(@Observes ShutdownEvent ev) {
+        // The schedules stay in Redis: the other replicas, or this one after a restart, run them
+        stopClaiming();
+        wheel.close();
+        if (handOffSubscriber != null) {
+            handOffSubscriber.unsubscribe().subscribe().with(
+                    v -> {
+                    },
+                    err -> Log.warnf(err, "Error while unsubscribing from the Redis channel '%s'", handOffChannel));
+        }
+    }
+
+    /**
+     * Stops arming and claiming schedules, for a replica about to stop: the
+     * schedules armed here are left to the other replicas. The timer wheel keeps
+     * running the {@linkplain #delay delays} of the generations in progress.
+     */
+    public void stopClaiming() {
+        stopped = true;
+        armed.values().forEach(HashedTimerWheel.Timeout::cancel);
+        armed.clear();
+    }
+
+    /**
+     * @return the furthest {@code notBefore} accepted, from now
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Defers the generation of {@code processId}, in {@code format}, to {@code notBefore}.
+     *
+     * @return a {@link Uni} completed once the schedule is persisted
+     */
+    public Uni<Void> schedule(String processId, DocFormat format, Instant notBefore) {
+        String member = member(processId, format);
+        return schedules.zadd(SCHEDULES_KEY, notBefore.toEpochMilli(), member)
+                .invoke(() -> arm(member, notBefore))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Removes the schedule of {@code processId}, if its generation has not started
+     * yet; the job is then recorded as cancelled and its SSE stream notified.
+     *
+     * @return a {@link Uni} with {@code true} if a schedule was removed
+     */
+    public Uni<Boolean> unschedule(String processId) {
+        // The format is not known here: remove the members of all of them
+        String[] members = new String[DocFormat.values().length];
+        for (DocFormat format : DocFormat.values()) {
+            members[format.ordinal()] = member(processId, format);
+        }
+        return schedules.zrem(SCHEDULES_KEY, members)
+                .map(removed -> {
+                    for (String member : members) {
+                        HashedTimerWheel.Timeout timeout = armed.remove(member);
+                        if (timeout != null) {
+                            timeout.cancel();
+                        }
+                    }
+                    if (removed == 0) {
+                        return false;
+                    }
+                    Log.debugf("Deferred PDF generation cancelled for ID: %s", processId);
+                    jobStateStore.markCancelled(processId);
+                    publishCancelled(processId);
+                    return true;
+                });
+    }
+
+    /**
+     * Hands the generation of {@code processId}, in {@code format}, off to the
+     * other replicas: it is scheduled now, and they are notified to claim it.
+     *
+     * @return a {@link Uni} completed once the schedule is persisted
+     */
+    public Uni<Void> handOff(String processId, DocFormat format) {
+        String member = member(processId, format);
+        return schedules.zadd(SCHEDULES_KEY, System.currentTimeMillis(), member)
+                .call(() -> redisNotifications.publish(handOffChannel, processId, member)
+                        // Persisted: the polls of the other replicas arm it anyway
+                        .onFailure().invoke(err -> Log.warnf(err,
+                                "Failed to notify the hand-off of the PDF generation for ID: %s", processId))
+                        .onFailure().recoverWithNull())
+                .replaceWithVoid();
+    }
+
+    /**
+     * @return a future completed after {@code delay} on the timer wheel; cancelling it cancels the timeout
+     */
+    public CompletableFuture<Void> delay(Duration delay) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        HashedTimerWheel.Timeout timeout = wheel.schedule(() -> future.complete(null), delay);
+        future.whenComplete((v, failure) -> {
+            if (future.isCancelled()) {
+                timeout.cancel();
+            }
+        });
+        return future;
+    }
+
+    private static String member(String processId, DocFormat format) {
+        return format == DocFormat.PDF ? processId : processId + FORMAT_SEPARATOR + format.param();
+    }
+
+    private void arm(String member, Instant notBefore) {
+        if (stopped) {
+            return;
+        }
+        armed.computeIfAbsent(member,
+                id -> wheel.schedule(() -> fire(id), Duration.between(Instant.now(), notBefore)));
+    }
+
+    private void fire(String member) {
+        if (armed.remove(member) == null) {
+            // Disarmed by stopClaiming() while expiring
+            return;
+        }
+        int separator = member.indexOf(FORMAT_SEPARATOR);
+        String processId = separator < 0 ? member : member.substring(0, separator);
+        DocFormat format;
+        try {
+            format = separator < 0 ? DocFormat.PDF : DocFormat.fromParam(member.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            Log.errorf(e, "Dropping the deferred generation with an unknown format: %s", member);
+            schedules.zrem(SCHEDULES_KEY, member).subscribe().with(removed -> {
+            }, err -> Log.warnf(err, "Failed to drop the deferred generation: %s", member));
+            return;
+        }
+        schedules.zrem(SCHEDULES_KEY, member)
+                .subscribe().with(
+                        removed -> {
+                            if (removed == 0) {
+                                takenCounter.increment();
+                                return;
+                            }
+                            claimedCounter.increment();
+                            Log.debugf("Deferred PDF generation due, sending the request for ID %s to the event bus",
+                                    processId);
+                            eventBus.publish(requestsDestination, new PdfGenerationRequest(processId, format),
+                                    new DeliveryOptions().setCodecName(PdfGenerationRequestCodec.CODEC_NAME));
+                        },
+                        // Still in the sorted set: the next poll arms it again
+                        err -> Log.warnf(err, "Failed to claim the deferred PDF generation for ID: %s", processId));
+    }
+
+    /**
+     * Arms the schedules due before the next two polls, then re-arms itself.
+     */
+    private void poll() {
+        if (stopped) {
+            return;
+        }
+        long horizon = System.currentTimeMillis() + pollInterval.multipliedBy(2).toMillis();
+        schedules.zrangebyscoreWithScores(SCHEDULES_KEY, new ScoreRange<>(0d, (double) horizon),
+                        new ZRangeArgs().limit(0, pollBatchSize))
+                .subscribe().with(
+                        due -> {
+                            for (ScoredValue<String> schedule : due) {
+                                arm(schedule.value(), Instant.ofEpochMilli((long) schedule.score()));
+                            }
+                            Log.debugf("Deferred PDF generations due within %s: %d", pollInterval.multipliedBy(2),
+                                    due.size());
+                            rearmPoll();
+                        },
+                        err -> {
+                            Log.warnf(err, "Failed to read the deferred PDF generations from Redis");
+                            rearmPoll();
+                        });
+    }
+
+    private void rearmPoll() {
+        if (!stopped) {
+            wheel.schedule(this::poll, pollInterval);
+        }
+    }
+
+    private void publishCancelled(String processId) {
+        try {
+            String json = objectMapper.writeValueAsString(
+                    new PdfGenerationError(processId, "PDF generation cancelled"));
+            redisNotifications.publish(errorsDestination, processId, json)
+                    .subscribe().with(
+                            v -> {
+                            },
+                            err -> Log.warnf(err, "Failed to notify the cancellation of processId: %s", processId));
+        } catch (JsonProcessingException e) {
+            Log.errorf(e, "Failed to serialize the cancellation of processId: %s", processId);
+        }
+    }
+
+    /**
+     * Runs the expired timeouts on the wheel thread: they only complete futures
+     * and send Redis commands, and an exception must not stop the wheel.
+     */
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            Log.errorf(e, "Timer task failed");
+        }
+    }
+}
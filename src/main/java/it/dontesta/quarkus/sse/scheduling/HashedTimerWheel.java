@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.scheduling;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel (Varghese and Lauck): timeouts are hashed by their deadline
+ * tick into a fixed ring of buckets, and a single worker thread expires one
+ * bucket per tick.
+ *
+ * <ul>
+ *   <li>{@link #schedule} is O(1) and lock-free: the timeout is appended to a
+ *       concurrent queue and moved to its bucket by the worker at the next tick.</li>
+ *   <li>{@link Timeout#cancel} is O(1): buckets are doubly linked lists.</li>
+ *   <li>Each tick costs O(timeouts in the bucket): deadlines farther than one
+ *       revolution wait with a count of remaining rounds.</li>
+ * </ul>
+ * Expiry is accurate to one tick. Memory is one small object per pending
+ * timeout, so millions of schedules fit in a modest heap.
+ *
+ * <p>Expired tasks are handed to the task executor given at construction: they
+ * should be short, or the executor should hand them off.
+ */
+public class HashedTimerWheel implements AutoCloseable {
+
+    /** Upper bound of the timeouts moved from the queue to the wheel per tick, to keep ticks short. */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    /** The largest power of two an {@code int} holds. */
+    static final int MAX_WHEEL_SIZE = 1 << 30;
+
+    /**
+     * A scheduled task.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels the timeout, unless it already expired.
+         *
+         * @return {@code true} if it was cancelled by this call
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+
+        boolean isExpired();
+    }
+
+    private static final int ST_PENDING = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final class TimeoutImpl implements Timeout {
+
+        private final Runnable task;
+        /** Deadline, in nanoseconds since the start of the wheel. */
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_PENDING);
+
+        // Accessed by the worker thread only
+        private long remainingRounds;
+        private TimeoutImpl next;
+        private TimeoutImpl prev;
+        private Bucket bucket;
+
+        private TimeoutImpl(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_PENDING, ST_CANCELLED)) {
+                return false;
+            }
+            // Removed from its bucket by the worker, or skipped when transferred
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_PENDING, ST_EXPIRED)) {
+                return;
+            }
+            pendingTimeouts.decrementAndGet();
+            try {
+                taskExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // The executor is shutting down: the task is dropped
+            }
+        }
+    }
+
+    /** Doubly linked list of the timeouts of a slot, accessed by the worker thread only. */
+    private static final class Bucket {
+
+        private TimeoutImpl head;
+        private TimeoutImpl tail;
+
+        void add(TimeoutImpl timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        TimeoutImpl remove(TimeoutImpl timeout) {
+            TimeoutImpl next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        void expire(long deadline) {
+            TimeoutImpl timeout = head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0) {
+                    TimeoutImpl next = remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    }
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor taskExecutor;
+    private final Queue<TimeoutImpl> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<TimeoutImpl> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * Creates the wheel and starts its worker thread.
+     *
+     * @param tick          duration of a tick, the resolution of the timeouts
+     * @param wheelSize     number of buckets, rounded up to a power of two, at most {@code 1 << 30}
+     * @param threadFactory factory of the worker thread
+     * @param taskExecutor  runs the expired tasks
+     */
+    public HashedTimerWheel(Duration tick, int wheelSize, ThreadFactory threadFactory, Executor taskExecutor) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("The tick must be positive: " + tick);
+        }
+        int size = bucketCount(wheelSize);
+        this.tickNanos = tick.toNanos();
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.taskExecutor = taskExecutor;
+        this.startNanos = System.nanoTime();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * @return {@code wheelSize} rounded up to a power of two
+     * @throws IllegalArgumentException if {@code wheelSize} is not in {@code [1, 1 << 30]}: the
+     *                                  next power of two would not fit in an {@code int}
+     */
+    static int bucketCount(int wheelSize) {
+        if (wheelSize < 1 || wheelSize > MAX_WHEEL_SIZE) {
+            throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+        }
+        return wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+    }
+
+    /**
+     * Schedules {@code task} to run after {@code delay} (at the earliest, within one tick).
+     *
+     * @throws IllegalStateException if the wheel is closed
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (closed) {
+            throw new IllegalStateException("The timer wheel is closed");
+        }
+        long delayNanos = Math.max(0, delay.toNanos());
+        TimeoutImpl timeout = new TimeoutImpl(task, System.nanoTime() - startNanos + delayNanos);
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts neither expired nor cancelled yet
+     */
+    public long pendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * Stops the worker thread; pending timeouts never expire.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!closed) {
+            long deadline = waitForNextTick(tick);
+            if (deadline < 0) {
+                break;
+            }
+            removeCancelled();
+            transferNewTimeouts(tick);
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the end of {@code tick}.
+     *
+     * @return the current time since the start of the wheel, or -1 if closed
+     */
+    private long waitForNextTick(long tick) {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepNanos = deadline - now;
+            if (sleepNanos <= 0) {
+                return now;
+            }
+            if (closed) {
+                return -1;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    private void transferNewTimeouts(long tick) {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            TimeoutImpl timeout = newTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // A deadline already in the past expires with the current tick
+            long slotTick = Math.max(expiryTick, tick);
+            wheel[(int) (slotTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        TimeoutImpl timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            pendingTimeouts.decrementAndGet();
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.storage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.redis.datasource.value.SetArgs;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import it.dontesta.quarkus.sse.cluster.ProcessIds;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Deletes the documents older than {@code pdf.storage.retention} from MinIO,
+ * every {@code pdf.storage.janitor.interval}, when {@code pdf.storage.janitor.enabled}.
+ *
+ * <p>The documents of time-ordered processIds are stored under the day the
+ * processId was minted ({@link DocumentKeys#DAY_PREFIX}, {@code yyyy/MM/dd/}): the
+ * janitor lists the bucket root with a delimiter, for the year prefixes that exist,
+ * and in the years up to the one of the cutoff the month and day prefixes up to the
+ * day of the cutoff. It deletes the days before it whole and, in that day, the
+ * documents whose processId was minted before the cutoff. The documents of the other
+ * processIds, stored without prefix, are left to a bucket lifecycle rule.
+ *
+ * <p>One replica sweeps per interval: the others find the Redis lock
+ * {@value #LOCK_KEY} taken and skip their turn.
+ */
+@ApplicationScoped
+public class DocumentJanitor {
+
+    /** Redis key held by the replica sweeping in the current interval. */
+    static final String LOCK_KEY = "pdf:storage:janitor";
+
+    /** Most objects of a multi-object delete request. */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    /** Longest wait for the Redis lock. */
+    private static final Duration LOCK_TIMEOUT = Duration.ofSeconds(5);
+
+    /** Year, month or day prefix of the object keys. */
+    private static final Pattern DATE_PREFIX = Pattern.compile("\\d{4}/(\\d{2}/(\\d{2}/)?)?");
+
+    /** Length of a day prefix, {@code yyyy/MM/dd/}. */
+    private static final int DAY_PREFIX_LENGTH = "yyyy/MM/dd/".length();
+
+    @Inject
+    MinioClient minioClient;
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    ReplicaIdentity replicaIdentity;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @ConfigProperty(name = "pdf.minio.bucket-name")
+    String bucketName;
+
+    @Inject
+    @ConfigProperty(name = "pdf.storage.janitor.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "pdf.storage.retention", defaultValue = "7d")
+    Duration retention;
+
+    @Inject
+    @ConfigProperty(name = "pdf.storage.janitor.interval", defaultValue = "1h")
+    Duration interval;
+
+    private ScheduledExecutorService executor;
+
+    Counter deletedCounter;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        deletedCounter = Counter.builder("pdf.storage.janitor.deleted.total")
+                .description("Total number of documents deleted from MinIO past their retention")
+                .register(meterRegistry);
+        executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pdf-storage-janitor").daemon().factory());
+        executor.scheduleWithFixedDelay(this::runSafely, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    void onShutdown(@Observes ShutdownEvent ev) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code true} if the janitor has deleted, or is due to delete, the
+     *         documents of {@code processId}: read from the time in its id, without
+     *         asking MinIO
+     */
+    public boolean expired(String processId) {
+        Instant cutoff = Instant.now().minus(retention);
+        return enabled && ProcessIds.createdAt(processId).map(createdAt -> createdAt.isBefore(cutoff)).orElse(false);
+    }
+
+    private void runSafely() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            Log.errorf(e, "Failed to delete the expired documents from MinIO bucket: %s", bucketName);
+        }
+    }
+
+    private void run() {
+        String holder = reactiveRedisDS.value(String.class)
+                .setGet(LOCK_KEY, replicaIdentity.id(), new SetArgs().nx().ex(interval))
+                .await().atMost(LOCK_TIMEOUT);
+        if (holder != null) {
+            Log.debugf("Expired documents swept by replica %s in this interval", holder);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        Instant cutoff = Instant.now().minus(retention);
+        int deleted = sweep(cutoff);
+        Log.debugf("Deleted %d document(s) minted before %s from MinIO bucket %s in %d ms", deleted, cutoff,
+                bucketName, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Deletes the documents minted before {@code cutoff}.
+     *
+     * @return the number of documents deleted
+     */
+    int sweep(Instant cutoff) {
+        Deletion deletion = new Deletion();
+        expired(cutoff, deletion::add);
+        return deletion.finish();
+    }
+
+    /**
+     * Lists the documents minted before {@code cutoff} to {@code expired}.
+     */
+    void expired(Instant cutoff, Consumer<String> expired) {
+        String cutoffDay = DocumentKeys.DAY_PREFIX.format(cutoff);
+        // The root lists the year prefixes that exist, whatever the gaps between them
+        expired(list(""), cutoffDay, cutoff, expired);
+    }
+
+    /**
+     * Lists the expired documents among {@code items}, listed under the root, a year,
+     * month or day prefix, descending into the year, month and day prefixes up to
+     * {@code cutoffDay}.
+     */
+    private void expired(List<Item> items, String cutoffDay, Instant cutoff, Consumer<String> expired) {
+        for (Item item : items) {
+            String name = item.objectName();
+            if (item.isDir()) {
+                if (DATE_PREFIX.matcher(name).matches()
+                        && name.compareTo(cutoffDay.substring(0, name.length())) <= 0) {
+                    expired(list(name), cutoffDay, cutoff, expired);
+                }
+                continue;
+            }
+            String day = name.substring(0, name.lastIndexOf('/') + 1);
+            if (day.length() == DAY_PREFIX_LENGTH && (day.compareTo(cutoffDay) < 0 || mintedBefore(name, cutoff))) {
+                expired.accept(name);
+            }
+        }
+    }
+
+    private static boolean mintedBefore(String objectName, Instant cutoff) {
+        String fileName = objectName.substring(objectName.lastIndexOf('/') + 1);
+        int extension = fileName.lastIndexOf('.');
+        String processId = extension < 0 ? fileName : fileName.substring(0, extension);
+        return ProcessIds.createdAt(processId).map(createdAt -> createdAt.isBefore(cutoff)).orElse(false);
+    }
+
+    private List<Item> list(String prefix) {
+        List<Item> items = new ArrayList<>();
+        for (Result<Item> result : minioClient.listObjects(
+                ListObjectsArgs.builder().bucket(bucketName).prefix(prefix).recursive(false).build())) {
+            try {
+                items.add(result.get());
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to list the prefix '" + prefix + "'", e);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * The expired documents of a sweep, deleted in batches of {@value #DELETE_BATCH_SIZE}.
+     */
+    private final class Deletion {
+
+        private final List<DeleteObject> batch = new ArrayList<>();
+        private int deleted;
+
+        void add(String objectName) {
+            batch.add(new DeleteObject(objectName));
+            if (batch.size() == DELETE_BATCH_SIZE) {
+                deleted += delete(batch);
+            }
+        }
+
+        /**
+         * Deletes the last batch.
+         *
+         * @return the number of documents deleted
+         */
+        int finish() {
+            return deleted + delete(batch);
+        }
+    }
+
+    /**
+     * Deletes the objects of {@code batch}, then clears it.
+     *
+     * @return the number of objects deleted
+     */
+    private int delete(List<DeleteObject> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int failed = 0;
+        // The request is only sent while the results are iterated
+        for (Result<DeleteError> result : minioClient.removeObjects(
+                RemoveObjectsArgs.builder().bucket(bucketName).objects(List.copyOf(batch)).build())) {
+            failed++;
+            try {
+                DeleteError error = result.get();
+                Log.warnf("Failed to delete expired document %s: %s", error.objectName(), error.message());
+            } catch (Exception e) {
+                Log.warnf(e, "Failed to delete expired documents from MinIO bucket: %s", bucketName);
+            }
+        }
+        int deleted = batch.size() - failed;
+        batch.clear();
+        deletedCounter.increment(deleted);
+        return deleted;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.storage;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import it.dontesta.quarkus.sse.cluster.ProcessIds;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+
+/**
+ * MinIO object keys of the documents.
+ *
+ * <p>The document of a time-ordered processId is stored under the UTC day the
+ * processId was minted ({@link #DAY_PREFIX}, {@code yyyy/MM/dd/}), so that the
+ * {@link DocumentJanitor} can list, and expire, the documents by day; the one of
+ * any other processId is stored without prefix.
+ */
+public final class DocumentKeys {
+
+    /** Prefix of the object keys: the UTC day the processId was minted. */
+    public static final DateTimeFormatter DAY_PREFIX = DateTimeFormatter.ofPattern("yyyy/MM/dd/")
+            .withZone(ZoneOffset.UTC);
+
+    private DocumentKeys() {
+    }
+
+    /**
+     * @return the object key of the document of {@code processId} in {@code format}:
+     *         its file name, under the day the processId was minted when it is time-ordered
+     */
+    public static String objectKey(String processId, DocFormat format) {
+        return ProcessIds.createdAt(processId).map(DAY_PREFIX::format).orElse("") + format.fileName(processId);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.mutiny.core.MultiMap;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Carries the W3C trace context ({@code traceparent}, {@code tracestate}) of a
+ * PDF generation across the hops of the pipeline, so that a job can be followed
+ * from the replica that accepted it to the one that rendered it and the one that
+ * delivered the SSE event:
+ * <ul>
+ *   <li>event bus: as {@link DeliveryOptions} headers;</li>
+ *   <li>Redis Pub/Sub and pending-buffer payloads: as the {@value #PAYLOAD_FIELD}
+ *       object of the JSON event, removed again before the event is decoded.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class TracePropagation {
+
+    /** Name of the JSON field holding the trace context in Redis payloads. */
+    public static final String PAYLOAD_FIELD = "traceContext";
+
+    /** Span attribute with the processId of the PDF generation. */
+    public static final AttributeKey<String> PROCESS_ID = AttributeKey.stringKey("pdf.process_id");
+
+    /** Span attribute with the document chain used for rendering. */
+    public static final AttributeKey<String> CHAIN_ID = AttributeKey.stringKey("pdf.chain_id");
+
+    /** Span attribute with the output format of the document. */
+    public static final AttributeKey<String> FORMAT = AttributeKey.stringKey("pdf.format");
+
+    private static final TextMapSetter<DeliveryOptions> DELIVERY_OPTIONS_SETTER =
+            (options, key, value) -> options.addHeader(key, value);
+
+    private static final TextMapGetter<MultiMap> HEADERS_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(MultiMap headers) {
+            return headers == null ? List.of() : headers.names();
+        }
+
+        @Override
+        public String get(MultiMap headers, String key) {
+            return headers == null ? null : headers.get(key);
+        }
+    };
+
+    private static final TextMapSetter<ObjectNode> PAYLOAD_SETTER = (payload, key, value) -> payload.put(key, value);
+
+    private static final TextMapGetter<JsonNode> PAYLOAD_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(JsonNode payload) {
+            List<String> keys = new ArrayList<>();
+            payload.fieldNames().forEachRemaining(keys::add);
+            return keys;
+        }
+
+        @Override
+        public String get(JsonNode payload, String key) {
+            JsonNode value = payload == null ? null : payload.get(key);
+            return value == null || !value.isTextual() ? null : value.asText();
+        }
+    };
+
+    private final TextMapPropagator propagator;
+
+    public TracePropagation(OpenTelemetry openTelemetry) {
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+    }
+
+    /**
+     * Adds the trace context of {@code context} to the headers of {@code options}.
+     *
+     * @return {@code options}, for chaining
+     */
+    public DeliveryOptions inject(Context context, DeliveryOptions options) {
+        propagator.inject(context, options, DELIVERY_OPTIONS_SETTER);
+        return options;
+    }
+
+    /**
+     * Resumes the trace context carried by event bus message headers.
+     *
+     * @return the extracted context, or the root context if the headers carry none
+     */
+    public Context extract(MultiMap headers) {
+        return propagator.extract(Context.root(), headers, HEADERS_GETTER);
+    }
+
+    /**
+     * Embeds the trace context of {@code context} in a JSON event payload.
+     */
+    public void inject(Context context, ObjectNode payload) {
+        ObjectNode traceContext = payload.objectNode();
+        propagator.inject(context, traceContext, PAYLOAD_SETTER);
+        if (!traceContext.isEmpty()) {
+            payload.set(PAYLOAD_FIELD, traceContext);
+        }
+    }
+
+    /**
+     * Resumes the trace context embedded in a JSON event payload and removes it,
+     * so that the payload can be bound to the event record.
+     *
+     * @return the extracted context, or the root context if the payload carries none
+     */
+    public Context extractAndStrip(ObjectNode payload) {
+        JsonNode traceContext = payload.remove(PAYLOAD_FIELD);
+        if (traceContext == null || !traceContext.isObject()) {
+            return Context.root();
+        }
+        return propagator.extract(Context.root(), traceContext, PAYLOAD_GETTER);
+    }
+}
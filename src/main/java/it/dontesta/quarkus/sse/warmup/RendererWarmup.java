@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.crac.CheckpointException;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.crac.RestoreException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.fugerit.java.doc.base.config.DocInput;
+import org.fugerit.java.doc.base.config.DocOutput;
+import org.fugerit.java.doc.base.process.DocProcessData;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.StartupEvent;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline.FoPdfRenderer;
+import it.dontesta.quarkus.sse.fjdoc.DocChainIds;
+import it.dontesta.quarkus.sse.fjdoc.DocContexts;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import it.dontesta.quarkus.sse.fjdoc.DocHelper;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.interceptor.Interceptor;
+
+/**
+ * Fast start of the JVM build: renders every chain in every format at startup,
+ * before the replica takes traffic, so that FreeMarker, FOP, Batik and the
+ * type handlers are loaded and their hot paths compiled.
+ *
+ * <p>The warm-up is also the training workload of the fast-start modes:
+ * <ul>
+ * <li>with {@code pdf.warmup.exit=true} the application stops right after it,
+ * so that a run with {@code -XX:ArchiveClassesAtExit} dumps the classes of both
+ * chains to an AppCDS archive;</li>
+ * <li>with {@code pdf.warmup.checkpoint=true} a CRaC checkpoint is taken right
+ * after it, on a JVM started with {@code -XX:CRaCCheckpointTo}; a JVM restored
+ * with {@code -XX:CRaCRestoreFrom} resumes here, warm, and goes on with the
+ * startup.</li>
+ * </ul>
+ *
+ * <p>The observer runs before the others, so the checkpoint is taken before the
+ * Redis subscription and the HTTP listener open their sockets. The
+ * configuration read before it, ports included, is the one of the checkpoint.
+ */
+@ApplicationScoped
+public class RendererWarmup implements Resource {
+
+    @ConfigProperty(name = "pdf.warmup.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "pdf.warmup.iterations", defaultValue = "20")
+    int iterations;
+
+    @ConfigProperty(name = "pdf.warmup.exit", defaultValue = "false")
+    boolean exit;
+
+    @ConfigProperty(name = "pdf.warmup.checkpoint", defaultValue = "false")
+    boolean checkpoint;
+
+    void onStart(@Observes @Priority(Interceptor.Priority.PLATFORM_BEFORE) StartupEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        int documents = warmUp(DocChainIds.renderable(), iterations);
+        Log.infof("Renderer warm-up done: %d documents in %d ms", documents,
+                (System.nanoTime() - startNanos) / 1_000_000);
+
+        if (checkpoint) {
+            checkpoint();
+        }
+        if (exit) {
+            Log.info("Renderer warm-up run completed, exiting");
+            Quarkus.asyncExit();
+        }
+    }
+
+    /**
+     * Renders the sample document of every chain in every format, {@code iterations} times.
+     *
+     * @return the documents rendered
+     */
+    int warmUp(List<String> chainIds, int iterations) {
+        DocHelper docHelper = new DocHelper();
+        FoPdfRenderer foPdfRenderer = new FoPdfRenderer();
+        int documents = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String chainId : chainIds) {
+                for (DocFormat format : DocFormat.values()) {
+                    try {
+                        String handlerId = format == DocFormat.PDF ? FoPdfRenderer.FO_HANDLER_ID : format.handlerId();
+                        byte[] document = render(docHelper, chainId, handlerId, "warmup-" + i);
+                        if (format == DocFormat.PDF) {
+                            foPdfRenderer.render(document);
+                        }
+                        documents++;
+                    } catch (Exception e) {
+                        // A chain that cannot be rendered fails its generations too: not a startup failure
+                        Log.warnf(e, "Renderer warm-up of chain '%s' (%s) failed", chainId, format.param());
+                    }
+                }
+            }
+        }
+        return documents;
+    }
+
+    private static byte[] render(DocHelper docHelper, String chainId, String handlerId, String processId)
+            throws Exception {
+        DocProcessData data = new DocProcessData();
+        docHelper.getDocProcessConfig().process(chainId,
+                DocContexts.newContext(processId, DocContexts.samplePeople()), data);
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            docHelper.getDocProcessConfig().getFacade().handle(
+                    DocInput.newInput(handlerId, data.getCurrentXmlReader()), DocOutput.newOutput(baos));
+            return baos.toByteArray();
+        }
+    }
+
+    private void checkpoint() {
+        Core.getGlobalContext().register(this);
+        try {
+            Log.info("Taking a CRaC checkpoint after the renderer warm-up");
+            Core.checkpointRestore();
+        } catch (CheckpointException | RestoreException | UnsupportedOperationException e) {
+            Log.warnf(e, "CRaC checkpoint failed, starting without it");
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        Log.debug("Renderer warm-up: checkpointing");
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        Log.info("Restored from a CRaC checkpoint taken after the renderer warm-up");
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ws.management;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.quarkus.vertx.http.ManagementInterface;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import it.dontesta.quarkus.sse.cluster.DrainCoordinator;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Management endpoint to drain the replica before it is stopped, e.g. from the
+ * {@code preStop} hook of its pod: see {@link DrainCoordinator}.
+ *
+ * <p>Served on the management interface ({@code quarkus.management.port}), never
+ * on the HTTP port the route and the reverse proxy expose: it has no
+ * authentication, only the network of the replica reaches it. Not registered
+ * with {@code pdf.drain.enabled=false}, so it answers {@code 404 Not Found} then.
+ */
+@ApplicationScoped
+public class DrainRoutes {
+
+    static final String PATH = "/api/admin/drain";
+
+    @Inject
+    DrainCoordinator drainCoordinator;
+
+    @Inject
+    ReplicaIdentity replicaIdentity;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    void register(@Observes ManagementInterface managementInterface) {
+        if (!drainCoordinator.isEnabled()) {
+            return;
+        }
+        Router router = managementInterface.router();
+        router.get(PATH).blockingHandler(this::status);
+        router.post(PATH).blockingHandler(this::drain);
+    }
+
+    private void status(RoutingContext context) {
+        Map<String, Object> status = Map.of("replica", replicaIdentity.id(), "draining",
+                drainCoordinator.isDraining(), "drained", drainCoordinator.isDrained());
+        try {
+            context.response()
+                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .end(objectMapper.writeValueAsString(status));
+        } catch (JsonProcessingException e) {
+            context.fail(e);
+        }
+    }
+
+    /**
+     * Starts the drain of the replica; a replica already draining goes on. Answers
+     * {@code 202 Accepted}: the drain runs in the background, poll {@code GET} for its end.
+     */
+    private void drain(RoutingContext context) {
+        drainCoordinator.drain();
+        context.response().setStatusCode(202).end();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ws.management;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.quarkus.logging.Log;
+import io.quarkus.vertx.http.ManagementInterface;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import it.dontesta.quarkus.sse.jfr.JfrRecordingService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Management endpoint to profile a live replica with JDK Flight Recorder,
+ * without restarting it: start a bounded recording, then stop it and download
+ * the {@code .jfr} file (to open with JDK Mission Control or {@code jfr print}).
+ *
+ * <p>Served on the management interface ({@code quarkus.management.port}), never
+ * on the HTTP port the route and the reverse proxy expose: it has no
+ * authentication, only the network of the replica reaches it. Not registered
+ * unless {@code pdf.profiling.enabled=true}, so it answers {@code 404 Not Found} otherwise.
+ */
+@ApplicationScoped
+public class ProfilingRoutes {
+
+    static final String PATH = "/api/admin/jfr";
+
+    @Inject
+    JfrRecordingService recordingService;
+
+    @Inject
+    ReplicaIdentity replicaIdentity;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    @ConfigProperty(name = "pdf.profiling.enabled", defaultValue = "false")
+    boolean enabled;
+
+    void register(@Observes ManagementInterface managementInterface) {
+        if (!enabled) {
+            return;
+        }
+        Router router = managementInterface.router();
+        router.get(PATH).blockingHandler(this::status);
+        router.post(PATH + "/start").blockingHandler(this::start);
+        router.post(PATH + "/stop").blockingHandler(this::stop);
+    }
+
+    private void status(RoutingContext context) {
+        recordingService.status().ifPresentOrElse(
+                status -> json(context, 200, status),
+                () -> context.response().setStatusCode(404).end());
+    }
+
+    /**
+     * Starts a recording, with the query parameters {@code durationSeconds}, capped to
+     * {@code pdf.profiling.jfr.max-duration}, and {@code settings}, the JFR configuration
+     * {@code default} (lowest overhead) or {@code profile}. Answers {@code 201 Created} with
+     * the recording status, {@code 409 Conflict} if one is already running,
+     * {@code 400 Bad Request} for unknown settings.
+     */
+    private void start(RoutingContext context) {
+        String durationSeconds = context.queryParams().get("durationSeconds");
+        String settings = context.queryParams().get("settings");
+        Duration duration;
+        try {
+            duration = durationSeconds == null ? null : Duration.ofSeconds(Long.parseLong(durationSeconds));
+        } catch (NumberFormatException e) {
+            text(context, 400, "Invalid durationSeconds: " + durationSeconds);
+            return;
+        }
+        try {
+            json(context, 201, recordingService.start(duration, settings));
+        } catch (IllegalStateException e) {
+            text(context, 409, e.getMessage());
+        } catch (ParseException | IOException e) {
+            Log.warnf(e, "Could not start JFR recording with settings %s", settings);
+            text(context, 400, "Cannot start JFR recording: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the recording (if still running) and answers its file, or
+     * {@code 409 Conflict} if no recording was started.
+     */
+    private void stop(RoutingContext context) {
+        try {
+            Path file = recordingService.stop();
+            String fileName = "pdf-profiling-" + replicaIdentity.id() + "-" + System.currentTimeMillis() + ".jfr";
+            context.response()
+                    .putHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + fileName)
+                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+                    .sendFile(file.toString());
+        } catch (IllegalStateException e) {
+            text(context, 409, e.getMessage());
+        } catch (IOException e) {
+            Log.errorf(e, "Could not write JFR recording");
+            text(context, 500, e.getMessage());
+        }
+    }
+
+    private void json(RoutingContext context, int statusCode, Object body) {
+        try {
+            context.response()
+                    .setStatusCode(statusCode)
+                    .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .end(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            context.fail(e);
+        }
+    }
+
+    private static void text(RoutingContext context, int statusCode, String message) {
+        context.response()
+                .setStatusCode(statusCode)
+                .putHeader(HttpHeaders.CONTENT_TYPE, "text/plain")
+                .end(message);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ws.rs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.smallrye.mutiny.Uni;
+import it.dontesta.quarkus.sse.cluster.ProcessIds;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Snapshot of the state of PDF generations, answered from the Redis job hashes
+ * of {@link JobStateStore}: for monitoring tools and clients that cannot hold
+ * an SSE connection.
+ */
+@ApplicationScoped
+@Path("/api/pdf/jobs")
+public class JobStatusResource {
+
+    @Inject
+    JobStateStore jobStateStore;
+
+    @Inject
+    @ConfigProperty(name = "pdf.jobs.status.max-ids", defaultValue = "500")
+    int maxIds;
+
+    /**
+     * @param processId the identifier returned by {@code /generate}
+     * @return the status of the job, or {@code 404 Not Found} if unknown or expired
+     */
+    @GET
+    @Path("/{processId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getStatus(@PathParam("processId") String processId) {
+        if (!ProcessIds.isWellFormed(processId)) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).build());
+        }
+        return jobStateStore.get(processId)
+                .map(status -> status
+                        .map(found -> Response.ok(found).build())
+                        .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build()));
+    }
+
+    /**
+     * Resolves the status of many jobs with a single Redis pipeline.
+     *
+     * @param processIds JSON array of process identifiers; duplicates are ignored
+     * @return the statuses in request order ({@code NOT_FOUND} for unknown ids), or
+     *         {@code 400 Bad Request} for an empty list, an invalid id or more than
+     *         {@code pdf.jobs.status.max-ids} ids
+     */
+    @POST
+    @Path("/status")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getStatuses(List<String> processIds) {
+        if (processIds == null || processIds.isEmpty()) {
+            return badRequest("At least one processId is required");
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String processId : processIds) {
+            if (!ProcessIds.isWellFormed(processId)) {
+                return badRequest("Invalid processId: " + processId);
+            }
+            distinct.add(processId);
+        }
+        if (distinct.size() > maxIds) {
+            return badRequest("Too many processIds requested: the maximum is " + maxIds);
+        }
+        return jobStateStore.getAll(new ArrayList<>(distinct))
+                .map(statuses -> Response.ok(statuses).build());
+    }
+
+    private static Uni<Response> badRequest(String message) {
+        return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                .entity(message)
+                .type(MediaType.TEXT_PLAIN)
+                .build());
+    }
+}
@@ -4,41 +4,105 @@
  */
 package it.dontesta.quarkus.sse.ws.rs;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.UUID;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.minio.GetObjectArgs;
 import io.minio.MinioClient;
 import io.minio.errors.ErrorResponseException;
+import io.opentelemetry.context.Context;
 import io.quarkus.logging.Log;
 import io.quarkus.qute.TemplateInstance;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.smallrye.common.annotation.Blocking;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.http.HttpServerRequest;
 import io.vertx.mutiny.core.eventbus.EventBus;
+import it.dontesta.quarkus.sse.archive.PdfArchiveStreamer;
+import it.dontesta.quarkus.sse.cluster.DrainCoordinator;
+import it.dontesta.quarkus.sse.cluster.ProcessIds;
+import it.dontesta.quarkus.sse.data.DataSpool;
+import it.dontesta.quarkus.sse.data.DocData;
 import it.dontesta.quarkus.sse.eventbus.codec.PdfGenerationRequestCodec;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationRequest;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.PdfEventProcessor;
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation.PdfJobCancellation;
 import it.dontesta.quarkus.sse.eventbus.sse.SseBroadcaster;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import it.dontesta.quarkus.sse.fjdoc.DocRows;
+import it.dontesta.quarkus.sse.idempotency.IdempotencyKeyStore;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import it.dontesta.quarkus.sse.jobs.JobStatus;
+import it.dontesta.quarkus.sse.preview.DocPreviewService;
 import it.dontesta.quarkus.sse.qute.Templates;
+import it.dontesta.quarkus.sse.ratelimit.RateLimitDecision;
+import it.dontesta.quarkus.sse.ratelimit.TokenBucketRateLimiter;
+import it.dontesta.quarkus.sse.scheduling.GenerationScheduler;
+import it.dontesta.quarkus.sse.storage.DocumentJanitor;
+import it.dontesta.quarkus.sse.storage.DocumentKeys;
+import it.dontesta.quarkus.sse.tracing.TracePropagation;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.sse.OutboundSseEvent;
 
 @ApplicationScoped
 @Path("/api/pdf")
 public class PdfResource {
 
+    /** Media type of the multi-document archive download. */
+    static final String APPLICATION_ZIP = "application/zip";
+
+    /** Response header set on the responses replayed for a duplicate {@code Idempotency-Key}. */
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /** Rate limit response headers (IETF draft {@code RateLimit} header fields). */
+    static final String RATE_LIMIT_LIMIT_HEADER = "RateLimit-Limit";
+    static final String RATE_LIMIT_REMAINING_HEADER = "RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET_HEADER = "RateLimit-Reset";
+
+    /** Request header of a reconnecting {@code EventSource}. */
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    /** Media type of newline-delimited JSON data. */
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /** {@code Retry-After} of the generations refused by a draining replica, in seconds. */
+    private static final int DRAINING_RETRY_AFTER_SECONDS = 1;
+
+    /** Longest wait for the job state when choosing the chain and the rows of a preview. */
+    private static final Duration PREVIEW_STATE_TIMEOUT = Duration.ofSeconds(1);
+
     @Inject
     EventBus eventBus;
 
@@ -48,9 +112,48 @@ public class PdfResource {
     @Inject
     SseBroadcaster sseBroadcaster;
 
+    @Inject
+    ProcessIds processIds;
+
+    @Inject
+    DocumentJanitor documentJanitor;
+
     @Inject
     MinioClient minioClient;
 
+    @Inject
+    PdfArchiveStreamer archiveStreamer;
+
+    @Inject
+    TracePropagation tracePropagation;
+
+    @Inject
+    PdfJobCancellation jobCancellation;
+
+    @Inject
+    IdempotencyKeyStore idempotencyKeyStore;
+
+    @Inject
+    JobStateStore jobStateStore;
+
+    @Inject
+    GenerationScheduler generationScheduler;
+
+    @Inject
+    TokenBucketRateLimiter rateLimiter;
+
+    @Inject
+    DocPreviewService previewService;
+
+    @Inject
+    PdfEventProcessor pdfEventProcessor;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DrainCoordinator drainCoordinator;
+
     @Inject
     @ConfigProperty(name = "pdf.minio.bucket-name")
     String bucketName;
@@ -59,38 +162,328 @@ public class PdfResource {
     @ConfigProperty(name = "pdf.eventbus.destination.requests", defaultValue = "pdf-generation-requests")
     String requestsDestination;
 
+    @Inject
+    @ConfigProperty(name = "pdf.data.memory-threshold", defaultValue = "1M")
+    MemorySize dataMemoryThreshold;
+
+    @Inject
+    @ConfigProperty(name = "pdf.data.max-size", defaultValue = "10M")
+    MemorySize dataMaxSize;
+
+    @Inject
+    @ConfigProperty(name = "pdf.data.spool-dir")
+    Optional<Path> dataSpoolDir;
+
+    /**
+     * Starts the generation of a PDF.
+     *
+     * <p>Requests carrying the same {@value IdempotencyKeyStore#HEADER} header
+     * (double clicks, client retries) get the processId of the first one and
+     * start no new generation; their SSE streams join the one of the first
+     * request. Replayed responses have the {@value #IDEMPOTENT_REPLAYED_HEADER}
+     * header set to {@code true}.
+     *
+     * <p>With {@code notBefore} in the future the generation is deferred: the
+     * schedule is persisted, so it survives a restart and runs on whichever
+     * replica claims it first. The job state is {@code ACCEPTED} until then.
+     *
+     * <p>Each client (API key, or IP address without one) is rate limited by a
+     * token bucket shared by the replicas. Responses carry the
+     * {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset}
+     * headers; rejected requests get
+     * {@code 429 Too Many Requests} with {@code Retry-After}.
+     *
+     * @param idempotencyKey optional key identifying the submission, up to 255 visible ASCII characters
+     * @param notBefore      optional ISO-8601 instant (e.g. {@code 2025-06-01T08:00:00Z}) before which the
+     *                       generation does not start, at most {@code pdf.scheduling.max-delay} from now
+     * @param format         output format: {@code pdf} (default), {@code html} or {@code md}; the last two
+     *                       skip FOP and are downloaded with {@code /download/{processId}?format=...}
+     * @return the processId, {@code 400 Bad Request} for an invalid idempotency key, {@code notBefore} or format,
+     *         {@code 429 Too Many Requests} when the rate limit of the client is exceeded,
+     *         {@code 503 Service Unavailable} with {@code Retry-After} when the replica drains
+     */
+    @POST
+    @Path("/generate")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Uni<Response> generatePdf(@HeaderParam(IdempotencyKeyStore.HEADER) String idempotencyKey,
+            @QueryParam("notBefore") String notBefore,
+            @QueryParam("format") String format,
+            @jakarta.ws.rs.core.Context HttpServerRequest httpRequest) {
+        if (drainCoordinator.isDraining()) {
+            return Uni.createFrom().item(draining());
+        }
+        // The context of the request is captured here: the Redis calls complete on an I/O thread
+        Context context = Context.current();
+        return rateLimited(rateLimiter.acquire(rateLimiter.clientId(httpRequest)),
+                () -> submit(idempotencyKey, notBefore, format, context, null));
+    }
+
+    /**
+     * Starts the generation of a document listing the rows sent in the body: a
+     * JSON array of objects ({@code application/json}) or one object per line
+     * ({@code application/x-ndjson}), each with the {@code name}, {@code surname}
+     * and {@code title} of a person.
+     *
+     * <p>The body is validated by a streaming parser while it is spooled, in memory
+     * up to {@code pdf.data.memory-threshold} bytes and to a temporary file beyond,
+     * and the templates read the rows back one at a time: the heap does not grow
+     * with the size of the data. The spool is deleted once the generation is done.
+     *
+     * <p>Idempotency, format and rate limiting are the same as without a body. The
+     * spool is local to the replica, so the generation cannot be deferred.
+     *
+     * @param contentType {@code application/json} or {@code application/x-ndjson}
+     * @param body        the rows of the document, at most {@code pdf.data.max-size} bytes
+     * @return the processId, {@code 400 Bad Request} for invalid data or with {@code notBefore},
+     *         {@code 413 Content Too Large} for data over the limit, and the errors of the request without a body
+     */
     @POST
     @Path("/generate")
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
     @Produces(MediaType.TEXT_PLAIN)
-    public Uni<String> generatePdf() {
-        String processId = UUID.randomUUID().toString();
+    @Blocking  // the body is read and spooled with blocking I/O
+    public Uni<Response> generatePdfWithData(@HeaderParam(IdempotencyKeyStore.HEADER) String idempotencyKey,
+            @QueryParam("notBefore") String notBefore,
+            @QueryParam("format") String format,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @jakarta.ws.rs.core.Context HttpServerRequest httpRequest,
+            InputStream body) {
+        if (contentType == null) {
+            // A POST without a body has no Content-Type and can be matched by either method
+            return generatePdf(idempotencyKey, notBefore, format, httpRequest);
+        }
+        if (drainCoordinator.isDraining()) {
+            return Uni.createFrom().item(draining());
+        }
+        Context context = Context.current();
+        // Back on a worker thread once the bucket is read: the body must not be read on an I/O thread
+        return rateLimited(rateLimiter.acquire(rateLimiter.clientId(httpRequest))
+                .emitOn(Infrastructure.getDefaultWorkerPool()), () -> {
+                    if (notBefore != null) {
+                        return Uni.createFrom().item(badRequest("Invalid notBefore: not supported with data"));
+                    }
+                    DocData.Format dataFormat = contentType != null && contentType.isCompatible(
+                            MediaType.valueOf(APPLICATION_NDJSON)) ? DocData.Format.NDJSON : DocData.Format.JSON;
+                    DocData data;
+                    try {
+                        data = DocData.read(body, dataFormat, DataSpool.writer(dataMemoryThreshold.asLongValue(),
+                                dataMaxSize.asLongValue(), dataSpoolDir.orElse(null)), objectMapper);
+                    } catch (JsonProcessingException e) {
+                        return Uni.createFrom().item(badRequest("Invalid data: " + e.getOriginalMessage()));
+                    } catch (DataSpool.TooLargeException e) {
+                        return Uni.createFrom().item(Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                                .entity(e.getMessage())
+                                .type(MediaType.TEXT_PLAIN)
+                                .build());
+                    } catch (IOException e) {
+                        Log.errorf(e, "Failed to read the data of a PDF generation request");
+                        return Uni.createFrom().item(Response.serverError()
+                                .entity("Cannot read the data")
+                                .type(MediaType.TEXT_PLAIN)
+                                .build());
+                    }
+                    Log.debugf("Received %d rows (%d bytes, spilled: %s) for a PDF generation",
+                            data.size(), data.bytes(), data.spilled());
+                    return submit(idempotencyKey, null, format, context, data)
+                            .onFailure().invoke(() -> discard(data));
+                });
+    }
+
+    /**
+     * @return {@code 503 Service Unavailable}: the client retries on another replica
+     */
+    private static Response draining() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity("Replica draining, retry")
+                .type(MediaType.TEXT_PLAIN)
+                .header(HttpHeaders.RETRY_AFTER, DRAINING_RETRY_AFTER_SECONDS)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} if the client is within its rate limit, adding the rate
+     * limit headers to its response; {@code 429 Too Many Requests} otherwise.
+     */
+    private Uni<Response> rateLimited(Uni<RateLimitDecision> acquired, Supplier<Uni<Response>> action) {
+        return acquired.chain(decision -> {
+            if (!decision.allowed()) {
+                return Uni.createFrom().item(withRateLimitHeaders(
+                        Response.status(Response.Status.TOO_MANY_REQUESTS)
+                                .entity("Rate limit exceeded")
+                                .type(MediaType.TEXT_PLAIN)
+                                .header(HttpHeaders.RETRY_AFTER, decision.retryAfterSeconds()),
+                        decision).build());
+            }
+            return action.get()
+                    .map(response -> withRateLimitHeaders(Response.fromResponse(response), decision).build());
+        });
+    }
+
+    /**
+     * Validates the parameters of a generation and starts it. {@code data}, if any,
+     * is handed over to the generation, or deleted when none is started.
+     */
+    private Uni<Response> submit(String idempotencyKey, String notBefore, String formatParam, Context context,
+            DocData data) {
+        String candidateProcessId = processIds.newProcessId();
+        DocFormat format;
+        try {
+            format = DocFormat.fromParam(formatParam);
+        } catch (IllegalArgumentException e) {
+            discard(data);
+            return Uni.createFrom().item(badRequest("Invalid format: pdf, html or md is expected"));
+        }
+        Instant deferredTo;
+        try {
+            deferredTo = notBefore == null ? null : Instant.parse(notBefore);
+        } catch (DateTimeParseException e) {
+            return Uni.createFrom().item(badRequest("Invalid notBefore: an ISO-8601 instant is expected"));
+        }
+        if (deferredTo != null && deferredTo.isAfter(Instant.now().plus(generationScheduler.getMaxDelay()))) {
+            return Uni.createFrom().item(badRequest("Invalid notBefore: more than "
+                    + generationScheduler.getMaxDelay() + " from now"));
+        }
+        if (deferredTo != null && !deferredTo.isAfter(Instant.now())) {
+            // Already due: generated right away
+            deferredTo = null;
+        }
+        Instant deferral = deferredTo;
+        if (idempotencyKey == null) {
+            return accepted(candidateProcessId, context, deferral, format, data);
+        }
+        if (!IdempotencyKeyStore.isValid(idempotencyKey)) {
+            discard(data);
+            return Uni.createFrom().item(badRequest("Invalid " + IdempotencyKeyStore.HEADER + " header"));
+        }
+        return idempotencyKeyStore.claim(idempotencyKey, format, candidateProcessId)
+                .chain(claim -> {
+                    if (claim.replayed()) {
+                        Log.debugf("Duplicate PDF generation request collapsed onto ID: %s", claim.processId());
+                        discard(data);
+                        return Uni.createFrom().item(Response.ok(claim.processId(), MediaType.TEXT_PLAIN)
+                                .header(IDEMPOTENT_REPLAYED_HEADER, "true")
+                                .build());
+                    }
+                    return accepted(claim.processId(), context, deferral, format, data);
+                });
+    }
+
+    /**
+     * Records the job as accepted in its state hash, then publishes the generation
+     * request of {@code processId} to the event bus, or schedules it when
+     * {@code notBefore} is not {@code null}. The state is written first so
+     * that it cannot overtake the states written by the processor; a failure to
+     * write it does not prevent the generation.
+     */
+    private Uni<Response> accepted(String processId, Context context, Instant notBefore, DocFormat format,
+            DocData data) {
+        Uni<Void> stateWritten;
+        if (notBefore != null) {
+            stateWritten = jobStateStore.accepted(processId, notBefore);
+        } else if (data != null) {
+            stateWritten = jobStateStore.acceptedWithData(processId, data.size());
+        } else {
+            stateWritten = jobStateStore.accepted(processId);
+        }
+        stateWritten = stateWritten
+                .onFailure().recoverWithItem(err -> {
+                    Log.warnf(err, "Failed to record the accepted state of processId: %s", processId);
+                    return null;
+                });
+
+        if (notBefore != null) {
+            Log.debugf("Deferring the PDF generation for ID: %s to %s", processId, notBefore);
+            return stateWritten
+                    .chain(() -> generationScheduler.schedule(processId, format, notBefore))
+                    .map(v -> Response.ok(processId, MediaType.TEXT_PLAIN).build());
+        }
+
         Log.debugf("Starting the PDF generation for ID: " + processId);
+        PdfGenerationRequest request = new PdfGenerationRequest(processId, format, data);
+
+        return stateWritten
+                .map(v -> {
+                    // Publish a request to the event bus for PDF generation
+                    eventBus.publish(
+                            requestsDestination,
+                            request,
+                            tracePropagation.inject(context,
+                                    new DeliveryOptions().setCodecName(PdfGenerationRequestCodec.CODEC_NAME)));
 
-        // Publish a request to the event bus for PDF generation
-        eventBus.publish(
-                requestsDestination,
-                new PdfGenerationRequest(processId),
-                new DeliveryOptions().setCodecName(PdfGenerationRequestCodec.CODEC_NAME));
+                    Log.debugf("Request the PDF generation for ID %s sent to the event bus.", processId);
 
-        Log.debugf("Request the PDF generation for ID %s sent to the event bus.", processId);
+                    return Response.ok(processId, MediaType.TEXT_PLAIN).build();
+                });
+    }
 
-        return Uni.createFrom().item(processId);
+    /**
+     * Cancels the generation of {@code processId}, on whichever replica holds it:
+     * a deferred, scheduled or queued job is dropped, a running one stops before the upload.
+     * The SSE stream of the process, if any, receives a {@code PDF_ERROR} event.
+     * A job whose upload has already started completes normally.
+     *
+     * @param processId the identifier returned by {@code /generate}
+     * @return {@code 202 Accepted} once the cancellation is requested, {@code 400 Bad Request}
+     *         for an invalid identifier
+     */
+    @DELETE
+    @Path("/{processId}")
+    public Uni<Response> cancelPdf(@PathParam("processId") String processId) {
+        if (!ProcessIds.isWellFormed(processId)) {
+            return Uni.createFrom().item(badRequest("Invalid processId"));
+        }
+        // A deferred job is removed from the schedules; the request also covers a generation that just started
+        return generationScheduler.unschedule(processId)
+                .chain(() -> jobCancellation.requestCancel(processId))
+                .map(v -> Response.accepted().build());
     }
 
+    /**
+     * Streams the {@code PDF_COMPLETED} or {@code PDF_ERROR} event of the process,
+     * after a {@code retry:} hint advised from the load of the replica. A draining
+     * or overloaded replica only sends the hint and ends the stream: the client
+     * reconnects later, possibly to another replica.
+     *
+     * @param processId   the identifier returned by {@code /generate}
+     * @param lastEventId sent by the browser when it reconnects
+     * @return the SSE stream of the process
+     */
     @GET
     @Path("/status/{processId}")
     @Produces(MediaType.SERVER_SENT_EVENTS)
-    public Multi<OutboundSseEvent> getPdfStatus(@PathParam("processId") String processId) {
+    public Multi<OutboundSseEvent> getPdfStatus(@PathParam("processId") String processId,
+            @HeaderParam(LAST_EVENT_ID_HEADER) String lastEventId) {
         Log.debugf("The client requested status for ID: %s", processId);
-        return sseBroadcaster.createStream(processId);
+        if (drainCoordinator.isDraining()) {
+            return sseBroadcaster.reconnectStream(processId);
+        }
+        return sseBroadcaster.connect(processId, lastEventId);
     }
 
+    /**
+     * Downloads a generated document.
+     *
+     * @param processId the identifier returned by {@code /generate}
+     * @param format    the format requested at generation: {@code pdf} (default), {@code html} or {@code md}
+     * @return the document, {@code 404 Not Found} if it does not exist (yet), {@code 410 Gone} if it
+     *         was deleted past its retention, {@code 400 Bad Request} for an unknown format
+     */
     @GET
     @Path("/download/{processId}")
-    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @Produces({MediaType.APPLICATION_OCTET_STREAM, MediaType.TEXT_HTML, "text/markdown"})
     @Blocking  // minioClient.getObject() is a blocking I/O call — must NOT run on the event loop
-    public Response downloadPdf(@PathParam("processId") String processId) {
-        String objectKey = processId + ".pdf";
+    public Response downloadPdf(@PathParam("processId") String processId, @QueryParam("format") String format) {
+        DocFormat docFormat;
+        try {
+            docFormat = DocFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid format: pdf, html or md is expected");
+        }
+        if (documentJanitor.expired(processId)) {
+            // The age of the document is in its processId: no need to ask MinIO
+            return Response.status(Response.Status.GONE).build();
+        }
+        String objectKey = DocumentKeys.objectKey(processId, docFormat);
         try {
             InputStream stream = minioClient.getObject(
                     GetObjectArgs.builder()
@@ -99,8 +492,10 @@ public class PdfResource {
                             .build());
 
             Response.ResponseBuilder response = Response.ok(stream);
-            response.header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + objectKey);
-            response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM);
+            response.header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + docFormat.fileName(processId));
+            response.header(HttpHeaders.CONTENT_TYPE, docFormat == DocFormat.PDF
+                    ? MediaType.APPLICATION_OCTET_STREAM
+                    : docFormat.mediaType() + ";charset=UTF-8");
             Log.debugf("PDF with key: %s successfully retrieved from MinIO bucket: %s", objectKey, bucketName);
             return response.build();
         } catch (ErrorResponseException e) {
@@ -116,10 +511,170 @@ public class PdfResource {
         }
     }
 
+    /**
+     * Renders an HTML preview of the document of {@code processId} synchronously,
+     * without FOP, while the PDF is generated in the background. Previews are
+     * cached in memory.
+     *
+     * <p>A job started with data is previewed with its rows, read from the spool
+     * of its generation: on the replica holding it, the one the reverse proxy sends
+     * the preview to, and only until the generation is done (or a cached preview
+     * is left). Jobs without data are previewed with the sample rows.
+     *
+     * @param processId the identifier returned by {@code /generate}
+     * @param chain     the document chain to render; by default the chain of the job once it is
+     *                  scheduled, the first chain otherwise
+     * @return the HTML document, {@code 400 Bad Request} for an invalid identifier or unknown chain,
+     *         {@code 404 Not Found} when the data of the job is not, or no longer, held by this replica
+     */
+    @GET
+    @Path("/preview/{processId}")
+    @Produces(MediaType.TEXT_HTML)
+    @Blocking  // the rendering is CPU work of a few milliseconds, and the job state is read synchronously
+    public Response previewPdf(@PathParam("processId") String processId, @QueryParam("chain") String chain) {
+        if (!ProcessIds.isWellFormed(processId)) {
+            return badRequest("Invalid processId");
+        }
+        Optional<JobStatus> status = jobStatus(processId);
+        List<String> chainIds = previewService.chainIds();
+        String chainId = chain != null ? chain : status.map(JobStatus::chainId).orElse(chainIds.getFirst());
+        if (!chainIds.contains(chainId)) {
+            return badRequest("Unknown chain: one of " + chainIds + " is expected");
+        }
+        Optional<DocRows> data = pdfEventProcessor.data(processId);
+        try {
+            String html;
+            if (data.isEmpty() && status.map(JobStatus::rows).isPresent()) {
+                // Rows sent with the request, but not held here: never the sample rows in their place
+                Optional<String> cached = previewService.cached(chainId, processId);
+                if (cached.isEmpty()) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("The data of the job is not available for a preview")
+                            .type(MediaType.TEXT_PLAIN)
+                            .build();
+                }
+                html = cached.get();
+            } else {
+                html = previewService.preview(chainId, processId, data.orElse(null));
+            }
+            return Response.ok(html, MediaType.TEXT_HTML + ";charset=UTF-8").build();
+        } catch (IllegalStateException e) {
+            Log.errorf(e, "Failed to render the preview of processId: %s", processId);
+            return Response.serverError().entity(e.getMessage()).type(MediaType.TEXT_PLAIN).build();
+        }
+    }
+
+    /**
+     * @return the state of the job, empty if unknown or not available
+     */
+    private Optional<JobStatus> jobStatus(String processId) {
+        try {
+            return jobStateStore.get(processId)
+                    .await().atMost(PREVIEW_STATE_TIMEOUT);
+        } catch (RuntimeException e) {
+            Log.debugf(e, "Job state of processId %s not available for the preview", processId);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Streams a ZIP archive with the documents of the given processes, assembled on
+     * the fly from MinIO. The identifiers can be passed comma-separated
+     * ({@code ?ids=a,b,c}), as repeated parameters ({@code ?ids=a&ids=b}) or both;
+     * duplicates are ignored and documents not found are skipped.
+     *
+     * @param ids    the process identifiers of the documents to include
+     * @param format the format the documents were generated in: {@code pdf} (default), {@code html} or {@code md}
+     * @return the {@code application/zip} streaming response, or {@code 400 Bad Request}
+     *         when no valid identifier is given, the archive limit is exceeded or the format is unknown
+     */
+    @GET
+    @Path("/download/archive")
+    @Produces(APPLICATION_ZIP)
+    @Blocking  // MinIO fetches and the response copy are blocking I/O
+    public Response downloadArchive(@QueryParam("ids") List<String> ids, @QueryParam("format") String format) {
+        DocFormat docFormat;
+        try {
+            docFormat = DocFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid format: pdf, html or md is expected");
+        }
+        List<String> processIds = parseProcessIds(ids);
+        if (processIds.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("At least one valid processId is required in the 'ids' query parameter")
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        if (processIds.size() > archiveStreamer.getMaxEntries()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Too many documents requested: the maximum is " + archiveStreamer.getMaxEntries())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+
+        Log.debugf("Streaming ZIP archive for %d processIds", processIds.size());
+        StreamingOutput body = output -> archiveStreamer.writeArchive(processIds, docFormat, output);
+
+        return Response.ok(body)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=pdf-archive.zip")
+                .header(HttpHeaders.CONTENT_TYPE, APPLICATION_ZIP)
+                .build();
+    }
+
     @GET
     @Path("/page")
     @Produces(MediaType.TEXT_HTML)
     public TemplateInstance getPdfGeneratorPage() {
         return templates.pdf();
     }
+
+    private static Response.ResponseBuilder withRateLimitHeaders(Response.ResponseBuilder response,
+            RateLimitDecision decision) {
+        if (decision.hasLimit()) {
+            response.header(RATE_LIMIT_LIMIT_HEADER, decision.limit())
+                    .header(RATE_LIMIT_REMAINING_HEADER, decision.remaining())
+                    .header(RATE_LIMIT_RESET_HEADER, decision.resetSeconds());
+        }
+        return response;
+    }
+
+    private static void discard(DocData data) {
+        if (data == null) {
+            return;
+        }
+        try {
+            data.close();
+        } catch (IOException e) {
+            Log.warnf(e, "Failed to delete the data of a PDF generation request");
+        }
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(message)
+                .type(MediaType.TEXT_PLAIN)
+                .build();
+    }
+
+    /**
+     * Splits comma-separated values, trims them, drops duplicates and values
+     * that are not valid processIds, preserving the request order.
+     */
+    private static List<String> parseProcessIds(List<String> ids) {
+        Set<String> processIds = new LinkedHashSet<>();
+        if (ids != null) {
+            for (String value : ids) {
+                for (String id : value.split(",")) {
+                    String trimmed = id.trim();
+                    if (ProcessIds.isWellFormed(trimmed)) {
+                        processIds.add(trimmed);
+                    } else if (!trimmed.isEmpty()) {
+                        Log.warnf("Ignoring invalid processId in archive request: %s", trimmed);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(processIds);
+    }
 }
@@ -17,6 +17,14 @@
         https://venusdocs.fugerit.org/guide/#doc-format-entry-point
     -->
 
+    <#--
+        Sectioned rendering (DocSections): each section lists a slice of listPeople in one of the
+        two tables and is merged with the others afterwards. Only the first section carries the
+        title and the bookmarks; the page numbers are stamped on the merged document.
+    -->
+    <#assign sectioned = sectioned!false>
+    <#assign sectionFirst = !sectioned || sectionFirst>
+
     <metadata>
         <!-- Margin for document : left;right;top;bottom -->
         <info name="margins">10;10;10;30</info>
@@ -32,17 +40,22 @@
         <info name="default-font-name">TitilliumWeb</info>
         <!-- default table-border-collapse, can be 'separate' or 'collapse' -->
         <info name="table-border-collapse">collapse</info>
+        <#if !sectioned>
         <footer-ext>
             <para align="right">${r"${currentPage}"} / ${r"${pageCount}"}</para>
         </footer-ext>
+        </#if>
+        <#if sectionFirst>
         <bookmark-tree>
             <bookmark ref="top">Full document sample demo</bookmark>
             <bookmark ref="sec_1">1. Sample tables</bookmark>
             <bookmark ref="sec_2">2. Sample lists</bookmark>
         </bookmark-tree>
+        </#if>
     </metadata>
 
     <body>
+    <#if sectionFirst>
     <h head-level="1" id="top" size="16">Full document sample demo</h>
 
     <para>This documents tries to show all the xml document format features.</para>
@@ -52,8 +65,12 @@
     <h head-level="2" id="sec_1" size="14">1. Sample tables</h>
 
     <para>This sections contains some sample tables.</para>
+    </#if>
 
+    <#if !sectioned || sectionPart == 1>
+    <#if !sectioned || sectionPartStart>
     <h head-level="3" size="12">1.1 Sample table : no special characteristics</h>
+    </#if>
 
     <table colwidths="30;30;40" columns="3" width="100" id="data-table-1">
         <row header="true">
@@ -69,10 +86,16 @@
             </row>
         </#list>
     </table>
+    </#if>
 
+    <#if !sectioned>
     <br/>
+    </#if>
 
+    <#if !sectioned || sectionPart == 2>
+    <#if !sectioned || sectionPartStart>
     <h head-level="3" size="12">1.2 Sample table : special characteristics</h>
+    </#if>
 
     <table colwidths="30;30;40" columns="3" width="100" id="data-table-2">
         <row header="true">
@@ -88,8 +111,11 @@
             </row>
         </#list>
     </table>
+    </#if>
 
+    <#if !sectioned || sectionLast>
     <page-break/>
+    </#if>
 
     </body>
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse;
+
+import static io.restassured.RestAssured.given;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.oneOf;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+@QuarkusTest
+@Tag("integration-test")
+@Tag("rest-service")
+@Tag("redis")
+class JobStatusResourceIntegrationTest {
+
+    private static String generate() {
+        return given()
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+    }
+
+    @Test
+    void testSnapshotOfAcceptedJob() {
+        String processId = generate();
+
+        given()
+                .when()
+                .get("/api/pdf/jobs/" + processId)
+                .then()
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .body("processId", equalTo(processId))
+                .body("state", is(oneOf("ACCEPTED", "SCHEDULED", "RENDERING", "COMPLETED")))
+                .body("acceptedAt", notNullValue());
+    }
+
+    @Test
+    void testSnapshotOfUnknownJob() {
+        given()
+                .when()
+                .get("/api/pdf/jobs/" + UUID.randomUUID())
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void testBatchStatus() {
+        String processId = generate();
+        String unknownId = UUID.randomUUID().toString();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of(processId, unknownId, processId))
+                .when()
+                .post("/api/pdf/jobs/status")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(2))
+                .body("[0].processId", equalTo(processId))
+                .body("[1].processId", equalTo(unknownId))
+                .body("[1].state", equalTo("NOT_FOUND"));
+    }
+
+    @Test
+    void testBatchStatusRejectsInvalidIds() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of("not a valid id"))
+                .when()
+                .post("/api/pdf/jobs/status")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testDeferredJobUntilCancelled() {
+        Instant notBefore = Instant.now().plus(Duration.ofHours(1));
+        String processId = given()
+                .queryParam("notBefore", notBefore.toString())
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        given()
+                .when()
+                .get("/api/pdf/jobs/" + processId)
+                .then()
+                .statusCode(200)
+                .body("state", equalTo("ACCEPTED"))
+                .body("notBefore", notNullValue());
+
+        given()
+                .when()
+                .delete("/api/pdf/" + processId)
+                .then()
+                .statusCode(202);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> given()
+                .when()
+                .get("/api/pdf/jobs/" + processId)
+                .then()
+                .statusCode(200)
+                .body("state", equalTo("CANCELLED")));
+    }
+
+    @Test
+    void testInvalidNotBefore() {
+        given()
+                .queryParam("notBefore", "tomorrow")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(400);
+
+        given()
+                .queryParam("notBefore", Instant.now().plus(Duration.ofDays(365)).toString())
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(400);
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse;
+
+import org.junit.jupiter.api.Tag;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+
+/**
+ * The generation flows of {@link PdfResourceIntegrationTest} against the packaged
+ * application: the native executable with {@code ./mvnw verify -Dnative}, where
+ * it checks the reflection and resource configuration of fj-doc, FOP and PDFBox.
+ */
+@QuarkusIntegrationTest
+@Tag("native")
+class PdfResourceIT extends PdfResourceIntegrationTest {
+}
@@ -5,9 +5,16 @@
 package it.dontesta.quarkus.sse;
 
 import static io.restassured.RestAssured.given;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.allOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+import java.util.UUID;
 
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -42,4 +49,262 @@ class PdfResourceIntegrationTest {
                         containsString("event:PDF_COMPLETED"),
                         containsString("\"pdfUrl\":\"/api/pdf/download/" + processId + "\"")));
     }
+
+    @Test
+    void testCancelScheduledGeneration() {
+        String processId = given()
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        // The test profile delays every generation by 3 seconds: the job is still scheduled
+        given()
+                .when()
+                .delete("/api/pdf/" + processId)
+                .then()
+                .statusCode(202);
+
+        given()
+                .when()
+                .get("/api/pdf/status/" + processId)
+                .then()
+                .statusCode(200)
+                .body(allOf(
+                        containsString("event:PDF_ERROR"),
+                        containsString("PDF generation cancelled")));
+    }
+
+    @Test
+    void testDuplicateIdempotencyKeyReturnsTheSameProcessId() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        String processId = given()
+                .header("Idempotency-Key", idempotencyKey)
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .header("Idempotent-Replayed", nullValue())
+                .extract()
+                .asString();
+
+        String replayedProcessId = given()
+                .header("Idempotency-Key", idempotencyKey)
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .header("Idempotent-Replayed", "true")
+                .extract()
+                .asString();
+
+        assertEquals(processId, replayedProcessId);
+    }
+
+    @Test
+    void testSameIdempotencyKeyWithAnotherFormatIsANewGeneration() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        String pdfProcessId = given()
+                .header("Idempotency-Key", idempotencyKey)
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        String htmlProcessId = given()
+                .header("Idempotency-Key", idempotencyKey)
+                .queryParam("format", "html")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .header("Idempotent-Replayed", nullValue())
+                .extract()
+                .asString();
+
+        assertNotEquals(pdfProcessId, htmlProcessId);
+    }
+
+    @Test
+    void testInvalidIdempotencyKey() {
+        given()
+                .header("Idempotency-Key", "not valid")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testCancelInvalidProcessId() {
+        given()
+                .when()
+                .delete("/api/pdf/not a valid id")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testRateLimitPerApiKey() {
+        // The test profile gives 3 tokens to each API key, with a negligible refill
+        String apiKey = UUID.randomUUID().toString();
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            given()
+                    .header("X-API-Key", apiKey)
+                    .when()
+                    .post("/api/pdf/generate")
+                    .then()
+                    .statusCode(200)
+                    .header("RateLimit-Limit", "3")
+                    .header("RateLimit-Remaining", Integer.toString(remaining))
+                    .header("RateLimit-Reset", notNullValue());
+        }
+
+        given()
+                .header("X-API-Key", apiKey)
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(429)
+                .header("Retry-After", notNullValue())
+                .header("RateLimit-Remaining", "0");
+
+        // Other clients keep their own bucket
+        given()
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void testHtmlGenerationFlow() {
+        String processId = given()
+                .queryParam("format", "html")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        given()
+                .when()
+                .get("/api/pdf/status/" + processId)
+                .then()
+                .statusCode(200)
+                .body(allOf(
+                        containsString("event:PDF_COMPLETED"),
+                        containsString("\"pdfUrl\":\"/api/pdf/download/" + processId + "?format=html\"")));
+
+        given()
+                .queryParam("format", "html")
+                .when()
+                .get("/api/pdf/download/" + processId)
+                .then()
+                .statusCode(200)
+                .contentType(containsString("text/html"))
+                .body(containsString(processId));
+    }
+
+    @Test
+    void testGenerationWithNdjsonData() {
+        String processId = given()
+                .contentType("application/x-ndjson")
+                .body("{\"name\":\"Dora\",\"surname\":\"Neri\",\"title\":\"Tester\"}\n"
+                        + "{\"name\":\"Ezio\",\"surname\":\"Gialli\",\"title\":\"Analyst\"}\n")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        given()
+                .when()
+                .get("/api/pdf/status/" + processId)
+                .then()
+                .statusCode(200)
+                .body(containsString("event:PDF_COMPLETED"));
+    }
+
+    @Test
+    void testInvalidData() {
+        given()
+                .contentType("application/json")
+                .body("{\"name\":\"Dora\"}")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(400);
+
+        // The spool is local to the replica: data cannot be deferred
+        given()
+                .contentType("application/json")
+                .queryParam("notBefore", "2099-01-01T00:00:00Z")
+                .body("[]")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testInvalidFormat() {
+        given()
+                .queryParam("format", "docx")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testPreview() {
+        String processId = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .queryParam("chain", "simple-document")
+                    .when()
+                    .get("/api/pdf/preview/" + processId)
+                    .then()
+                    .statusCode(200)
+                    .contentType(containsString("text/html"))
+                    .body(containsString("PDF Generated by SSE feature with processId: " + processId));
+        }
+
+        given()
+                .queryParam("chain", "unknown-document")
+                .when()
+                .get("/api/pdf/preview/" + processId)
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testPreviewWithData() {
+        String processId = given()
+                .contentType("application/x-ndjson")
+                .body("{\"name\":\"Dora\",\"surname\":\"Neri\",\"title\":\"Tester\"}\n")
+                .when()
+                .post("/api/pdf/generate")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        // Previewed with the rows of the request, not the sample rows, while the generation holds them
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> given()
+                .queryParam("chain", "complex-document")
+                .when()
+                .get("/api/pdf/preview/" + processId)
+                .then()
+                .statusCode(200)
+                .body(containsString("Dora")));
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import it.dontesta.quarkus.sse.jfr.PdfJobEnqueuedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@QuarkusTest
+@Tag("integration-test")
+@Tag("rest-service")
+@Tag("profiling")
+class ProfilingRoutesIntegrationTest {
+
+    // On the management interface, not on the HTTP port
+    @TestHTTPResource(value = "/api/admin/jfr", management = true)
+    URL jfr;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordingCapturesCustomEvents() throws IOException {
+        given()
+                .queryParam("durationSeconds", 60)
+                .queryParam("settings", "default")
+                .when()
+                .post(jfr + "/start")
+                .then()
+                .statusCode(201)
+                .body("state", equalTo("RUNNING"), "settings", equalTo("default"));
+
+        // Only one recording at a time
+        given()
+                .when()
+                .post(jfr + "/start")
+                .then()
+                .statusCode(409);
+
+        PdfJobEnqueuedEvent.emit("jfr-test-process", "simple-document", 0);
+
+        byte[] recording = given()
+                .when()
+                .post(jfr + "/stop")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asByteArray();
+
+        Path file = Files.write(tempDir.resolve("recording.jfr"), recording);
+        boolean found = RecordingFile.readAllEvents(file).stream()
+                .anyMatch(event -> event.getEventType().getName().equals("it.dontesta.quarkus.sse.PdfJobEnqueued")
+                        && "jfr-test-process".equals(event.getString("processId")));
+        assertTrue(found, "The recording should contain the PdfJobEnqueued event");
+    }
+
+    @Test
+    void testAdminEndpointsAreNotServedOnTheHttpPort() {
+        given()
+                .when()
+                .post("/api/admin/jfr/start")
+                .then()
+                .statusCode(404);
+        given()
+                .when()
+                .get("/api/admin/drain")
+                .then()
+                .statusCode(404);
+    }
+}
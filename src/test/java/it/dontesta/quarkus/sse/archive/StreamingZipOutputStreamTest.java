@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.archive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("archive")
+class StreamingZipOutputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteEntries() throws IOException {
+        byte[] first = randomBytes(100_000);
+        byte[] second = randomBytes(1);
+        Path archive = tempDir.resolve("archive.zip");
+
+        try (OutputStream out = Files.newOutputStream(archive)) {
+            StreamingZipOutputStream zip = new StreamingZipOutputStream(out);
+            assertEquals(first.length, zip.writeEntry("first.pdf", new ByteArrayInputStream(first)));
+            assertEquals(second.length, zip.writeEntry("second.pdf", new ByteArrayInputStream(second)));
+            zip.finish();
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            List<? extends ZipEntry> entries = zipFile.stream().toList();
+            assertEquals(2, entries.size());
+            assertEntry(zipFile, entries.get(0), "first.pdf", first);
+            assertEntry(zipFile, entries.get(1), "second.pdf", second);
+        }
+    }
+
+    @Test
+    void testReadEntriesInOnePass() throws IOException {
+        byte[] first = randomBytes(200_000);
+        byte[] second = randomBytes(0);
+        Path archive = tempDir.resolve("stream.zip");
+
+        try (OutputStream out = Files.newOutputStream(archive)) {
+            StreamingZipOutputStream zip = new StreamingZipOutputStream(out);
+            zip.writeEntry("first.pdf", new ByteArrayInputStream(first));
+            zip.writeEntry("second.pdf", new ByteArrayInputStream(second));
+            zip.finish();
+        }
+
+        // Without the central directory, as a client unzipping the download while it arrives
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(archive))) {
+            assertStreamedEntry(in, "first.pdf", first);
+            assertStreamedEntry(in, "second.pdf", second);
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    @Test
+    void testWriteEmptyArchive() throws IOException {
+        Path archive = tempDir.resolve("empty.zip");
+
+        try (OutputStream out = Files.newOutputStream(archive)) {
+            new StreamingZipOutputStream(out).finish();
+        }
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertEquals(0, zipFile.size());
+        }
+    }
+
+    private static void assertEntry(ZipFile zipFile, ZipEntry entry, String name, byte[] expected)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(expected);
+
+        assertEquals(name, entry.getName());
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        assertEquals(expected.length, entry.getSize());
+        assertEquals(crc.getValue(), entry.getCrc());
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+    }
+
+    private static void assertStreamedEntry(ZipInputStream in, String name, byte[] expected) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(expected);
+
+        ZipEntry entry = in.getNextEntry();
+        assertNotNull(entry);
+        assertEquals(name, entry.getName());
+        assertArrayEquals(expected, in.readAllBytes());
+        // Known from the data descriptor, once the entry is read
+        assertEquals(expected.length, entry.getSize());
+        assertEquals(crc.getValue(), entry.getCrc());
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.PdfEventProcessor;
+import it.dontesta.quarkus.sse.eventbus.sse.SseBroadcaster;
+import it.dontesta.quarkus.sse.scheduling.GenerationScheduler;
+
+@Tag("cluster")
+@Tag("drain")
+class DrainCoordinatorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+    private DrainCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new DrainCoordinator();
+        coordinator.pdfEventProcessor = mock(PdfEventProcessor.class);
+        coordinator.generationScheduler = mock(GenerationScheduler.class);
+        coordinator.sseBroadcaster = mock(SseBroadcaster.class);
+        coordinator.enabled = true;
+        coordinator.timeout = TIMEOUT;
+    }
+
+    @Test
+    void testDrainStopsClaimingThenWaitsForTheGenerationsThenClosesTheStreams() throws Exception {
+        when(coordinator.pdfEventProcessor.drain(TIMEOUT)).thenReturn(true);
+        when(coordinator.sseBroadcaster.closeStreams()).thenReturn(2);
+
+        assertFalse(coordinator.isDraining());
+        CompletableFuture<Boolean> drained = coordinator.drain();
+
+        assertTrue(coordinator.isDraining());
+        assertTrue(drained.get(5, TimeUnit.SECONDS));
+        assertTrue(coordinator.isDrained());
+        InOrder order = inOrder(coordinator.generationScheduler, coordinator.pdfEventProcessor,
+                coordinator.sseBroadcaster);
+        order.verify(coordinator.generationScheduler).stopClaiming();
+        order.verify(coordinator.pdfEventProcessor).drain(TIMEOUT);
+        order.verify(coordinator.sseBroadcaster).closeStreams();
+    }
+
+    @Test
+    void testDrainStartsOnce() throws Exception {
+        when(coordinator.pdfEventProcessor.drain(TIMEOUT)).thenReturn(true);
+
+        CompletableFuture<Boolean> drained = coordinator.drain();
+        drained.get(5, TimeUnit.SECONDS);
+
+        assertSame(drained, coordinator.drain());
+        verify(coordinator.generationScheduler, times(1)).stopClaiming();
+        verify(coordinator.pdfEventProcessor, times(1)).drain(TIMEOUT);
+    }
+
+    @Test
+    void testStreamsAreClosedEvenIfGenerationsOutlastTheTimeout() throws Exception {
+        when(coordinator.pdfEventProcessor.drain(TIMEOUT)).thenReturn(false);
+
+        assertFalse(coordinator.drain().get(5, TimeUnit.SECONDS));
+        assertTrue(coordinator.isDrained());
+        verify(coordinator.sseBroadcaster).closeStreams();
+    }
+}
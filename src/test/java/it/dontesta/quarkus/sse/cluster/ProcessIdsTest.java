@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.ids.IdGenerator;
+
+@Tag("cluster")
+class ProcessIdsTest {
+
+    @Test
+    void testProcessIdsNameTheAcceptingReplica() {
+        ProcessIds processIds = new ProcessIds(new ReplicaIdentity("app-1"), true, IdGenerator.TIME_ORDERED);
+
+        String processId = processIds.newProcessId();
+
+        assertTrue(processId.startsWith("app-1."));
+        assertEquals("app-1", ProcessIds.node(processId));
+        assertTrue(processIds.isLocal(processId));
+        assertFalse(new ProcessIds(new ReplicaIdentity("app-2"), true, IdGenerator.TIME_ORDERED).isLocal(processId));
+    }
+
+    @Test
+    void testRouteKeyIsReducedToUrlAndUpstreamSafeCharacters() {
+        assertEquals("pdf-gen-7d9f-x2k", ProcessIds.routeKey("PDF_gen.7d9f/x2k"));
+        assertEquals("local", ProcessIds.routeKey(""));
+
+        String processId = new ProcessIds(new ReplicaIdentity("Pod.A"), true, IdGenerator.TIME_ORDERED).newProcessId();
+
+        assertEquals("pod-a", ProcessIds.node(processId));
+    }
+
+    @Test
+    void testWellFormedProcessIdsHaveOnlyTheAllowedCharacters() {
+        assertTrue(ProcessIds.isWellFormed("app-1." + UUID.randomUUID()));
+        assertTrue(ProcessIds.isWellFormed("legacy_id-42"));
+        assertFalse(ProcessIds.isWellFormed("../2025/06/01/x"));
+        assertFalse(ProcessIds.isWellFormed("a b"));
+        assertFalse(ProcessIds.isWellFormed(""));
+        assertFalse(ProcessIds.isWellFormed(null));
+    }
+
+    @Test
+    void testBareUuidsHaveNoNode() {
+        ProcessIds processIds = new ProcessIds(new ReplicaIdentity("app-1"), false, IdGenerator.RANDOM);
+
+        String processId = processIds.newProcessId();
+
+        assertEquals(processId, UUID.fromString(processId).toString());
+        assertNull(ProcessIds.node(processId));
+        assertFalse(processIds.isLocal(processId));
+        assertNull(ProcessIds.node("app-1.not-a-uuid"));
+        assertNull(ProcessIds.node(null));
+    }
+
+    @Test
+    void testCreationTimeIsReadFromTimeOrderedIds() {
+        Instant before = Instant.now().minus(Duration.ofMillis(1));
+        String processId = new ProcessIds(new ReplicaIdentity("app-1"), true, IdGenerator.TIME_ORDERED).newProcessId();
+
+        Instant createdAt = ProcessIds.createdAt(processId).orElseThrow();
+
+        assertTrue(!createdAt.isBefore(before) && !createdAt.isAfter(Instant.now()));
+        assertEquals(Optional.of(createdAt), ProcessIds.createdAt(processId.substring(processId.indexOf('.') + 1)));
+        assertEquals(Optional.empty(), ProcessIds.createdAt(UUID.randomUUID().toString()));
+        assertEquals(Optional.empty(), ProcessIds.createdAt("not-a-process-id"));
+    }
+}
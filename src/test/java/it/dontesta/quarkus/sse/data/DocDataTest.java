@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+
+@Tag("data")
+class DocDataTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path spoolDir;
+
+    @Test
+    void testJsonArrayIsListedLazily() throws Exception {
+        try (DocData data = read(jsonArray(5), DocData.Format.JSON, 1024)) {
+            assertEquals(5, data.size());
+            assertFalse(data.spilled());
+            assertEquals(List.of("Surname 1", "Surname 2", "Surname 3"), surnames(data.slice(1, 4)));
+        }
+    }
+
+    @Test
+    void testNdjsonIsListed() throws Exception {
+        String ndjson = "{\"name\":\"Alice\",\"surname\":\"Rossi\"}\n{\"name\":\"Bob\",\"surname\":\"Bianchi\"}\n";
+
+        try (DocData data = read(ndjson, DocData.Format.NDJSON, 1024)) {
+            assertEquals(2, data.size());
+            assertEquals(List.of("Rossi", "Bianchi"), surnames(data.slice(0, 2)));
+        }
+    }
+
+    @Test
+    void testLargePayloadIsSpilledAndDeletedOnClose() throws Exception {
+        DocData data = read(jsonArray(1000), DocData.Format.JSON, 1024);
+
+        assertTrue(data.spilled());
+        assertEquals(1, spoolFiles());
+        // A collection can be listed more than once: each time the spool is parsed again
+        Object slice = data.slice(998, 1000);
+        assertEquals(List.of("Surname 998", "Surname 999"), surnames(slice));
+        assertEquals(List.of("Surname 998", "Surname 999"), surnames(slice));
+
+        data.close();
+        assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testPayloadOverTheLimitIsRejected() throws IOException {
+        assertThrows(DataSpool.TooLargeException.class,
+                () -> DocData.read(stream(jsonArray(1000)), DocData.Format.JSON,
+                        DataSpool.writer(1024, 4096, spoolDir), objectMapper));
+        assertEquals(0, spoolFiles());
+    }
+
+    @Test
+    void testInvalidPayloadsAreRejected() throws IOException {
+        assertThrows(JsonParseException.class, () -> read("{\"name\":\"Alice\"}", DocData.Format.JSON, 1024));
+        assertThrows(JsonParseException.class, () -> read("[1, 2]", DocData.Format.JSON, 1024));
+        assertThrows(JsonParseException.class, () -> read("[{}] []", DocData.Format.JSON, 1024));
+        assertThrows(JsonParseException.class, () -> read("[{\"name\":", DocData.Format.JSON, 1024));
+        assertThrows(JsonParseException.class, () -> read("{} ]", DocData.Format.NDJSON, 1024));
+        assertEquals(0, spoolFiles());
+    }
+
+    private DocData read(String payload, DocData.Format format, long memoryThreshold) throws IOException {
+        return DocData.read(stream(payload), format, DataSpool.writer(memoryThreshold, Long.MAX_VALUE, spoolDir),
+                objectMapper);
+    }
+
+    private static ByteArrayInputStream stream(String payload) {
+        return new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String jsonArray(int rows) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"Name ").append(i)
+                    .append("\",\"surname\":\"Surname ").append(i)
+                    .append("\",\"title\":\"Title ").append(i).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static List<String> surnames(Object slice) throws TemplateModelException {
+        List<String> surnames = new ArrayList<>();
+        TemplateModelIterator rows = ((TemplateCollectionModel) slice).iterator();
+        while (rows.hasNext()) {
+            surnames.add(((TemplateHashModel) rows.next()).get("surname").toString());
+        }
+        return surnames;
+    }
+
+    private long spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.dontesta.quarkus.sse.cluster.ReplicaIdentity;
+import it.dontesta.quarkus.sse.eventbus.metrics.PipelineStageMetrics.Stage;
+
+@Tag("metrics")
+class PipelineStageMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineStageMetrics metrics = new PipelineStageMetrics(registry, new ReplicaIdentity("app-1"),
+            List.of(Duration.ofMillis(10), Duration.ofMillis(100)));
+
+    @Test
+    void testRecordTagsStageChainAndReplica() {
+        metrics.record(Stage.RENDER, "complex-document", TimeUnit.MILLISECONDS.toNanos(50));
+        metrics.record(Stage.RENDER, "complex-document", TimeUnit.MILLISECONDS.toNanos(5));
+
+        Timer timer = registry.find("pdf.pipeline.stage.duration.seconds")
+                .tags("stage", "render", "chain", "complex-document", "replica", "app-1")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+
+        CountAtBucket[] buckets = timer.takeSnapshot().histogramCounts();
+        assertEquals(2, buckets.length);
+        assertEquals(1, buckets[0].count());
+        assertEquals(2, buckets[1].count());
+    }
+
+    @Test
+    void testRecordUnknownChainAndNegativeDuration() {
+        metrics.record(Stage.PUBLISH_TO_RECEIVE, null, -TimeUnit.MILLISECONDS.toNanos(3));
+
+        Timer timer = registry.find("pdf.pipeline.stage.duration.seconds")
+                .tags("stage", "publish_to_receive", "chain", PipelineStageMetrics.UNKNOWN_CHAIN)
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        assertEquals(0, timer.totalTime(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.context.Context;
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
+import it.dontesta.quarkus.sse.eventbus.sse.SseBroadcaster;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+@Tag("publish-subscribe")
+@Tag("redis")
+@Tag("sse")
+class PdfEventProcessorTest {
+
+    @Inject
+    PdfEventProcessor pdfEventProcessor;
+
+    @Inject
+    SseBroadcaster sseBroadcaster;
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Inject
+    @ConfigProperty(name = "pdf.eventbus.destination.completed")
+    String completedChannel;
+
+    @Test
+    void testEventDeliveredInProcessIsNotPublishedOnRedis() throws Exception {
+        String localProcessId = "app-1." + UUID.randomUUID();
+        String remoteProcessId = "app-1." + UUID.randomUUID();
+        List<String> published = new CopyOnWriteArrayList<>();
+        var sub = reactiveRedisDS.pubsub(String.class)
+                .subscribe(completedChannel, published::add)
+                .await().atMost(Duration.ofSeconds(5));
+
+        // The stream of the local job is open on this replica, the one of the other job is not
+        CountDownLatch delivered = new CountDownLatch(1);
+        sseBroadcaster.createStream(localProcessId).subscribe().with(
+                event -> {},
+                Throwable::printStackTrace,
+                delivered::countDown);
+
+        pdfEventProcessor.publishToRedis(completedChannel,
+                new PdfGenerationCompleted(localProcessId, "/api/pdf/download/" + localProcessId), Context.root());
+        pdfEventProcessor.publishToRedis(completedChannel,
+                new PdfGenerationCompleted(remoteProcessId, "/api/pdf/download/" + remoteProcessId), Context.root());
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS), "The local stream should get the event in-process");
+        // Published after the local one on the same connection: had that been published, it would be here already
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> published.stream().anyMatch(json -> json.contains(remoteProcessId)));
+        assertFalse(published.stream().anyMatch(json -> json.contains(localProcessId)));
+
+        sub.unsubscribe().await().atMost(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.cancellation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("cancellation")
+class PdfJobTest {
+
+    private final PdfJob job = new PdfJob("process-1", "simple-document");
+
+    @Test
+    void testCancelScheduledJobCancelsThePendingStage() {
+        CompletableFuture<Void> delay = job.await(PdfJob.Phase.SCHEDULED, new CompletableFuture<>());
+
+        assertTrue(job.cancel());
+        assertTrue(delay.isCancelled());
+        assertEquals(PdfJob.Phase.SCHEDULED, job.cancelledIn());
+        assertFalse(job.cancel());
+    }
+
+    @Test
+    void testStageAwaitedAfterCancellationIsCancelled() {
+        job.await(PdfJob.Phase.SCHEDULED, CompletableFuture.completedFuture(null));
+        assertTrue(job.cancel());
+
+        CompletableFuture<String> queued = job.await(PdfJob.Phase.QUEUED, new CompletableFuture<>());
+        assertTrue(queued.isCancelled());
+    }
+
+    @Test
+    void testCancelDuringRenderingStopsBeforeUpload() {
+        job.startRendering();
+        assertTrue(job.cancel());
+
+        assertThrows(PdfJob.CancelledException.class, () -> job.startUploading(1024));
+        assertEquals(PdfJob.Phase.RENDERING, job.cancelledIn());
+        assertEquals(1024, job.renderedBytes());
+    }
+
+    @Test
+    void testUploadingJobCannotBeCancelled() {
+        job.startRendering();
+        job.startUploading(1024);
+
+        assertFalse(job.cancel());
+        assertFalse(job.isCancelled());
+        assertNull(job.cancelledIn());
+    }
+
+    @Test
+    void testQueuedJobIsHandedOff() {
+        job.await(PdfJob.Phase.SCHEDULED, CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> permit = job.await(PdfJob.Phase.QUEUED, new CompletableFuture<>());
+
+        assertTrue(job.handOff());
+        assertTrue(permit.isCancelled());
+        assertTrue(job.isHandedOff());
+        assertEquals(PdfJob.Phase.QUEUED, job.cancelledIn());
+        assertFalse(job.handOff());
+    }
+
+    @Test
+    void testRenderingJobIsNotHandedOff() {
+        job.startRendering();
+
+        assertFalse(job.handOff());
+        assertFalse(job.isHandedOff());
+        assertFalse(job.isCancelled());
+    }
+}
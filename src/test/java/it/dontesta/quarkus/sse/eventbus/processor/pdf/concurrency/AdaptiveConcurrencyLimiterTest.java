@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.AdaptiveConcurrencyLimiter.Decision;
+
+@Tag("concurrency")
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private double cpuLoad = 0.2;
+
+    private AdaptiveConcurrencyLimiter newLimiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(
+                new AdaptiveConcurrencyLimiter.Settings(initialLimit, 2, 16, 0.85, Duration.ofMillis(100), 1.5, 0.5),
+                () -> cpuLoad);
+    }
+
+    @Test
+    void testIncreaseWhenSaturatedAndQueueWaitAboveTarget() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(4);
+        limiter.recordQueueWait(300 * MILLIS);
+
+        assertEquals(Decision.INCREASE, limiter.adjust(4, 10, 0));
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void testIncreaseWhenOldestQueuedJobWaitsAboveTarget() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(4);
+        limiter.recordQueueWait(MILLIS);
+
+        assertEquals(Decision.INCREASE, limiter.adjust(4, 10, 300 * MILLIS));
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void testHoldWhenNotSaturatedOrQueueWaitBelowTarget() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(4);
+        limiter.recordQueueWait(300 * MILLIS);
+        assertEquals(Decision.HOLD, limiter.adjust(2, 0, 0));
+
+        limiter.recordQueueWait(10 * MILLIS);
+        assertEquals(Decision.HOLD, limiter.adjust(4, 3, 0));
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void testDecreaseOnHighCpu() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(8);
+        cpuLoad = 0.95;
+        limiter.recordQueueWait(300 * MILLIS);
+
+        assertEquals(Decision.DECREASE_CPU, limiter.adjust(8, 10, 0));
+        assertEquals(4, limiter.getLimit());
+        assertEquals(Decision.DECREASE_CPU, limiter.adjust(4, 10, 0));
+        assertEquals(2, limiter.getLimit());
+        // Already at the lower bound
+        assertEquals(Decision.HOLD, limiter.adjust(2, 10, 0));
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void testDecreaseOnRenderLatencyInflation() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+        limiter.recordRenderLatency(100 * MILLIS, 10);
+        assertEquals(Decision.HOLD, limiter.adjust(5, 0, 0));
+
+        limiter.recordRenderLatency(125 * MILLIS, 10);
+        assertEquals(Decision.HOLD, limiter.adjust(5, 0, 0));
+
+        limiter.recordRenderLatency(400 * MILLIS, 10);
+        assertEquals(Decision.DECREASE_LATENCY, limiter.adjust(10, 5, 0));
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void testLargerDocumentsAreNotReadAsLatencyInflation() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+        limiter.recordRenderLatency(100 * MILLIS, 10);
+        assertEquals(Decision.HOLD, limiter.adjust(5, 0, 0));
+
+        // Ten times the rows in ten times the time: the same cost per row
+        limiter.recordRenderLatency(1000 * MILLIS, 100);
+        limiter.recordRenderLatency(90 * MILLIS, 10);
+        assertEquals(Decision.HOLD, limiter.adjust(10, 5, 0));
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void testIncreaseIsCappedToMaxLimit() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(15);
+        limiter.recordQueueWait(300 * MILLIS);
+
+        assertEquals(Decision.INCREASE, limiter.adjust(15, 1, 0));
+        assertEquals(16, limiter.getLimit());
+        limiter.recordQueueWait(300 * MILLIS);
+        assertEquals(Decision.HOLD, limiter.adjust(16, 1, 0));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter.Settings(4, 8, 2, 0.85, Duration.ofMillis(100), 1.5, 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter.Settings(4, 1, 8, 0.85, Duration.ofMillis(100), 1.5, 1.0));
+        assertEquals(8, new AdaptiveConcurrencyLimiter.Settings(40, 1, 8, 0.85, Duration.ofMillis(100), 1.5, 0.5)
+                .initialLimit());
+    }
+
+    @Test
+    void testLimitedExecutorRunsAtMostLimitTasks() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(2);
+        LimitedExecutor executor = new LimitedExecutor(limiter, Executors.defaultThreadFactory());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[5];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, executor.inFlight());
+            assertEquals(3, executor.queued());
+
+            Thread.sleep(150);
+            // The oldest queued task waited longer than the target: the limit grows and one more task starts
+            assertEquals(Decision.INCREASE, executor.adjustLimit());
+            assertEquals(3, limiter.getLimit());
+            assertEquals(3, executor.inFlight());
+            assertEquals(2, executor.queued());
+
+            release.countDown();
+            CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+            assertEquals(0, executor.inFlight());
+            assertEquals(0, executor.queued());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
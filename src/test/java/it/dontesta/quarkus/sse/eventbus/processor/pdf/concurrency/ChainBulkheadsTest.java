@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.fjdoc.DocChainIds;
+
+@Tag("concurrency")
+class ChainBulkheadsTest {
+
+    private ChainBulkheads bulkheads;
+
+    // The system CPU load read by the host guard of the limiters
+    private final AtomicReference<Double> systemCpuLoad = new AtomicReference<>(0.1);
+
+    @AfterEach
+    void tearDown() {
+        if (bulkheads != null) {
+            bulkheads.shutdownNow();
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter.Settings settings(int limit) {
+        return new AdaptiveConcurrencyLimiter.Settings(limit, 1, limit, 0.85, Duration.ofMillis(100), 1.5, 0.5);
+    }
+
+    @Test
+    void testRenderableChainIdsOfTheDocProcessConfig() {
+        assertEquals(List.of("simple-document", "complex-document"), DocChainIds.renderable());
+    }
+
+    @Test
+    void testSaturatedChainDoesNotDelayTheOthers() throws Exception {
+        Map<String, AdaptiveConcurrencyLimiter.Settings> settingsByChain = new LinkedHashMap<>();
+        settingsByChain.put("simple-document", settings(2));
+        settingsByChain.put("complex-document", settings(1));
+        bulkheads = new ChainBulkheads(settingsByChain, systemCpuLoad::get, 0.85);
+
+        CountDownLatch release = new CountDownLatch(1);
+        LimitedExecutor complex = bulkheads.get("complex-document").executor();
+        for (int i = 0; i < 3; i++) {
+            complex.submit(() -> release.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, complex.inFlight());
+        assertEquals(2, complex.queued());
+
+        assertEquals("done", bulkheads.get("simple-document").executor().submit(() -> "done")
+                .get(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void testChainCpuUsageIsItsShareOfTheProcessors() {
+        AtomicLong clock = new AtomicLong();
+        ChainCpuUsage cpuUsage = new ChainCpuUsage(4, clock::get);
+
+        clock.set(TimeUnit.SECONDS.toNanos(1));
+        cpuUsage.record(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0.5, cpuUsage.getAsDouble(), 1e-9);
+
+        // Read since the previous reading only
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0.0, cpuUsage.getAsDouble(), 1e-9);
+    }
+
+    @Test
+    void testEachChainBacksOffOnItsOwnCpuLoad() {
+        Map<String, AdaptiveConcurrencyLimiter.Settings> settingsByChain = new LinkedHashMap<>();
+        settingsByChain.put("simple-document", settings(4));
+        settingsByChain.put("complex-document", settings(4));
+        bulkheads = new ChainBulkheads(settingsByChain, systemCpuLoad::get, 0.85);
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        // The renders of the complex chain take all the processors over the next interval
+        bulkheads.get("complex-document").cpuUsage().record(TimeUnit.SECONDS.toNanos(10) * processors);
+
+        assertEquals(AdaptiveConcurrencyLimiter.Decision.DECREASE_CPU,
+                bulkheads.get("complex-document").executor().adjustLimit());
+        assertEquals(AdaptiveConcurrencyLimiter.Decision.HOLD,
+                bulkheads.get("simple-document").executor().adjustLimit());
+        assertEquals(4, bulkheads.get("simple-document").limiter().getLimit());
+    }
+
+    @Test
+    void testRunningRenderIsAccountedAtEveryReading() {
+        AtomicLong clock = new AtomicLong();
+        AtomicLong threadCpu = new AtomicLong(TimeUnit.SECONDS.toNanos(5));
+        ChainCpuUsage cpuUsage = new ChainCpuUsage(2, clock::get, threadId -> threadCpu.get());
+
+        ChainCpuUsage.Measurement render = cpuUsage.start();
+        clock.set(TimeUnit.SECONDS.toNanos(1));
+        threadCpu.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0.5, cpuUsage.getAsDouble(), 1e-9);
+
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+        threadCpu.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        render.close();
+        assertEquals(0.5, cpuUsage.getAsDouble(), 1e-9);
+        assertEquals(TimeUnit.SECONDS.toNanos(2), render.cpuNanos());
+
+        // Closed: no longer accounted
+        clock.set(TimeUnit.SECONDS.toNanos(3));
+        threadCpu.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0.0, cpuUsage.getAsDouble(), 1e-9);
+    }
+
+    @Test
+    void testAllChainsBackOffOnASaturatedHost() {
+        AtomicLong clock = new AtomicLong();
+        ChainCpuUsage simpleCpu = new ChainCpuUsage(4, clock::get);
+        ChainCpuUsage complexCpu = new ChainCpuUsage(4, clock::get);
+        AdaptiveConcurrencyLimiter simple = new AdaptiveConcurrencyLimiter(settings(4), simpleCpu, systemCpuLoad::get,
+                0.85);
+        AdaptiveConcurrencyLimiter complex = new AdaptiveConcurrencyLimiter(settings(4), complexCpu,
+                systemCpuLoad::get, 0.85);
+
+        // Each chain takes 45% of the processors: under its own threshold, 90% of the host together
+        clock.set(TimeUnit.SECONDS.toNanos(1));
+        simpleCpu.record(TimeUnit.MILLISECONDS.toNanos(1800));
+        complexCpu.record(TimeUnit.MILLISECONDS.toNanos(1800));
+        systemCpuLoad.set(0.9);
+
+        assertEquals(AdaptiveConcurrencyLimiter.Decision.DECREASE_CPU, simple.adjust(4, 0, 0));
+        assertEquals(AdaptiveConcurrencyLimiter.Decision.DECREASE_CPU, complex.adjust(4, 0, 0));
+        assertEquals(2, simple.getLimit());
+        assertEquals(2, complex.getLimit());
+
+        // The same shares on a host with room to spare
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+        simpleCpu.record(TimeUnit.MILLISECONDS.toNanos(1800));
+        complexCpu.record(TimeUnit.MILLISECONDS.toNanos(1800));
+        systemCpuLoad.set(0.5);
+
+        assertEquals(AdaptiveConcurrencyLimiter.Decision.HOLD, simple.adjust(2, 0, 0));
+        assertEquals(AdaptiveConcurrencyLimiter.Decision.HOLD, complex.adjust(2, 0, 0));
+    }
+
+    @Test
+    void testHostGuardIsSharedByTheBulkheads() {
+        Map<String, AdaptiveConcurrencyLimiter.Settings> settingsByChain = new LinkedHashMap<>();
+        settingsByChain.put("simple-document", settings(4));
+        settingsByChain.put("complex-document", settings(4));
+        bulkheads = new ChainBulkheads(settingsByChain, systemCpuLoad::get, 0.85);
+        systemCpuLoad.set(0.95);
+
+        for (String chainId : settingsByChain.keySet()) {
+            assertEquals(AdaptiveConcurrencyLimiter.Decision.DECREASE_CPU,
+                    bulkheads.get(chainId).executor().adjustLimit());
+        }
+    }
+
+    @Test
+    void testUnknownChain() {
+        bulkheads = new ChainBulkheads(Map.of("simple-document", settings(1)), systemCpuLoad::get, 0.85);
+
+        assertThrows(IllegalArgumentException.class, () -> bulkheads.get("unknown"));
+    }
+}
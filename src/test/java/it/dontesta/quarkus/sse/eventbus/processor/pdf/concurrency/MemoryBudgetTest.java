@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("concurrency")
+class MemoryBudgetTest {
+
+    @Test
+    void testReservationsWaitUntilTheyFit() {
+        MemoryBudget budget = new MemoryBudget(100);
+
+        CompletableFuture<MemoryBudget.Reservation> first = budget.reserve(60);
+        CompletableFuture<MemoryBudget.Reservation> second = budget.reserve(50);
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(60, budget.committed());
+        assertEquals(1, budget.waiting());
+
+        first.join().close();
+        assertTrue(second.isDone());
+        assertEquals(50, budget.committed());
+
+        // Released once only
+        first.join().close();
+        assertEquals(50, budget.committed());
+    }
+
+    @Test
+    void testReservationsAreGrantedInOrder() {
+        MemoryBudget budget = new MemoryBudget(100);
+
+        MemoryBudget.Reservation running = budget.reserve(60).join();
+        CompletableFuture<MemoryBudget.Reservation> large = budget.reserve(80);
+        // It would fit, but it does not overtake the large one
+        CompletableFuture<MemoryBudget.Reservation> small = budget.reserve(10);
+        assertFalse(large.isDone());
+        assertFalse(small.isDone());
+
+        running.close();
+        assertTrue(large.isDone());
+        assertTrue(small.isDone());
+        assertEquals(90, budget.committed());
+    }
+
+    @Test
+    void testOversizedReservationRunsAlone() {
+        MemoryBudget budget = new MemoryBudget(100);
+
+        MemoryBudget.Reservation running = budget.reserve(10).join();
+        CompletableFuture<MemoryBudget.Reservation> oversized = budget.reserve(500);
+        assertFalse(oversized.isDone());
+
+        running.close();
+        assertTrue(oversized.isDone());
+        assertEquals(500, budget.committed());
+        assertFalse(budget.reserve(1).isDone());
+    }
+
+    @Test
+    void testCancelledReservationIsWithdrawn() {
+        MemoryBudget budget = new MemoryBudget(100);
+
+        MemoryBudget.Reservation running = budget.reserve(60).join();
+        CompletableFuture<MemoryBudget.Reservation> large = budget.reserve(80);
+        CompletableFuture<MemoryBudget.Reservation> small = budget.reserve(30);
+
+        // The head of the queue goes away: the next request fits
+        large.cancel(false);
+        assertTrue(small.isDone());
+        assertEquals(0, budget.waiting());
+        assertEquals(90, budget.committed());
+
+        running.close();
+        small.join().close();
+        assertEquals(0, budget.committed());
+    }
+
+    @Test
+    void testInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBudget(0));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBudget(100).reserve(-1));
+    }
+}
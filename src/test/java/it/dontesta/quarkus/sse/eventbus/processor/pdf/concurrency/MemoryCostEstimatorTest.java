@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("concurrency")
+class MemoryCostEstimatorTest {
+
+    private static MemoryCostEstimator.Settings settings(int minObservations) {
+        return new MemoryCostEstimator.Settings(1000, 10, 0.5, 0.2, minObservations);
+    }
+
+    @Test
+    void testInitialEstimateUntilEnoughObservations() {
+        MemoryCostEstimator estimator = new MemoryCostEstimator(settings(3));
+
+        assertEquals(2000, estimator.estimate("complex-document/pdf", 100));
+        estimator.observe("complex-document/pdf", 100, 100_000, 0);
+        estimator.observe("complex-document/pdf", 200, 200_000, 0);
+        assertEquals(2000, estimator.estimate("complex-document/pdf", 100));
+    }
+
+    @Test
+    void testLinearModelIsFittedToTheObservations() {
+        MemoryCostEstimator estimator = new MemoryCostEstimator(settings(3));
+
+        // Half of the allocated bytes are live, plus the document: 5000 + 100 bytes per row
+        for (int rows : new int[] {10, 100, 1000, 50, 500}) {
+            estimator.observe("complex-document/pdf", rows, 2 * (4000 + 90L * rows), 1000 + 10L * rows);
+        }
+
+        assertEquals(5000 + 100 * 2000, estimator.estimate("complex-document/pdf", 2000));
+        // Other kinds keep their own model
+        assertEquals(1000 + 10 * 2000, estimator.estimate("complex-document/html", 2000));
+    }
+
+    @Test
+    void testConstantRowsKeepTheInitialSlope() {
+        MemoryCostEstimator estimator = new MemoryCostEstimator(settings(1));
+
+        estimator.observe("simple-document/pdf", 3, 8000, 1000);
+
+        assertEquals(5000, estimator.estimate("simple-document/pdf", 3));
+        assertEquals(5000 + 10 * 97, estimator.estimate("simple-document/pdf", 100));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryCostEstimator.Settings(0, 10, 0.5, 0.2, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryCostEstimator.Settings(1000, 10, 0, 0.2, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryCostEstimator.Settings(1000, 10, 0.5, 1.5, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MemoryCostEstimator.Settings(1000, 10, 0.5, 0.2, 0));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("pipeline")
+class ChainLayoutStagesTest {
+
+    private ChainLayoutStages stages;
+
+    @AfterEach
+    void tearDown() {
+        if (stages != null) {
+            stages.close();
+        }
+    }
+
+    @Test
+    void testSaturatedLayoutsOfAChainDoNotHoldUpTheOthers() throws Exception {
+        Map<String, ChainLayoutStages.Settings> settingsByChain = new LinkedHashMap<>();
+        settingsByChain.put("simple-document", new ChainLayoutStages.Settings(1, 1));
+        settingsByChain.put("complex-document", new ChainLayoutStages.Settings(2, 1));
+        stages = new ChainLayoutStages(settingsByChain);
+
+        // The complex layouts take all the workers of their chain and fill its queue
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        RenderStage complex = stages.get("complex-document");
+        for (int i = 0; i < 2; i++) {
+            complex.submit(() -> {
+                running.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            });
+        }
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        complex.submit(() -> true);
+        assertEquals(1, complex.queued());
+
+        // A complex template handing over its XSL-FO now blocks
+        AtomicBoolean handedOver = new AtomicBoolean();
+        Thread complexTemplate = Thread.ofPlatform().start(() -> {
+            try {
+                complex.submit(() -> true);
+                handedOver.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        complexTemplate.join(200);
+        assertFalse(handedOver.get());
+
+        // The simple renders still go through, one after the other
+        RenderStage simple = stages.get("simple-document");
+        for (int i = 0; i < 5; i++) {
+            assertEquals("laid out", simple.submit(() -> "laid out").get(1, TimeUnit.SECONDS));
+        }
+
+        release.countDown();
+        complexTemplate.join(5000);
+        assertTrue(handedOver.get());
+    }
+
+    @Test
+    void testStagesAreNamedAfterTheirChain() {
+        stages = new ChainLayoutStages(Map.of("simple-document", new ChainLayoutStages.Settings(1, 1)));
+
+        assertEquals("layout-simple-document", stages.get("simple-document").name());
+        assertThrows(IllegalArgumentException.class, () -> stages.get("unknown"));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("pipeline")
+class RenderStageTest {
+
+    @Test
+    void testResultAndFailureOfTasks() throws Exception {
+        try (RenderStage stage = newStage(2, 4, System::nanoTime)) {
+            assertEquals("done", stage.submit(() -> "done").get(5, TimeUnit.SECONDS));
+
+            CompletableFuture<String> failed = stage.submit(() -> {
+                throw new IllegalStateException("layout failed");
+            });
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            awaitIdle(stage);
+            assertEquals(2, stage.completed());
+        }
+    }
+
+    @Test
+    void testSubmitBlocksWhileTheQueueIsFull() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (RenderStage stage = newStage(1, 1, System::nanoTime)) {
+            stage.submit(() -> {
+                running.countDown();
+                release.await();
+                return 1;
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            // The worker is busy: this one fills the queue
+            stage.submit(() -> 2);
+            assertEquals(1, stage.queued());
+
+            AtomicBoolean handedOver = new AtomicBoolean();
+            Thread producer = Thread.ofPlatform().start(() -> {
+                try {
+                    stage.submit(() -> 3);
+                    handedOver.set(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.join(200);
+            assertFalse(handedOver.get());
+
+            release.countDown();
+            producer.join(5000);
+            assertTrue(handedOver.get());
+        }
+    }
+
+    @Test
+    void testCancelledTaskIsSkipped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        try (RenderStage stage = newStage(1, 2, System::nanoTime)) {
+            CompletableFuture<Integer> first = stage.submit(() -> {
+                release.await();
+                return 1;
+            });
+            CompletableFuture<Integer> second = stage.submit(() -> {
+                ran.set(true);
+                return 2;
+            });
+            second.cancel(false);
+            release.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(3, stage.submit(() -> 3).get(5, TimeUnit.SECONDS));
+            assertFalse(ran.get());
+        }
+    }
+
+    @Test
+    void testBusyTimeIncludesRunningTasks() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (RenderStage stage = newStage(2, 2, clock::get)) {
+            CompletableFuture<Integer> task = stage.submit(() -> {
+                running.countDown();
+                release.await();
+                return 1;
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            clock.addAndGet(1_000);
+            assertEquals(1, stage.active());
+            assertEquals(1_000, stage.busyNanos());
+
+            clock.addAndGet(500);
+            release.countDown();
+            task.get(5, TimeUnit.SECONDS);
+            awaitIdle(stage);
+            clock.addAndGet(10_000);
+            // Idle time is not counted
+            assertEquals(1_500, stage.busyNanos());
+        }
+    }
+
+    @Test
+    void testSubmitAfterClose() throws Exception {
+        RenderStage stage = newStage(1, 1, System::nanoTime);
+        stage.close();
+        assertThrows(RejectedExecutionException.class, () -> stage.submit(() -> 1));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> newStage(0, 1, System::nanoTime));
+        assertThrows(IllegalArgumentException.class, () -> newStage(1, 0, System::nanoTime));
+    }
+
+    /**
+     * Waits for the workers to account their last task, done after its future is completed.
+     */
+    private static void awaitIdle(RenderStage stage) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stage.active() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, stage.active());
+    }
+
+    private static RenderStage newStage(int parallelism, int queueSize, LongSupplier nanoTime) {
+        return new RenderStage("test", parallelism, queueSize, Thread.ofPlatform().daemon().factory(), nanoTime);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.processor.pdf.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.eventbus.processor.pdf.concurrency.ChainCpuUsage;
+import it.dontesta.quarkus.sse.fjdoc.DocHelper;
+import it.dontesta.quarkus.sse.fjdoc.DocRows;
+
+@Tag("fj-doc")
+@Tag("pipeline")
+class SectionedPdfRendererTest {
+
+    @Test
+    void testMergedDocumentKeepsPageNumbersAndBookmarks() throws Exception {
+        List<Map<String, String>> people = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            people.add(Map.of("name", "Name " + i, "surname", "Surname " + i, "title", "Title " + i));
+        }
+
+        byte[] pdf;
+        LongAdder allocatedBytes = new LongAdder();
+        LongAdder cpuNanos = new LongAdder();
+        ChainCpuUsage cpuUsage = new ChainCpuUsage();
+        try (SectionedPdfRenderer renderer = new SectionedPdfRenderer(new DocHelper(), new FoPdfRenderer(), 4, 100)) {
+            assertEquals(6, renderer.sectionCount(people.size()));
+            pdf = renderer.render("complex-document", UUID.randomUUID().toString(), DocRows.of(people),
+                    allocatedBytes, cpuUsage, cpuNanos);
+        }
+        // The heap estimates and the CPU load of the chain learn from the sections, rendered on the threads of the pool
+        assertTrue(allocatedBytes.sum() > 0, "Bytes allocated by the sections: " + allocatedBytes.sum());
+        assertTrue(cpuNanos.sum() > 0, "CPU time of the sections: " + cpuNanos.sum());
+        assertTrue(cpuUsage.getAsDouble() > 0, "CPU load of the chain");
+
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            int pages = document.getNumberOfPages();
+            assertTrue(pages >= 6, "One page at least per section: " + pages);
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            String text = stripper.getText(document);
+            // Every row is listed in both tables
+            assertEquals(2, text.split("Surname 299\\b", -1).length - 1);
+            assertTrue(text.contains("1 / " + pages), "Footer of the first page");
+
+            stripper.setStartPage(pages);
+            stripper.setEndPage(pages);
+            String lastPage = stripper.getText(document);
+            assertTrue(lastPage.contains(pages + " / " + pages), "Footer of the last page: " + lastPage);
+
+            PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
+            assertNotNull(outline);
+            assertEquals("Full document sample demo", outline.getFirstChild().getTitle());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.eventbus.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("sse")
+class ReconnectAdvisorTest {
+
+    /** nextDouble() of 0: no jitter. */
+    private static final RandomGenerator NO_JITTER = () -> 0L;
+
+    /** nextDouble() close to 1: the whole jitter. */
+    private static final RandomGenerator FULL_JITTER = () -> -1L;
+
+    private static ReconnectAdvisor.Settings settings(double jitter) {
+        return new ReconnectAdvisor.Settings(Duration.ofSeconds(1), Duration.ofSeconds(21), jitter, 100, 10, 1.5);
+    }
+
+    @Test
+    void testDelayGrowsWithTheLoad() {
+        ReconnectAdvisor advisor = new ReconnectAdvisor(settings(0.5), NO_JITTER);
+
+        assertEquals(1000, advisor.delayMillis(advisor.load(0, 0)));
+        assertEquals(11_000, advisor.delayMillis(advisor.load(50, 2)));
+        // The generations weigh more than the streams here
+        assertEquals(15_000, advisor.delayMillis(advisor.load(10, 7)));
+        assertEquals(21_000, advisor.delayMillis(advisor.load(300, 0)));
+    }
+
+    @Test
+    void testJitterSpreadsTheDelayBelowTheAdvisedOne() {
+        assertEquals(11_000, new ReconnectAdvisor(settings(0.5), NO_JITTER).jitteredDelayMillis(0.5));
+        assertEquals(5500, new ReconnectAdvisor(settings(0.5), FULL_JITTER).jitteredDelayMillis(0.5));
+        assertEquals(10_500, new ReconnectAdvisor(settings(0.5), FULL_JITTER).shedDelayMillis());
+    }
+
+    @Test
+    void testStreamsAreShedOverTheShedLoad() {
+        ReconnectAdvisor advisor = new ReconnectAdvisor(settings(0), NO_JITTER);
+
+        assertFalse(advisor.shed(advisor.load(149, 14)));
+        assertTrue(advisor.shed(advisor.load(150, 0)));
+        assertTrue(advisor.shed(advisor.load(0, 15)));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectAdvisor.Settings(
+                Duration.ofSeconds(2), Duration.ofSeconds(1), 0.5, 100, 10, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectAdvisor.Settings(
+                Duration.ofSeconds(1), Duration.ofSeconds(2), 1, 100, 10, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectAdvisor.Settings(
+                Duration.ofSeconds(1), Duration.ofSeconds(2), 0.5, 0, 10, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectAdvisor.Settings(
+                Duration.ofSeconds(1), Duration.ofSeconds(2), 0.5, 100, 10, 0));
+    }
+}
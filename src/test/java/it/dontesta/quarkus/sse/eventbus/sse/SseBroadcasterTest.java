@@ -4,10 +4,13 @@
  */
 package it.dontesta.quarkus.sse.eventbus.sse;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
@@ -24,6 +27,8 @@ import io.quarkus.test.junit.QuarkusTest;
 import io.smallrye.mutiny.Multi;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
 import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationError;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import it.dontesta.quarkus.sse.jobs.JobStatus;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.sse.OutboundSseEvent;
 
@@ -42,6 +47,9 @@ class SseBroadcasterTest {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    JobStateStore jobStateStore;
+
     @Inject
     @ConfigProperty(name = "pdf.eventbus.destination.completed")
     String completedChannel;
@@ -220,4 +228,126 @@ class SseBroadcasterTest {
         assertEquals(processId, receivedData.processId());
         assertEquals(errorMessage, receivedData.errorMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConnectAdvisesTheReconnectionDelayFirst() throws Exception {
+        String processId = UUID.randomUUID().toString();
+        PdfGenerationCompleted completionEvent = new PdfGenerationCompleted(processId,
+                "/api/pdf/download/" + processId);
+
+        Multi<OutboundSseEvent> stream = sseBroadcaster.connect(processId, processId);
+
+        CopyOnWriteArrayList<OutboundSseEvent> receivedEvents = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        stream.subscribe().with(
+                receivedEvents::add,
+                Throwable::printStackTrace,
+                latch::countDown);
+
+        reactiveRedisDS.pubsub(String.class)
+                .publish(completedChannel, objectMapper.writeValueAsString(completionEvent))
+                .subscribe().with(count -> {}, err -> System.err.println("Redis publish error: " + err.getMessage()));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Stream should complete within 10 seconds");
+        assertEquals(2, receivedEvents.size());
+
+        // The browser sends the id back in Last-Event-ID when it reconnects
+        OutboundSseEvent retryEvent = receivedEvents.getFirst();
+        assertEquals(processId, retryEvent.getId());
+        assertTrue(retryEvent.isReconnectDelaySet());
+        assertTrue(retryEvent.getReconnectDelay() > 0);
+        assertEquals("PDF_COMPLETED", receivedEvents.get(1).getName());
+    }
+
+    @Test
+    void testCloseStreamsEndsTheOpenStreamsWithAReconnectionHint() throws Exception {
+        String processId = UUID.randomUUID().toString();
+
+        Multi<OutboundSseEvent> stream = sseBroadcaster.createStream(processId);
+
+        CopyOnWriteArrayList<OutboundSseEvent> receivedEvents = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        stream.subscribe().with(
+                receivedEvents::add,
+                Throwable::printStackTrace,
+                latch::countDown);
+
+        assertTrue(sseBroadcaster.closeStreams() >= 1);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Stream should complete within 10 seconds");
+        assertEquals(1, receivedEvents.size());
+
+        // No result: the client reconnects, after the hinted delay, to another replica
+        OutboundSseEvent retryEvent = receivedEvents.getFirst();
+        assertEquals(processId, retryEvent.getId());
+        assertTrue(retryEvent.isReconnectDelaySet());
+        assertTrue(retryEvent.getReconnectDelay() > 0);
+    }
+
+    @Test
+    void testDeliverLocallyEmitsToTheOpenStreamOfTheJob() throws Exception {
+        String processId = "app-1." + UUID.randomUUID();
+        String json = objectMapper.writeValueAsString(
+                new PdfGenerationCompleted(processId, "/api/pdf/download/" + processId));
+
+        // No stream of the job on this replica: the event is to be published on Redis
+        assertFalse(sseBroadcaster.deliverLocally(completedChannel, processId, json));
+
+        Multi<OutboundSseEvent> stream = sseBroadcaster.createStream(processId);
+
+        CopyOnWriteArrayList<OutboundSseEvent> receivedEvents = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        stream.subscribe().with(
+                receivedEvents::add,
+                Throwable::printStackTrace,
+                latch::countDown);
+
+        assertTrue(sseBroadcaster.deliverLocally(completedChannel, processId, json));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Stream should complete within 10 seconds");
+        assertEquals(1, receivedEvents.size());
+        assertEquals("PDF_COMPLETED", receivedEvents.getFirst().getName());
+        assertFalse(sseBroadcaster.deliverLocally("another-channel", processId, json));
+    }
+
+    /**
+     * An event delivered in-process is not published on Redis: a duplicate
+     * stream of the job opened afterwards resolves from the job state.
+     */
+    @Test
+    void testStreamOpenedAfterALocalDeliveryGetsTheFinalStateOfTheJob() throws Exception {
+        String processId = "app-1." + UUID.randomUUID();
+        String downloadUrl = "/api/pdf/download/" + processId;
+
+        CountDownLatch firstLatch = new CountDownLatch(1);
+        sseBroadcaster.createStream(processId).subscribe().with(
+                event -> {},
+                Throwable::printStackTrace,
+                firstLatch::countDown);
+        assertTrue(sseBroadcaster.deliverLocally(completedChannel, processId,
+                objectMapper.writeValueAsString(new PdfGenerationCompleted(processId, downloadUrl))));
+        assertTrue(firstLatch.await(10, TimeUnit.SECONDS), "Stream should complete within 10 seconds");
+
+        jobStateStore.markCompleted(processId, downloadUrl);
+        await().atMost(Duration.ofSeconds(5)).until(() -> jobStateStore.get(processId)
+                .await().atMost(Duration.ofSeconds(5))
+                .map(status -> status.state() == JobStatus.State.COMPLETED)
+                .orElse(false));
+
+        CopyOnWriteArrayList<OutboundSseEvent> receivedEvents = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        sseBroadcaster.createStream(processId).subscribe().with(
+                receivedEvents::add,
+                Throwable::printStackTrace,
+                latch::countDown);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Duplicate stream should complete within 10 seconds");
+        assertEquals(1, receivedEvents.size());
+        assertEquals("PDF_COMPLETED", receivedEvents.getFirst().getName());
+        assertEquals(downloadUrl, ((PdfGenerationCompleted) receivedEvents.getFirst().getData()).pdfUrl());
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.fjdoc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.fjdoc.DocSections.Section;
+
+@Tag("fj-doc")
+class DocSectionsTest {
+
+    @Test
+    void testRowsAreSlicedInEveryPart() {
+        List<Section> sections = DocSections.plan(2, 25, 10);
+
+        assertEquals(List.of(
+                new Section(0, 1, 0, 10, true, true, false),
+                new Section(1, 1, 10, 20, false, false, false),
+                new Section(2, 1, 20, 25, false, false, false),
+                new Section(3, 2, 0, 10, false, true, false),
+                new Section(4, 2, 10, 20, false, false, false),
+                new Section(5, 2, 20, 25, false, false, true)), sections);
+    }
+
+    @Test
+    void testEmptyPartsKeepOneSection() {
+        assertEquals(List.of(
+                new Section(0, 1, 0, 0, true, true, false),
+                new Section(1, 2, 0, 0, false, true, true)), DocSections.plan(2, 0, 10));
+    }
+
+    @Test
+    void testInvalidPlan() {
+        assertThrows(IllegalArgumentException.class, () -> DocSections.plan(0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> DocSections.plan(1, 10, 0));
+    }
+}
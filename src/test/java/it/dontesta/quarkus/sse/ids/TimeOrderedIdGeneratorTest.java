@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ids;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("ids")
+class TimeOrderedIdGeneratorTest {
+
+    private static final long NOW = Instant.parse("2025-06-01T10:15:30.123Z").toEpochMilli();
+
+    @Test
+    void testIdsAreVersion7AndCarryTheirCreationTime() {
+        UUID id = new TimeOrderedIdGenerator(() -> NOW).next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(Optional.of(Instant.ofEpochMilli(NOW)), TimeOrderedIdGenerator.timestamp(id));
+        assertEquals(Optional.empty(), TimeOrderedIdGenerator.timestamp(UUID.randomUUID()));
+    }
+
+    @Test
+    void testIdsOfAThreadAreStrictlyIncreasingWithinAMillisecond() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW);
+
+        UUID previous = generator.next();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = generator.next();
+            assertTrue(next.toString().compareTo(previous.toString()) > 0, previous + " then " + next);
+            previous = next;
+        }
+        // Past 4095 ids in a millisecond the thread moves on to the next ones
+        assertTrue(TimeOrderedIdGenerator.timestamp(previous).orElseThrow().toEpochMilli() > NOW);
+    }
+
+    @Test
+    void testClockGoingBackDoesNotMoveTheIdsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+
+        UUID before = generator.next();
+        clock.set(NOW - 1_000);
+        UUID after = generator.next();
+
+        assertTrue(after.compareTo(before) > 0);
+        assertEquals(Optional.of(Instant.ofEpochMilli(NOW)), TimeOrderedIdGenerator.timestamp(after));
+    }
+
+    @Test
+    void testGeneratorsAreChosenByName() {
+        assertEquals(7, IdGenerator.of(IdGenerator.TIME_ORDERED).next().version());
+        assertEquals(4, IdGenerator.of(IdGenerator.RANDOM).next().version());
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.of("sequential"));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("rate-limit")
+class LocalTokenLeasesTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final LocalTokenLeases leases = new LocalTokenLeases(Duration.ofSeconds(1), clock::get);
+
+    @Test
+    void testNoLeaseAsksRedis() {
+        assertNull(leases.tryAcquire("ip:10.0.0.1"));
+    }
+
+    @Test
+    void testLeasedTokensAreSpentLocally() {
+        leases.grant("ip:10.0.0.1", 2, 10, 30, 40);
+
+        RateLimitDecision first = leases.tryAcquire("ip:10.0.0.1");
+        assertNotNull(first);
+        assertTrue(first.allowed());
+        assertEquals(30, first.limit());
+        assertEquals(11, first.remaining());
+        assertEquals(40, first.resetSeconds());
+
+        assertEquals(10, leases.tryAcquire("ip:10.0.0.1").remaining());
+        assertNull(leases.tryAcquire("ip:10.0.0.1"));
+    }
+
+    @Test
+    void testLeasesAreIsolatedPerClient() {
+        leases.grant("key:a", 1, 0, 3, 1);
+
+        assertNull(leases.tryAcquire("key:b"));
+        assertNotNull(leases.tryAcquire("key:a"));
+    }
+
+    @Test
+    void testExpiredLeaseIsDropped() {
+        leases.grant("ip:10.0.0.1", 5, 0, 30, 60);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertNull(leases.tryAcquire("ip:10.0.0.1"));
+        assertEquals(0, leases.size());
+    }
+
+    @Test
+    void testUnusedTokensOfAnExpiredLeaseAreReturnedOnce() {
+        leases.grant("ip:10.0.0.1", 5, 0, 30, 60);
+        leases.tryAcquire("ip:10.0.0.1");
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertNull(leases.tryAcquire("ip:10.0.0.1"));
+        assertEquals(4, leases.takeReturned("ip:10.0.0.1"));
+        assertEquals(0, leases.takeReturned("ip:10.0.0.1"));
+    }
+
+    @Test
+    void testTokensNotHandedBackAreKept() {
+        leases.giveBack("ip:10.0.0.1", 3);
+        leases.giveBack("ip:10.0.0.1", 2);
+
+        assertEquals(5, leases.takeReturned("ip:10.0.0.1"));
+    }
+
+    @Test
+    void testEmptyGrantClearsTheLease() {
+        leases.grant("ip:10.0.0.1", 5, 0, 30, 60);
+        leases.grant("ip:10.0.0.1", 0, 0, 30, 60);
+
+        assertNull(leases.tryAcquire("ip:10.0.0.1"));
+    }
+}
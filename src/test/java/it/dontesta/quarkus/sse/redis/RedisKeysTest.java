@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.redis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("redis")
+class RedisKeysTest {
+
+    @Test
+    void testSlotsMatchTheRedisCluster() {
+        // Values from the Redis Cluster specification and CLUSTER KEYSLOT
+        assertEquals(12739, RedisKeys.slot("123456789"));
+        assertEquals(12182, RedisKeys.slot("foo"));
+        assertEquals(RedisKeys.slot("foo"), RedisKeys.slot("bar{foo}baz"));
+    }
+
+    @Test
+    void testKeysOfAJobShareItsSlotInClusterMode() {
+        RedisKeys keys = new RedisKeys(true, 16);
+
+        String completed = keys.job("pending:completed:", "job-42");
+        String error = keys.job("pending:error:", "job-42");
+
+        assertEquals("pending:completed:{job-42}", completed);
+        assertEquals(RedisKeys.slot(completed), RedisKeys.slot(error));
+    }
+
+    @Test
+    void testChannelShardsSpreadOverTheSlots() {
+        RedisKeys keys = new RedisKeys(true, 16);
+
+        List<String> channels = keys.channels("pdf-generation-completed");
+
+        assertEquals(16, channels.size());
+        for (int shard = 0; shard < channels.size(); shard++) {
+            assertEquals(shard, RedisKeys.slot(channels.get(shard)) / (RedisKeys.SLOTS / 16));
+        }
+        assertTrue(channels.contains(keys.channel("pdf-generation-completed", "job-42")));
+    }
+
+    @Test
+    void testNamesAreUnchangedWithoutCluster() {
+        RedisKeys keys = new RedisKeys(false, 16);
+
+        assertEquals("pending:completed:job-42", keys.job("pending:completed:", "job-42"));
+        assertEquals("pdf-generation-completed", keys.channel("pdf-generation-completed", "job-42"));
+        assertEquals(List.of("pdf-generation-completed"), keys.channels("pdf-generation-completed"));
+    }
+
+    @Test
+    void testInvalidChannelShardsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RedisKeys(true, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RedisKeys(true, RedisKeys.MAX_CHANNEL_SHARDS + 1));
+    }
+}
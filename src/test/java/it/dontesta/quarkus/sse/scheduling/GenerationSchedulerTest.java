@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.scheduling;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.redis.datasource.ReactiveRedisDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+import it.dontesta.quarkus.sse.jobs.JobStateStore;
+import it.dontesta.quarkus.sse.jobs.JobStatus;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+@Tag("scheduling")
+@Tag("redis")
+class GenerationSchedulerTest {
+
+    @Inject
+    GenerationScheduler generationScheduler;
+
+    @Inject
+    JobStateStore jobStateStore;
+
+    @Inject
+    ReactiveRedisDataSource reactiveRedisDS;
+
+    @Test
+    void testHandedOffGenerationIsClaimedFromTheSchedules() {
+        String processId = UUID.randomUUID().toString();
+
+        generationScheduler.handOff(processId, DocFormat.HTML).await().atMost(Duration.ofSeconds(5));
+
+        // Notified on the hand-off channel: a replica, this one here, claims it right away and renders it
+        await().atMost(Duration.ofSeconds(15)).until(() -> jobStateStore.get(processId)
+                .await().atMost(Duration.ofSeconds(5))
+                .map(JobStatus::state)
+                .orElse(JobStatus.State.NOT_FOUND) == JobStatus.State.COMPLETED);
+        assertNull(reactiveRedisDS.sortedSet(String.class)
+                .zscore(GenerationScheduler.SCHEDULES_KEY, processId + "#" + DocFormat.HTML.param())
+                .await().atMost(Duration.ofSeconds(5)));
+    }
+}
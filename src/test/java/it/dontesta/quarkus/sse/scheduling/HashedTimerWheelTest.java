@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("scheduling")
+class HashedTimerWheelTest {
+
+    private HashedTimerWheel wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) {
+            wheel.close();
+        }
+    }
+
+    private static HashedTimerWheel newWheel(int wheelSize) {
+        return new HashedTimerWheel(Duration.ofMillis(10), wheelSize, Thread.ofPlatform().daemon().factory(),
+                Runnable::run);
+    }
+
+    @Test
+    void testTimeoutsExpireInDeadlineOrder() throws InterruptedException {
+        wheel = newWheel(8);
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        // 8 slots of 10 ms: the 250 ms timeout waits three rounds
+        wheel.schedule(() -> { fired.add("late"); done.countDown(); }, Duration.ofMillis(250));
+        wheel.schedule(() -> { fired.add("early"); done.countDown(); }, Duration.ofMillis(20));
+        wheel.schedule(() -> { fired.add("middle"); done.countDown(); }, Duration.ofMillis(90));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("early", "middle", "late"), fired);
+        assertEquals(0, wheel.pendingTimeouts());
+    }
+
+    @Test
+    void testTimeoutDoesNotExpireBeforeItsDelay() throws InterruptedException {
+        wheel = newWheel(4);
+        CountDownLatch done = new CountDownLatch(1);
+        long start = System.nanoTime();
+        HashedTimerWheel.Timeout timeout = wheel.schedule(done::countDown, Duration.ofMillis(150));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void testCancelledTimeoutNeverExpires() throws InterruptedException {
+        wheel = newWheel(16);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch witness = new CountDownLatch(1);
+        HashedTimerWheel.Timeout timeout = wheel.schedule(cancelled::countDown, Duration.ofMillis(50));
+        wheel.schedule(witness::countDown, Duration.ofMillis(100));
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertTrue(witness.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cancelled.getCount());
+        assertEquals(0, wheel.pendingTimeouts());
+    }
+
+    @Test
+    void testPastDeadlineExpiresAtNextTick() throws InterruptedException {
+        wheel = newWheel(8);
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(done::countDown, Duration.ofMillis(-100));
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testManyTimeoutsAllExpire() throws InterruptedException {
+        wheel = newWheel(64);
+        int count = 100_000;
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(done::countDown, Duration.ofMillis(i % 500));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testWheelSizeIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, HashedTimerWheel.bucketCount(1));
+        assertEquals(4, HashedTimerWheel.bucketCount(3));
+        assertEquals(512, HashedTimerWheel.bucketCount(512));
+        assertEquals(1024, HashedTimerWheel.bucketCount(513));
+        assertEquals(1 << 30, HashedTimerWheel.bucketCount((1 << 29) + 1));
+        assertEquals(1 << 30, HashedTimerWheel.bucketCount(1 << 30));
+    }
+
+    @Test
+    void testWheelSizeBeyondTheLargestPowerOfTwoIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> newWheel(0));
+        assertThrows(IllegalArgumentException.class, () -> newWheel((1 << 30) + 1));
+        assertThrows(IllegalArgumentException.class, () -> newWheel(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testScheduleAfterCloseIsRejected() {
+        wheel = newWheel(8);
+        wheel.close();
+
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> { }, Duration.ofMillis(10)));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+
+@Tag("storage")
+class DocumentJanitorTest {
+
+    private static final Instant CUTOFF = Instant.parse("2025-06-10T12:00:00Z");
+
+    // The object keys of the bucket, listed by the mocked client one level at a time
+    private final Set<String> keys = new TreeSet<>();
+    private final List<String> listedPrefixes = new ArrayList<>();
+
+    private DocumentJanitor janitor;
+
+    @BeforeEach
+    void setUp() {
+        janitor = new DocumentJanitor();
+        janitor.bucketName = "documents";
+        janitor.minioClient = mock(MinioClient.class);
+        janitor.deletedCounter = new SimpleMeterRegistry().counter("pdf.storage.janitor.deleted.total");
+        when(janitor.minioClient.listObjects(any(ListObjectsArgs.class)))
+                .thenAnswer(invocation -> list(invocation.getArgument(0, ListObjectsArgs.class).prefix()));
+        when(janitor.minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of());
+    }
+
+    /**
+     * @return a time-ordered processId minted at {@code instant}, with its UUIDv7
+     */
+    private static String mintedAt(String instant) {
+        long minted = Instant.parse(instant).toEpochMilli();
+        return "app-1." + new UUID(minted << 16 | 0x7000L, 0x8000_0000_0000_0001L);
+    }
+
+    private String store(String processId) {
+        String key = DocumentKeys.objectKey(processId, DocFormat.PDF);
+        keys.add(key);
+        return key;
+    }
+
+    private List<Result<Item>> list(String prefix) {
+        listedPrefixes.add(prefix);
+        Set<String> seen = new HashSet<>();
+        List<Result<Item>> results = new ArrayList<>();
+        for (String key : keys) {
+            if (!key.startsWith(prefix)) {
+                continue;
+            }
+            int slash = key.indexOf('/', prefix.length());
+            String name = slash < 0 ? key : key.substring(0, slash + 1);
+            if (seen.add(name)) {
+                Item item = mock(Item.class);
+                when(item.objectName()).thenReturn(name);
+                when(item.isDir()).thenReturn(slash >= 0);
+                results.add(new Result<>(item));
+            }
+        }
+        return results;
+    }
+
+    private Set<String> expired() {
+        Set<String> expired = new TreeSet<>();
+        janitor.expired(CUTOFF, expired::add);
+        return expired;
+    }
+
+    @Test
+    void testDocumentsMintedBeforeTheCutoffExpire() {
+        String dayBefore = store(mintedAt("2025-06-09T23:59:59.999Z"));
+        String justBefore = store(mintedAt("2025-06-10T11:59:59.999Z"));
+        store(mintedAt("2025-06-10T12:00:00Z"));
+        store(mintedAt("2025-06-10T12:00:00.001Z"));
+        store(mintedAt("2025-06-11T00:00:00Z"));
+
+        assertEquals(Set.of(dayBefore, justBefore), expired());
+    }
+
+    @Test
+    void testDocumentsWithinRetentionAreKept() {
+        store(mintedAt("2025-06-10T18:00:00Z"));
+        store(mintedAt("2025-07-01T00:00:00Z"));
+        store(mintedAt("2026-01-01T00:00:00Z"));
+
+        assertEquals(Set.of(), expired());
+        // Nothing after the day of the cutoff is even listed
+        assertEquals(List.of("", "2025/", "2025/06/", "2025/06/10/"), listedPrefixes);
+    }
+
+    @Test
+    void testEveryYearBeforeTheCutoffIsSweptWhateverTheGaps() {
+        String older = store(mintedAt("2021-03-01T10:00:00Z"));
+        String old = store(mintedAt("2023-12-31T23:59:59Z"));
+
+        assertEquals(Set.of(older, old), expired());
+    }
+
+    @Test
+    void testOnlyTheDatePrefixesAreSwept() {
+        // Stored without prefix: left to the bucket lifecycle rule
+        keys.add(UUID.randomUUID() + ".pdf");
+        keys.add("archive/2020/01/01/" + mintedAt("2020-01-01T00:00:00Z") + ".pdf");
+        keys.add("2020/1/01/" + mintedAt("2020-01-01T00:00:00Z") + ".pdf");
+        keys.add("2020/01/" + mintedAt("2020-01-01T00:00:00Z") + ".pdf");
+        // A day before the cutoff expires whole, whatever its processIds
+        String unordered = "2025/06/09/" + UUID.randomUUID() + ".pdf";
+        keys.add(unordered);
+        // On the day of the cutoff, the time of a processId that is not time-ordered is unknown
+        keys.add("2025/06/10/" + UUID.randomUUID() + ".pdf");
+
+        assertEquals(Set.of(unordered), expired());
+    }
+
+    @Test
+    void testSweepDeletesTheExpiredDocuments() {
+        store(mintedAt("2024-01-01T00:00:00Z"));
+        store(mintedAt("2025-06-01T00:00:00Z"));
+        store(mintedAt("2025-06-12T00:00:00Z"));
+
+        assertEquals(2, janitor.sweep(CUTOFF));
+        assertEquals(2, janitor.deletedCounter.count(), 0);
+    }
+}
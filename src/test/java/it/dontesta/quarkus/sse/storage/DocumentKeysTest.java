@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+
+@Tag("storage")
+class DocumentKeysTest {
+
+    @Test
+    void testTimeOrderedProcessIdsAreKeyedUnderTheUtcDayTheyWereMinted() {
+        long minted = Instant.parse("2025-06-01T23:59:59.999Z").toEpochMilli();
+        // UUIDv7: the 48 bits of the milliseconds, the version, then the IETF variant
+        String processId = "app-1." + new UUID(minted << 16 | 0x7000L, 0x8000_0000_0000_0001L);
+
+        assertEquals("2025/06/01/" + processId + ".pdf", DocumentKeys.objectKey(processId, DocFormat.PDF));
+        assertEquals("2025/06/01/" + processId + ".md", DocumentKeys.objectKey(processId, DocFormat.MARKDOWN));
+    }
+
+    @Test
+    void testOtherProcessIdsAreKeyedWithoutPrefix() {
+        String processId = UUID.randomUUID().toString();
+
+        assertEquals(processId + ".html", DocumentKeys.objectKey(processId, DocFormat.HTML));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.tracing;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.mutiny.core.eventbus.EventBus;
+import it.dontesta.quarkus.sse.eventbus.codec.PdfGenerationRequestCodec;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationCompleted;
+import it.dontesta.quarkus.sse.eventbus.model.PdfGenerationRequest;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+@Tag("tracing")
+@Tag("eventbus")
+@Tag("redis")
+class TracePropagationTest {
+
+    @Inject
+    TracePropagation tracePropagation;
+
+    @Inject
+    InMemorySpanExporter spanExporter;
+
+    @Inject
+    Tracer tracer;
+
+    @Inject
+    EventBus eventBus;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    @ConfigProperty(name = "pdf.eventbus.destination.requests")
+    String requestsDestination;
+
+    @Inject
+    @ConfigProperty(name = "pdf.generation.delay.max-seconds")
+    long maxDelayInSeconds;
+
+    @Test
+    void testPayloadRoundTrip() throws Exception {
+        Span span = tracer.spanBuilder("test.payload").startSpan();
+        ObjectNode payload = objectMapper.valueToTree(new PdfGenerationCompleted("id", "/api/pdf/download/id"));
+
+        tracePropagation.inject(Context.current().with(span), payload);
+        span.end();
+        assertTrue(payload.has(TracePropagation.PAYLOAD_FIELD));
+
+        SpanContext extracted = Span.fromContext(tracePropagation.extractAndStrip(payload)).getSpanContext();
+        assertFalse(payload.has(TracePropagation.PAYLOAD_FIELD));
+        assertEquals(span.getSpanContext().getTraceId(), extracted.getTraceId());
+        assertEquals(span.getSpanContext().getSpanId(), extracted.getSpanId());
+        assertTrue(extracted.isRemote());
+        assertEquals("id", objectMapper.treeToValue(payload, PdfGenerationCompleted.class).processId());
+    }
+
+    @Test
+    void testTraceFollowsTheWholePipeline() {
+        Span requestSpan = tracer.spanBuilder("test.request").startSpan();
+        String traceId = requestSpan.getSpanContext().getTraceId();
+
+        eventBus.publish(
+                requestsDestination,
+                new PdfGenerationRequest(UUID.randomUUID().toString()),
+                tracePropagation.inject(Context.current().with(requestSpan),
+                        new DeliveryOptions().setCodecName(PdfGenerationRequestCodec.CODEC_NAME)));
+        requestSpan.end();
+
+        Set<String> expected = Set.of("pdf.generate", "freemarker.process", "fop.render", "minio.putObject",
+                "redis.publish", "sse.deliver");
+        await().atMost(Duration.ofSeconds(maxDelayInSeconds + 15)).untilAsserted(() -> {
+            Set<String> spanNames = spanExporter.getFinishedSpanItems().stream()
+                    .filter(span -> span.getTraceId().equals(traceId))
+                    .map(SpanData::getName)
+                    .collect(Collectors.toSet());
+            assertTrue(spanNames.containsAll(expected), "Spans of the trace: " + spanNames);
+        });
+    }
+}
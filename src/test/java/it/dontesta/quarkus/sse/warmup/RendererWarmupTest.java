@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2025 Antonio Musarra's Blog.
+ * SPDX-License-Identifier: MIT
+ */
+package it.dontesta.quarkus.sse.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import it.dontesta.quarkus.sse.fjdoc.DocChainIds;
+import it.dontesta.quarkus.sse.fjdoc.DocFormat;
+
+@Tag("fj-doc")
+class RendererWarmupTest {
+
+    @Test
+    void testEveryChainIsRenderedInEveryFormat() {
+        List<String> chainIds = DocChainIds.renderable();
+
+        int documents = new RendererWarmup().warmUp(chainIds, 2);
+
+        assertEquals(2 * chainIds.size() * DocFormat.values().length, documents);
+    }
+}